@@ -9,7 +9,6 @@ import com.phonepe.sdk.pg.common.models.response.RefundStatusResponse;
 import com.phonepe.sdk.pg.payments.v2.StandardCheckoutClient;
 import com.phonepe.sdk.pg.payments.v2.models.request.StandardCheckoutPayRequest;
 import com.phonepe.sdk.pg.payments.v2.models.response.StandardCheckoutPayResponse;
-import com.sorted.commons.entity.mongo.Third_Party_Api;
 import com.sorted.commons.enums.ThirdPartyAPIType;
 import com.sorted.commons.helper.ThirdPartAPITraceHelper;
 import com.sorted.portal.enums.RequestType;
@@ -63,7 +62,7 @@ public class PhonePeUtility {
                 .redirectUrl(baseUrl + orderId)
                 .build();
 
-        Third_Party_Api register = thirdPartyRequestResponseService.register(standardCheckoutPayRequest, RequestType.PP_CREATE_ORDER);
+        ThirdPartyRequestResponseService.PendingCall register = thirdPartyRequestResponseService.register(standardCheckoutPayRequest, RequestType.PP_CREATE_ORDER);
 
         try {
             StandardCheckoutPayResponse response = client.pay(standardCheckoutPayRequest);
@@ -80,6 +79,12 @@ public class PhonePeUtility {
 
             thirdPartyRequestResponseService.registerException(register, message);
             return Optional.empty();
+        } catch (Exception e) {
+            // Timeouts and client errors still leave an audit record
+            logger.error("PhonePe order creation failed - Code: {}, Message: {}, Status: {}, OrderId: {}",
+                    "500", e.getMessage(), 500, orderId);
+            thirdPartyRequestResponseService.registerException(register, e.getMessage());
+            throw e;
         }
     }
 
@@ -133,7 +138,7 @@ public class PhonePeUtility {
     }
 
     public Optional<OrderStatusResponse> checkStatus(String orderId) {
-        Third_Party_Api register = thirdPartyRequestResponseService.register(orderId, RequestType.PP_CHECK_STATUS);
+        ThirdPartyRequestResponseService.PendingCall register = thirdPartyRequestResponseService.register(orderId, RequestType.PP_CHECK_STATUS);
 
         try {
             OrderStatusResponse response = client.getOrderStatus(orderId);
@@ -153,6 +158,7 @@ public class PhonePeUtility {
         } catch (Exception e) {
             logger.error("PhonePe status check failed - Code: {}, Message: {}, Status: {}, OrderId: {}",
                     "500", e.getMessage(), 500, orderId);
+            thirdPartyRequestResponseService.registerException(register, e.getMessage());
             throw new RuntimeException(e);
         }
     }
@@ -4,11 +4,42 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Limits how often the annotated endpoint can be called. Every annotated method gets its own buckets, one per key
+ * resolved by {@link #key()}, so a busy endpoint or client never throttles another one.
+ */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RateLimited {
-    // Note: The value here is not used as we configure rate limiting globally
-    // The actual rate limit is configured in application.properties (rate.limiter.requests.per.minute)
-    double value() default 5.0; // Default rate limit configured in application.properties
-} 
\ No newline at end of file
+
+    /**
+     * Requests allowed per {@link #window()} for each key. A value of 0 or less, the default, falls back to the
+     * per-minute limit configured in application.properties (rate.limiter.requests.per.minute).
+     */
+    double value() default 0;
+
+    long window() default 1;
+
+    TimeUnit unit() default TimeUnit.MINUTES;
+
+    KeyStrategy key() default KeyStrategy.CLIENT_IP;
+
+    /**
+     * SpEL expression evaluated against the method arguments (by parameter name) when {@link #key()} is
+     * {@link KeyStrategy#EXPRESSION}. The current request is available as {@code #request}.
+     */
+    String expression() default "";
+
+    enum KeyStrategy {
+        /** One bucket per client IP. */
+        CLIENT_IP,
+        /** One bucket per req_user_id header, falling back to the client IP when the header is missing. */
+        USER_ID,
+        /** A single bucket shared by every caller of the method. */
+        METHOD,
+        /** One bucket per value of {@link #expression()}. */
+        EXPRESSION
+    }
+}
@@ -0,0 +1,34 @@
+package com.sorted.portal.aspect;
+
+import com.sorted.portal.config.logging.RequestTrace;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the time spent in calls to external gateways (PhonePe, Porter) to the current {@link RequestTrace}.
+ * Only the methods that go over the network are matched, so helpers of the same classes that just read or write
+ * our own data are not counted as HTTP time.
+ */
+@Aspect
+@Component
+public class OutboundCallTimingAspect {
+
+    @Around("execution(* com.sorted.portal.PhonePe.PhonePeUtility.createOrder(..))"
+            + " || execution(* com.sorted.portal.PhonePe.PhonePeUtility.refund(..))"
+            + " || execution(* com.sorted.portal.PhonePe.PhonePeUtility.refundStatus(..))"
+            + " || execution(* com.sorted.portal.PhonePe.PhonePeUtility.checkStatus(..))"
+            + " || execution(* com.sorted.commons.utils.PorterUtility.getDeliveryQuote(..))"
+            + " || execution(* com.sorted.commons.utils.PorterUtility.createOrderForPickup(..))"
+            + " || execution(* com.sorted.commons.utils.PorterUtility.cancelOrder(..))"
+            + " || execution(* com.sorted.commons.utils.PorterUtility.getOrderStatus(..))")
+    public Object timeOutboundCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RequestTrace.recordHttp(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.sorted.portal.aspect;
+
+import com.sorted.commons.beans.UsersBean;
+import com.sorted.portal.security.PrincipalCache;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Routes {@code Users_Service.validateUserForActivity} through the {@link PrincipalCache}, and invalidates it when
+ * users, roles or sellers are written through the commons services, so none of the controllers has to know about
+ * the cache.
+ */
+@Aspect
+@Component
+public class PrincipalCacheAspect {
+
+    private final PrincipalCache principalCache;
+
+    public PrincipalCacheAspect(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @Around("execution(* com.sorted.commons.entity.service.Users_Service.validateUserForActivity(..))")
+    public Object resolvePrincipal(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object[] args = joinPoint.getArgs();
+        if (args.length == 0 || !(args[0] instanceof String userId)) {
+            return joinPoint.proceed();
+        }
+        String check = Arrays.stream(args, 1, args.length).map(PrincipalCacheAspect::keyPart)
+                .collect(Collectors.joining("|"));
+        PrincipalCache.Lookup lookup = principalCache.lookup(userId, check);
+        if (lookup.principal() != null) {
+            return lookup.principal();
+        }
+        Object resolved = joinPoint.proceed();
+        if (resolved instanceof UsersBean usersBean) {
+            lookup.store(usersBean);
+        }
+        return resolved;
+    }
+
+    @AfterReturning("target(com.sorted.commons.entity.service.Users_Service)"
+            + " && (execution(* update*(..)) || execution(* delete*(..)) || execution(* upsert*(..)))")
+    public void userChanged(JoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        if (args.length > 0 && args[0] instanceof String userId) {
+            principalCache.invalidate(userId);
+        } else {
+            principalCache.invalidateAll();
+        }
+    }
+
+    @AfterReturning("target(com.sorted.commons.entity.service.RoleService)"
+            + " && (execution(* update*(..)) || execution(* delete*(..)) || execution(* upsert*(..)))")
+    public void roleChanged() {
+        principalCache.invalidateAll();
+    }
+
+    @AfterReturning("target(com.sorted.commons.entity.service.Seller_Service)"
+            + " && (execution(* update*(..)) || execution(* delete*(..)) || execution(* upsert*(..)))")
+    public void sellerChanged(JoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        if (args.length > 0 && args[0] instanceof String sellerId) {
+            principalCache.invalidateSeller(sellerId);
+        } else {
+            principalCache.invalidateAll();
+        }
+    }
+
+    /**
+     * The activities arrive as a fresh varargs array on every call, so arrays are keyed by their elements rather than
+     * their identity.
+     */
+    private static String keyPart(Object arg) {
+        return arg instanceof Object[] array ? Arrays.deepToString(array) : String.valueOf(arg);
+    }
+}
@@ -1,42 +1,151 @@
 package com.sorted.portal.aspect;
 
 import com.sorted.portal.annotation.RateLimited;
-import com.sorted.portal.config.SlidingWindowRateLimiter;
+import com.sorted.portal.config.KeyedRateLimiter;
+import com.sorted.portal.config.SlidingWindowCounterRateLimiter;
+import com.sorted.portal.security.ClientIpResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Aspect
 @Component
 public class RateLimiterAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimiterAspect.class);
-    private final SlidingWindowRateLimiter rateLimiter;
+    private static final String METRIC_NAME = "portal.ratelimit.decisions";
+    private static final String GLOBAL_KEY = "global";
+
+    private final KeyedRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, EndpointLimiter> endpointLimiters = new ConcurrentHashMap<>();
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    @Value("${app.security.headers.user-id:req_user_id}")
+    private String userIdHeader;
 
     @Autowired
-    public RateLimiterAspect(SlidingWindowRateLimiter rateLimiter) {
+    public RateLimiterAspect(KeyedRateLimiter rateLimiter, MeterRegistry meterRegistry) {
         this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
     }
 
     @Around("@annotation(rateLimited)")
     public Object rateLimit(ProceedingJoinPoint joinPoint, RateLimited rateLimited) throws Throwable {
-        String methodName = joinPoint.getSignature().toShortString();
-        
-        if (rateLimiter.tryAcquire()) {
-            logger.debug("Rate limit check passed for method: {}", methodName);
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        EndpointLimiter endpointLimiter = endpointLimiters.computeIfAbsent(method,
+                m -> createEndpointLimiter(m, joinPoint.getSignature().toShortString(), rateLimited));
+        String key = resolveKey(joinPoint, method, rateLimited, endpointLimiter);
+        if (endpointLimiter.shared()) {
+            // The application-wide limiter is shared by endpoints, keep their buckets apart
+            key = endpointLimiter.endpoint() + ":" + key;
+        }
+
+        if (endpointLimiter.limiter().tryAcquire(key)) {
+            endpointLimiter.allowed().increment();
+            logger.debug("Rate limit check passed for method: {}", endpointLimiter.endpoint());
             return joinPoint.proceed();
         } else {
-            logger.warn("Rate limit exceeded for method: {}", methodName);
+            endpointLimiter.rejected().increment();
+            logger.warn("Rate limit exceeded for method: {}", endpointLimiter.endpoint());
             throw new ResponseStatusException(
                     HttpStatus.TOO_MANY_REQUESTS,
                     "Too many requests, please try again later."
             );
         }
     }
+
+    private EndpointLimiter createEndpointLimiter(Method method, String endpoint, RateLimited rateLimited) {
+        KeyedRateLimiter limiter;
+        if (rateLimited.value() <= 0) {
+            limiter = rateLimiter;
+        } else {
+            long windowMillis = rateLimited.unit().toMillis(rateLimited.window());
+            int maxRequests = (int) Math.floor(rateLimited.value());
+            if (maxRequests < 1) {
+                // Fractional limits such as 0.5/s become one request per stretched window
+                windowMillis = (long) Math.ceil(windowMillis / rateLimited.value());
+                maxRequests = 1;
+            }
+            limiter = new SlidingWindowCounterRateLimiter(maxRequests, windowMillis);
+            logger.info("Rate limiter for {}: {} requests per {} ms per {}", endpoint, maxRequests, windowMillis,
+                    rateLimited.key());
+        }
+
+        Expression expression = null;
+        if (rateLimited.key() == RateLimited.KeyStrategy.EXPRESSION) {
+            if (!StringUtils.hasText(rateLimited.expression())) {
+                throw new IllegalStateException("@RateLimited on " + method + " uses EXPRESSION without an expression");
+            }
+            expression = parser.parseExpression(rateLimited.expression());
+        }
+
+        Counter allowed = Counter.builder(METRIC_NAME)
+                .description("Rate limiter decisions per endpoint")
+                .tag("endpoint", endpoint)
+                .tag("outcome", "allowed")
+                .register(meterRegistry);
+        Counter rejected = Counter.builder(METRIC_NAME)
+                .description("Rate limiter decisions per endpoint")
+                .tag("endpoint", endpoint)
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        return new EndpointLimiter(endpoint, limiter, limiter == rateLimiter, expression, allowed, rejected);
+    }
+
+    private String resolveKey(ProceedingJoinPoint joinPoint, Method method, RateLimited rateLimited,
+                              EndpointLimiter endpointLimiter) {
+        HttpServletRequest request = currentRequest();
+        String key = switch (rateLimited.key()) {
+            case METHOD -> GLOBAL_KEY;
+            case CLIENT_IP -> request == null ? null : ClientIpResolver.resolve(request);
+            case USER_ID -> {
+                String userId = request == null ? null : request.getHeader(userIdHeader);
+                yield StringUtils.hasText(userId) ? userId : (request == null ? null : ClientIpResolver.resolve(request));
+            }
+            case EXPRESSION -> {
+                MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(joinPoint.getTarget(), method,
+                        joinPoint.getArgs(), parameterNameDiscoverer);
+                context.setVariable("request", request);
+                Object value = endpointLimiter.expression().getValue(context);
+                yield value == null ? null : value.toString();
+            }
+        };
+        return StringUtils.hasText(key) ? key : GLOBAL_KEY;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest();
+        }
+        return null;
+    }
+
+    private record EndpointLimiter(String endpoint, KeyedRateLimiter limiter, boolean shared, Expression expression,
+                                   Counter allowed, Counter rejected) {
+    }
 }
@@ -0,0 +1,17 @@
+package com.sorted.portal.assisting.beans;
+
+import com.sorted.commons.entity.mongo.Category_Master;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Sub category of the filter panel along with the number of products carrying each attribute.
+ */
+@Getter
+@Setter
+public class FacetSubCategory extends Category_Master.SubCategory {
+
+    private Map<String, Long> attribute_counts;
+}
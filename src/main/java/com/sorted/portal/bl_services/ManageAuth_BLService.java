@@ -58,7 +58,7 @@ public class ManageAuth_BLService {
 
 
     @PostMapping("/signin")
-    @RateLimited(value = 5.0) // 5 requests per second
+    @RateLimited
     public SEResponse signin(@RequestBody SERequest request) {
         try {
             LoginBean req = request.getGenericRequestDataObject(LoginBean.class);
@@ -81,7 +81,7 @@ public class ManageAuth_BLService {
     }
 
     @PostMapping("/verifyOtp")
-    @RateLimited(value = 5.0)
+    @RateLimited
     public SEResponse verifyOtp(@RequestBody SERequest request, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
         try {
             log.info("auth/verifyOtp:: API started!");
@@ -115,7 +115,7 @@ public class ManageAuth_BLService {
     }
 
     @PostMapping("/resendOtp")
-    @RateLimited(value = 5.0)
+    @RateLimited
     public SEResponse resendOtp(@RequestBody SERequest request) {
         try {
             log.info("auth/resendOtp:: API started!");
@@ -151,7 +151,7 @@ public class ManageAuth_BLService {
     }
 
     @PostMapping("/forgotPass")
-    @RateLimited(value = 5.0)
+    @RateLimited
     public SEResponse forgotPass(@RequestBody SERequest request) {
         try {
             ForgotPassBean req = request.getGenericRequestDataObject(ForgotPassBean.class);
@@ -189,7 +189,7 @@ public class ManageAuth_BLService {
     }
 
     @PostMapping("/forgotPass/verifyOtp")
-    @RateLimited(value = 5.0)
+    @RateLimited
     public SEResponse forgotpassVerifyOtp(@RequestBody SERequest request) {
         try {
             log.info("/forgotPass/verifyOtp:: API started!");
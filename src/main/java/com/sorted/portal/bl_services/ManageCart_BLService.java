@@ -25,6 +25,8 @@ import com.sorted.portal.request.beans.ApplyCouponBean;
 import com.sorted.portal.request.beans.CartCRUDBean;
 import com.sorted.portal.request.beans.CartFetchReqBean;
 import com.sorted.portal.response.beans.FetchCartV2;
+import com.sorted.portal.service.cart.CartMutationService;
+import com.sorted.portal.service.cart.PricedCartCache;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -48,6 +50,12 @@ import java.util.function.Predicate;
 @RequiredArgsConstructor
 public class ManageCart_BLService {
 
+    // Views of the priced cart cache; the bean views are suffixed with the address and name they were priced for
+    private static final String VIEW_SUMMARY = "summary";
+    private static final String VIEW_BADGE = "badge";
+    private static final String VIEW_BEAN = "bean|";
+    private static final String VIEW_BEAN_V2 = "bean-v2|";
+
     private final Cart_Service cart_Service;
     private final ProductService productService;
     private final Users_Service users_Service;
@@ -55,6 +63,8 @@ public class ManageCart_BLService {
     private final CouponUtility couponUtility;
     private final CartUtility cartUtility;
     private final ComboUtility comboUtility;
+    private final CartMutationService cartMutationService;
+    private final PricedCartCache pricedCartCache;
 
     @Value("${se.minimum-cart-value.in-paise:10000}")
     private long minCartValueInPaise;
@@ -74,42 +84,25 @@ public class ManageCart_BLService {
         if (!StringUtils.hasText(req_user_id)) {
             throw new AccessDeniedException();
         }
+        return pricedCartCache.get(req_user_id, VIEW_SUMMARY, () -> this.loadCart(req_user_id), this::summary);
+    }
 
-        // Use more efficient query with projection to get only needed fields
-        SEFilter cartFilter = new SEFilter(SEFilterType.AND);
-        cartFilter.addClause(WhereClause.eq(Cart.Fields.user_id, req_user_id));
-        cartFilter.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-
-        Cart cart = cart_Service.repoFindOne(cartFilter);
-        if (cart == null) {
-            cart = new Cart();
-            cart.setUser_id(req_user_id);
-            cart_Service.create(cart, req_user_id);
-
-            // Return early for empty cart to avoid unnecessary processing
-            return FetchCartV2.builder()
-                    .totalCount(0L)
-                    .totalAmount(BigDecimal.ZERO)
-                    .freeDeliveryDiff(CommonUtils.paiseToRupee(minCartValueInPaise))
-                    .deliveryFree(false)
-                    .savings(BigDecimal.ZERO)
-                    .minimumCartValue(CommonUtils.paiseToRupee(minCartValueInPaise))
-                    .build();
+    @GetMapping("/cart/v2/fetch")
+    public FetchCartV2 fetchV2(HttpServletRequest httpServletRequest) throws JsonProcessingException {
+        String req_user_id = httpServletRequest.getHeader("req_user_id");
+        if (!StringUtils.hasText(req_user_id)) {
+            throw new AccessDeniedException();
         }
+        return pricedCartCache.get(req_user_id, VIEW_BADGE, () -> this.loadCart(req_user_id), this::badge);
+    }
 
-        List<Item> cartItems = cart.getCart_items();
-        if (CollectionUtils.isEmpty(cartItems)) {
-            // Return early for empty cart
-            return FetchCartV2.builder()
-                    .totalCount(0L)
-                    .totalAmount(BigDecimal.ZERO)
-                    .freeDeliveryDiff(CommonUtils.paiseToRupee(minCartValueInPaise))
-                    .deliveryFree(false)
-                    .savings(BigDecimal.ZERO)
-                    .minimumCartValue(CommonUtils.paiseToRupee(minCartValueInPaise))
-                    .build();
+    /**
+     * Summary of {@code /v2/cart/fetch}, priced with {@link CartUtility#getCartBeanV2}.
+     */
+    private FetchCartV2 summary(Cart cart) throws JsonProcessingException {
+        if (CollectionUtils.isEmpty(cart.getCart_items())) {
+            return this.emptySummary();
         }
-
         CartBeanV2 cartBean = cartUtility.getCartBeanV2(cart);
         BillingSummary billingSummary = cartBean.getBillingSummary();
 
@@ -132,50 +125,17 @@ public class ManageCart_BLService {
                 .build();
     }
 
-    @GetMapping("/cart/v2/fetch")
-    public FetchCartV2 fetchV2(HttpServletRequest httpServletRequest) throws JsonProcessingException {
-        String req_user_id = httpServletRequest.getHeader("req_user_id");
-        if (!StringUtils.hasText(req_user_id)) {
-            throw new AccessDeniedException();
-        }
-
-        // Use more efficient query with projection to get only needed fields
-        SEFilter cartFilter = new SEFilter(SEFilterType.AND);
-        cartFilter.addClause(WhereClause.eq(Cart.Fields.user_id, req_user_id));
-        cartFilter.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-
-        Cart cart = cart_Service.repoFindOne(cartFilter);
-        if (cart == null) {
-            cart = new Cart();
-            cart.setUser_id(req_user_id);
-            cart_Service.create(cart, req_user_id);
-
-            // Return early for empty cart to avoid unnecessary processing
-            return FetchCartV2.builder()
-                    .totalCount(0L)
-                    .totalAmount(BigDecimal.ZERO)
-                    .freeDeliveryDiff(CommonUtils.paiseToRupee(minCartValueInPaise))
-                    .deliveryFree(false)
-                    .savings(BigDecimal.ZERO)
-                    .minimumCartValue(CommonUtils.paiseToRupee(minCartValueInPaise))
-                    .build();
-        }
-
-        List<Item> cartItems = cart.getCart_items();
-        if (CollectionUtils.isEmpty(cartItems)) {
-            // Return early for empty cart
-            return FetchCartV2.builder()
-                    .totalCount(0L)
-                    .totalAmount(BigDecimal.ZERO)
-                    .freeDeliveryDiff(CommonUtils.paiseToRupee(minCartValueInPaise))
-                    .deliveryFree(false)
-                    .savings(BigDecimal.ZERO)
-                    .minimumCartValue(CommonUtils.paiseToRupee(minCartValueInPaise))
-                    .build();
+    /**
+     * Header badge of {@code /cart/v2/fetch}, priced with {@link CartUtility#getCartBean}.
+     */
+    private FetchCartV2 badge(Cart cart) throws JsonProcessingException {
+        if (CollectionUtils.isEmpty(cart.getCart_items())) {
+            return this.emptySummary();
         }
+        return this.badge(cartUtility.getCartBean(cart));
+    }
 
-        CartBean cartBean = cartUtility.getCartBean(cart);
-
+    private FetchCartV2 badge(CartBean cartBean) {
         BigDecimal freeDeliveryDiff = BigDecimal.ZERO;
         boolean freeDelivery = cartBean.is_free_delivery();
         if (!freeDelivery) {
@@ -188,7 +148,6 @@ public class ManageCart_BLService {
 
         BigDecimal difference = cartBean.getItem_total_mrp().subtract(cartBean.getTotal_amount());
 
-
         return FetchCartV2.builder()
                 .totalCount(cartBean.getTotal_count()) // Use actual count of valid items
                 .totalAmount(cartBean.getTotal_amount())
@@ -199,6 +158,30 @@ public class ManageCart_BLService {
                 .build();
     }
 
+    private FetchCartV2 emptySummary() {
+        return FetchCartV2.builder()
+                .totalCount(0L)
+                .totalAmount(BigDecimal.ZERO)
+                .freeDeliveryDiff(CommonUtils.paiseToRupee(minCartValueInPaise))
+                .deliveryFree(false)
+                .savings(BigDecimal.ZERO)
+                .minimumCartValue(CommonUtils.paiseToRupee(minCartValueInPaise))
+                .build();
+    }
+
+    /**
+     * Loads the user's cart. Users who never added anything get an empty cart that is not saved, so browsing
+     * does not write; the cart is created by the first change through {@link CartMutationService}.
+     */
+    private Cart loadCart(String userId) {
+        SEFilter cartFilter = new SEFilter(SEFilterType.AND);
+        cartFilter.addClause(WhereClause.eq(Cart.Fields.user_id, userId));
+        cartFilter.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+
+        Cart cart = cart_Service.repoFindOne(cartFilter);
+        return cart != null ? cart : CartMutationService.emptyCart(userId);
+    }
+
     @PostMapping("/cart/clear")
     public CartBeanV2 clear(HttpServletRequest httpServletRequest) {
         try {
@@ -211,18 +194,11 @@ public class ManageCart_BLService {
                 default:
                     throw new CustomIllegalArgumentsException(ResponseCode.ACCESS_DENIED);
             }
-            SEFilter filterC = new SEFilter(SEFilterType.AND);
-            filterC.addClause(WhereClause.eq(Cart.Fields.user_id, req_user_id));
-            filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-
-            Cart cart = cart_Service.repoFindOne(filterC);
-            if (cart == null) {
-                cart = new Cart();
-                cart.setUser_id(req_user_id);
-                cart_Service.create(cart, req_user_id);
+            Cart cart = this.loadCart(req_user_id);
+            if (cart.getId() != null) {
+                cartMutationService.clear(cart.getId());
+                cart.setCart_items(new ArrayList<>());
             }
-            cart.setCart_items(new ArrayList<>());
-            cart_Service.update(cart.getId(), cart, req_user_id);
 
             return cartUtility.getCartBeanV2(cart);
         } catch (CustomIllegalArgumentsException ex) {
@@ -248,17 +224,9 @@ public class ManageCart_BLService {
                 default:
                     throw new CustomIllegalArgumentsException(ResponseCode.ACCESS_DENIED);
             }
-            SEFilter filterC = new SEFilter(SEFilterType.AND);
-            filterC.addClause(WhereClause.eq(Cart.Fields.user_id, usersBean.getId()));
-            filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-
-            Cart cart = cart_Service.repoFindOne(filterC);
-            if (cart == null) {
-                cart = new Cart();
-                cart.setUser_id(usersBean.getId());
-                cart = cart_Service.create(cart, usersBean.getId());
-            }
-            CartBean cartBean = cartUtility.getCartBean(cart, address_id, usersBean.getFirst_name() + " " + usersBean.getLast_name());
+            String name = usersBean.getFirst_name() + " " + usersBean.getLast_name();
+            CartBean cartBean = pricedCartCache.get(usersBean.getId(), VIEW_BEAN + address_id + "|" + name,
+                    () -> this.loadCart(usersBean.getId()), cart -> cartUtility.getCartBean(cart, address_id, name));
             return SEResponse.getBasicSuccessResponseObject(cartBean, ResponseCode.SUCCESSFUL);
         } catch (CustomIllegalArgumentsException ex) {
             throw ex;
@@ -283,17 +251,9 @@ public class ManageCart_BLService {
                 default:
                     throw new CustomIllegalArgumentsException(ResponseCode.ACCESS_DENIED);
             }
-            SEFilter filterC = new SEFilter(SEFilterType.AND);
-            filterC.addClause(WhereClause.eq(Cart.Fields.user_id, usersBean.getId()));
-            filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-
-            Cart cart = cart_Service.repoFindOne(filterC);
-            if (cart == null) {
-                cart = new Cart();
-                cart.setUser_id(usersBean.getId());
-                cart = cart_Service.create(cart, usersBean.getId());
-            }
-            return cartUtility.getCartBeanV2(cart, address_id, usersBean.getFirst_name() + " " + usersBean.getLast_name());
+            String name = usersBean.getFirst_name() + " " + usersBean.getLast_name();
+            return pricedCartCache.get(usersBean.getId(), VIEW_BEAN_V2 + address_id + "|" + name,
+                    () -> this.loadCart(usersBean.getId()), cart -> cartUtility.getCartBeanV2(cart, address_id, name));
         } catch (CustomIllegalArgumentsException ex) {
             throw ex;
         } catch (Exception e) {
@@ -323,44 +283,25 @@ public class ManageCart_BLService {
                 throw new CustomIllegalArgumentsException(ResponseCode.MISSING_PRODUCT_QUANTITY);
             }
 
-            Cart cart = fetchUserCart(usersBean.getId());
-
             CartAction cartAction = getCartAction(itemBean);
 
             boolean isCombo = comboUtility.isCombo(itemBean.getProduct_id());
-            Combo combo = null;
-            if (isCombo) {
-                combo = comboUtility.validateAndGetCombo(itemBean.getProduct_id());
-            }
-            List<Item> updatedCartItems;
-            switch (cartAction) {
-                case ADD_ONE:
-                    if (isCombo) {
-                        updatedCartItems = addOrRemoveOne(cart.getCart_items(), itemBean, combo, true);
-                    } else {
-                        Products product = fetchProduct(itemBean.getProduct_id());
-                        updatedCartItems = addOrRemove(cart.getCart_items(), itemBean, product, true);
-                    }
-                    break;
-                case REMOVE_ONE:
-                    if (isCombo) {
-                        updatedCartItems = addOrRemoveOne(cart.getCart_items(), itemBean, combo, false);
-                    } else {
-                        Products product = fetchProduct(itemBean.getProduct_id());
-                        updatedCartItems = addOrRemove(cart.getCart_items(), itemBean, product, false);
-                    }
-                    break;
-                default:
-                    if (isCombo) {
-                        updatedCartItems = removeComboItems(cart.getCart_items(), itemBean.getProduct_id());
-                    } else {
-                        updatedCartItems = removeProductItems(cart.getCart_items(), itemBean.getProduct_id());
-                    }
-                    break;
-            }
-
-            cart.setCart_items(updatedCartItems);
-            cart_Service.update(cart.getId(), cart, usersBean.getId());
+            Combo combo = isCombo ? comboUtility.validateAndGetCombo(itemBean.getProduct_id()) : null;
+            Products product = !isCombo && cartAction != CartAction.REMOVE_ALL
+                    ? fetchProduct(itemBean.getProduct_id())
+                    : null;
+
+            cartMutationService.mutate(usersBean.getId(), cartItems -> switch (cartAction) {
+                case ADD_ONE -> isCombo
+                        ? addOrRemoveOne(cartItems, itemBean, combo, true)
+                        : addOrRemove(cartItems, itemBean, product, true);
+                case REMOVE_ONE -> isCombo
+                        ? addOrRemoveOne(cartItems, itemBean, combo, false)
+                        : addOrRemove(cartItems, itemBean, product, false);
+                default -> isCombo
+                        ? removeComboItems(cartItems, itemBean.getProduct_id())
+                        : removeProductItems(cartItems, itemBean.getProduct_id());
+            });
 
         } catch (CustomIllegalArgumentsException ex) {
             throw ex;
@@ -401,68 +342,24 @@ public class ManageCart_BLService {
                 throw new CustomIllegalArgumentsException(ResponseCode.MISSING_PRODUCT_QUANTITY);
             }
 
-            SEFilter filterC = new SEFilter(SEFilterType.AND);
-            filterC.addClause(WhereClause.eq(Cart.Fields.user_id, usersBean.getId()));
-            filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-
-            Cart cart = cart_Service.repoFindOne(filterC);
-            if (cart == null) {
-                throw new CustomIllegalArgumentsException(ResponseCode.NO_RECORD);
-            }
-            if (CollectionUtils.isEmpty(cart.getCart_items())) {
-                cart.setCart_items(new ArrayList<>());
-            }
-
-            List<Item> listItems = new ArrayList<>();
-            if (itemBean.getQuantity() == 0) {
-                for (Item cartItem : cart.getCart_items()) {
-                    if (!cartItem.getProduct_id().equals(itemBean.getProduct_id()) || (cartItem.getProduct_id().equals(itemBean.getProduct_id()) && cartItem.is_secure() != itemBean.isSecure_item())) {
-                        listItems.add(cartItem);
-                    }
-                }
-            } else {
-
+            Products product = null;
+            if (itemBean.getQuantity() != 0) {
                 SEFilter filterP = new SEFilter(SEFilterType.AND);
                 filterP.addClause(WhereClause.eq(BaseMongoEntity.Fields.id, itemBean.getProduct_id()));
                 filterP.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
 
-                Products product = productService.repoFindOne(filterP);
+                product = productService.repoFindOne(filterP);
                 if (product == null) {
                     throw new CustomIllegalArgumentsException(ResponseCode.ITEM_NOT_FOUND);
                 }
-                long total_item = itemBean.getQuantity();
-
-                Predicate<Item> p1 = x -> x.getProduct_id().equals(itemBean.getProduct_id());
-                Predicate<Item> p2 = x -> x.is_secure() != itemBean.isSecure_item();
-                Optional<Item> optional = cart.getCart_items().stream().filter(p1.and(p2)).findFirst();
-                if (optional.isPresent()) {
-                    total_item += optional.get().getQuantity();
-                }
-                boolean is_secure_item = isIsSecureItem(product, total_item, itemBean);
-
-                Item item = new Item();
-                item.setProduct_id(product.getId());
-                item.setQuantity(itemBean.getQuantity());
-                item.setProduct_code(product.getProduct_code());
-                item.set_secure(is_secure_item);
-
-                listItems.add(item);
-                if (CollectionUtils.isEmpty(cart.getCart_items())) {
-                    cart.setCart_items(new ArrayList<>());
-                } else {
-                    Predicate<Item> p3 = x -> !x.getProduct_id().equals(item.getProduct_id());
-                    Predicate<Item> p4 = x -> x.is_secure() != is_secure_item;
-                    List<Item> list = cart.getCart_items().stream().filter(p3.or(p4)).toList();
-                    if (!CollectionUtils.isEmpty(list)) {
-                        listItems.addAll(list);
-                    }
-                }
             }
+            Products selectedProduct = product;
 
-            cart.setCart_items(listItems);
-            cart_Service.update(cart.getId(), cart, usersBean.getId());
+            Cart cart = cartMutationService.mutate(usersBean.getId(),
+                    cartItems -> setItemQuantity(cartItems, itemBean, selectedProduct));
 
             CartBean cartBean = cartUtility.getCartBean(cart);
+            pricedCartCache.put(usersBean.getId(), VIEW_BADGE, cart, this.badge(cartBean));
             return SEResponse.getBasicSuccessResponseObject(cartBean, ResponseCode.SUCCESSFUL);
         } catch (CustomIllegalArgumentsException ex) {
             throw ex;
@@ -473,6 +370,43 @@ public class ManageCart_BLService {
         }
     }
 
+    /**
+     * Sets the quantity of the item's product and secure flag to the requested quantity, removing it on zero.
+     */
+    private static List<Item> setItemQuantity(List<Item> cartItems, CartItemsBean itemBean, Products product) {
+        List<Item> listItems = new ArrayList<>();
+        if (itemBean.getQuantity() == 0) {
+            for (Item cartItem : cartItems) {
+                if (!cartItem.getProduct_id().equals(itemBean.getProduct_id()) || (cartItem.getProduct_id().equals(itemBean.getProduct_id()) && cartItem.is_secure() != itemBean.isSecure_item())) {
+                    listItems.add(cartItem);
+                }
+            }
+            return listItems;
+        }
+
+        long total_item = itemBean.getQuantity();
+
+        Predicate<Item> p1 = x -> x.getProduct_id().equals(itemBean.getProduct_id());
+        Predicate<Item> p2 = x -> x.is_secure() != itemBean.isSecure_item();
+        Optional<Item> optional = cartItems.stream().filter(p1.and(p2)).findFirst();
+        if (optional.isPresent()) {
+            total_item += optional.get().getQuantity();
+        }
+        boolean is_secure_item = isIsSecureItem(product, total_item, itemBean);
+
+        Item item = new Item();
+        item.setProduct_id(product.getId());
+        item.setQuantity(itemBean.getQuantity());
+        item.setProduct_code(product.getProduct_code());
+        item.set_secure(is_secure_item);
+
+        listItems.add(item);
+        Predicate<Item> p3 = x -> !x.getProduct_id().equals(item.getProduct_id());
+        Predicate<Item> p4 = x -> x.is_secure() != is_secure_item;
+        listItems.addAll(cartItems.stream().filter(p3.or(p4)).toList());
+        return listItems;
+    }
+
     @PostMapping("/cart/applyCoupon")
     public CartBeanV2 applyCoupon(@RequestBody ApplyCouponBean request, HttpServletRequest httpServletRequest) throws JsonProcessingException {
         CommonUtils.extractHeaders(httpServletRequest, request);
@@ -495,7 +429,7 @@ public class ManageCart_BLService {
 
         if (StringUtils.hasText(cart.getCouponCode())) {
             cart.setCouponCode(null);
-            cart_Service.update(cart.getId(), cart, usersBean.getId());
+            cartMutationService.setCouponCode(cart.getId(), null);
         }
 
         CartBeanV2 cartBeanV2 = cartUtility.getCartBeanV2(cart);
@@ -503,7 +437,7 @@ public class ManageCart_BLService {
         couponUtility.validateCouponAndThrowException(request.getCouponCode(), CommonUtils.rupeeToPaise(cartBeanV2.getBillingSummary().getToPay()), usersBean.getId(), cartBeanV2.isFreeDelivery());
 
         cart.setCouponCode(request.getCouponCode());
-        cart_Service.update(cart.getId(), cart, usersBean.getId());
+        cartMutationService.setCouponCode(cart.getId(), request.getCouponCode());
 
         return cartUtility.getCartBeanV2(cart);
     }
@@ -519,8 +453,7 @@ public class ManageCart_BLService {
         Cart cart = cart_Service.repoFindOne(filterC);
         Preconditions.check(cart != null, ResponseCode.NO_RECORD);
 
-        cart.setCouponCode(null);
-        cart_Service.update(cart.getId(), cart, usersBean.getId());
+        cartMutationService.setCouponCode(cart.getId(), null);
     }
 
     @GetMapping("/cart/getAllCoupons")
@@ -604,23 +537,6 @@ public class ManageCart_BLService {
         return is_secure_item;
     }
 
-    /**
-     * Fetches the user's cart or throws if not found.
-     */
-    private Cart fetchUserCart(String userId) {
-        SEFilter filterC = new SEFilter(SEFilterType.AND);
-        filterC.addClause(WhereClause.eq(Cart.Fields.user_id, userId));
-        filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-        Cart cart = cart_Service.repoFindOne(filterC);
-        if (cart == null) {
-            throw new CustomIllegalArgumentsException(ResponseCode.NO_RECORD);
-        }
-        if (CollectionUtils.isEmpty(cart.getCart_items())) {
-            cart.setCart_items(new ArrayList<>());
-        }
-        return cart;
-    }
-
     /**
      * Fetches the product or throws if not found.
      */
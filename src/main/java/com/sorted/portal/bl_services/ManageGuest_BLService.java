@@ -2,9 +2,7 @@ package com.sorted.portal.bl_services;
 
 import com.sorted.commons.beans.UsersBean;
 import com.sorted.commons.constants.Defaults;
-import com.sorted.commons.entity.mongo.Cart;
 import com.sorted.commons.entity.mongo.Users;
-import com.sorted.commons.entity.service.Cart_Service;
 import com.sorted.commons.entity.service.Users_Service;
 import com.sorted.commons.enums.ResponseCode;
 import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
@@ -28,9 +26,6 @@ public class ManageGuest_BLService {
     @Autowired
     private Users_Service users_Service;
 
-    @Autowired
-    private Cart_Service cart_Service;
-
     @Value("${se.guest.first_name}")
     private String guest_first_name;
 
@@ -51,10 +46,6 @@ public class ManageGuest_BLService {
 
             Users guest = users_Service.create(user, Defaults.AUTO);
 
-            Cart cart = new Cart();
-            cart.setUser_id(guest.getId());
-            cart_Service.create(cart, guest.getId());
-
             UsersBean usersBean = users_Service.validateAndGetUserInfo(guest.getId());
 
             setCookies(httpServletRequest, httpServletResponse, usersBean);
@@ -15,18 +15,22 @@ import com.sorted.commons.helper.AggregationFilter.SEFilterType;
 import com.sorted.commons.helper.AggregationFilter.WhereClause;
 import com.sorted.commons.helper.SERequest;
 import com.sorted.commons.helper.SEResponse;
-import com.sorted.commons.repository.mongo.ProductRepository;
 import com.sorted.commons.utils.ComboUtility;
 import com.sorted.commons.utils.CommonUtils;
 import com.sorted.portal.assisting.beans.config.*;
-import com.sorted.portal.request.beans.MetaDataReq;
 import com.sorted.portal.response.beans.Config;
 import com.sorted.portal.response.beans.MetaData;
 import com.sorted.portal.service.CategoryFilterService;
+import com.sorted.portal.service.HomeSectionQueryExecutor;
+import com.sorted.portal.service.HomeSectionQueryExecutor.Section;
+import com.sorted.portal.service.cache.RefreshAheadCache;
+import com.sorted.portal.service.cache.RefreshAheadCacheRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -36,6 +40,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -45,85 +50,72 @@ public class ManageMetaData_BLService {
     private final Category_MasterService categoryMasterService;
     private final Users_Service usersService;
     private final Product_Master_Service productMasterService;
-    private final ProductRepository productRepository;
     private final HomeConfigService homeConfigService;
     private final CategoryFilterService categoryFilterService;
     private final AssetsService assetsService;
     private final ComboService comboService;
     private final ComboUtility comboUtility;
+    private final HomeSectionQueryExecutor homeSectionQueryExecutor;
 
-    // Cache for /preferences response
-    private volatile Config preferencesCache = null;
-    private volatile long preferencesCacheTime = 0;
-    private static final long CACHE_TTL_MS = 3600000; // 1 hour TTL
+    private final RefreshAheadCacheRegistry cacheRegistry;
 
-    // Cache for /getMetaData response
-    private volatile SEResponse metaDataCache = null;
-    private volatile long metaDataCacheTime = 0;
+    // Neither response depends on the caller, so each cache holds a single entry
+    private static final String CACHE_KEY = "all";
 
+    @Value("${se.cache.refresh-after-ms:3000000}")
+    private long refreshAfterMs;
+    @Value("${se.cache.expire-after-ms:3600000}")
+    private long expireAfterMs;
+
+    private RefreshAheadCache<String, Preferences> preferencesCache;
+    private RefreshAheadCache<String, SEResponse> metaDataCache;
+
+    @PostConstruct
+    void initCaches() {
+        preferencesCache = cacheRegistry.create("preferences", refreshAfterMs, expireAfterMs);
+        metaDataCache = cacheRegistry.create("metadata", refreshAfterMs, expireAfterMs);
+    }
 
     @PostMapping("/cache/clear")
     public void clearCache() {
-        preferencesCache = null;
-        preferencesCacheTime = 0;
-        metaDataCache = null;
-        metaDataCacheTime = 0;
+        cacheRegistry.invalidateAll();
         log.info("All caches cleared successfully");
     }
 
+    /**
+     * Built preferences, {@code complete} unless a home section came back empty because its query failed or timed
+     * out. Incomplete preferences are served but not cached, so the next request or refresh tries again.
+     */
+    private record Preferences(Config config, boolean complete) {
+    }
+
     @GetMapping("/preferences")
     public Config getPreferences() {
         log.info("getPreferences:: API started");
+        return preferencesCache.get(CACHE_KEY, this::buildPreferences, Preferences::complete).config();
+    }
 
-        // Check if cache is valid
-        if (preferencesCache != null && (System.currentTimeMillis() - preferencesCacheTime) < CACHE_TTL_MS) {
-            log.info("Returning cached preferences response");
-            return preferencesCache;
-        }
-
+    private Preferences buildPreferences() {
         List<Category_Master> categoryMasterData = categoryFilterService.getFilters();
 //        List<Category_Master> categoryMasterData = this.getCategoryMasterData();
 
-        HomeProductsBean.HomeProductsBeanBuilder homeProductsBeanBuilder = HomeProductsBean.builder();
-
         List<HomeConfig> homeConfigs = homeConfigService.repoFindAll();
 
-        List<HomeProductsBean> homeProductsBeans = new ArrayList<>();
-
+        // Fire every section query first, then assemble, so the build takes as long as the slowest query
+        List<CompletableFuture<Section>> carouselQueries = new ArrayList<>();
+        List<List<CompletableFuture<Section>>> groupQueries = new ArrayList<>();
         for (HomeConfig homeConfig : homeConfigs) {
-
             String categoryId = homeConfig.getCategoryId();
-            homeProductsBeanBuilder.mainBadge(homeConfig.getMainBadge())
-                    .mainTitle(homeConfig.getMainTitle())
-                    .mainSubtitle(homeConfig.getMainSubtitle())
-                    .categoryId(categoryId);
 
             SEFilter filter = new SEFilter(SEFilterType.AND);
             filter.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
             filter.addClause(WhereClause.eq(Products.Fields.category_id, categoryId));
             filter.addClause(WhereClause.isNotEmpty("media.cdn_url"));
             filter.addClause(WhereClause.eq(Products.Fields.seller_id, "68711a63a2dcdf55ed170972"));
+            carouselQueries.add(homeSectionQueryExecutor.randomProducts(filter, 7));
 
-            List<Products> randomProducts = productRepository.getRandomProducts(filter, 7);
-
-            ProductCarousel productCarousel = homeConfig.getProductCarousel();
-
-            List<ProductBean> productBeans = getProductBeans(randomProducts);
-
-
-            ProductCarouselBean productCarouselBean = ProductCarouselBean.builder()
-                    .title(productCarousel.getTitle())
-                    .subtitle(productCarousel.getSubtitle())
-                    .products(productBeans)
-                    .build();
-
-            homeProductsBeanBuilder.productCarousel(productCarouselBean);
-
-            List<GroupComponent> groupComponent = homeConfig.getGroupComponent();
-
-            List<GroupComponentBean> groupComponentBeans = new ArrayList<>();
-
-            for (GroupComponent group : groupComponent) {
+            List<CompletableFuture<Section>> queries = new ArrayList<>();
+            for (GroupComponent group : homeConfig.getGroupComponent()) {
                 SEFilter filterPM = new SEFilter(SEFilterType.AND);
                 filterPM.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
                 filterPM.addClause(WhereClause.eq(Products.Fields.category_id, categoryId));
@@ -140,18 +132,53 @@ public class ManageMetaData_BLService {
                         }
                     }
                 }
+                queries.add(homeSectionQueryExecutor.randomProducts(filterPM, 7));
+            }
+            groupQueries.add(queries);
+        }
+        boolean complete = true;
+
+        List<HomeProductsBean> homeProductsBeans = new ArrayList<>();
+
+        for (int i = 0; i < homeConfigs.size(); i++) {
+            HomeConfig homeConfig = homeConfigs.get(i);
+
+            ProductCarousel productCarousel = homeConfig.getProductCarousel();
+
+            Section carousel = carouselQueries.get(i).join();
+            complete &= !carousel.degraded();
+            List<ProductBean> productBeans = getProductBeans(carousel.products());
 
-                List<Products> products = productRepository.getRandomProducts(filterPM, 7);
+            ProductCarouselBean productCarouselBean = ProductCarouselBean.builder()
+                    .title(productCarousel.getTitle())
+                    .subtitle(productCarousel.getSubtitle())
+                    .products(productBeans)
+                    .build();
+
+            List<GroupComponent> groupComponent = homeConfig.getGroupComponent();
+            List<CompletableFuture<Section>> queries = groupQueries.get(i);
 
+            List<GroupComponentBean> groupComponentBeans = new ArrayList<>();
+
+            for (int j = 0; j < groupComponent.size(); j++) {
+                GroupComponent group = groupComponent.get(j);
+                Section section = queries.get(j).join();
+                complete &= !section.degraded();
                 GroupComponentBean groupComponentBean = GroupComponentBean.builder()
                         .groupId(group.getId())
                         .title(group.getTitle())
                         .filters(group.getFilters())
-                        .products(getProductBeans(products))
+                        .products(getProductBeans(section.products()))
                         .build();
                 groupComponentBeans.add(groupComponentBean);
             }
-            HomeProductsBean homeProductsBean = homeProductsBeanBuilder.groupComponent(groupComponentBeans)
+            HomeProductsBean homeProductsBean = HomeProductsBean.builder()
+                    .mainBadge(homeConfig.getMainBadge())
+                    .mainTitle(homeConfig.getMainTitle())
+                    .mainSubtitle(homeConfig.getMainSubtitle())
+                    .categoryId(homeConfig.getCategoryId())
+                    .productCarousel(productCarouselBean)
+                    .groupComponent(groupComponentBeans)
                     .combo(false)
                     .build();
             homeProductsBeans.add(homeProductsBean);
@@ -222,15 +249,15 @@ public class ManageMetaData_BLService {
                 .homeProducts(homeProductsBeans)
                 .assets(assets)
                 .build();
-
-        // Update cache
-        preferencesCache = config;
-        preferencesCacheTime = System.currentTimeMillis();
-        log.info("Preferences response cached");
-
-        return config;
+        if (complete) {
+            log.info("Preferences response cached");
+        } else {
+            log.warn("Preferences built with degraded home sections, not caching them");
+        }
+        return new Preferences(config, complete);
     }
 
+
     @NotNull
     private static List<ProductBean> getProductBeans(List<Products> randomProducts) {
         List<ProductBean> productBeans = new ArrayList<>();
@@ -255,15 +282,10 @@ public class ManageMetaData_BLService {
     public SEResponse getMetaData(@RequestBody SERequest request) {
 
         log.info("getMetaData:: API started");
+        return metaDataCache.get(CACHE_KEY, this::buildMetaData);
+    }
 
-        // Check if cache is valid
-        if (metaDataCache != null && (System.currentTimeMillis() - metaDataCacheTime) < CACHE_TTL_MS) {
-            log.info("Returning cached metadata response");
-            return metaDataCache;
-        }
-
-        MetaDataReq req = request.getGenericRequestDataObject(MetaDataReq.class);
-        List<String> ids = req.getIds();
+    private SEResponse buildMetaData() {
         MetaData data = new MetaData();
 
         List<Category_Master> categoryMasterData = this.getCategoryMasterData();
@@ -276,16 +298,8 @@ public class ManageMetaData_BLService {
             data.setProducts(listPM);
         }
         data.setUpdated_at(LocalDateTime.now());
-
-        log.info("getMetaData:: API ended");
-        SEResponse response = SEResponse.getBasicSuccessResponseObject(data, ResponseCode.SUCCESSFUL);
-
-        // Update cache
-        metaDataCache = response;
-        metaDataCacheTime = System.currentTimeMillis();
         log.info("Metadata response cached");
-
-        return response;
+        return SEResponse.getBasicSuccessResponseObject(data, ResponseCode.SUCCESSFUL);
     }
 
     private List<Product_Master> getProductMasters() {
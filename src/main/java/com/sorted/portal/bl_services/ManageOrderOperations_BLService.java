@@ -22,6 +22,7 @@ import com.sorted.commons.utils.Preconditions;
 import com.sorted.portal.request.beans.CompleteRefundBean;
 import com.sorted.portal.response.beans.OrderItemsForOperations;
 import com.sorted.portal.response.beans.OrdersForOperationsBean;
+import com.sorted.portal.service.settlement.SettlementRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.scheduling.annotation.Async;
@@ -50,6 +51,7 @@ public class ManageOrderOperations_BLService {
     private final PorterUtility porterUtility;
     private final CouponService couponService;
     private final CouponUtility couponUtility;
+    private final SettlementRollupService settlementRollupService;
 
     @GetMapping("/fetch/rejected-orders")
     public List<OrdersForOperationsBean> fetchRejectedOrders() {
@@ -94,11 +96,17 @@ public class ManageOrderOperations_BLService {
                 // TODO: send email for refund completion
             }
             case DELIVERY_FAILED -> {
+                SettlementRollupService.Contribution before = settlementRollupService.contributionOf(order);
                 order.setStatus(OrderStatus.DELIVERY_FAILED, request.userName());
                 orderDetailsService.update(order.getId(), order, request.userName());
+                settlementRollupService.applyChange(order, before);
             }
             case ORDER_CANCELLED -> {
+                SettlementRollupService.Contribution before = settlementRollupService.contributionOf(order);
                 porterUtility.cancelOrder(order, request.userName());
+                // cancelOrder persists the cancellation itself, so diff against the stored order
+                Order_Details cancelled = orderDetailsService.findById(order.getId()).orElse(order);
+                settlementRollupService.applyChange(cancelled, before);
             }
             default -> throw new CustomIllegalArgumentsException(ResponseCode.INVALID_ORDER_STATUS);
         }
@@ -125,6 +133,7 @@ public class ManageOrderOperations_BLService {
         order.setStatus(OrderStatus.ORDER_ACCEPTED, request.userName());
 
         Order_Details orderDetails = orderDetailsService.create(order, request.userName());
+        settlementRollupService.applyChange(orderDetails, SettlementRollupService.Contribution.NONE);
 
         orderItems.forEach(e -> createOrderItem(request, e, orderDetails));
     }
@@ -12,6 +12,7 @@ import com.sorted.portal.response.beans.FindOneOrderResBean;
 import com.sorted.portal.service.order.OrderProcessingService;
 import com.sorted.portal.service.order.OrderSearchService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -126,15 +127,18 @@ public class ManageOrder_BLService {
      * Generates an Excel report of orders based on search criteria.
      * The report contains two sheets: one for orders and one for order items.
      *
-     * @param request            The search request containing filter criteria
-     * @param httpServletRequest The HTTP servlet request
-     * @return A response containing the generated Excel file as bytes
+     * The workbook is streamed to the response as an attachment, or 204 is returned when no order matches.
+     *
+     * @param request             The search request containing filter criteria
+     * @param httpServletRequest  The HTTP servlet request
+     * @param httpServletResponse The HTTP servlet response the Excel file is written to
      */
     @PostMapping("/order/report")
-    public SEResponse report(@RequestBody SERequest request, HttpServletRequest httpServletRequest) {
+    public void report(@RequestBody SERequest request, HttpServletRequest httpServletRequest,
+                       HttpServletResponse httpServletResponse) {
         log.info("report:: API started for order report generation");
         FindOrderReqBean req = request.getGenericRequestDataObject(FindOrderReqBean.class);
-        return orderSearchService.generateOrderReport(req, httpServletRequest);
+        orderSearchService.generateOrderReport(req, httpServletRequest, httpServletResponse);
     }
 
 }
@@ -29,12 +29,16 @@ import com.sorted.portal.request.beans.BlankReqBean;
 import com.sorted.portal.request.beans.BulkEditProductReqBean;
 import com.sorted.portal.request.beans.FindProductBean;
 import com.sorted.portal.request.beans.RandomProductReqBean;
+import com.sorted.portal.response.beans.CursorResBean;
 import com.sorted.portal.response.beans.OrderItemReportsDTO;
 import com.sorted.portal.response.beans.OrderReportDTO;
 import com.sorted.portal.service.ExcelGenerationUtility;
 import com.sorted.portal.service.FileGeneratorUtil;
+import com.sorted.portal.service.KeysetPagination;
 import com.sorted.portal.service.NearestSellerService;
+import com.sorted.portal.service.ProductFacetIndex;
 import com.sorted.portal.service.StoreProductService;
+import com.sorted.portal.service.cart.PricedCartCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -61,6 +65,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ManageProduct_BLService {
 
+    private static final int REPORT_BATCH_SIZE = 500;
+
     private final ProductService productService;
     private final Cart_Service cart_Service;
     private final Varient_Mapping_Service varient_Mapping_Service;
@@ -81,6 +87,8 @@ public class ManageProduct_BLService {
     private final StoreProductService storeProductService;
     private final EducationCategoriesService educationCategoriesService;
     private final ComboUtility comboUtility;
+    private final ProductFacetIndex productFacetIndex;
+    private final PricedCartCache pricedCartCache;
 
     @Value("${se.store.allowed.categories:660194cde437f74a756be5f7,6858628aa520924ecbaa7ad5,687b6f241e9e6eb839f72cd5,687c94224323c53b054eafea}")
     private String allowedCategories;
@@ -270,6 +278,7 @@ public class ManageProduct_BLService {
                     .collect(Collectors.toList());
 
             productService.bulkCreate(listP, usersBean.getId());
+            productFacetIndex.upsert(listP);
 
             return SEResponse.getEmptySuccessResponse(ResponseCode.SUCCESSFUL);
         } catch (CustomIllegalArgumentsException ex) {
@@ -360,6 +369,7 @@ public class ManageProduct_BLService {
 
 
             Products create = productService.create(product, usersBean.getId());
+            productFacetIndex.upsert(create);
             return SEResponse.getBasicSuccessResponseObject(create, ResponseCode.SUCCESSFUL);
         } catch (CustomIllegalArgumentsException ex) {
             throw ex;
@@ -473,6 +483,8 @@ public class ManageProduct_BLService {
                 }
         );
         updatedProducts.forEach(product -> productService.update(product.getId(), product, usersBean.getId()));
+        productFacetIndex.upsert(updatedProducts);
+        pricedCartCache.invalidateProducts(productIds);
     }
 
     @PostMapping("/edit")
@@ -526,10 +538,19 @@ public class ManageProduct_BLService {
                               // filters
                               @RequestParam(required = false) String name,
                               @RequestParam(defaultValue = "${se.default.page}") int page,
-                              @RequestParam(defaultValue = "${se.default.size}") int size, HttpServletRequest httpServletRequest) {
+                              @RequestParam(defaultValue = "${se.default.size}") int size,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(defaultValue = "false") boolean use_cursor,
+                              HttpServletRequest httpServletRequest) {
         try {
             FindProductBean req = new FindProductBean();
             req.creatObj(filters, name, page, size);
+            req.setCursor(cursor);
+            req.setUse_cursor(use_cursor);
+            if (req.isCursorMode()) {
+                return SEResponse.getBasicSuccessResponseObject(findProductPage(httpServletRequest, req),
+                        ResponseCode.SUCCESSFUL);
+            }
             List<ProductDetailsBean> products = findProducts(httpServletRequest, req);
             return SEResponse.getBasicSuccessResponseList(products, ResponseCode.SUCCESSFUL);
         } catch (CustomIllegalArgumentsException ex) {
@@ -544,6 +565,10 @@ public class ManageProduct_BLService {
     public SEResponse find(@RequestBody SERequest request, HttpServletRequest httpServletRequest) {
         try {
             FindProductBean req = request.getGenericRequestDataObject(FindProductBean.class);
+            if (req.isCursorMode()) {
+                return SEResponse.getBasicSuccessResponseObject(findProductPage(httpServletRequest, req),
+                        ResponseCode.SUCCESSFUL);
+            }
             List<ProductDetailsBean> products = findProducts(httpServletRequest, req);
             return SEResponse.getBasicSuccessResponseList(products, ResponseCode.SUCCESSFUL);
         } catch (CustomIllegalArgumentsException ex) {
@@ -559,9 +584,12 @@ public class ManageProduct_BLService {
                        HttpServletResponse response) {
         try {
             FindProductBean req = request.getGenericRequestDataObject(FindProductBean.class);
-            List<ProductDetailsBean> products = findProducts(httpServletRequest, req);
+            CommonUtils.extractHeaders(httpServletRequest, req);
+            UsersBean usersBean = users_Service.validateUserForActivity(req.getReq_user_id(), Activity.PRODUCTS,
+                    Activity.INVENTORY_MANAGEMENT);
 
-            // Generate and send the report
+            // Products are read in batches while the workbook is written to the response
+            Iterator<ProductDetailsBean> products = this.streamProducts(req, usersBean, REPORT_BATCH_SIZE);
             ExcelGenerationUtility.generateExcelReport(products, ReportType.PRODUCT_DETAILED, response);
         } catch (CustomIllegalArgumentsException ex) {
             throw ex;
@@ -607,6 +635,72 @@ public class ManageProduct_BLService {
         return this.convertToBean(listP);
     }
 
+    /**
+     * Keyset paginated variant of {@link #findProducts}: returns one page and a continuation token for the next one.
+     * The total count is computed on the first page only and carried in the token.
+     */
+    private CursorResBean<ProductDetailsBean> findProductPage(HttpServletRequest httpServletRequest,
+                                                              FindProductBean req) throws JsonProcessingException {
+        CommonUtils.extractHeaders(httpServletRequest, req);
+        UsersBean usersBean = users_Service.validateUserForActivity(req.getReq_user_id(), Activity.PRODUCTS,
+                Activity.INVENTORY_MANAGEMENT);
+        if (!StringUtils.hasText(req.getCursor())) {
+            searchHistoryAsyncHelper.createSearchHistory(usersBean.getId(), usersBean.getRole().getUser_type_id(),
+                    this.createFilterForProductList(req, usersBean));
+        }
+        int size = req.getSize() < 1 ? defaultSize : req.getSize();
+        KeysetPagination.Page<Products> page = KeysetPagination.fetch(() -> this.productListFilter(req, usersBean),
+                productService::repoFind, productService::countByFilter, getProductSort(req.getSort_by()),
+                req.getCursor(), size);
+
+        return CursorResBean.<ProductDetailsBean>builder()
+                .list(this.convertToBean(page.items()))
+                .next_cursor(page.nextCursor())
+                .has_more(page.hasMore())
+                .total_count(page.totalCount())
+                .build();
+    }
+
+    /**
+     * Streams every product matching the request for internal callers such as exports. Products are read and
+     * converted in batches of {@code batchSize} as the iterator advances, so the full result is never held in memory.
+     */
+    public Iterator<ProductDetailsBean> streamProducts(FindProductBean req, UsersBean usersBean, int batchSize) {
+        return KeysetPagination.iterate(() -> this.productListFilter(req, usersBean), productService::repoFind,
+                getProductSort(req.getSort_by()), batchSize, this::convertToBean);
+    }
+
+    private SEFilter productListFilter(FindProductBean req, UsersBean usersBean) {
+        try {
+            return this.createFilterForProductList(req, usersBean);
+        } catch (JsonProcessingException e) {
+            log.error("productListFilter:: error occurred:: {}", e.getMessage());
+            throw new CustomIllegalArgumentsException(ResponseCode.ERR_0001);
+        }
+    }
+
+    /**
+     * Sort key for keyset pagination. Mirrors the sort_by values of {@link #createFilterForProductList} and
+     * defaults to newest first.
+     */
+    private static KeysetPagination.Sort<Products> getProductSort(String sortBy) {
+        if (!StringUtils.hasText(sortBy)) {
+            sortBy = "newest";
+        }
+        return switch (sortBy) {
+            case "price_low_to_high" ->
+                    new KeysetPagination.Sort<>(Products.Fields.selling_price, SortOrder.ASC, Products::getSelling_price);
+            case "price_high_to_low" ->
+                    new KeysetPagination.Sort<>(Products.Fields.selling_price, SortOrder.DESC, Products::getSelling_price);
+            case "newest" ->
+                    new KeysetPagination.Sort<>(BaseMongoEntity.Fields.creation_date, SortOrder.DESC, Products::getCreation_date);
+            case "oldest" ->
+                    new KeysetPagination.Sort<>(BaseMongoEntity.Fields.creation_date, SortOrder.ASC, Products::getCreation_date);
+            default ->
+                    new KeysetPagination.Sort<>(BaseMongoEntity.Fields.modification_date, SortOrder.DESC, Products::getModification_date);
+        };
+    }
+
     @PostMapping("/delete")
     public SEResponse delete(@RequestBody SERequest request, HttpServletRequest httpServletRequest) {
         try {
@@ -635,6 +729,8 @@ public class ManageProduct_BLService {
                 return SEResponse.getEmptySuccessResponse(ResponseCode.ALREADY_DELETED);
             }
             productService.deleteOne(product.getId(), usersBean.getId());
+            productFacetIndex.remove(product.getId());
+            pricedCartCache.invalidateProducts(List.of(product.getId()));
             return SEResponse.getEmptySuccessResponse(ResponseCode.PRODUCT_DELETED);
         } catch (CustomIllegalArgumentsException ex) {
             throw ex;
@@ -710,12 +806,7 @@ public class ManageProduct_BLService {
                     filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
 
                     Cart cart = cart_Service.repoFindOne(filterC);
-                    if (cart == null) {
-                        cart = new Cart();
-                        cart.setUser_id(usersBean.getId());
-                        cart = cart_Service.create(cart, usersBean.getId());
-                    }
-                    List<Item> cart_items = cart.getCart_items();
+                    List<Item> cart_items = cart == null ? null : cart.getCart_items();
                     CartDetailsBuilder cartDetailsBuilder = CartDetails.builder();
                     if (!CollectionUtils.isEmpty(cart_items)) {
                         Optional<Item> itemOptional = cart_items.stream().filter(item -> item.getProduct_id().equals(bean.getId())).findFirst();
@@ -745,12 +836,7 @@ public class ManageProduct_BLService {
                 filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
 
                 Cart cart = cart_Service.repoFindOne(filterC);
-                if (cart == null) {
-                    cart = new Cart();
-                    cart.setUser_id(usersBean.getId());
-                    cart = cart_Service.create(cart, usersBean.getId());
-                }
-                List<Item> cart_items = cart.getCart_items();
+                List<Item> cart_items = cart == null ? null : cart.getCart_items();
                 CartDetailsBuilder cartDetailsBuilder = CartDetails.builder();
                 if (!CollectionUtils.isEmpty(cart_items)) {
                     Predicate<Item> p1 = item -> item.getProduct_id().equals(product.getId());
@@ -1,5 +1,6 @@
 package com.sorted.portal.bl_services;
 
+import com.google.common.collect.Iterators;
 import com.sorted.commons.beans.SettlementDetails;
 import com.sorted.commons.beans.UsersBean;
 import com.sorted.commons.entity.mongo.BaseMongoEntity;
@@ -20,28 +21,38 @@ import com.sorted.commons.helper.SEResponse;
 import com.sorted.commons.utils.CommonUtils;
 import com.sorted.commons.utils.Preconditions;
 import com.sorted.commons.utils.SERegExpUtils;
+import com.sorted.portal.enums.SettlementProperties;
 import com.sorted.portal.request.beans.BlankReqBean;
 import com.sorted.portal.request.beans.FindSettlementBean;
 import com.sorted.portal.request.beans.SettlementReqBean;
+import com.sorted.portal.response.beans.CursorResBean;
 import com.sorted.portal.response.beans.FindSettlementResponse;
 import com.sorted.portal.response.beans.SettlementAnalyticsResponse;
+import com.sorted.portal.response.beans.SettlementExportDTO;
+import com.sorted.portal.service.FileGeneratorUtil;
+import com.sorted.portal.service.KeysetPagination;
+import com.sorted.portal.service.settlement.SettlementQueryService;
+import com.sorted.portal.service.settlement.SettlementRollupService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
-
-import static com.sorted.commons.enums.OrderStatus.*;
 
 @Slf4j
 @RestController
@@ -51,7 +62,20 @@ public class ManageSettlement_BLService {
     private final Users_Service usersService;
     private final File_Upload_Details_Service fileUploadDetailsService;
     private final Order_Details_Service orderDetailsService;
-    private final static int fee_percentage = 10;
+    private final SettlementRollupService settlementRollupService;
+    private final SettlementQueryService settlementQueryService;
+    private final static int fee_percentage = SettlementRollupService.FEE_PERCENTAGE;
+    private static final int EXPORT_BATCH_SIZE = 500;
+    private static final String SETTLEMENT_EXPORT_FILE_NAME = "settlements.csv";
+    private static final String HAS_MORE_HEADER = "X-Has-More";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    @Value("${se.settlement.find.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${se.settlement.find.legacy-limit:500}")
+    private int legacyLimit;
 
 
     @PostMapping("/settlement/analytics")
@@ -65,46 +89,19 @@ public class ManageSettlement_BLService {
             throw new AccessDeniedException();
         }
 
-        AggregationFilter.SEFilter filter = new AggregationFilter.SEFilter(AggregationFilter.SEFilterType.AND);
-        switch (usersBean.getRole().getUser_type()) {
-            case SELLER:
-                filter.addClause(AggregationFilter.WhereClause.eq(Order_Details.Fields.seller_id, usersBean.getSeller().getId()));
-            case SUPER_ADMIN:
-                break;
-            default:
-                throw new AccessDeniedException();
-        }
-        filter.addClause(AggregationFilter.WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-        filter.addClause(AggregationFilter.WhereClause.in(Order_Details.Fields.status_id, List.of(DELIVERED.getId(), OUT_FOR_DELIVERY.getId(),
-                READY_FOR_PICK_UP.getId(), RIDER_ASSIGNED.getId(), ORDER_ACCEPTED.getId())));
-
-        List<Order_Details> orderDetails = orderDetailsService.repoFind(filter);
-        if (CollectionUtils.isEmpty(orderDetails)) {
+        SettlementRollupService.Totals totals = settlementRollupService.totals(settlementSellerId(usersBean));
+        if (totals.orders() == 0) {
             return SEResponse.getEmptySuccessResponse(ResponseCode.NO_RECORD);
         }
 
-        // Split orders into paid and unpaid with a single pass
-        Map<Boolean, List<Order_Details>> ordersByPayoutStatus = orderDetails.stream()
-                .collect(Collectors.partitioningBy(order -> Boolean.TRUE.equals(order.getIs_payout_done())));
-
-        List<Order_Details> paidOrders = ordersByPayoutStatus.get(true);
-        List<Order_Details> unpaidOrders = ordersByPayoutStatus.get(false);
-
-        // Calculate earning and pendingRevenue directly with sum operations
-        BigDecimal paid = paidOrders.stream()
-                .map(order -> order.getSettlement_details().getAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal unpaid = unpaidOrders.stream()
-                .map(order -> CommonUtils.calculateFees(order.getTotal_items_cost(), 10).cost())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        SettlementAnalyticsResponse response = new SettlementAnalyticsResponse(paid, unpaid);
+        SettlementAnalyticsResponse response = new SettlementAnalyticsResponse(
+                CommonUtils.paiseToRupee(totals.paidPaise()), CommonUtils.paiseToRupee(totals.unpaidPaise()));
         return SEResponse.getBasicSuccessResponseObject(response, ResponseCode.SUCCESSFUL);
     }
 
     @PostMapping("/settlement/find")
-    public SEResponse find(@RequestBody SERequest request, HttpServletRequest httpServletRequest) {
+    public SEResponse find(@RequestBody SERequest request, HttpServletRequest httpServletRequest,
+                           HttpServletResponse httpServletResponse) {
         log.info("/settlement/find:: API started");
         FindSettlementBean req = request.getGenericRequestDataObject(FindSettlementBean.class);
         CommonUtils.extractHeaders(httpServletRequest, req);
@@ -114,46 +111,91 @@ public class ManageSettlement_BLService {
             throw new AccessDeniedException();
         }
 
-        AggregationFilter.SEFilter filter = new AggregationFilter.SEFilter(AggregationFilter.SEFilterType.AND);
-        switch (usersBean.getRole().getUser_type()) {
-            case SELLER:
-                filter.addClause(AggregationFilter.WhereClause.eq(Order_Details.Fields.seller_id, usersBean.getSeller().getId()));
-            case SUPER_ADMIN:
-                break;
-            default:
-                throw new AccessDeniedException();
+        SettlementQueryService.SettlementSearch search = new SettlementQueryService.SettlementSearch(
+                settlementSellerId(usersBean), req.getOrder_id(), req.getStatus());
+
+        if (req.isCursorMode()) {
+            int size = req.getSize() < 1 ? defaultPageSize : req.getSize();
+            KeysetPagination.Page<SettlementQueryService.SettlementRow> page =
+                    settlementQueryService.findPage(search, req.getCursor(), size);
+            CursorResBean<FindSettlementResponse> response = CursorResBean.<FindSettlementResponse>builder()
+                    .list(page.items().stream().map(this::toFindSettlementResponse).toList())
+                    .next_cursor(page.nextCursor())
+                    .has_more(page.hasMore())
+                    .total_count(page.totalCount())
+                    .build();
+            return SEResponse.getBasicSuccessResponseObject(response, ResponseCode.SUCCESSFUL);
         }
 
-        if (StringUtils.isNoneBlank(req.getOrder_id())) {
-            filter.addClause(AggregationFilter.WhereClause.like(Order_Details.Fields.code, req.getOrder_id()));
+        // Callers that do not page get the newest rows in the old list shape. The truncation is reported in headers,
+        // and the next cursor continues the listing in cursor mode; the full list is served by /settlement/export
+        KeysetPagination.Page<SettlementQueryService.SettlementRow> page =
+                settlementQueryService.findPage(search, null, legacyLimit);
+        httpServletResponse.setHeader(HAS_MORE_HEADER, String.valueOf(page.hasMore()));
+        httpServletResponse.setHeader(TOTAL_COUNT_HEADER, String.valueOf(page.totalCount()));
+        if (page.hasMore()) {
+            httpServletResponse.setHeader(NEXT_CURSOR_HEADER, page.nextCursor());
+            log.warn("/settlement/find:: {} settlements match, returning the newest {}; page with a cursor or use /settlement/export",
+                    page.totalCount(), legacyLimit);
         }
-        if (Objects.nonNull(req.getStatus())) {
-            filter.addClause(AggregationFilter.WhereClause.eq(Order_Details.Fields.is_payout_done, req.getStatus()));
+        List<FindSettlementResponse> responseList = page.items().stream().map(this::toFindSettlementResponse).toList();
+        if (CollectionUtils.isEmpty(responseList)) {
+            return SEResponse.getEmptySuccessResponse(ResponseCode.NO_RECORD);
         }
+        return SEResponse.getBasicSuccessResponseList(responseList, ResponseCode.SUCCESSFUL);
+    }
 
-        filter.addClause(AggregationFilter.WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-        filter.addClause(AggregationFilter.WhereClause.in(Order_Details.Fields.status_id, List.of(DELIVERED.getId(), OUT_FOR_DELIVERY.getId(),
-                READY_FOR_PICK_UP.getId(), RIDER_ASSIGNED.getId(), ORDER_ACCEPTED.getId())));
+    /**
+     * CSV of every settlement matching the same filters as {@link #find}, written to the response as rows are read.
+     */
+    @PostMapping("/settlement/export")
+    public void export(@RequestBody SERequest request, HttpServletRequest httpServletRequest,
+                       HttpServletResponse response) throws IOException {
+        log.info("/settlement/export:: API started");
+        FindSettlementBean req = request.getGenericRequestDataObject(FindSettlementBean.class);
+        CommonUtils.extractHeaders(httpServletRequest, req);
 
-        List<Order_Details> orderDetails = orderDetailsService.repoFind(filter);
-        if (CollectionUtils.isEmpty(orderDetails)) {
-            return SEResponse.getEmptySuccessResponse(ResponseCode.NO_RECORD);
+        UsersBean usersBean = usersService.validateUserForActivity(req, Permission.VIEW, Activity.SETTLEMENT);
+        if (usersBean == null) {
+            throw new AccessDeniedException();
         }
+        SettlementQueryService.SettlementSearch search = new SettlementQueryService.SettlementSearch(
+                settlementSellerId(usersBean), req.getOrder_id(), req.getStatus());
 
-        List<FindSettlementResponse> responseList = orderDetails.stream().map(order ->
-                FindSettlementResponse.builder()
-                        .orderId(order.getId())
-                        .orderCode(order.getCode())
-                        .amount(CommonUtils.paiseToRupee(order.getTotal_amount()))
-                        .feeAndCost(CommonUtils.calculateFees(order.getTotal_amount(), fee_percentage))
-                        .expectedPayoutDate(order.getOrder_status_history().stream()
-                                .filter(orderStatusHistory -> orderStatusHistory.getStatus().equals(ORDER_ACCEPTED))
-                                .findFirst().get().getModification_date().plusDays(7).toLocalDate().toString())
-                        .actualPayoutDate(Boolean.TRUE.equals(order.getIs_payout_done()) ? order.getSettlement_details().getTxnDate() : null)
-                        .status(Boolean.TRUE.equals(order.getIs_payout_done()))
-                        .build()
-        ).toList();
-        return SEResponse.getBasicSuccessResponseList(responseList, ResponseCode.SUCCESSFUL);
+        Iterator<SettlementQueryService.SettlementRow> rows = settlementQueryService.stream(search, EXPORT_BATCH_SIZE);
+        if (!rows.hasNext()) {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            return;
+        }
+        response.setContentType("text/csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=" + SETTLEMENT_EXPORT_FILE_NAME);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        Iterator<SettlementExportDTO> exportRows = Iterators.transform(rows, row -> new SettlementExportDTO(row, fee_percentage));
+        long written = FileGeneratorUtil.writeCsv(writer, exportRows, SettlementProperties.class);
+        writer.flush();
+        log.info("/settlement/export:: streamed {} rows", written);
+    }
+
+    private static String settlementSellerId(UsersBean usersBean) {
+        return switch (usersBean.getRole().getUser_type()) {
+            case SELLER -> usersBean.getSeller().getId();
+            case SUPER_ADMIN -> null;
+            default -> throw new AccessDeniedException();
+        };
+    }
+
+    private FindSettlementResponse toFindSettlementResponse(SettlementQueryService.SettlementRow row) {
+        return FindSettlementResponse.builder()
+                .orderId(row.orderId())
+                .orderCode(row.orderCode())
+                .amount(CommonUtils.paiseToRupee(row.totalAmount()))
+                .feeAndCost(CommonUtils.calculateFees(row.totalAmount(), fee_percentage))
+                .expectedPayoutDate(row.expectedPayoutDate() == null ? null : row.expectedPayoutDate().toString())
+                .actualPayoutDate(row.actualPayoutDate())
+                .status(row.paid())
+                .build();
     }
 
     @PostMapping("/settle")
@@ -248,12 +290,14 @@ public class ManageSettlement_BLService {
 
 
         SettlementDetails details = new SettlementDetails(settlementDetails);
+        SettlementRollupService.Contribution before = settlementRollupService.contributionOf(orderDetails);
 
         // Update order with settlement details
         orderDetails.setIs_payout_done(true);
         orderDetails.setSettlement_details(details);
 
         orderDetailsService.update(orderDetails.getId(), orderDetails, usersBean.getId());
+        settlementRollupService.applyChange(orderDetails, before);
         log.info("Settlement successful for order ID: {}", req.getOrderId());
         return SEResponse.getEmptySuccessResponse(ResponseCode.SUCCESSFUL);
     }
@@ -17,6 +17,7 @@ import com.sorted.commons.helper.AggregationFilter.SEFilter;
 import com.sorted.commons.helper.AggregationFilter.SEFilterType;
 import com.sorted.commons.helper.AggregationFilter.WhereClause;
 import com.sorted.commons.helper.SEResponse;
+import com.sorted.portal.service.order.OrderTransitionWriter;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
@@ -27,7 +28,6 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -38,6 +38,7 @@ public class ManageStoreActivity_BLService {
     private final Order_Details_Service orderDetailsService;
     private final Order_Item_Service orderItemService;
     private final Users_Service users_Service;
+    private final OrderTransitionWriter orderTransitionWriter;
 
     @PostMapping("/store/open")
     public SEResponse openStore(HttpServletRequest request) {
@@ -56,18 +57,12 @@ public class ManageStoreActivity_BLService {
             filterOI.addClause(WhereClause.in(Order_Item.Fields.order_id, orderIds));
 
             List<Order_Item> orderItems = orderItemService.repoFind(filterOI);
-            Map<String, List<Order_Item>> orderItemMap = orderItems.stream().collect(Collectors.groupingBy(Order_Item::getOrder_id));
 
             for (Order_Details orderDetail : orderDetails) {
                 orderDetail.setStatus(OrderStatus.TRANSACTION_PROCESSED, usersBean.getId());
                 orderDetailsService.update(orderDetail.getId(), orderDetail, usersBean.getId());
-
-                List<Order_Item> orderItemList = orderItemMap.get(orderDetail.getId());
-                for (Order_Item orderItem : orderItemList) {
-                    orderItem.setStatus(OrderStatus.TRANSACTION_PROCESSED, usersBean.getId());
-                    orderItemService.update(orderItem.getId(), orderItem, usersBean.getId());
-                }
             }
+            orderTransitionWriter.transitionItems(orderItems, OrderStatus.TRANSACTION_PROCESSED, usersBean.getId());
         }
         return SEResponse.getEmptySuccessResponse(ResponseCode.SUCCESSFUL);
     }
@@ -24,7 +24,6 @@ import com.sorted.commons.utils.OrderUtility;
 import com.sorted.portal.PhonePe.PhonePeUtility;
 import com.sorted.portal.response.beans.AddressResponse;
 import com.sorted.portal.response.beans.FindOneOrder;
-import com.sorted.portal.response.beans.OrderItemResponse;
 import com.sorted.portal.response.beans.PayNowResponse;
 import com.sorted.portal.service.order.OrderStatusCheckService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -82,19 +81,21 @@ public class ManageTransaction_BLService {
         Order_Details order_Details = findOrderDetails(orderId, usersBean.getId());
 
         try {
-            List<OrderItemResponse> orderItemResponseList = orderStatusCheckService.checkOrderStatus(order_Details);
+            // The check may have been served by a concurrent or recent check, so read the order from its result
+            OrderStatusCheckService.StatusCheckResult result = orderStatusCheckService.checkStatus(order_Details);
+            Order_Details checked = result.order();
 
             // Build the complete response with code field included
-            AddressResponse addressResponse = buildAddressResponse(order_Details.getDelivery_address());
+            AddressResponse addressResponse = buildAddressResponse(checked.getDelivery_address());
             return FindOneOrder.builder()
                     .id(orderId)
-                    .code(order_Details.getCode())
-                    .paymentStatus(order_Details.getPayment_status())
-                    .paymentMode(order_Details.getPayment_mode())
-                    .totalAmount(order_Details.getTotal_amount())
-                    .status(order_Details.getStatus().getCustomer_status())
-                    .transactionId(order_Details.getTransaction_id())
-                    .orderItems(orderItemResponseList)
+                    .code(checked.getCode())
+                    .paymentStatus(checked.getPayment_status())
+                    .paymentMode(checked.getPayment_mode())
+                    .totalAmount(checked.getTotal_amount())
+                    .status(checked.getStatus().getCustomer_status())
+                    .transactionId(checked.getTransaction_id())
+                    .orderItems(result.orderItems())
                     .deliveryAddress(addressResponse)
                     .build();
         } catch (NotFoundException e) {
@@ -0,0 +1,14 @@
+package com.sorted.portal.config;
+
+/**
+ * Rate limiter that keeps an independent budget per key.
+ */
+public interface KeyedRateLimiter {
+
+    boolean tryAcquire(String key);
+
+    default boolean tryAcquire() {
+        // Use a global key for application-wide rate limiting
+        return tryAcquire("global");
+    }
+}
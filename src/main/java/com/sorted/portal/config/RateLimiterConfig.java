@@ -17,9 +17,9 @@ public class RateLimiterConfig {
     private int requestsPerMinute;
 
     @Bean
-    public SlidingWindowRateLimiter slidingWindowRateLimiter() {
+    public KeyedRateLimiter slidingWindowRateLimiter() {
         long windowSizeInMillis = TimeUnit.MINUTES.toMillis(1);
-        logger.info("Initializing SlidingWindowRateLimiter with {} requests per minute", requestsPerMinute);
-        return new SlidingWindowRateLimiter(requestsPerMinute, windowSizeInMillis);
+        logger.info("Initializing SlidingWindowCounterRateLimiter with {} requests per minute", requestsPerMinute);
+        return new SlidingWindowCounterRateLimiter(requestsPerMinute, windowSizeInMillis);
     }
 }
@@ -0,0 +1,88 @@
+package com.sorted.portal.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding window counter rate limiter.
+ * <p>
+ * Each key holds two primitive counters, the current and the previous fixed window. A request is allowed when
+ * {@code previous * (1 - elapsed / window) + current < maxRequests}, which approximates a true sliding window in
+ * O(1) time and constant memory per key. Keys idle for two windows are swept out so the map does not grow with
+ * every client ever seen.
+ */
+public class SlidingWindowCounterRateLimiter implements KeyedRateLimiter {
+
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final int maxRequests;
+    private final long windowSizeInMillis;
+
+    public SlidingWindowCounterRateLimiter() {
+        // Default: 5 requests per minute
+        this(5, TimeUnit.MINUTES.toMillis(1));
+    }
+
+    public SlidingWindowCounterRateLimiter(int maxRequests, long windowSizeInMillis) {
+        this.maxRequests = maxRequests;
+        this.windowSizeInMillis = windowSizeInMillis;
+        this.lastSweep.set(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        return tryAcquire(key, System.currentTimeMillis());
+    }
+
+    boolean tryAcquire(String key, long currentTime) {
+        evictIdleKeys(currentTime);
+        return windows.computeIfAbsent(key, k -> new Window()).tryAcquire(currentTime, maxRequests, windowSizeInMillis);
+    }
+
+    public int trackedKeys() {
+        return windows.size();
+    }
+
+    /**
+     * Removes keys that have not been seen for two windows. Runs at most once per window and only on the thread
+     * that wins the race for it, so regular calls pay a single volatile read.
+     */
+    private void evictIdleKeys(long currentTime) {
+        long last = lastSweep.get();
+        if (currentTime - last < windowSizeInMillis || !lastSweep.compareAndSet(last, currentTime)) {
+            return;
+        }
+        long idleBefore = currentTime - 2 * windowSizeInMillis;
+        windows.values().removeIf(window -> window.lastAccess < idleBefore);
+    }
+
+    private static final class Window {
+        private long windowStart;
+        private long currentCount;
+        private long previousCount;
+        private volatile long lastAccess;
+
+        synchronized boolean tryAcquire(long currentTime, int maxRequests, long windowSizeInMillis) {
+            lastAccess = currentTime;
+            long elapsedWindows = (currentTime - windowStart) / windowSizeInMillis;
+            if (elapsedWindows == 1) {
+                previousCount = currentCount;
+                currentCount = 0;
+                windowStart += windowSizeInMillis;
+            } else if (elapsedWindows > 1) {
+                previousCount = 0;
+                currentCount = 0;
+                windowStart = currentTime - (currentTime % windowSizeInMillis);
+            }
+
+            long elapsedInWindow = currentTime - windowStart;
+            double weight = (double) (windowSizeInMillis - elapsedInWindow) / windowSizeInMillis;
+            if (previousCount * weight + currentCount < maxRequests) {
+                currentCount++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package com.sorted.portal.config;
 
-import org.springframework.stereotype.Component;
-
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.TimeUnit;
 
-@Component
-public class SlidingWindowRateLimiter {
+/**
+ * Exact sliding window log rate limiter. Superseded by {@link SlidingWindowCounterRateLimiter}, which needs
+ * constant memory per key; kept for comparison.
+ */
+public class SlidingWindowRateLimiter implements KeyedRateLimiter {
     
     private final ConcurrentHashMap<String, ConcurrentLinkedDeque<Long>> requestTimestamps = new ConcurrentHashMap<>();
     private final int maxRequests;
@@ -24,6 +25,7 @@ public class SlidingWindowRateLimiter {
         this.windowSizeInMillis = windowSizeInMillis;
     }
     
+    @Override
     public boolean tryAcquire(String key) {
         long currentTime = System.currentTimeMillis();
         ConcurrentLinkedDeque<Long> timestamps = requestTimestamps.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
@@ -42,9 +44,4 @@ public class SlidingWindowRateLimiter {
         
         return false;
     }
-    
-    public boolean tryAcquire() {
-        // Use a global key for application-wide rate limiting
-        return tryAcquire("global");
-    }
 }
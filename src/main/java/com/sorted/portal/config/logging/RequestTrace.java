@@ -0,0 +1,145 @@
+package com.sorted.portal.config.logging;
+
+import org.slf4j.MDC;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Trace of the unit of work running on the current thread: its trace id and the time spent in the database and in
+ * outbound HTTP calls.
+ * <p>
+ * A trace is bound to a thread while a request or a scheduled run is in progress. Work handed to other threads
+ * carries it along through {@link #wrap(Runnable)}, so their logs share the trace id and their database and HTTP
+ * time is added to the same summary. Only the trace object is captured, never a copy of the MDC map.
+ */
+public final class RequestTrace {
+
+    public static final String MDC_TRACE_ID = "trace_id";
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String traceId;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder dbNanos = new LongAdder();
+    private final LongAdder dbCalls = new LongAdder();
+    private final LongAdder httpNanos = new LongAdder();
+    private final LongAdder httpCalls = new LongAdder();
+
+    private RequestTrace(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public static String newTraceId() {
+        return UUID.randomUUID().toString().replace("-", "").toUpperCase();
+    }
+
+    /**
+     * Binds a new trace to the current thread and returns the one it replaces, to be passed back to
+     * {@link #restore(RequestTrace)}.
+     */
+    public static RequestTrace start(String traceId) {
+        return bind(new RequestTrace(traceId));
+    }
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    public static void restore(RequestTrace previous) {
+        if (previous == null) {
+            CURRENT.remove();
+            MDC.remove(MDC_TRACE_ID);
+        } else {
+            CURRENT.set(previous);
+            MDC.put(MDC_TRACE_ID, previous.traceId);
+        }
+    }
+
+    private static RequestTrace bind(RequestTrace trace) {
+        RequestTrace previous = CURRENT.get();
+        CURRENT.set(trace);
+        MDC.put(MDC_TRACE_ID, trace.traceId);
+        return previous;
+    }
+
+    public static void recordDb(long nanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.dbNanos.add(nanos);
+            trace.dbCalls.increment();
+        }
+    }
+
+    public static void recordHttp(long nanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.httpNanos.add(nanos);
+            trace.httpCalls.increment();
+        }
+    }
+
+    /**
+     * Runs the task under the trace of the submitting thread. When there is none, for example for scheduled
+     * runs, each execution gets a trace of its own.
+     */
+    public static Runnable wrap(Runnable task) {
+        RequestTrace captured = CURRENT.get();
+        return () -> {
+            RequestTrace previous = captured != null ? bind(captured) : start(newTraceId());
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        RequestTrace captured = CURRENT.get();
+        return () -> {
+            RequestTrace previous = captured != null ? bind(captured) : start(newTraceId());
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * For {@code parallelStream().forEach(...)}: the common pool threads do not inherit the MDC.
+     */
+    public static <T> Consumer<T> wrap(Consumer<T> action) {
+        RequestTrace captured = CURRENT.get();
+        if (captured == null) {
+            return action;
+        }
+        return item -> {
+            RequestTrace previous = bind(captured);
+            try {
+                action.accept(item);
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * One line timing summary, e.g. {@code total_ms=120 db_ms=35 db_calls=4 http_ms=70 http_calls=1}.
+     */
+    public String summary() {
+        return "total_ms=" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+                + " db_ms=" + TimeUnit.NANOSECONDS.toMillis(dbNanos.sum())
+                + " db_calls=" + dbCalls.sum()
+                + " http_ms=" + TimeUnit.NANOSECONDS.toMillis(httpNanos.sum())
+                + " http_calls=" + httpCalls.sum();
+    }
+}
@@ -0,0 +1,52 @@
+package com.sorted.portal.config.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Binds a {@link RequestTrace} to every request: takes the trace id from the {@code X-Trace-Id} header or
+ * generates one, puts it in the MDC and echoes it in the response. When the request completes a single summary
+ * line is logged with the total, database and outbound HTTP time.
+ */
+public class RequestTraceFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTraceFilter.class);
+
+    private static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    // Client supplied ids end up in every log line, so only accept plain tokens of sane length
+    private static final Pattern VALID_TRACE_ID = Pattern.compile("[A-Za-z0-9-]{8,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String traceId = this.getOrGenerateTraceId(request);
+        RequestTrace previous = RequestTrace.start(traceId);
+        response.addHeader(TRACE_ID_HEADER, traceId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTrace trace = RequestTrace.current();
+            log.info("trace method={} uri={} status={} {}", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), trace.summary());
+            RequestTrace.restore(previous);
+        }
+    }
+
+    private String getOrGenerateTraceId(HttpServletRequest request) {
+        String traceId = request.getHeader(TRACE_ID_HEADER);
+        if (StringUtils.hasText(traceId) && VALID_TRACE_ID.matcher(traceId).matches()) {
+            return traceId;
+        }
+        return RequestTrace.newTraceId();
+    }
+}
@@ -0,0 +1,68 @@
+package com.sorted.portal.config.logging;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request tracing: the trace filter, trace propagation into {@code @Async} and {@code @Scheduled} work, and the
+ * Mongo command listener feeding database time into the request summary.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestTraceFilter> requestTraceFilterRegistration() {
+        FilterRegistrationBean<RequestTraceFilter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(new RequestTraceFilter());
+        registration.addUrlPatterns("/*");
+        registration.setName("requestTraceFilter");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * Picked up by the auto-configured {@code applicationTaskExecutor} that runs {@code @Async} methods.
+     */
+    @Bean
+    public TaskDecorator traceTaskDecorator() {
+        return RequestTrace::wrap;
+    }
+
+    /**
+     * Scheduled runs have no submitting request, so every execution gets a fresh trace id.
+     */
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer traceTaskSchedulerCustomizer(TaskDecorator traceTaskDecorator) {
+        return scheduler -> scheduler.setTaskDecorator(traceTaskDecorator);
+    }
+
+    /**
+     * The sync driver notifies listeners on the thread that ran the command, so the time lands in that thread's
+     * trace.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer traceMongoCommandListener() {
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandSucceeded(CommandSucceededEvent event) {
+                RequestTrace.recordDb(event.getElapsedTime(TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public void commandFailed(CommandFailedEvent event) {
+                RequestTrace.recordDb(event.getElapsedTime(TimeUnit.NANOSECONDS));
+            }
+        };
+        return builder -> builder.addCommandListener(listener);
+    }
+}
@@ -7,32 +7,31 @@ import com.sorted.commons.beans.Spoc_Details;
 import com.sorted.commons.constants.Defaults;
 import com.sorted.commons.entity.mongo.*;
 import com.sorted.commons.entity.service.Order_Details_Service;
+import com.sorted.commons.entity.service.Order_Item_Service;
 import com.sorted.commons.entity.service.Seller_Service;
 import com.sorted.commons.entity.service.StoreActivityService;
 import com.sorted.commons.entity.service.Users_Service;
 import com.sorted.commons.enums.*;
-import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
 import com.sorted.commons.helper.AggregationFilter.SEFilter;
 import com.sorted.commons.helper.AggregationFilter.SEFilterType;
 import com.sorted.commons.helper.AggregationFilter.WhereClause;
-import com.sorted.commons.helper.MailBuilder;
-import com.sorted.commons.notifications.EmailSenderImpl;
-import com.sorted.commons.porter.res.beans.FetchOrderRes;
 import com.sorted.commons.utils.InternalMailService;
-import com.sorted.commons.utils.PorterUtility;
 import com.sorted.portal.PhonePe.PhonePeUtility;
+import com.sorted.portal.config.logging.RequestTrace;
+import com.sorted.portal.service.notification.NotificationOutbox;
 import com.sorted.portal.service.order.OrderStatusCheckService;
 import com.sorted.portal.service.order.OrderTemplateService;
 import com.sorted.portal.service.secure.SecureReturnDataService;
 import com.sorted.portal.service.secure.SecureReturnService;
+import com.sorted.portal.service.settlement.SettlementRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.security.InvalidParameterException;
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -49,42 +48,22 @@ public class ManageCrons_BLService {
 
     private final OrderTemplateService orderTemplateService;
     private final Order_Details_Service order_Details_Service;
-    private final PorterUtility porterUtility;
+    private final Order_Item_Service order_Item_Service;
     private final OrderStatusCheckService orderStatusCheckService;
     private final Seller_Service seller_Service;
     private final StoreActivityService storeActivityService;
     private final SecureReturnDataService secureReturnDataService;
     private final SecureReturnService secureReturnService;
     private final Users_Service usersService;
-    private final EmailSenderImpl emailSenderImpl;
+    private final NotificationOutbox notificationOutbox;
     private final InternalMailService internalMailService;
     private final PhonePeUtility phonePeUtility;
+    private final PorterStatusPoller porterStatusPoller;
+    private final SettlementRollupService settlementRollupService;
 
-    @Scheduled(fixedRate = 60000) // Executes every 5000ms (5 seconds)
+    @Scheduled(fixedDelayString = "${se.porter.poll.tick-ms:15000}")
     public void porterStatusCheck() {
-        SEFilter filterOD = new SEFilter(SEFilterType.AND);
-        filterOD.addClause(WhereClause.notEq(Order_Details.Fields.dp_order_id, null));
-        filterOD.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-//        filterOD.addClause(
-//                WhereClause.lte(BaseMongoEntity.Fields.modification_date, LocalDateTime.now().minusMinutes(5)));
-        filterOD.addClause(
-                WhereClause.in(Order_Details.Fields.status_id, Arrays.asList(OrderStatus.READY_FOR_PICK_UP.getId(),
-                        OrderStatus.RIDER_ASSIGNED.getId(), OrderStatus.OUT_FOR_DELIVERY.getId())));
-
-        List<Order_Details> listOD = order_Details_Service.repoFind(filterOD);
-        if (CollectionUtils.isEmpty(listOD)) {
-            return;
-        }
-
-        listOD.parallelStream().forEach(orderDetails -> {
-            try {
-                updateOrderStatus(orderDetails);
-            } catch (Exception e) {
-                log.error("Error processing order: {}, Error: {}", orderDetails.getId(), e.getMessage());
-                e.printStackTrace();
-            }
-        });
-
+        porterStatusPoller.pollDueOrders();
     }
 
 //    @Scheduled(fixedRate = 60000) // Executes every 5000ms (5 seconds)
@@ -103,24 +82,15 @@ public class ManageCrons_BLService {
             return;
         }
 
-        listOD.parallelStream().forEach(orderDetails -> {
+        listOD.parallelStream().forEach(RequestTrace.wrap(orderDetails -> {
             try {
-                updateOrderStatus(orderDetails);
+                porterStatusPoller.updateOrderStatus(orderDetails);
             } catch (Exception e) {
                 // Log the error with relevant details
                 log.error("Error processing order: {}, Error: {}", orderDetails.getId(), e.getMessage());
                 e.printStackTrace(); // For full stack trace (use a proper logging framework in production)
             }
-        });
-    }
-
-    private void updateOrderStatus(Order_Details details) {
-        FetchOrderRes fetchOrderRes = porterUtility.getOrderStatus(details.getDp_order_id());
-        if (!details.getDp_order_id().equals(fetchOrderRes.getOrder_id())) {
-            internalMailService.sendMailOnError("Order id mismatch from porter.", details.getDp_order_id(), new InvalidParameterException("Order id mismatch from porter."));
-            throw new CustomIllegalArgumentsException(ResponseCode.ERR_0001);
-        }
-        porterUtility.updateOrderStatus(details, fetchOrderRes);
+        }));
     }
 
     @Scheduled(fixedRate = 60000) // Executes every 60000ms (1 minute)
@@ -138,7 +108,7 @@ public class ManageCrons_BLService {
         if (CollectionUtils.isEmpty(listOD)) {
             return;
         }
-        listOD.parallelStream().forEach(orderStatusCheckService::checkOrderStatus);
+        listOD.parallelStream().forEach(RequestTrace.wrap(orderStatusCheckService::checkOrderStatus));
     }
 
     /* <<<<<<<<<<<<<<  ✨ Windsurf Command 🌟 >>>>>>>>>>>>>>>> */
@@ -160,7 +130,7 @@ public class ManageCrons_BLService {
         log.info("Current hour in IST: {}", currentHour);
         log.info("Current day in IST: {}", currentDay);
 
-        sellers.parallelStream().forEach(seller -> {
+        sellers.parallelStream().forEach(RequestTrace.wrap(seller -> {
             log.info("Evaluating store open/close for seller: {}", seller.getBusiness_name());
             BusinessHours bh = seller.getBusiness_hours();
             if (bh == null) {
@@ -193,7 +163,7 @@ public class ManageCrons_BLService {
                 log.info("Store is closed for seller: {}", seller.getBusiness_name());
                 storeActivityService.autoOpenStore(seller.getId(), Defaults.CLOSE_STORE_CRON);
             }
-        });
+        }));
     }
     /* <<<<<<<<<<  d435c0d4-d62c-4b61-8842-ee73abdf1c65  >>>>>>>>>>> */
 
@@ -226,6 +196,15 @@ public class ManageCrons_BLService {
         }
     }
 
+    @Scheduled(cron = "${se.settlement.rollup.rebuild-cron:0 30 3 * * ?}")
+    public void rebuildSettlementRollups() {
+        try {
+            settlementRollupService.rebuild();
+        } catch (Exception e) {
+            log.error("rebuildSettlementRollups:: {}", e.getMessage(), e);
+        }
+    }
+
     @Scheduled(cron = "0 0 10 * * ?")
     public void sendReminderToSellers() {
         SEFilter filter = new SEFilter(SEFilterType.AND);
@@ -256,24 +235,31 @@ public class ManageCrons_BLService {
         Map<String, Seller> sellerMap = sellers.stream().collect(Collectors.toMap(Seller::getId, s -> s));
 
 
+        // Items of every order in one query, rendered into the order tables below
+        SEFilter filterOI = new SEFilter(SEFilterType.AND);
+        filterOI.addClause(WhereClause.in(Order_Item.Fields.order_id,
+                orderDetails.stream().map(BaseMongoEntity::getId).toList()));
+        filterOI.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+        Map<String, List<Order_Item>> itemsByOrder = order_Item_Service.repoFind(filterOI).stream()
+                .collect(Collectors.groupingBy(Order_Item::getOrder_id));
+
+        // One reminder per order and day, however often the cron runs
+        LocalDate today = LocalDate.now();
         for (Order_Details order : orderDetails) {
             Users user = usersMap.getOrDefault(order.getUser_id(), null);
             Seller seller = sellerMap.getOrDefault(order.getSeller_id(), null);
             if (user == null || seller == null) {
                 continue;
             }
-            String orderTemplateTable = orderTemplateService.getOrderTemplateTable(order);
             Optional<Spoc_Details> first = seller.getSpoc_details().stream().filter(Spoc_Details::isPrimary).findFirst();
             if (first.isPresent()) {
                 Spoc_Details spocDetails = first.get();
-                String mailId = spocDetails.getEmail_id();
-                String firstName = spocDetails.getFirst_name();
-                String mailContent = firstName + "|" + orderTemplateTable;
-                MailBuilder mailBuilder = new MailBuilder();
-                mailBuilder.setTo(mailId);
-                mailBuilder.setContent(mailContent);
-                mailBuilder.setTemplate(MailTemplate.NEW_ORDER_ARRIVED);
-                emailSenderImpl.sendEmailHtmlTemplate(mailBuilder);
+                String orderTemplateTable = orderTemplateService.getOrderTemplateTable(order,
+                        itemsByOrder.getOrDefault(order.getId(), List.of()));
+                String mailContent = spocDetails.getFirst_name() + "|" + orderTemplateTable;
+                notificationOutbox.email(
+                        NotificationOutbox.key("seller_reminder", MailTemplate.NEW_ORDER_ARRIVED, order.getId(), today),
+                        spocDetails.getEmail_id(), MailTemplate.NEW_ORDER_ARRIVED, mailContent);
             }
         }
     }
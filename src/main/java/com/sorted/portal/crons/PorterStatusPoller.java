@@ -0,0 +1,243 @@
+package com.sorted.portal.crons;
+
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.entity.service.Order_Details_Service;
+import com.sorted.commons.enums.OrderStatus;
+import com.sorted.commons.enums.ResponseCode;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.helper.AggregationFilter.SEFilterType;
+import com.sorted.commons.helper.AggregationFilter.WhereClause;
+import com.sorted.commons.porter.res.beans.FetchOrderRes;
+import com.sorted.commons.utils.InternalMailService;
+import com.sorted.commons.utils.PorterUtility;
+import com.sorted.portal.config.logging.RequestTrace;
+import com.sorted.portal.service.settlement.SettlementRollupService;
+import com.sorted.portal.webhooks.PorterWebhookTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.security.InvalidParameterException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Polls Porter for the status of orders out for delivery.
+ * <p>
+ * Each tick loads the in-flight orders and only polls the ones that are due: every order has its own next poll
+ * time, based on its status (riders on the move are polled more often than orders waiting for pick up) and
+ * stretched while the status does not change. Orders Porter pushed a webhook for recently are skipped. Calls run on
+ * a dedicated pool capped at {@code se.porter.poll.max-concurrency}, and an order is never polled twice at once,
+ * so a slow Porter API cannot pile up requests.
+ */
+@Slf4j
+@Component
+public class PorterStatusPoller {
+
+    private static final List<OrderStatus> POLLED_STATUSES = Arrays.asList(OrderStatus.READY_FOR_PICK_UP,
+            OrderStatus.RIDER_ASSIGNED, OrderStatus.OUT_FOR_DELIVERY);
+
+    private final Order_Details_Service order_Details_Service;
+    private final PorterUtility porterUtility;
+    private final InternalMailService internalMailService;
+    private final PorterWebhookTracker porterWebhookTracker;
+    private final SettlementRollupService settlementRollupService;
+
+    private final long riderIntervalMs;
+    private final long pickupIntervalMs;
+    private final long maxIntervalMs;
+    private final double backoffFactor;
+
+    private final ExecutorService executor;
+    private final LongSupplier clock;
+    private final Map<String, PollState> states = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Timer pollTimer;
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter skippedWebhookCounter;
+
+    @Autowired
+    public PorterStatusPoller(Order_Details_Service order_Details_Service, PorterUtility porterUtility,
+                              InternalMailService internalMailService, PorterWebhookTracker porterWebhookTracker,
+                              SettlementRollupService settlementRollupService, MeterRegistry meterRegistry,
+                              @Value("${se.porter.poll.max-concurrency:8}") int maxConcurrency,
+                              @Value("${se.porter.poll.interval.rider-ms:60000}") long riderIntervalMs,
+                              @Value("${se.porter.poll.interval.pickup-ms:180000}") long pickupIntervalMs,
+                              @Value("${se.porter.poll.interval.max-ms:600000}") long maxIntervalMs,
+                              @Value("${se.porter.poll.backoff-factor:1.5}") double backoffFactor) {
+        this(order_Details_Service, porterUtility, internalMailService, porterWebhookTracker, settlementRollupService,
+                meterRegistry, newExecutor(maxConcurrency), System::currentTimeMillis, riderIntervalMs,
+                pickupIntervalMs, maxIntervalMs, backoffFactor);
+    }
+
+    PorterStatusPoller(Order_Details_Service order_Details_Service, PorterUtility porterUtility,
+                       InternalMailService internalMailService, PorterWebhookTracker porterWebhookTracker,
+                       SettlementRollupService settlementRollupService, MeterRegistry meterRegistry,
+                       ExecutorService executor, LongSupplier clock,
+                       long riderIntervalMs, long pickupIntervalMs, long maxIntervalMs, double backoffFactor) {
+        this.order_Details_Service = order_Details_Service;
+        this.porterUtility = porterUtility;
+        this.internalMailService = internalMailService;
+        this.porterWebhookTracker = porterWebhookTracker;
+        this.settlementRollupService = settlementRollupService;
+        this.riderIntervalMs = riderIntervalMs;
+        this.pickupIntervalMs = pickupIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+        this.backoffFactor = backoffFactor;
+        this.executor = executor;
+        this.clock = clock;
+
+        this.pollTimer = Timer.builder("portal.porter.poll.latency").register(meterRegistry);
+        this.successCounter = Counter.builder("portal.porter.poll").tag("outcome", "success").register(meterRegistry);
+        this.failureCounter = Counter.builder("portal.porter.poll").tag("outcome", "failure").register(meterRegistry);
+        this.skippedWebhookCounter = Counter.builder("portal.porter.poll").tag("outcome", "skipped_webhook")
+                .register(meterRegistry);
+        Gauge.builder("portal.porter.poll.backlog", inFlight, Set::size).register(meterRegistry);
+        Gauge.builder("portal.porter.poll.tracked", states, Map::size).register(meterRegistry);
+    }
+
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("porter-poll-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Submits every due order for polling. Returns without waiting for the calls to finish.
+     */
+    public void pollDueOrders() {
+        SEFilter filterOD = new SEFilter(SEFilterType.AND);
+        filterOD.addClause(WhereClause.notEq(Order_Details.Fields.dp_order_id, null));
+        filterOD.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+        filterOD.addClause(WhereClause.in(Order_Details.Fields.status_id,
+                POLLED_STATUSES.stream().map(OrderStatus::getId).toList()));
+
+        List<Order_Details> listOD = order_Details_Service.repoFind(filterOD);
+        if (CollectionUtils.isEmpty(listOD)) {
+            states.clear();
+            return;
+        }
+
+        long now = clock.getAsLong();
+        Set<String> active = new HashSet<>();
+        int submitted = 0;
+        for (Order_Details details : listOD) {
+            active.add(details.getId());
+            if (inFlight.contains(details.getId())) {
+                continue;
+            }
+            PollState state = states.computeIfAbsent(details.getId(), id -> new PollState(details.getStatus()));
+            state.observe(details.getStatus(), this.baseInterval(details.getStatus()));
+
+            long quietUntil = porterWebhookTracker.quietUntil(details.getDp_order_id());
+            if (quietUntil > now) {
+                state.nextPollAt = Math.max(state.nextPollAt, quietUntil);
+                skippedWebhookCounter.increment();
+                continue;
+            }
+            if (state.nextPollAt > now) {
+                continue;
+            }
+            inFlight.add(details.getId());
+            Runnable task = () -> this.poll(details, state);
+            executor.execute(RequestTrace.wrap(task));
+            submitted++;
+        }
+        // Orders that left the polled statuses
+        states.keySet().retainAll(active);
+
+        log.debug("porterStatusCheck:: {} in-flight orders, {} submitted, {} still running from earlier ticks",
+                listOD.size(), submitted, inFlight.size() - submitted);
+    }
+
+    private void poll(Order_Details details, PollState state) {
+        long start = System.nanoTime();
+        try {
+            this.updateOrderStatus(details);
+            successCounter.increment();
+            state.scheduleNext(clock.getAsLong(), backoffFactor, maxIntervalMs);
+        } catch (Exception e) {
+            failureCounter.increment();
+            // Failures back off the same way as unchanged statuses, so a broken order does not hog the pool
+            state.scheduleNext(clock.getAsLong(), backoffFactor, maxIntervalMs);
+            log.error("Error processing order: {}, Error: {}", details.getId(), e.getMessage(), e);
+        } finally {
+            pollTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            inFlight.remove(details.getId());
+        }
+    }
+
+    void updateOrderStatus(Order_Details details) {
+        FetchOrderRes fetchOrderRes = porterUtility.getOrderStatus(details.getDp_order_id());
+        if (!details.getDp_order_id().equals(fetchOrderRes.getOrder_id())) {
+            internalMailService.sendMailOnError("Order id mismatch from porter.", details.getDp_order_id(), new InvalidParameterException("Order id mismatch from porter."));
+            throw new CustomIllegalArgumentsException(ResponseCode.ERR_0001);
+        }
+        SettlementRollupService.Contribution before = settlementRollupService.contributionOf(details);
+        porterUtility.updateOrderStatus(details, fetchOrderRes);
+        // updateOrderStatus persists the new status itself, so diff against the stored order
+        Order_Details updated = order_Details_Service.findById(details.getId()).orElse(details);
+        settlementRollupService.applyChange(updated, before);
+    }
+
+    /**
+     * Next poll time of the order, or 0 when it is not tracked or due right away
+     */
+    long nextPollAt(String orderId) {
+        PollState state = states.get(orderId);
+        return state == null ? 0 : state.nextPollAt;
+    }
+
+    private long baseInterval(OrderStatus status) {
+        return status == OrderStatus.READY_FOR_PICK_UP ? pickupIntervalMs : riderIntervalMs;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Poll schedule of one order. Written by the tick thread and the polling thread, but never concurrently
+     * since an order is not resubmitted while a poll is in flight.
+     */
+    private static final class PollState {
+        private volatile OrderStatus status;
+        private volatile long interval;
+        private volatile long nextPollAt;
+
+        private PollState(OrderStatus status) {
+            this.status = status;
+        }
+
+        /**
+         * Resets the interval to the status' base interval when the order is new or its status moved on.
+         */
+        private void observe(OrderStatus current, long baseInterval) {
+            if (interval == 0 || current != status) {
+                status = current;
+                interval = baseInterval;
+                nextPollAt = 0;
+            }
+        }
+
+        private void scheduleNext(long now, double backoffFactor, long maxInterval) {
+            nextPollAt = now + interval;
+            interval = Math.min(maxInterval, (long) (interval * backoffFactor));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.sorted.portal.enums;
+
+import com.sorted.portal.response.beans.SettlementExportDTO;
+import com.sorted.portal.service.ExportFieldMapping;
+
+public enum SettlementProperties implements ExportFieldMapping<SettlementExportDTO> {
+    ORDER_ID("Order Id", "order_id"),
+    ORDER_CODE("Order Code", "order_code"),
+    AMOUNT("Amount", "amount"),
+    PAYOUT_AMOUNT("Payout Amount", "payout_amount"),
+    EXPECTED_PAYOUT_DATE("Expected Payout Date", "expected_payout_date"),
+    ACTUAL_PAYOUT_DATE("Actual Payout Date", "actual_payout_date"),
+    STATUS("Status", "status");
+
+    private final String headerName;
+    private final String propertyName;
+
+    SettlementProperties(String headerName, String propertyName) {
+        this.headerName = headerName;
+        this.propertyName = propertyName;
+    }
+
+    @Override
+    public String getHeaderName() {
+        return this.headerName;
+    }
+
+    @Override
+    public String getPropertyName() {
+        return this.propertyName;
+    }
+}
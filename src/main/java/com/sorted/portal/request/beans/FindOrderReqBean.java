@@ -1,8 +1,11 @@
 package com.sorted.portal.request.beans;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.sorted.commons.helper.ReqBaseBean;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.springframework.util.StringUtils;
 
 @Data
 @EqualsAndHashCode(callSuper = false)
@@ -12,4 +15,13 @@ public class FindOrderReqBean extends ReqBaseBean {
     private String order_status;
     private String from_date;
     private String to_date;
+    // keyset pagination: continuation token returned by the previous page
+    private String cursor;
+    @JsonProperty
+    private boolean use_cursor;
+
+    @JsonIgnore
+    public boolean isCursorMode() {
+        return use_cursor || StringUtils.hasText(cursor);
+    }
 }
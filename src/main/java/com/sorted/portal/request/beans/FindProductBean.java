@@ -1,10 +1,12 @@
 package com.sorted.portal.request.beans;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.sorted.commons.helper.ReqBaseBean;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -27,6 +29,15 @@ public class FindProductBean extends ReqBaseBean {
     private long count;
     @JsonProperty
     private boolean fetchRandom;
+    // keyset pagination: continuation token returned by the previous page
+    private String cursor;
+    @JsonProperty
+    private boolean use_cursor;
+
+    @JsonIgnore
+    public boolean isCursorMode() {
+        return use_cursor || StringUtils.hasText(cursor);
+    }
 
     public void creatObj(MultiValueMap<String, List<List<String>>> filters, String name, int page, int size) {
         if (filters != null) {
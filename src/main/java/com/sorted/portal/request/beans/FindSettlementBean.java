@@ -1,9 +1,12 @@
 package com.sorted.portal.request.beans;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.sorted.commons.helper.ReqBaseBean;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.util.StringUtils;
 
 @Getter
 @Setter
@@ -11,4 +14,13 @@ public class FindSettlementBean extends ReqBaseBean {
 
     private String order_id;
     private Boolean status;
+    // keyset pagination: continuation token returned by the previous page
+    private String cursor;
+    @JsonProperty
+    private boolean use_cursor;
+
+    @JsonIgnore
+    public boolean isCursorMode() {
+        return use_cursor || StringUtils.hasText(cursor);
+    }
 }
@@ -0,0 +1,18 @@
+package com.sorted.portal.response.beans;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CursorResBean<T> {
+
+    private List<T> list;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next_cursor;
+    private boolean has_more;
+    private long total_count;
+}
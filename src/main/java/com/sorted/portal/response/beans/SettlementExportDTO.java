@@ -0,0 +1,31 @@
+package com.sorted.portal.response.beans;
+
+import com.sorted.commons.beans.FeeResult;
+import com.sorted.commons.utils.CommonUtils;
+import com.sorted.portal.service.settlement.SettlementQueryService.SettlementRow;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class SettlementExportDTO {
+
+    private String order_id;
+    private String order_code;
+    private BigDecimal amount;
+    private BigDecimal payout_amount;
+    private String expected_payout_date;
+    private String actual_payout_date;
+    private String status;
+
+    public SettlementExportDTO(SettlementRow row, int feePercentage) {
+        FeeResult feeResult = CommonUtils.calculateFees(row.totalAmount(), feePercentage);
+        this.order_id = row.orderId();
+        this.order_code = row.orderCode();
+        this.amount = CommonUtils.paiseToRupee(row.totalAmount());
+        this.payout_amount = feeResult.cost();
+        this.expected_payout_date = row.expectedPayoutDate() == null ? null : row.expectedPayoutDate().toString();
+        this.actual_payout_date = row.actualPayoutDate();
+        this.status = row.paid() ? "PAID" : "PENDING";
+    }
+}
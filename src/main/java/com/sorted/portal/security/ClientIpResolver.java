@@ -0,0 +1,22 @@
+package com.sorted.portal.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the client IP of a request.
+ * <p>
+ * Forwarding headers are not read here: anything left of the last trusted hop in X-Forwarded-For is set by the
+ * client and can be spoofed. Tomcat's remote IP valve ({@code server.forward-headers-strategy=native}) walks the
+ * header from the right, skips the trusted internal proxies ({@code server.tomcat.remoteip.internal-proxies}) and
+ * exposes the first untrusted hop as the remote address. Requests that do not come through a trusted proxy keep
+ * their socket address.
+ */
+public final class ClientIpResolver {
+
+    private ClientIpResolver() {
+    }
+
+    public static String resolve(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,97 @@
+package com.sorted.portal.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks failed authentication attempts per client IP in a fixed-capacity cache.
+ * <p>
+ * An entry lives for one window from the first failure, and the cache never holds more than {@code capacity} IPs,
+ * evicting the least recently used ones first. Memory therefore stays constant however many distinct (or spoofed)
+ * IPs show up.
+ */
+@Log4j2
+@Component
+public class FailedAttemptTracker {
+
+    private final Cache<String, AttemptWindow> attempts;
+    @Getter
+    private final int maxFailedAttempts;
+    @Getter
+    private final long windowMs;
+
+    public FailedAttemptTracker(@Value("${app.security.failed-attempts.max:500}") int maxFailedAttempts,
+                                @Value("${app.security.failed-attempts.window-ms:300000}") long windowMs,
+                                @Value("${app.security.failed-attempts.capacity:100000}") long capacity) {
+        this.maxFailedAttempts = maxFailedAttempts;
+        this.windowMs = windowMs;
+        this.attempts = CacheBuilder.newBuilder()
+                .maximumSize(capacity)
+                .expireAfterWrite(windowMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public boolean isRateLimited(String clientIp) {
+        AttemptWindow window = attempts.getIfPresent(clientIp);
+        return window != null && window.getAttempts().get() >= maxFailedAttempts;
+    }
+
+    public void recordFailedAttempt(String clientIp) {
+        try {
+            attempts.get(clientIp, () -> new AttemptWindow(System.currentTimeMillis())).getAttempts().incrementAndGet();
+        } catch (ExecutionException e) {
+            log.warn("Unable to record failed attempt for IP: {}", clientIp, e);
+        }
+    }
+
+    public void clearFailedAttempts(String clientIp) {
+        attempts.invalidate(clientIp);
+    }
+
+    public long trackedIps() {
+        return attempts.size();
+    }
+
+    /**
+     * IPs with the most failed attempts in their current window.
+     */
+    public List<Offender> topOffenders(int limit) {
+        return attempts.asMap().entrySet().stream()
+                .map(e -> new Offender(e.getKey(), e.getValue().getAttempts().get(), e.getValue().getWindowStart()))
+                .sorted(Comparator.comparingInt(Offender::attempts).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Expired entries are otherwise only purged as a side effect of cache access, sweep them out when idle too.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void sweep() {
+        attempts.cleanUp();
+    }
+
+    @Getter
+    private static class AttemptWindow {
+        private final long windowStart;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        AttemptWindow(long windowStart) {
+            this.windowStart = windowStart;
+        }
+    }
+
+    public record Offender(String ip, int attempts, long windowStart) {
+    }
+}
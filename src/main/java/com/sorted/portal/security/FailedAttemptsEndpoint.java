@@ -0,0 +1,34 @@
+package com.sorted.portal.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint (/actuator/failedattempts) exposing the state of the failed authentication attempt tracker. It
+ * lists client IPs, so it is only served on the separate management port (management.server.*), which is not
+ * published by the deployment and is left to network policy; set SE_MANAGEMENT_ADDRESS to narrow the bind address.
+ */
+@Component
+@Endpoint(id = "failedattempts")
+@RequiredArgsConstructor
+public class FailedAttemptsEndpoint {
+
+    private static final int TOP_OFFENDERS = 20;
+
+    private final FailedAttemptTracker failedAttemptTracker;
+
+    @ReadOperation
+    public Map<String, Object> failedAttempts() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tracked_ips", failedAttemptTracker.trackedIps());
+        result.put("max_failed_attempts", failedAttemptTracker.getMaxFailedAttempts());
+        result.put("window_ms", failedAttemptTracker.getWindowMs());
+        result.put("top_offenders", failedAttemptTracker.topOffenders(TOP_OFFENDERS));
+        return result;
+    }
+}
@@ -18,8 +18,6 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static com.sorted.portal.service.CookieService.createSecureCookie;
@@ -31,12 +29,10 @@ public class PortalServiceInterceptor implements HandlerInterceptor {
     private static final String ACCESS_TOKEN_COOKIE = "access_token";
     private static final String REFRESH_TOKEN_COOKIE = "refresh_token";
 
-    // Rate limiting for failed attempts
-    private static final int MAX_FAILED_ATTEMPTS = 500;
-    private static final long RATE_LIMIT_WINDOW_MS = 300000; // 5 minutes
-    private final ConcurrentHashMap<String, RateLimitInfo> rateLimitMap = new ConcurrentHashMap<>();
-
     private final JwtTokenUtil jwtTokenUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    // Rate limiting for failed attempts
+    private final FailedAttemptTracker failedAttemptTracker;
     private Set<String> allowedDomainsSet;
 
     @Value("${app.security.access-token.max-age:900}") // 15 minutes default
@@ -55,8 +51,11 @@ public class PortalServiceInterceptor implements HandlerInterceptor {
     private String userIdHeader;
 
     // Constructor injection
-    public PortalServiceInterceptor(JwtTokenUtil jwtTokenUtil) {
+    public PortalServiceInterceptor(JwtTokenUtil jwtTokenUtil, VerifiedTokenCache verifiedTokenCache,
+                                    FailedAttemptTracker failedAttemptTracker) {
         this.jwtTokenUtil = jwtTokenUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.failedAttemptTracker = failedAttemptTracker;
     }
 
     @PostConstruct
@@ -91,14 +90,14 @@ public class PortalServiceInterceptor implements HandlerInterceptor {
         String requestUri = request.getRequestURI();
         String origin = request.getHeader("Origin");
         String userIdFromHeader = request.getHeader(userIdHeader);
-        String clientIp = getClientIpAddress(request);
+        String clientIp = ClientIpResolver.resolve(request);
 
         // Check rate limiting
-//        if (isRateLimited(clientIp)) {
-//            log.warn("Rate limit exceeded for IP: {} on URI: {}", clientIp, requestUri);
-//            generateUnauthorizedResponse(response, "Too many failed attempts. Please try again later.");
-//            return false;
-//        }
+        if (failedAttemptTracker.isRateLimited(clientIp)) {
+            log.warn("Rate limit exceeded for IP: {} on URI: {}", clientIp, requestUri);
+            generateUnauthorizedResponse(response, "Too many failed attempts. Please try again later.");
+            return false;
+        }
 
 //        // Validate origin against allowed domains
 //        if (!StringUtils.hasText(origin)) {
@@ -243,6 +242,19 @@ public class PortalServiceInterceptor implements HandlerInterceptor {
     }
 
     private AuthResult validateToken(String token, String expectedUserId, String tokenType) {
+        // Access tokens are re-sent on every request, skip signature verification for ones already verified
+        boolean cacheable = "access".equals(tokenType);
+        if (cacheable) {
+            VerifiedTokenCache.VerifiedToken cached = verifiedTokenCache.get(token);
+            if (cached != null) {
+                boolean isValidUser = expectedUserId.equals(cached.userId());
+                if (!isValidUser) {
+                    log.warn("User ID mismatch in {} token. Expected: {}, Found: {}",
+                            tokenType, expectedUserId, cached.userId());
+                }
+                return new AuthResult(isValidUser, false);
+            }
+        }
         try {
             String extractedUserId = jwtTokenUtil.extractUserId(token);
             boolean isValidUser = expectedUserId.equals(extractedUserId);
@@ -251,6 +263,8 @@ public class PortalServiceInterceptor implements HandlerInterceptor {
             if (!isValidUser) {
                 log.warn("User ID mismatch in {} token. Expected: {}, Found: {}",
                         tokenType, expectedUserId, extractedUserId);
+            } else if (cacheable && !isExpired) {
+                verifiedTokenCache.put(token, extractedUserId);
             }
 
             return new AuthResult(isValidUser, isExpired);
@@ -268,63 +282,12 @@ public class PortalServiceInterceptor implements HandlerInterceptor {
         createSecureCookie(REFRESH_TOKEN_COOKIE, refreshToken, refreshTokenMaxAge, response);
     }
 
-    private String getClientIpAddress(HttpServletRequest request) {
-        String[] headerNames = {
-                "X-Forwarded-For",
-                "X-Real-IP",
-                "Proxy-Client-IP",
-                "WL-Proxy-Client-IP",
-                "HTTP_X_FORWARDED_FOR",
-                "HTTP_X_FORWARDED",
-                "HTTP_X_CLUSTER_CLIENT_IP",
-                "HTTP_CLIENT_IP",
-                "HTTP_FORWARDED_FOR",
-                "HTTP_FORWARDED"
-        };
-
-        for (String header : headerNames) {
-            String ip = request.getHeader(header);
-            if (StringUtils.hasText(ip) && !"unknown".equalsIgnoreCase(ip)) {
-                // X-Forwarded-For can contain multiple IPs, get the first one
-                return ip.split(",")[0].trim();
-            }
-        }
-
-        return request.getRemoteAddr();
-    }
-
-    private boolean isRateLimited(String clientIp) {
-        RateLimitInfo rateLimitInfo = rateLimitMap.get(clientIp);
-        if (rateLimitInfo == null) {
-            return false;
-        }
-
-        long currentTime = System.currentTimeMillis();
-
-        // Clean up expired entries
-        if (currentTime - rateLimitInfo.getWindowStart() > RATE_LIMIT_WINDOW_MS) {
-            rateLimitMap.remove(clientIp);
-            return false;
-        }
-
-        return rateLimitInfo.getAttempts().get() >= MAX_FAILED_ATTEMPTS;
-    }
-
     private void recordFailedAttempt(String clientIp) {
-        long currentTime = System.currentTimeMillis();
-
-        rateLimitMap.compute(clientIp, (key, existing) -> {
-            if (existing == null || currentTime - existing.getWindowStart() > RATE_LIMIT_WINDOW_MS) {
-                return new RateLimitInfo(currentTime, new AtomicInteger(1));
-            } else {
-                existing.getAttempts().incrementAndGet();
-                return existing;
-            }
-        });
+        failedAttemptTracker.recordFailedAttempt(clientIp);
     }
 
     private void clearFailedAttempts(String clientIp) {
-        rateLimitMap.remove(clientIp);
+        failedAttemptTracker.clearFailedAttempts(clientIp);
     }
 
     private void generateUnauthorizedResponse(HttpServletResponse response, String message) throws IOException {
@@ -370,15 +333,4 @@ public class PortalServiceInterceptor implements HandlerInterceptor {
             this.expired = expired;
         }
     }
-
-    @Getter
-    private static class RateLimitInfo {
-        private final long windowStart;
-        private final AtomicInteger attempts;
-
-        public RateLimitInfo(long windowStart, AtomicInteger attempts) {
-            this.windowStart = windowStart;
-            this.attempts = attempts;
-        }
-    }
 }
\ No newline at end of file
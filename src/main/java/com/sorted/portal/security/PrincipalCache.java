@@ -0,0 +1,182 @@
+package com.sorted.portal.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sorted.commons.beans.UsersBean;
+import com.sorted.portal.service.cache.CacheInvalidationBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolved principals ({@link UsersBean}s) of {@code validateUserForActivity}, so a request does not reload the
+ * user, role, permissions and seller every time it checks them.
+ * <p>
+ * Results are kept at two levels: for the rest of the current request, and in a bounded cache shared by requests
+ * for {@code app.security.principal-cache.ttl-ms}. Both are keyed by user id and the rest of the check's arguments,
+ * and only successful checks are kept; a refused check runs again next time. User updates drop that user's entries
+ * and seller updates the entries of that seller's users; other instances see both after the TTL. Role updates drop
+ * everything on every instance.
+ * <p>
+ * Lookups are counted per endpoint under {@code portal.principal.lookup}: {@code source=db} went to the database,
+ * {@code request} and {@code cache} are the lookups saved.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final String CACHE_NAME = "principals";
+    private static final String REQUEST_MEMO = PrincipalCache.class.getName() + ".memo";
+    private static final String NO_ENDPOINT = "none";
+
+    private final Cache<String, Map<String, UsersBean>> cache;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+
+    public PrincipalCache(CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                          @Value("${app.security.principal-cache.ttl-ms:30000}") long ttlMs,
+                          @Value("${app.security.principal-cache.max-size:20000}") long maxSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+        invalidationBus.subscribe(CACHE_NAME, cache::invalidateAll);
+        Gauge.builder("portal.principal.cache.size", cache, Cache::size).register(meterRegistry);
+    }
+
+    /**
+     * Looks the check up, returning a {@link Lookup} that holds the principal on a hit and stores it otherwise.
+     */
+    public Lookup lookup(String userId, String check) {
+        String key = userId + "|" + check;
+        Map<String, UsersBean> memo = requestMemo();
+        if (memo != null && memo.containsKey(key)) {
+            this.count("request");
+            return new Lookup(key, memo.get(key), memo, null);
+        }
+        Map<String, UsersBean> shared;
+        try {
+            shared = cache.get(userId, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        UsersBean cached = shared.get(key);
+        if (cached != null) {
+            this.count("cache");
+            if (memo != null) {
+                memo.put(key, cached);
+            }
+            return new Lookup(key, cached, memo, shared);
+        }
+        this.count("db");
+        return new Lookup(key, null, memo, shared);
+    }
+
+    /**
+     * Drops the user's principals, including the ones memoized by the current request.
+     */
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+        Map<String, UsersBean> memo = requestMemo();
+        if (memo != null) {
+            memo.keySet().removeIf(key -> key.startsWith(userId + "|"));
+        }
+    }
+
+    /**
+     * Drops the principals of the seller's users, including the ones memoized by the current request.
+     */
+    public void invalidateSeller(String sellerId) {
+        cache.asMap().forEach((userId, principals) -> {
+            if (principals.values().stream().anyMatch(principal -> principal.getSeller() != null
+                    && sellerId.equals(principal.getSeller().getId()))) {
+                this.invalidate(userId);
+            }
+        });
+    }
+
+    /**
+     * Drops every principal on every instance, for changes that affect many users at once.
+     */
+    public void invalidateAll() {
+        invalidationBus.publish(CACHE_NAME);
+        Map<String, UsersBean> memo = requestMemo();
+        if (memo != null) {
+            memo.clear();
+        }
+    }
+
+    private void count(String source) {
+        Counter.builder("portal.principal.lookup")
+                .tag("endpoint", endpoint())
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, UsersBean> requestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object memo = attributes.getAttribute(REQUEST_MEMO, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<String, UsersBean>();
+            attributes.setAttribute(REQUEST_MEMO, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<String, UsersBean>) memo;
+    }
+
+    private static String endpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pattern = attributes == null ? null
+                : attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        return pattern == null ? NO_ENDPOINT : pattern.toString();
+    }
+
+    /**
+     * Result of {@link #lookup}. The shared map is the one held when the lookup was made: if the user is
+     * invalidated meanwhile it is no longer in the cache, so storing a principal loaded before the change is
+     * harmless.
+     */
+    public static final class Lookup {
+        private final String key;
+        private final UsersBean principal;
+        private final Map<String, UsersBean> memo;
+        private final Map<String, UsersBean> shared;
+
+        private Lookup(String key, UsersBean principal, Map<String, UsersBean> memo, Map<String, UsersBean> shared) {
+            this.key = key;
+            this.principal = principal;
+            this.memo = memo;
+            this.shared = shared;
+        }
+
+        public UsersBean principal() {
+            return principal;
+        }
+
+        public void store(UsersBean resolved) {
+            if (memo != null) {
+                memo.put(key, resolved);
+            }
+            if (shared != null) {
+                shared.put(key, resolved);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.sorted.portal.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of access tokens whose signature has already been verified.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the token, so raw tokens are never held in memory, and carry the user id
+ * and the token's own expiry. An entry is dropped as soon as the token expires, so a cache hit is always as good
+ * as a fresh verification.
+ */
+@Log4j2
+@Component
+public class VerifiedTokenCache {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Cache<String, VerifiedToken> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${app.security.token-cache.max-size:50000}") long maxSize,
+                              @Value("${app.security.access-token.max-age:900}") int accessTokenMaxAge) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                // Upper bound only, the token expiry below is what actually invalidates an entry
+                .expireAfterWrite(accessTokenMaxAge, TimeUnit.SECONDS)
+                .build();
+        this.hits = Counter.builder("portal.auth.token.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("portal.auth.token.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("portal.auth.token.cache.size", cache, Cache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the verified token, or null when it is not cached or has expired since it was cached.
+     */
+    public VerifiedToken get(String token) {
+        String key = hash(token);
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified == null) {
+            misses.increment();
+            return null;
+        }
+        if (verified.isExpired()) {
+            cache.invalidate(key);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return verified;
+    }
+
+    /**
+     * Caches a token. Must only be called after its signature has been verified: the expiry is read from the
+     * payload without checking the signature again.
+     */
+    public void put(String token, String userId) {
+        long expiresAt = readExpiry(token);
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        cache.put(hash(token), new VerifiedToken(userId, expiresAt));
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(hash(token));
+    }
+
+    private long readExpiry(String token) {
+        try {
+            String[] parts = token.split("\\.");
+            if (parts.length < 2) {
+                return 0;
+            }
+            JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            JsonNode exp = payload.get("exp");
+            return exp == null ? 0 : TimeUnit.SECONDS.toMillis(exp.asLong());
+        } catch (Exception e) {
+            log.debug("Unable to read expiry from token, not caching it: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record VerifiedToken(String userId, long expiresAt) {
+
+        public boolean isExpired() {
+            return expiresAt <= System.currentTimeMillis();
+        }
+    }
+}
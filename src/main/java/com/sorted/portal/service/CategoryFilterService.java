@@ -1,22 +1,16 @@
 package com.sorted.portal.service;
 
-import com.sorted.commons.beans.SelectedSubCategories;
-import com.sorted.commons.entity.mongo.BaseMongoEntity;
 import com.sorted.commons.entity.mongo.Category_Master;
-import com.sorted.commons.entity.mongo.Products;
 import com.sorted.commons.entity.service.Category_MasterService;
-import com.sorted.commons.entity.service.ProductService;
-import com.sorted.commons.helper.AggregationFilter.SEFilter;
-import com.sorted.commons.helper.AggregationFilter.SEFilterType;
-import com.sorted.commons.helper.AggregationFilter.WhereClause;
+import com.sorted.portal.assisting.beans.FacetSubCategory;
 import lombok.AllArgsConstructor;
-import lombok.Getter;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,60 +18,25 @@ import java.util.stream.Collectors;
 public class CategoryFilterService {
 
     private final Category_MasterService categoryMasterService;
-    private final ProductService productService;
+    private final ProductFacetIndex productFacetIndex;
 
     public List<Category_Master> getFilters() {
-        // Step 1: Get all non-deleted products
-        List<Products> products = getNonDeletedProducts();
-
-        // Step 2: Extract subcategories and attributes from products
-        FilterData filterData = extractFilterDataFromProducts(products);
-
-        // Step 3: Get all category masters
+        // Step 1: Get all category masters
         List<Category_Master> allCategoryMasters = categoryMasterService.repoFindAll();
 
-        // Step 4: Filter and build the result
-        return buildFilteredCategoryMasters(allCategoryMasters, filterData);
-    }
-
-    /**
-     * Retrieves all non-deleted products
-     */
-    private List<Products> getNonDeletedProducts() {
-        SEFilter filterP = new SEFilter(SEFilterType.AND);
-        filterP.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-        return productService.repoFind(filterP);
-    }
-
-    /**
-     * Extracts subcategories and attributes from products that have associated products
-     */
-    private FilterData extractFilterDataFromProducts(List<Products> products) {
-        List<SelectedSubCategories> selectedSubCategories = products.stream()
-                .flatMap(product -> product.getSelected_sub_catagories().stream())
-                .toList();
-
-        Set<String> subCategoriesWithProducts = selectedSubCategories.stream()
-                .map(SelectedSubCategories::getSub_category)
-                .collect(Collectors.toSet());
-
-        Set<String> attributesWithProducts = selectedSubCategories.stream()
-                .flatMap(subCat -> subCat.getSelected_attributes().stream())
-                .collect(Collectors.toSet());
-
-        return new FilterData(subCategoriesWithProducts, attributesWithProducts);
+        // Step 2: Filter and build the result from the facet index
+        return buildFilteredCategoryMasters(allCategoryMasters);
     }
 
     /**
      * Builds filtered category masters containing only groups, subcategories, and attributes
      * that have associated products
      */
-    private List<Category_Master> buildFilteredCategoryMasters(List<Category_Master> allCategoryMasters,
-                                                               FilterData filterData) {
+    private List<Category_Master> buildFilteredCategoryMasters(List<Category_Master> allCategoryMasters) {
         List<Category_Master> filteredCategories = new ArrayList<>();
 
         for (Category_Master categoryMaster : allCategoryMasters) {
-            Category_Master filteredCategory = buildFilteredCategory(categoryMaster, filterData);
+            Category_Master filteredCategory = buildFilteredCategory(categoryMaster);
 
             // Only add category if it has groups with valid subcategories
             if (hasValidContent(filteredCategory)) {
@@ -91,7 +50,7 @@ public class CategoryFilterService {
     /**
      * Builds a filtered category containing only groups and subcategories that have products
      */
-    private Category_Master buildFilteredCategory(Category_Master originalCategory, FilterData filterData) {
+    private Category_Master buildFilteredCategory(Category_Master originalCategory) {
         Category_Master filteredCategory = new Category_Master();
         filteredCategory.setCategory_code(originalCategory.getCategory_code());
         filteredCategory.setName(originalCategory.getName());
@@ -101,7 +60,9 @@ public class CategoryFilterService {
         List<Category_Master.Groups> filteredGroups = new ArrayList<>();
 
         for (Category_Master.Groups group : originalCategory.getGroups()) {
-            Category_Master.Groups filteredGroup = buildFilteredGroup(group, filterData);
+            Map<String, Map<String, Long>> facetCounts = productFacetIndex.getCounts(originalCategory.getId(),
+                    group.getGroup_id());
+            Category_Master.Groups filteredGroup = buildFilteredGroup(group, facetCounts);
 
             // Only add group if it has subcategories with products
             if (!CollectionUtils.isEmpty(filteredGroup.getSub_categories())) {
@@ -116,7 +77,8 @@ public class CategoryFilterService {
     /**
      * Builds a filtered group containing only subcategories and attributes that have products
      */
-    private Category_Master.Groups buildFilteredGroup(Category_Master.Groups originalGroup, FilterData filterData) {
+    private Category_Master.Groups buildFilteredGroup(Category_Master.Groups originalGroup,
+                                                      Map<String, Map<String, Long>> facetCounts) {
         Category_Master.Groups filteredGroup = new Category_Master.Groups();
         filteredGroup.setGroup_id(originalGroup.getGroup_id());
         filteredGroup.setGroup_name(originalGroup.getGroup_name());
@@ -126,8 +88,9 @@ public class CategoryFilterService {
 
         for (Category_Master.SubCategory subCategory : originalGroup.getSub_categories()) {
             // Only process subcategories that have associated products
-            if (filterData.getSubCategoriesWithProducts().contains(subCategory.getName())) {
-                Category_Master.SubCategory filteredSubCategory = buildFilteredSubCategory(subCategory, filterData);
+            if (facetCounts.containsKey(subCategory.getName())) {
+                Category_Master.SubCategory filteredSubCategory = buildFilteredSubCategory(subCategory,
+                        facetCounts.get(subCategory.getName()));
 
                 // Only add subcategory if it has attributes with products
                 if (!CollectionUtils.isEmpty(filteredSubCategory.getAttributes())) {
@@ -141,11 +104,11 @@ public class CategoryFilterService {
     }
 
     /**
-     * Builds a filtered subcategory containing only attributes that have products
+     * Builds a filtered subcategory containing only attributes that have products, along with their product counts
      */
     private Category_Master.SubCategory buildFilteredSubCategory(Category_Master.SubCategory originalSubCategory,
-                                                                 FilterData filterData) {
-        Category_Master.SubCategory filteredSubCategory = new Category_Master.SubCategory();
+                                                                 Map<String, Long> attributeCounts) {
+        FacetSubCategory filteredSubCategory = new FacetSubCategory();
         filteredSubCategory.setName(originalSubCategory.getName());
         filteredSubCategory.setInput_type(originalSubCategory.getInput_type());
         filteredSubCategory.setMandate(originalSubCategory.isMandate());
@@ -155,11 +118,17 @@ public class CategoryFilterService {
         filteredSubCategory.setData_type(originalSubCategory.getData_type());
 
         // Filter attributes to only include those with products
-        List<String> filteredAttributes = originalSubCategory.getAttributes().stream()
-                .filter(filterData.getAttributesWithProducts()::contains)
+        List<String> filteredAttributes = CollectionUtils.isEmpty(originalSubCategory.getAttributes())
+                ? new ArrayList<>()
+                : originalSubCategory.getAttributes().stream()
+                .filter(attributeCounts::containsKey)
                 .collect(Collectors.toList());
 
+        Map<String, Long> filteredCounts = new LinkedHashMap<>();
+        filteredAttributes.forEach(attribute -> filteredCounts.put(attribute, attributeCounts.get(attribute)));
+
         filteredSubCategory.setAttributes(filteredAttributes);
+        filteredSubCategory.setAttribute_counts(filteredCounts);
         return filteredSubCategory;
     }
 
@@ -172,18 +141,4 @@ public class CategoryFilterService {
                         .anyMatch(group -> !CollectionUtils.isEmpty(group.getSub_categories()));
     }
 
-    /**
-     * Helper class to hold filter data extracted from products
-     */
-    @Getter
-    private static class FilterData {
-        private final Set<String> subCategoriesWithProducts;
-        private final Set<String> attributesWithProducts;
-
-        public FilterData(Set<String> subCategoriesWithProducts, Set<String> attributesWithProducts) {
-            this.subCategoriesWithProducts = subCategoriesWithProducts;
-            this.attributesWithProducts = attributesWithProducts;
-        }
-
-    }
 }
@@ -3,10 +3,10 @@ package com.sorted.portal.service;
 import com.sorted.commons.exceptions.ExcelGenerationException;
 import com.sorted.portal.enums.ReportType;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.Getter;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.CollectionUtils;
@@ -14,26 +14,46 @@ import org.springframework.util.CollectionUtils;
 import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.TemporalAccessor;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Utility class for generating Excel files from data collections.
  * <p>
- * This class provides functionality to create Excel workbooks with multiple sheets
- * using Apache POI. It supports mapping data from objects to Excel cells based on
- * field mappings defined through the ExportFieldMapping interface.
+ * Workbooks are written with a windowed {@link SXSSFWorkbook}: only the last {@value #ROW_ACCESS_WINDOW} rows of a
+ * sheet are kept in memory and older rows are flushed to a temporary file, so sheets can be fed from an
+ * {@link Iterator} and written straight to an {@link OutputStream} without materializing the report. Column widths are
+ * computed from the first {@value #WIDTH_SAMPLE_ROWS} rows instead of {@code autoSizeColumn}, which needs every row
+ * in memory and measures each cell with the AWT font engine.
  * </p>
  */
 public class ExcelGenerationUtility {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ExcelGenerationUtility.class);
 
+    private static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    /**
+     * Rows of a sheet kept in memory while writing; older rows are flushed to disk.
+     */
+    private static final int ROW_ACCESS_WINDOW = 100;
+
+    /**
+     * Leading rows of each sheet measured to size the columns.
+     */
+    private static final int WIDTH_SAMPLE_ROWS = 500;
+
+    private static final int MIN_COLUMN_CHARS = 10;
+    private static final int MAX_COLUMN_CHARS = 60;
+    private static final String MAPPING_NUMBER_FORMAT = "0";
+    private static final String REPORT_NUMBER_FORMAT = "#,##0.00";
+    private static final String DATE_FORMAT = "dd-mm-yyyy";
+
     /**
      * Private constructor to prevent instantiation of utility class.
      */
@@ -41,6 +61,49 @@ public class ExcelGenerationUtility {
         // Utility class, no instantiation
     }
 
+    /**
+     * A sheet whose rows are pulled from an iterator while the workbook is written.
+     *
+     * @param <T> The type of data objects in the sheet
+     */
+    @Getter
+    public static final class StreamingSheet<T> {
+        private final String name;
+        private final List<String> headers;
+        private final Iterator<T> rows;
+        private final Function<T, List<Object>> rowMapper;
+        private final String numberFormat;
+
+        private StreamingSheet(String name, List<String> headers, Iterator<T> rows,
+                               Function<T, List<Object>> rowMapper, String numberFormat) {
+            this.name = name;
+            this.headers = headers;
+            this.rows = rows;
+            this.rowMapper = rowMapper;
+            this.numberFormat = numberFormat;
+        }
+
+        /**
+         * Sheet whose columns are described by an {@link ExportFieldMapping} enum.
+         */
+        public static <T, E extends Enum<E> & ExportFieldMapping<T>> StreamingSheet<T> of(
+                String name, Class<E> mappingClass, Iterator<T> rows) {
+            return new StreamingSheet<>(name, ExportFieldMapping.getHeaders(mappingClass), rows,
+                    obj -> ExportAccessorPlan.of(obj.getClass(), mappingClass).values(obj, "", "Error"),
+                    MAPPING_NUMBER_FORMAT);
+        }
+
+        /**
+         * Sheet whose columns are described by a {@link ReportType}.
+         */
+        @SuppressWarnings("unchecked")
+        public static <T> StreamingSheet<T> of(ReportType reportType, Iterator<T> rows) {
+            return new StreamingSheet<>(reportType.getSheetName(), reportType.getHeaders(), rows,
+                    (Function<T, List<Object>>) (Function<?, List<Object>>) reportType.getDataExtractor(),
+                    REPORT_NUMBER_FORMAT);
+        }
+    }
+
     /**
      * Creates an Excel file with multiple sheets and writes it to the specified file path.
      *
@@ -56,24 +119,20 @@ public class ExcelGenerationUtility {
 
         LOGGER.debug("Starting Excel file generation to path: {}", outputFilePath);
 
-        try (Workbook workbook = new XSSFWorkbook()) {
-            populateWorkbook(workbook, sheetsData);
-
-            try (FileOutputStream fileOut = new FileOutputStream(outputFilePath)) {
-                workbook.write(fileOut);
-                LOGGER.info("Successfully created Excel file: {}", outputFilePath);
-            } catch (IOException e) {
-                LOGGER.error("Failed to write Excel to output file: {}", outputFilePath, e);
-                throw e;
-            }
+        try (FileOutputStream fileOut = new FileOutputStream(outputFilePath)) {
+            writeExcel(toStreamingSheets(sheetsData), fileOut);
+            LOGGER.info("Successfully created Excel file: {}", outputFilePath);
         } catch (IOException e) {
-            LOGGER.error("Failed to create Excel workbook", e);
+            LOGGER.error("Failed to write Excel to output file: {}", outputFilePath, e);
             throw e;
         }
     }
 
     /**
      * Creates an Excel file with multiple sheets and returns it as a byte array.
+     * <p>
+     * Prefer {@link #writeExcel(List, OutputStream)} for large exports, this keeps the whole file in heap.
+     * </p>
      *
      * @param <T>        The type of data objects to be exported
      * @param <E>        The enum type implementing ExportFieldMapping that defines the field mapping
@@ -86,81 +145,170 @@ public class ExcelGenerationUtility {
 
         LOGGER.debug("Starting in-memory Excel file generation");
 
-        try (Workbook workbook = new XSSFWorkbook()) {
-            populateWorkbook(workbook, sheetsData);
-
-            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-                workbook.write(out);
-                LOGGER.info("Successfully created in-memory Excel file");
-                return out.toByteArray();
-            } catch (IOException e) {
-                LOGGER.error("Failed to write Excel to byte array", e);
-                throw e;
-            }
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            writeExcel(toStreamingSheets(sheetsData), out);
+            LOGGER.info("Successfully created in-memory Excel file");
+            return out.toByteArray();
         } catch (IOException e) {
-            LOGGER.error("Failed to create Excel workbook", e);
+            LOGGER.error("Failed to write Excel to byte array", e);
             throw e;
         }
     }
 
     /**
-     * Populates the workbook with sheets based on the provided sheet configurations.
+     * Writes the sheets to the output stream, pulling rows from each sheet's iterator in order.
+     * Sheets without rows are skipped. The stream is not closed.
      *
-     * @param workbook   The workbook to populate
-     * @param sheetsData Map containing sheet names and their corresponding data configurations
+     * @param sheets The sheets to write, in order
+     * @param out    The stream to write the workbook to
+     * @return The number of data rows written across all sheets
+     * @throws IOException If an I/O error occurs while writing the workbook
      */
-    private static void populateWorkbook(Workbook workbook, Map<String, FileGeneratorUtil.SheetConfig<?, ?>> sheetsData) {
-        for (Map.Entry<String, FileGeneratorUtil.SheetConfig<?, ?>> entry : sheetsData.entrySet()) {
-            String sheetName = entry.getKey();
-            FileGeneratorUtil.SheetConfig<?, ?> config = entry.getValue();
-
-            if (config.getData() == null || config.getData().isEmpty()) {
-                LOGGER.warn("Skipping empty sheet: {}", sheetName);
-                continue;
+    public static long writeExcel(List<StreamingSheet<?>> sheets, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Styles styles = new Styles(workbook);
+            long rowCount = 0;
+            for (StreamingSheet<?> streamingSheet : sheets) {
+                if (!streamingSheet.getRows().hasNext()) {
+                    LOGGER.warn("Skipping empty sheet: {}", streamingSheet.getName());
+                    continue;
+                }
+                rowCount += writeSheet(workbook, streamingSheet, styles);
             }
-
-            LOGGER.debug("Creating sheet: {}", sheetName);
-            Sheet sheet = workbook.createSheet(sheetName);
-            writeSheet(sheet, config, workbook);
+            if (workbook.getNumberOfSheets() == 0) {
+                // A workbook needs at least one sheet to be valid
+                workbook.createSheet();
+            }
+            workbook.write(out);
+            LOGGER.debug("Wrote {} rows across {} sheets", rowCount, workbook.getNumberOfSheets());
+            return rowCount;
+        } finally {
+            workbook.close();
+            workbook.dispose(); // Removes the temp files backing flushed rows
         }
     }
 
     /**
-     * Writes data to a sheet based on the provided sheet configuration.
+     * Writes a single sheet, measuring column widths from the first rows as they go by.
      *
-     * @param <T>         The type of data objects
-     * @param <E>         The enum type implementing ExportFieldMapping
-     * @param sheet       The sheet to write to
-     * @param sheetConfig Configuration containing the data and mapping information
-     * @param workbook    The parent workbook
+     * @param <T>            The type of data objects
+     * @param workbook       The parent workbook
+     * @param streamingSheet The sheet definition and its rows
+     * @param styles         Shared cell styles
+     * @return The number of data rows written
      */
-    private static <T, E extends Enum<E> & ExportFieldMapping<T>> void writeSheet(
-            Sheet sheet,
-            FileGeneratorUtil.SheetConfig<T, E> sheetConfig,
-            Workbook workbook) {
+    private static <T> long writeSheet(SXSSFWorkbook workbook, StreamingSheet<T> streamingSheet, Styles styles) {
+        LOGGER.debug("Writing data to sheet: {}", streamingSheet.getName());
 
-        LOGGER.debug("Writing data to sheet: {}", sheet.getSheetName());
+        SXSSFSheet sheet = workbook.createSheet(streamingSheet.getName());
+        List<String> headers = streamingSheet.getHeaders();
+        CellStyle numberStyle = styles.number(streamingSheet.getNumberFormat());
 
-        List<String> headers = ExportFieldMapping.getHeaders(sheetConfig.getMappingClass());
-        List<String> fields = ExportFieldMapping.getFields(sheetConfig.getMappingClass());
+        int[] widths = new int[headers.size()];
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.size(); i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers.get(i));
+            cell.setCellStyle(styles.header);
+            widths[i] = displayLength(headers.get(i));
+        }
 
-        CreationHelper creationHelper = workbook.getCreationHelper();
+        int rowNum = 1;
+        Iterator<T> rows = streamingSheet.getRows();
+        while (rows.hasNext()) {
+            T item = rows.next();
+            Row row = sheet.createRow(rowNum);
+            List<Object> rowData = mapRow(streamingSheet, item);
+            for (int i = 0; i < rowData.size(); i++) {
+                Object value = rowData.get(i);
+                setCellValue(row.createCell(i), value, styles, numberStyle);
+                if (rowNum <= WIDTH_SAMPLE_ROWS && i < widths.length) {
+                    widths[i] = Math.max(widths[i], displayLength(value));
+                }
+            }
+            rowNum++;
+        }
 
-        // Create cell styles
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        CellStyle bodyStyle = createBodyStyle(workbook);
-        CellStyle numericStyle = createNumericStyle(workbook, bodyStyle, creationHelper);
+        for (int i = 0; i < widths.length; i++) {
+            int chars = Math.min(MAX_COLUMN_CHARS, Math.max(MIN_COLUMN_CHARS, widths[i] + 2));
+            sheet.setColumnWidth(i, chars * 256);
+        }
+        sheet.createFreezePane(0, 1);
 
-        // Create header row
-        createHeaderRow(sheet, headers, headerStyle);
+        LOGGER.debug("Finished writing {} rows to sheet: {}", rowNum - 1, streamingSheet.getName());
+        return rowNum - 1L;
+    }
 
-        // Create data rows
-        createDataRows(sheet, sheetConfig.getData(), fields, bodyStyle, numericStyle);
+    private static <T> List<Object> mapRow(StreamingSheet<T> streamingSheet, T item) {
+        try {
+            return streamingSheet.getRowMapper().apply(item);
+        } catch (Exception e) {
+            LOGGER.warn("Error extracting row from object of type {} in sheet {}",
+                    item == null ? null : item.getClass().getSimpleName(), streamingSheet.getName(), e);
+            return Collections.nCopies(streamingSheet.getHeaders().size(), "Error");
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<StreamingSheet<?>> toStreamingSheets(Map<String, FileGeneratorUtil.SheetConfig<?, ?>> sheetsData) {
+        List<StreamingSheet<?>> sheets = new ArrayList<>(sheetsData.size());
+        for (Map.Entry<String, FileGeneratorUtil.SheetConfig<?, ?>> entry : sheetsData.entrySet()) {
+            FileGeneratorUtil.SheetConfig config = entry.getValue();
+            List<?> data = config.getData() == null ? Collections.emptyList() : config.getData();
+            sheets.add(StreamingSheet.of(entry.getKey(), config.getMappingClass(), data.iterator()));
+        }
+        return sheets;
+    }
 
-        // Format sheet
-        formatSheet(sheet, headers.size());
+    /**
+     * Approximate width of a value in characters, as it will be displayed.
+     */
+    private static int displayLength(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Date || value instanceof TemporalAccessor) {
+            return DATE_FORMAT.length();
+        }
+        if (value instanceof Number number) {
+            // Room for the thousand separators and decimals of the number format
+            return String.valueOf(number.longValue()).length() + 4;
+        }
+        String text = value.toString();
+        int longest = 0;
+        int lineStart = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || text.charAt(i) == '\n') {
+                longest = Math.max(longest, i - lineStart);
+                lineStart = i + 1;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Cell styles shared by every sheet of a workbook. POI styles are workbook level objects with a hard limit on
+     * their number, so they are created once rather than per cell.
+     */
+    private static final class Styles {
+        private final Workbook workbook;
+        private final CellStyle header;
+        private final CellStyle body;
+        private final CellStyle date;
+        private final Map<String, CellStyle> numbers = new HashMap<>();
+
+        private Styles(Workbook workbook) {
+            this.workbook = workbook;
+            this.header = createHeaderStyle(workbook);
+            this.body = createBodyStyle(workbook);
+            this.date = createFormattedStyle(workbook, body, DATE_FORMAT);
+        }
 
-        LOGGER.debug("Finished writing sheet: {}", sheet.getSheetName());
+        private CellStyle number(String format) {
+            return numbers.computeIfAbsent(format, f -> createFormattedStyle(workbook, body, f));
+        }
     }
 
     /**
@@ -210,92 +358,19 @@ public class ExcelGenerationUtility {
     }
 
     /**
-     * Creates the numeric cell style.
+     * Creates a body style with the given data format.
      *
-     * @param workbook       The workbook to create the style in
-     * @param baseStyle      The base style to clone from
-     * @param creationHelper The creation helper to create data format
-     * @return The created numeric cell style
+     * @param workbook  The workbook to create the style in
+     * @param baseStyle The base style to clone from
+     * @param format    The data format, e.g. {@code "0"} or {@code "dd-mm-yyyy"}
+     * @return The created cell style
      */
-    private static CellStyle createNumericStyle(Workbook workbook, CellStyle baseStyle, CreationHelper creationHelper) {
-        CellStyle numericStyle = workbook.createCellStyle();
-        numericStyle.cloneStyleFrom(baseStyle);
-        numericStyle.setDataFormat(creationHelper.createDataFormat().getFormat("0"));
-
-        return numericStyle;
-    }
+    private static CellStyle createFormattedStyle(Workbook workbook, CellStyle baseStyle, String format) {
+        CellStyle style = workbook.createCellStyle();
+        style.cloneStyleFrom(baseStyle);
+        style.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(format));
 
-    /**
-     * Creates the header row in the sheet.
-     *
-     * @param sheet       The sheet to create the header row in
-     * @param headers     The header texts
-     * @param headerStyle The style to apply to header cells
-     */
-    private static void createHeaderRow(Sheet sheet, List<String> headers, CellStyle headerStyle) {
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < headers.size(); i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers.get(i));
-            cell.setCellStyle(headerStyle);
-        }
-    }
-
-    /**
-     * Creates the data rows in the sheet.
-     *
-     * @param <T>          The type of data objects
-     * @param sheet        The sheet to create data rows in
-     * @param data         The list of data objects
-     * @param fields       The field names to extract from data objects
-     * @param bodyStyle    The style for regular cells
-     * @param numericStyle The style for numeric cells
-     */
-    private static <T> void createDataRows(
-            Sheet sheet,
-            List<T> data,
-            List<String> fields,
-            CellStyle bodyStyle,
-            CellStyle numericStyle) {
-
-        int rowIndex = 1;
-        for (T dataObj : data) {
-            Row row = sheet.createRow(rowIndex);
-            for (int i = 0; i < fields.size(); i++) {
-                Cell cell = row.createCell(i);
-                try {
-                    Optional<Object> valueOpt = getFieldValue(dataObj, fields.get(i));
-                    Object value = valueOpt.orElse("");
-
-                    if (value instanceof Number) {
-                        cell.setCellValue(((Number) value).doubleValue());
-                        cell.setCellStyle(numericStyle);
-                    } else {
-                        cell.setCellValue(value.toString());
-                        cell.setCellStyle(bodyStyle);
-                    }
-                } catch (Exception e) {
-                    LOGGER.warn("Error extracting field '{}' from object of type {}",
-                            fields.get(i), dataObj.getClass().getSimpleName(), e);
-                    cell.setCellValue("Error");
-                    cell.setCellStyle(bodyStyle);
-                }
-            }
-            rowIndex++;
-        }
-    }
-
-    /**
-     * Formats the sheet by auto-sizing columns and freezing the header row.
-     *
-     * @param sheet       The sheet to format
-     * @param columnCount The number of columns to auto-size
-     */
-    private static void formatSheet(Sheet sheet, int columnCount) {
-        for (int i = 0; i < columnCount; i++) {
-            sheet.autoSizeColumn(i);
-        }
-        sheet.createFreezePane(0, 1);
+        return style;
     }
 
     /**
@@ -310,86 +385,8 @@ public class ExcelGenerationUtility {
         style.setBorderRight(BorderStyle.THIN);
     }
 
-    /**
-     * Gets a field value from an object, trying both direct field access and getter methods.
-     *
-     * @param <T>       The type of object
-     * @param obj       The object to extract value from
-     * @param fieldName The name of the field
-     * @return Optional containing the field value if found, empty otherwise
-     * @throws IllegalAccessException    If field access is denied
-     * @throws InvocationTargetException If method invocation fails
-     */
-    private static <T> Optional<Object> getFieldValue(T obj, String fieldName)
-            throws IllegalAccessException, InvocationTargetException {
-
-        // Try direct field access first
-        Optional<Field> field = findField(obj.getClass(), fieldName);
-        if (field.isPresent()) {
-            field.get().setAccessible(true);
-            return Optional.ofNullable(field.get().get(obj));
-        }
-
-        // Try getter method if field not found
-        Optional<Method> getter = findGetter(obj.getClass(), fieldName);
-        if (getter.isPresent()) {
-            return Optional.ofNullable(getter.get().invoke(obj));
-        }
-
-        LOGGER.debug("Could not find field or getter for '{}' in class {}",
-                fieldName, obj.getClass().getSimpleName());
-        return Optional.empty();
-    }
-
-    /**
-     * Finds a field in a class or its superclasses.
-     *
-     * @param clazz     The class to search in
-     * @param fieldName The name of the field to find
-     * @return Optional containing the field if found, empty otherwise
-     */
-    private static Optional<Field> findField(Class<?> clazz, String fieldName) {
-        Class<?> currentClass = clazz;
-        while (currentClass != null) {
-            try {
-                return Optional.of(currentClass.getDeclaredField(fieldName));
-            } catch (NoSuchFieldException e) {
-                currentClass = currentClass.getSuperclass();
-            }
-        }
-        return Optional.empty();
-    }
-
-    /**
-     * Finds a getter method for a field in a class or its superclasses.
-     *
-     * @param clazz     The class to search in
-     * @param fieldName The name of the field to find a getter for
-     * @return Optional containing the getter method if found, empty otherwise
-     */
-    private static Optional<Method> findGetter(Class<?> clazz, String fieldName) {
-        String capitalizedFieldName = fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-        String getterName = "get" + capitalizedFieldName;
-        String booleanGetterName = "is" + capitalizedFieldName;
-
-        Class<?> currentClass = clazz;
-        while (currentClass != null) {
-            try {
-                return Optional.of(currentClass.getMethod(getterName));
-            } catch (NoSuchMethodException e1) {
-                try {
-                    return Optional.of(currentClass.getMethod(booleanGetterName));
-                } catch (NoSuchMethodException e2) {
-                    currentClass = currentClass.getSuperclass();
-                }
-            }
-        }
-        return Optional.empty();
-    }
-
     /**
      * Generates an Excel report based on the provided data and report type
-     * with memory optimization and enhanced features
      *
      * @param data       The data to include in the report
      * @param reportType The type of report to generate
@@ -402,107 +399,49 @@ public class ExcelGenerationUtility {
             response.setStatus(HttpServletResponse.SC_NO_CONTENT);
             return;
         }
+        generateExcelReport(data.iterator(), reportType, response);
+    }
 
-        // Set response headers for Excel download
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        response.setHeader("Content-Disposition",
-                "attachment; filename=" + reportType.getFileName());
-
-        // Use SXSSFWorkbook for memory optimization with large datasets
-        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) { // 100 rows in memory, rest flushed to disk
-            SXSSFSheet sheet = workbook.createSheet(reportType.getSheetName());
-
-            // Create cell styles cache to avoid creating duplicate styles
-            Map<String, CellStyle> styles = createStyles(workbook);
-
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            List<String> headers = reportType.getHeaders();
-
-            for (int i = 0; i < headers.size(); i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers.get(i));
-                cell.setCellStyle(styles.get("header"));
-
-                // Set column width constraints to prevent excessive auto-sizing
-                sheet.setColumnWidth(i, 15 * 256); // 15 characters width as default
-            }
-
-            // Create data rows with optimized cell value setting
-            int rowNum = 1;
-            CellStyle dateStyle = styles.get("date");
-            CellStyle numberStyle = styles.get("number");
-
-            for (T item : data) {
-                Row row = sheet.createRow(rowNum++);
-                List<Object> rowData = reportType.getDataExtractor().apply(item);
-
-                for (int i = 0; i < rowData.size(); i++) {
-                    Cell cell = row.createCell(i);
-                    Object value = rowData.get(i);
-                    setCellValue(cell, value, dateStyle, numberStyle);
-                }
-
-                // Flush rows to disk every 1000 rows to optimize memory usage
-                if (rowNum % 1000 == 0) {
-                    sheet.flushRows(1000);
-                }
-            }
-
-            // Auto-size columns only if data size is reasonable
-            if (data.size() <= 5000) {
-                for (int i = 0; i < headers.size(); i++) {
-                    // Cast to SXSSFSheet to use the tracking method
-                    sheet.trackColumnForAutoSizing(i);
-                    sheet.autoSizeColumn(i);
-                    // Add a little extra width for better readability
-                    int currentWidth = sheet.getColumnWidth(i);
-                    sheet.setColumnWidth(i, (int) (currentWidth * 1.2));
-                }
-            }
-
-            // Write to response output stream and clean up temp files
-            workbook.write(response.getOutputStream());
-            workbook.dispose(); // Important for SXSSFWorkbook to clean up temp files
-        } catch (IOException e) {
-            // Log the error and throw a more specific exception
-            throw new ExcelGenerationException("Failed to generate Excel report", e);
+    /**
+     * Generates an Excel report from an iterator of rows, writing it straight to the response as the rows are
+     * pulled. Responds with 204 when there are no rows.
+     *
+     * @param rows       The rows to include in the report, consumed once
+     * @param reportType The type of report to generate
+     * @param response   The HTTP response to write the Excel file to
+     * @throws IOException If an error occurs while writing the Excel file
+     */
+    public static <T> void generateExcelReport(Iterator<T> rows, ReportType reportType,
+                                               HttpServletResponse response) throws IOException {
+        if (!rows.hasNext()) {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            return;
         }
+        writeExcelResponse(List.of(StreamingSheet.of(reportType, rows)), reportType.getFileName(), response);
     }
 
     /**
-     * Creates and caches common cell styles for reuse across the workbook
+     * Writes the sheets as an Excel attachment to the response.
      *
-     * @param workbook The workbook to create styles for
-     * @return Map of named styles
+     * @param sheets   The sheets to write, in order
+     * @param fileName The attachment file name
+     * @param response The HTTP response to write the Excel file to
+     * @throws IOException If the response stream cannot be obtained
      */
-    private static Map<String, CellStyle> createStyles(Workbook workbook) {
-        Map<String, CellStyle> styles = new HashMap<>();
-
-        // Header style
-        CellStyle headerStyle = workbook.createCellStyle();
-        Font headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerFont.setFontHeightInPoints((short) 12);
-        headerStyle.setFont(headerFont);
-        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        headerStyle.setAlignment(HorizontalAlignment.CENTER);
-        headerStyle.setBorderBottom(BorderStyle.THIN);
-        styles.put("header", headerStyle);
-
-        // Date style
-        CellStyle dateStyle = workbook.createCellStyle();
-        CreationHelper createHelper = workbook.getCreationHelper();
-        dateStyle.setDataFormat(createHelper.createDataFormat().getFormat("dd-mm-yyyy"));
-        styles.put("date", dateStyle);
-
-        // Number style
-        CellStyle numberStyle = workbook.createCellStyle();
-        numberStyle.setDataFormat(createHelper.createDataFormat().getFormat("#,##0.00"));
-        styles.put("number", numberStyle);
-
-        return styles;
+    public static void writeExcelResponse(List<StreamingSheet<?>> sheets, String fileName,
+                                          HttpServletResponse response) throws IOException {
+        // Set response headers for Excel download
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+
+        OutputStream out = response.getOutputStream();
+        try {
+            long rows = writeExcel(sheets, out);
+            out.flush();
+            LOGGER.info("Streamed Excel report {} with {} rows", fileName, rows);
+        } catch (IOException e) {
+            throw new ExcelGenerationException("Failed to generate Excel report", e);
+        }
     }
 
     /**
@@ -510,31 +449,32 @@ public class ExcelGenerationUtility {
      *
      * @param cell        The cell to set the value for
      * @param value       The value to set
-     * @param dateStyle   Style for date values
+     * @param styles      Shared styles of the workbook
      * @param numberStyle Style for numeric values
      */
-    private static void setCellValue(Cell cell, Object value, CellStyle dateStyle, CellStyle numberStyle) {
+    private static void setCellValue(Cell cell, Object value, Styles styles, CellStyle numberStyle) {
         if (value == null) {
             cell.setCellValue("");
+            cell.setCellStyle(styles.body);
         } else if (value instanceof Number) {
-            double numValue = ((Number) value).doubleValue();
-            cell.setCellValue(numValue);
+            cell.setCellValue(((Number) value).doubleValue());
             cell.setCellStyle(numberStyle);
         } else if (value instanceof Boolean) {
             cell.setCellValue((Boolean) value);
+            cell.setCellStyle(styles.body);
         } else if (value instanceof Date) {
             cell.setCellValue((Date) value);
-            cell.setCellStyle(dateStyle);
+            cell.setCellStyle(styles.date);
         } else if (value instanceof LocalDate) {
             cell.setCellValue(Date.from(((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant()));
-            cell.setCellStyle(dateStyle);
+            cell.setCellStyle(styles.date);
         } else if (value instanceof LocalDateTime) {
             cell.setCellValue(Date.from(((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant()));
-            cell.setCellStyle(dateStyle);
+            cell.setCellStyle(styles.date);
         } else {
             cell.setCellValue(value.toString());
+            cell.setCellStyle(styles.body);
         }
     }
 
-
-}
\ No newline at end of file
+}
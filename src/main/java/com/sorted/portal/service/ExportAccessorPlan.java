@@ -0,0 +1,178 @@
+package com.sorted.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precompiled accessors for exporting a class with an {@link ExportFieldMapping} enum.
+ * <p>
+ * Fields and getters are resolved once per (exported class, mapping enum) pair and turned into
+ * {@link MethodHandle}s, so writing a row is a plain handle invocation per column instead of a reflective
+ * lookup per cell. Plans are cached for the lifetime of the application; the key space is bounded by the
+ * number of export DTOs.
+ * </p>
+ *
+ * @author Sorted Portal Team
+ * @since 1.0
+ */
+public final class ExportAccessorPlan {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportAccessorPlan.class);
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Map<PlanKey, ExportAccessorPlan> PLANS = new ConcurrentHashMap<>();
+
+    private final Class<?> targetClass;
+    private final List<String> fields;
+    private final MethodHandle[] accessors;
+
+    private ExportAccessorPlan(Class<?> targetClass, List<String> fields, MethodHandle[] accessors) {
+        this.targetClass = targetClass;
+        this.fields = fields;
+        this.accessors = accessors;
+    }
+
+    private record PlanKey(Class<?> targetClass, Class<?> mappingClass) {
+    }
+
+    /**
+     * Returns the cached plan for the class, compiling it on first use.
+     *
+     * @param targetClass  The runtime class of the exported objects
+     * @param mappingClass The enum class that defines the exported fields
+     * @return The accessor plan
+     */
+    public static <E extends Enum<E> & ExportFieldMapping<?>> ExportAccessorPlan of(Class<?> targetClass,
+                                                                                    Class<E> mappingClass) {
+        return PLANS.computeIfAbsent(new PlanKey(targetClass, mappingClass),
+                key -> compile(targetClass, ExportFieldMapping.getFields(mappingClass)));
+    }
+
+    /**
+     * Returns the plan for the given object, reusing {@code previous} when it was compiled for the same class.
+     * Lets row loops skip the cache lookup while every row has the same class.
+     */
+    public static <E extends Enum<E> & ExportFieldMapping<?>> ExportAccessorPlan forRow(ExportAccessorPlan previous,
+                                                                                        Object row,
+                                                                                        Class<E> mappingClass) {
+        if (previous != null && previous.targetClass == row.getClass()) {
+            return previous;
+        }
+        return of(row.getClass(), mappingClass);
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Reads a single column. Returns null when the class has no such field or getter.
+     *
+     * @param obj   The object to read from, an instance of the plan's class
+     * @param index The column index, in mapping enum order
+     * @return The value, or null
+     * @throws Throwable Whatever the getter throws
+     */
+    public Object get(Object obj, int index) throws Throwable {
+        MethodHandle accessor = accessors[index];
+        return accessor == null ? null : (Object) accessor.invokeExact(obj);
+    }
+
+    /**
+     * Reads every column, substituting {@code errorValue} for a column whose getter throws.
+     *
+     * @param obj          The object to read from, an instance of the plan's class
+     * @param missingValue Value used when a field is absent or null
+     * @param errorValue   Value used when reading the field fails
+     * @return The values in mapping enum order
+     */
+    public List<Object> values(Object obj, Object missingValue, Object errorValue) {
+        List<Object> values = new ArrayList<>(accessors.length);
+        for (int i = 0; i < accessors.length; i++) {
+            try {
+                Object value = get(obj, i);
+                values.add(value == null ? missingValue : value);
+            } catch (Throwable e) {
+                LOGGER.warn("Error accessing field '{}' in object of type {}", fields.get(i),
+                        targetClass.getSimpleName(), e);
+                values.add(errorValue);
+            }
+        }
+        return values;
+    }
+
+    private static ExportAccessorPlan compile(Class<?> targetClass, List<String> fields) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle[] accessors = new MethodHandle[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            accessors[i] = resolve(lookup, targetClass, fields.get(i));
+        }
+        LOGGER.debug("Compiled export accessor plan for {} with {} fields", targetClass.getSimpleName(), fields.size());
+        return new ExportAccessorPlan(targetClass, Collections.unmodifiableList(new ArrayList<>(fields)), accessors);
+    }
+
+    /**
+     * Resolves a field first and a getter second, matching the lookup order the exporters always used.
+     */
+    private static MethodHandle resolve(MethodHandles.Lookup lookup, Class<?> targetClass, String fieldName) {
+        try {
+            Field field = findField(targetClass, fieldName);
+            if (field != null) {
+                field.setAccessible(true);
+                return lookup.unreflectGetter(field).asType(ACCESSOR_TYPE);
+            }
+            Method getter = findGetter(targetClass, fieldName);
+            if (getter != null) {
+                getter.setAccessible(true);
+                return lookup.unreflect(getter).asType(ACCESSOR_TYPE);
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            LOGGER.warn("Unable to access '{}' in class {}", fieldName, targetClass.getSimpleName(), e);
+            return null;
+        }
+        LOGGER.debug("Could not find field or getter for '{}' in class {}", fieldName, targetClass.getSimpleName());
+        return null;
+    }
+
+    /**
+     * Finds a field in a class or its superclasses.
+     */
+    private static Field findField(Class<?> clazz, String fieldName) {
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equals(fieldName)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a public {@code get} or {@code is} getter for a field, preferring {@code get}.
+     */
+    private static Method findGetter(Class<?> clazz, String fieldName) {
+        String capitalizedFieldName = fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+        try {
+            return clazz.getMethod("get" + capitalizedFieldName);
+        } catch (NoSuchMethodException e1) {
+            try {
+                return clazz.getMethod("is" + capitalizedFieldName);
+            } catch (NoSuchMethodException e2) {
+                return null;
+            }
+        }
+    }
+}
@@ -9,13 +9,11 @@ import org.slf4j.LoggerFactory;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -127,18 +125,16 @@ public final class FileGeneratorUtil {
 
         // Create data rows
         int rowNum = 1;
+        ExportAccessorPlan plan = null;
         for (T obj : data) {
+            plan = ExportAccessorPlan.forRow(plan, obj, mappingClass);
             Row row = sheet.createRow(rowNum++);
-            for (int i = 0; i < fields.size(); i++) {
+            List<Object> values = plan.values(obj, null, "Error");
+            for (int i = 0; i < values.size(); i++) {
                 Cell cell = row.createCell(i);
-                String fieldName = fields.get(i);
-
-                try {
-                    Optional<Object> value = getFieldValue(obj, fieldName);
-                    value.ifPresent(v -> cell.setCellValue(v.toString()));
-                } catch (Exception e) {
-                    LOGGER.warn("Error accessing field '{}' in object of type {}", fieldName, obj.getClass().getSimpleName(), e);
-                    cell.setCellValue("Error");
+                Object value = values.get(i);
+                if (value != null) {
+                    cell.setCellValue(value.toString());
                 }
             }
         }
@@ -194,106 +190,43 @@ public final class FileGeneratorUtil {
      * @throws IOException If there's an error writing the file
      */
     private static <T, E extends Enum<E> & ExportFieldMapping<T>> void processCSV(FileWriter writer, SheetConfig<?, E> sheetConfig) throws IOException {
+        writeCsv(writer, sheetConfig.getData().iterator(), sheetConfig.getMappingClass());
+    }
 
-        List<?> data = sheetConfig.getData();
-        List<String> headers = ExportFieldMapping.getHeaders(sheetConfig.getMappingClass());
-        List<String> fields = ExportFieldMapping.getFields(sheetConfig.getMappingClass());
+    /**
+     * Writes a header line and one line per row to the writer, pulling rows from the iterator as it goes, so the
+     * rows do not have to be in memory at once.
+     *
+     * @param <E>          The enum type implementing ExportFieldMapping
+     * @param writer       The writer to write CSV data to; not closed
+     * @param rows         The rows to write, consumed once
+     * @param mappingClass Columns to write
+     * @return The number of rows written
+     * @throws IOException If there's an error writing
+     */
+    public static <E extends Enum<E> & ExportFieldMapping<?>> long writeCsv(Writer writer, Iterator<?> rows, Class<E> mappingClass) throws IOException {
+        List<String> headers = ExportFieldMapping.getHeaders(mappingClass);
 
         // Write headers
         String headersStr = headers.stream().map(FileGeneratorUtil::escapeCsv).collect(Collectors.joining(","));
         writer.append(headersStr).append("\n");
 
         // Write data rows
-        for (Object obj : data) {
+        ExportAccessorPlan plan = null;
+        long count = 0;
+        while (rows.hasNext()) {
+            Object obj = rows.next();
+            plan = ExportAccessorPlan.forRow(plan, obj, mappingClass);
             List<String> values = new ArrayList<>();
 
-            for (String fieldName : fields) {
-                try {
-                    Optional<Object> value = getFieldValue(obj, fieldName);
-                    values.add(escapeCsv(value.isPresent() ? value.get().toString() : ""));
-                } catch (Exception e) {
-                    LOGGER.warn("Error accessing field '{}' in object of type {}", fieldName, obj.getClass().getSimpleName(), e);
-                    values.add("Error");
-                }
+            for (Object value : plan.values(obj, "", "Error")) {
+                values.add(escapeCsv(value.toString()));
             }
 
             writer.append(String.join(",", values)).append("\n");
+            count++;
         }
-    }
-
-    /**
-     * Gets a field value from an object, trying both direct field access and getter methods.
-     *
-     * @param <T>       The type of object
-     * @param obj       The object to extract value from
-     * @param fieldName The name of the field
-     * @return Optional containing the field value if found, empty otherwise
-     * @throws IllegalAccessException    If field access is denied
-     * @throws InvocationTargetException If method invocation fails
-     */
-    private static <T> Optional<Object> getFieldValue(T obj, String fieldName) throws IllegalAccessException, InvocationTargetException {
-
-        // Try direct field access first
-        Optional<Field> field = findField(obj.getClass(), fieldName);
-        if (field.isPresent()) {
-            field.get().setAccessible(true);
-            return Optional.ofNullable(field.get().get(obj));
-        }
-
-        // Try getter method if field not found
-        Optional<Method> getter = findGetter(obj.getClass(), fieldName);
-        if (getter.isPresent()) {
-            return Optional.ofNullable(getter.get().invoke(obj));
-        }
-
-        LOGGER.debug("Could not find field or getter for '{}' in class {}", fieldName, obj.getClass().getSimpleName());
-        return Optional.empty();
-    }
-
-    /**
-     * Find a field in a class or its superclasses.
-     *
-     * @param clazz     The class to search in
-     * @param fieldName The name of the field to find
-     * @return Optional containing the field if found, empty otherwise
-     */
-    private static Optional<Field> findField(Class<?> clazz, String fieldName) {
-        Class<?> currentClass = clazz;
-        while (currentClass != null) {
-            try {
-                return Optional.of(currentClass.getDeclaredField(fieldName));
-            } catch (NoSuchFieldException e) {
-                currentClass = currentClass.getSuperclass();
-            }
-        }
-        return Optional.empty();
-    }
-
-    /**
-     * Find a getter method for a field in a class or its superclasses.
-     *
-     * @param clazz     The class to search in
-     * @param fieldName The name of the field to find a getter for
-     * @return Optional containing the getter method if found, empty otherwise
-     */
-    private static Optional<Method> findGetter(Class<?> clazz, String fieldName) {
-        String capitalizedFieldName = fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-        String getterName = "get" + capitalizedFieldName;
-        String booleanGetterName = "is" + capitalizedFieldName;
-
-        Class<?> currentClass = clazz;
-        while (currentClass != null) {
-            try {
-                return Optional.of(currentClass.getMethod(getterName));
-            } catch (NoSuchMethodException e1) {
-                try {
-                    return Optional.of(currentClass.getMethod(booleanGetterName));
-                } catch (NoSuchMethodException e2) {
-                    currentClass = currentClass.getSuperclass();
-                }
-            }
-        }
-        return Optional.empty();
+        return count;
     }
 
     /**
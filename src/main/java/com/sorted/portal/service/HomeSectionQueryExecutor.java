@@ -0,0 +1,122 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.entity.mongo.Products;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.repository.mongo.ProductRepository;
+import com.sorted.portal.config.logging.RequestTrace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs the random product queries behind the home page sections in parallel.
+ * <p>
+ * Queries go to a pool capped at {@code se.home.query.threads}; when its queue is full the caller runs the query
+ * itself, which just falls back to the old sequential behaviour. Each query gets {@code se.home.query.timeout-ms}
+ * from the moment it is submitted, and a query still queued when its budget is gone is not run at all. Queries go
+ * through {@link ProductRepository#getRandomProducts}, which takes no max time, so a query that overruns is
+ * abandoned rather than stopped on the server. A query that fails or times out yields an empty section marked
+ * degraded, so one slow section leaves its carousel empty instead of failing the page, and callers know not to cache
+ * the page.
+ */
+@Slf4j
+@Component
+public class HomeSectionQueryExecutor {
+
+    /**
+     * Products of one home section. {@code degraded} sections are empty because their query failed or timed out.
+     */
+    public record Section(List<Products> products, boolean degraded) {
+
+        static Section degradedSection() {
+            return new Section(Collections.emptyList(), true);
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer queryTimer;
+    private final Counter timeoutCounter;
+    private final Counter failureCounter;
+
+    public HomeSectionQueryExecutor(ProductRepository productRepository, MeterRegistry meterRegistry,
+                                    @Value("${se.home.query.threads:8}") int threads,
+                                    @Value("${se.home.query.queue:256}") int queueCapacity,
+                                    @Value("${se.home.query.timeout-ms:3000}") long timeoutMs) {
+        this.productRepository = productRepository;
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("home-query-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.queryTimer = Timer.builder("portal.home.section.query.latency").register(meterRegistry);
+        this.timeoutCounter = Counter.builder("portal.home.section.degraded").tag("reason", "timeout")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("portal.home.section.degraded").tag("reason", "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Picks {@code count} random products matching {@code filter}.
+     */
+    public CompletableFuture<Section> randomProducts(SEFilter filter, int count) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Callable<List<Products>> query = RequestTrace.wrap(() -> {
+            if (deadline - System.nanoTime() <= 0) {
+                throw new TimeoutException("queued past its budget");
+            }
+            long start = System.nanoTime();
+            try {
+                return productRepository.getRandomProducts(filter, count);
+            } finally {
+                queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+        return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return new Section(query.call(), false);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(t -> {
+                    Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                    if (isTimeout(cause)) {
+                        timeoutCounter.increment();
+                        log.warn("Home section query timed out after {} ms, returning an empty section", timeoutMs);
+                    } else {
+                        failureCounter.increment();
+                        log.error("Home section query failed, returning an empty section: {}", cause.getMessage(), cause);
+                    }
+                    return Section.degradedSection();
+                });
+    }
+
+    private static boolean isTimeout(Throwable t) {
+        for (Throwable current = t; current != null; current = current.getCause()) {
+            if (current instanceof TimeoutException || current instanceof QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,277 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import com.sorted.commons.helper.AggregationFilter.OrderBy;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.helper.AggregationFilter.SortOrder;
+import com.sorted.commons.helper.AggregationFilter.WhereClause;
+import com.sorted.commons.helper.Pagination;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset (cursor) pagination over an {@link SEFilter} query.
+ * <p>
+ * Rows are ordered by the sort field and then by {@code _id} in the same direction, and a continuation token holds
+ * the single boundary {@code (last value, last id)}. Null values sort first ascending and last descending, as in
+ * Mongo. {@link SEFilter} orders on one field only, so a page is read in segments that each need a single sort key:
+ * the rest of the boundary value's ties ordered by {@code _id}, then the values past it ordered by the sort field.
+ * When a page ends inside a run of equal values, that run is re-read ordered by {@code _id}, so it is always cut at
+ * the lowest ids. Each segment is a range scan from the boundary, so deep pages cost the same as the first one and
+ * rows inserted behind the cursor do not shift the following pages.
+ */
+@Slf4j
+public final class KeysetPagination {
+
+    private static final String SEPARATOR = "|";
+    private static final String NULL_TYPE = "N";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Sort key of a keyset query: the document field, the direction, and how to read the value from an entity.
+     */
+    public record Sort<T>(String field, SortOrder order, Function<T, Object> valueOf) {
+    }
+
+    /**
+     * A page of results with the token to request the next one. {@code nextCursor} is null on the last page.
+     */
+    public record Page<T>(List<T> items, String nextCursor, boolean hasMore, long totalCount) {
+    }
+
+    /**
+     * Decoded continuation token.
+     *
+     * @param field      sort field the token was issued for
+     * @param value      sort value of the last row returned, may be null
+     * @param lastId     id of the last row returned
+     * @param totalCount total count computed when the first page was served
+     */
+    record Cursor(String field, Object value, String lastId, long totalCount) {
+
+        String encode() {
+            // The value goes last so that separators inside a string value survive the split
+            String raw = field + SEPARATOR + typeOf(value) + SEPARATOR + totalCount + SEPARATOR + lastId + SEPARATOR
+                    + (value == null ? "" : value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split(Pattern.quote(SEPARATOR), 5);
+                if (parts.length != 5 || !StringUtils.hasText(parts[3])) {
+                    throw new IllegalArgumentException("Unexpected cursor format");
+                }
+                Object value = parseValue(parts[1], parts[4]);
+                return new Cursor(parts[0], value, parts[3], Long.parseLong(parts[2]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                log.warn("Rejecting malformed cursor: {}", e.getMessage());
+                throw new CustomIllegalArgumentsException("Invalid cursor.");
+            }
+        }
+
+        private static String typeOf(Object value) {
+            if (value == null) {
+                return NULL_TYPE;
+            }
+            if (value instanceof Long || value instanceof Integer) {
+                return "L";
+            }
+            if (value instanceof LocalDateTime) {
+                return "D";
+            }
+            return "S";
+        }
+
+        private static Object parseValue(String type, String value) {
+            return switch (type) {
+                case NULL_TYPE -> null;
+                case "L" -> Long.parseLong(value);
+                case "D" -> LocalDateTime.parse(value);
+                case "S" -> value;
+                default -> throw new IllegalArgumentException("Unknown value type " + type);
+            };
+        }
+    }
+
+    /**
+     * Fetches one page.
+     *
+     * @param baseFilter supplies a fresh filter with the query conditions; sorting and pagination are set here
+     * @param finder     executes the filter, usually {@code service::repoFind}
+     * @param counter    counts the filter, usually {@code service::countByFilter}; only called for the first page
+     * @param sort       sort key
+     * @param token      continuation token from the previous page, or null for the first page
+     * @param size       page size
+     */
+    public static <T extends BaseMongoEntity> Page<T> fetch(Supplier<SEFilter> baseFilter,
+                                                            Function<SEFilter, List<T>> finder,
+                                                            ToLongFunction<SEFilter> counter,
+                                                            Sort<T> sort, String token, int size) {
+        Cursor cursor = StringUtils.hasText(token) ? Cursor.decode(token) : null;
+        if (cursor != null && !sort.field().equals(cursor.field())) {
+            throw new CustomIllegalArgumentsException("Cursor does not match the requested sort.");
+        }
+        long totalCount = cursor == null ? counter.applyAsLong(baseFilter.get()) : cursor.totalCount();
+
+        // One row past the page tells whether there is a next one
+        int limit = size + 1;
+        List<T> rows = new ArrayList<>(limit);
+        if (cursor == null) {
+            rows.addAll(readByValue(baseFilter, finder, sort, filter -> {
+            }, limit));
+        } else {
+            rows.addAll(readTies(baseFilter, finder, sort, cursor.value(), cursor.lastId(), limit));
+            if (rows.size() < limit) {
+                rows.addAll(readPast(baseFilter, finder, sort, cursor.value(), limit - rows.size()));
+            }
+        }
+        if (rows.isEmpty()) {
+            return new Page<>(new ArrayList<>(), null, false, totalCount);
+        }
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            nextCursor = new Cursor(sort.field(), sort.valueOf().apply(last), last.getId(), totalCount).encode();
+        }
+        return new Page<>(items, nextCursor, hasMore, totalCount);
+    }
+
+    /**
+     * Lazily walks every row matching the filter in batches of {@code batchSize}, so callers can process a large
+     * result without holding it in memory. Each batch goes through {@code batchMapper} as a whole, which lets the
+     * caller resolve lookups once per batch rather than once per row.
+     */
+    public static <T extends BaseMongoEntity, R> Iterator<R> iterate(Supplier<SEFilter> baseFilter,
+                                                                     Function<SEFilter, List<T>> finder,
+                                                                     Sort<T> sort, int batchSize,
+                                                                     Function<List<T>, List<R>> batchMapper) {
+        return new Iterator<>() {
+            private Iterator<R> current = Collections.emptyIterator();
+            private String token;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && !exhausted) {
+                    Page<T> page = fetch(baseFilter, finder, f -> 0L, sort, token, batchSize);
+                    current = page.items().isEmpty()
+                            ? Collections.emptyIterator()
+                            : batchMapper.apply(page.items()).iterator();
+                    token = page.nextCursor();
+                    exhausted = !page.hasMore();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public R next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Rows carrying {@code value} whose id is past {@code lastId}, ordered by id.
+     */
+    private static <T extends BaseMongoEntity> List<T> readTies(Supplier<SEFilter> baseFilter,
+                                                                Function<SEFilter, List<T>> finder, Sort<T> sort,
+                                                                Object value, String lastId, int limit) {
+        SEFilter filter = baseFilter.get();
+        if (!isIdSort(sort)) {
+            filter.addClause(WhereClause.eq(sort.field(), value));
+        }
+        if (lastId != null) {
+            filter.addClause(sort.order() == SortOrder.ASC
+                    ? WhereClause.gte(BaseMongoEntity.Fields.id, lastId)
+                    : WhereClause.lte(BaseMongoEntity.Fields.id, lastId));
+            filter.addClause(WhereClause.notEq(BaseMongoEntity.Fields.id, lastId));
+        }
+        return find(finder, filter, BaseMongoEntity.Fields.id, sort.order(), limit);
+    }
+
+    /**
+     * Rows whose value comes strictly after {@code value}, in (value, id) order.
+     */
+    private static <T extends BaseMongoEntity> List<T> readPast(Supplier<SEFilter> baseFilter,
+                                                                Function<SEFilter, List<T>> finder, Sort<T> sort,
+                                                                Object value, int limit) {
+        if (isIdSort(sort)) {
+            // The id is the value: readTies already covered everything past the boundary
+            return Collections.emptyList();
+        }
+        boolean ascending = sort.order() == SortOrder.ASC;
+        if (value == null) {
+            // Nulls come first ascending and last descending
+            return ascending
+                    ? readByValue(baseFilter, finder, sort,
+                    filter -> filter.addClause(WhereClause.notEq(sort.field(), null)), limit)
+                    : Collections.emptyList();
+        }
+        List<T> rows = new ArrayList<>(readByValue(baseFilter, finder, sort, filter -> {
+            filter.addClause(ascending ? WhereClause.gte(sort.field(), value) : WhereClause.lte(sort.field(), value));
+            filter.addClause(WhereClause.notEq(sort.field(), value));
+        }, limit));
+        if (!ascending && rows.size() < limit) {
+            // Range operators skip nulls, which close a descending order
+            rows.addAll(readTies(baseFilter, finder, sort, null, null, limit - rows.size()));
+        }
+        return rows;
+    }
+
+    /**
+     * The first {@code limit} rows matching the conditions in (value, id) order. Rows are read ordered by value;
+     * when the limit cuts a run of equal values, the run is read again ordered by id so the lowest ids are kept.
+     */
+    private static <T extends BaseMongoEntity> List<T> readByValue(Supplier<SEFilter> baseFilter,
+                                                                   Function<SEFilter, List<T>> finder, Sort<T> sort,
+                                                                   Consumer<SEFilter> conditions, int limit) {
+        SEFilter filter = baseFilter.get();
+        conditions.accept(filter);
+        List<T> rows = find(finder, filter, sort.field(), sort.order(), limit);
+        if (rows.size() < limit || isIdSort(sort)) {
+            return rows;
+        }
+        Object lastValue = sort.valueOf().apply(rows.get(rows.size() - 1));
+        List<T> head = new ArrayList<>(limit);
+        for (T row : rows) {
+            if (!Objects.equals(sort.valueOf().apply(row), lastValue)) {
+                head.add(row);
+            }
+        }
+        head.addAll(readTies(baseFilter, finder, sort, lastValue, null, limit - head.size()));
+        return head;
+    }
+
+    private static <T> List<T> find(Function<SEFilter, List<T>> finder, SEFilter filter, String field,
+                                    SortOrder order, int limit) {
+        filter.setOrderBy(new OrderBy(field, order));
+        filter.setPagination(new Pagination(0, limit));
+        List<T> rows = finder.apply(filter);
+        return CollectionUtils.isEmpty(rows) ? Collections.emptyList() : rows;
+    }
+
+    private static boolean isIdSort(Sort<?> sort) {
+        return BaseMongoEntity.Fields.id.equals(sort.field());
+    }
+}
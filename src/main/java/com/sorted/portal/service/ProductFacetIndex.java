@@ -0,0 +1,252 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.beans.SelectedSubCategories;
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Products;
+import com.sorted.commons.entity.service.ProductService;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.helper.AggregationFilter.SEFilterType;
+import com.sorted.commons.helper.AggregationFilter.WhereClause;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory facet index of non-deleted products:
+ * (category, group) -> sub category -> attribute -> product count.
+ * <p>
+ * Built once when the application is ready and kept up to date by the product
+ * write paths, so building the filter panel never has to scan the products collection.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    private final ProductService productService;
+
+    private final Object lock = new Object();
+    private final Object rebuildLock = new Object();
+
+    // product_id -> facets after a write made while a rebuild is reading, null for a removal; guarded by lock
+    private Map<String, ProductFacets> changedDuringRebuild;
+
+    // category_id|group_id -> sub_category -> attribute -> count
+    private volatile Map<String, Map<String, Map<String, AtomicLong>>> counts = new ConcurrentHashMap<>();
+
+    // product_id -> facets the product currently contributes to the index
+    private volatile Map<String, ProductFacets> productFacets = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        this.rebuild();
+    }
+
+    /**
+     * Safety net for product writes that happen outside this service.
+     */
+    @Scheduled(fixedDelayString = "${se.facet.index.rebuild.ms:3600000}", initialDelayString = "${se.facet.index.rebuild.ms:3600000}")
+    public void scheduledRebuild() {
+        this.rebuild();
+    }
+
+    /**
+     * Rebuilds the whole index from the products collection and swaps it in atomically. Writes made while the
+     * products are read are replayed onto the new index before the swap, so none of them is lost.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            synchronized (lock) {
+                changedDuringRebuild = new HashMap<>();
+            }
+            Map<String, Map<String, Map<String, AtomicLong>>> newCounts = new ConcurrentHashMap<>();
+            Map<String, ProductFacets> newProductFacets = new ConcurrentHashMap<>();
+            try {
+                SEFilter filterP = new SEFilter(SEFilterType.AND);
+                filterP.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+                filterP.addProjection(Products.Fields.category_id, Products.Fields.group_id,
+                        Products.Fields.selected_sub_catagories);
+                List<Products> products = productService.repoFind(filterP);
+
+                if (!CollectionUtils.isEmpty(products)) {
+                    for (Products product : products) {
+                        ProductFacets facets = ProductFacets.of(product);
+                        if (facets == null) {
+                            continue;
+                        }
+                        newProductFacets.put(product.getId(), facets);
+                        apply(newCounts, facets, 1);
+                    }
+                }
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    changedDuringRebuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (lock) {
+                changedDuringRebuild.forEach((productId, current) -> replace(newCounts, newProductFacets, productId,
+                        current));
+                changedDuringRebuild = null;
+                this.counts = newCounts;
+                this.productFacets = newProductFacets;
+                this.ready = true;
+            }
+            log.info("Product facet index built for {} products in {} ms", newProductFacets.size(),
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Adds or replaces the facets contributed by the given products.
+     * Deleted products are removed from the index.
+     */
+    public void upsert(Collection<Products> products) {
+        if (CollectionUtils.isEmpty(products)) {
+            return;
+        }
+        synchronized (lock) {
+            for (Products product : products) {
+                if (product == null || !StringUtils.hasText(product.getId())) {
+                    continue;
+                }
+                ProductFacets current = product.isDeleted() ? null : ProductFacets.of(product);
+                this.record(product.getId(), current);
+            }
+        }
+    }
+
+    public void upsert(Products product) {
+        this.upsert(Collections.singletonList(product));
+    }
+
+    public void remove(String productId) {
+        if (!StringUtils.hasText(productId)) {
+            return;
+        }
+        synchronized (lock) {
+            this.record(productId, null);
+        }
+    }
+
+    /**
+     * Applies a product's new facets, null when it left the index, and remembers them for a running rebuild.
+     * Callers hold the lock.
+     */
+    private void record(String productId, ProductFacets current) {
+        replace(counts, productFacets, productId, current);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(productId, current);
+        }
+    }
+
+    /**
+     * Returns sub category -> attribute -> product count for a category group.
+     * Only attributes with at least one product are present.
+     */
+    public Map<String, Map<String, Long>> getCounts(String categoryId, Integer groupId) {
+        this.ensureReady();
+        Map<String, Map<String, AtomicLong>> bySubCategory = counts.get(key(categoryId, groupId));
+        if (bySubCategory == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Map<String, Long>> result = new HashMap<>();
+        bySubCategory.forEach((subCategory, byAttribute) -> {
+            Map<String, Long> attributeCounts = new HashMap<>();
+            byAttribute.forEach((attribute, count) -> {
+                long value = count.get();
+                if (value > 0) {
+                    attributeCounts.put(attribute, value);
+                }
+            });
+            if (!attributeCounts.isEmpty()) {
+                result.put(subCategory, attributeCounts);
+            }
+        });
+        return result;
+    }
+
+    private void ensureReady() {
+        if (!ready) {
+            synchronized (rebuildLock) {
+                if (!ready) {
+                    this.rebuild();
+                }
+            }
+        }
+    }
+
+    private static void replace(Map<String, Map<String, Map<String, AtomicLong>>> targetCounts,
+                                Map<String, ProductFacets> targetFacets, String productId, ProductFacets current) {
+        ProductFacets previous = targetFacets.remove(productId);
+        if (previous != null) {
+            apply(targetCounts, previous, -1);
+        }
+        if (current != null) {
+            targetFacets.put(productId, current);
+            apply(targetCounts, current, 1);
+        }
+    }
+
+    private static void apply(Map<String, Map<String, Map<String, AtomicLong>>> target, ProductFacets facets, int delta) {
+        Map<String, Map<String, AtomicLong>> bySubCategory = target.computeIfAbsent(facets.key(),
+                k -> new ConcurrentHashMap<>());
+        facets.attributes().forEach((subCategory, attributes) -> {
+            Map<String, AtomicLong> byAttribute = bySubCategory.computeIfAbsent(subCategory,
+                    k -> new ConcurrentHashMap<>());
+            for (String attribute : attributes) {
+                AtomicLong count = byAttribute.computeIfAbsent(attribute, k -> new AtomicLong());
+                if (count.addAndGet(delta) <= 0) {
+                    byAttribute.remove(attribute);
+                }
+            }
+            if (byAttribute.isEmpty()) {
+                bySubCategory.remove(subCategory);
+            }
+        });
+    }
+
+    private static String key(String categoryId, Integer groupId) {
+        return categoryId + "|" + groupId;
+    }
+
+    /**
+     * Distinct sub category / attribute pairs a single product contributes.
+     */
+    private record ProductFacets(String key, Map<String, Set<String>> attributes) {
+
+        static ProductFacets of(Products product) {
+            if (!StringUtils.hasText(product.getCategory_id())
+                    || CollectionUtils.isEmpty(product.getSelected_sub_catagories())) {
+                return null;
+            }
+            Map<String, Set<String>> attributes = new HashMap<>();
+            for (SelectedSubCategories selected : product.getSelected_sub_catagories()) {
+                if (selected == null || !StringUtils.hasText(selected.getSub_category())
+                        || CollectionUtils.isEmpty(selected.getSelected_attributes())) {
+                    continue;
+                }
+                Set<String> values = attributes.computeIfAbsent(selected.getSub_category(), k -> new HashSet<>());
+                selected.getSelected_attributes().stream().filter(StringUtils::hasText).forEach(values::add);
+            }
+            attributes.values().removeIf(Set::isEmpty);
+            if (attributes.isEmpty()) {
+                return null;
+            }
+            return new ProductFacets(ProductFacetIndex.key(product.getCategory_id(), product.getGroup_id()), attributes);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.sorted.portal.service;
 
-import com.sorted.commons.constants.Defaults;
+import com.sorted.commons.beans.Item;
 import com.sorted.commons.entity.mongo.Address;
 import com.sorted.commons.entity.mongo.BaseMongoEntity;
 import com.sorted.commons.entity.mongo.Cart;
@@ -8,22 +8,29 @@ import com.sorted.commons.entity.service.Address_Service;
 import com.sorted.commons.entity.service.Cart_Service;
 import com.sorted.commons.enums.UserType;
 import com.sorted.commons.helper.AggregationFilter.*;
+import com.sorted.portal.service.cart.CartMutationService;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class SignUpService {
 
     private final Address_Service addressService;
     private final Cart_Service cartService;
+    private final CartMutationService cartMutationService;
 
-    public SignUpService(Address_Service addressService, Cart_Service cartService) {
+    public SignUpService(Address_Service addressService, Cart_Service cartService,
+                         CartMutationService cartMutationService) {
         this.addressService = addressService;
         this.cartService = cartService;
+        this.cartMutationService = cartMutationService;
     }
 
     @Async
@@ -45,21 +52,49 @@ public class SignUpService {
         addressService.bulkCreate(addressList, customer_user_id);
     }
 
+    /**
+     * Merges the guest's cart items into the customer's cart, called on sign up and on login of an existing
+     * customer. Lines for the same product and secure flag are combined by adding their quantities; the customer's
+     * other items are kept, and the guest's cart is emptied. Nothing is written when the guest never added
+     * anything, the customer's cart is then created by their first change.
+     */
     @Async
     public void migrateCart(String guest_user_id, String customer_user_id) {
-        Cart new_cart = new Cart();
-        new_cart.setUser_id(customer_user_id);
-        if (StringUtils.hasText(guest_user_id)) {
-            SEFilter filterC = new SEFilter(SEFilterType.AND);
-            filterC.addClause(WhereClause.eq(Cart.Fields.user_id, guest_user_id));
-            filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+        if (!StringUtils.hasText(guest_user_id)) {
+            return;
+        }
+        SEFilter filterC = new SEFilter(SEFilterType.AND);
+        filterC.addClause(WhereClause.eq(Cart.Fields.user_id, guest_user_id));
+        filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+
+        Cart cart = cartService.repoFindOne(filterC);
+        if (cart == null || CollectionUtils.isEmpty(cart.getCart_items())) {
+            return;
+        }
+        List<Item> guestItems = cart.getCart_items();
+        cartMutationService.mutate(customer_user_id, items -> mergeItems(items, guestItems));
+        // Moved, so a later login with the same guest session does not add them again
+        cartMutationService.clear(cart.getId());
+    }
 
-            Cart cart = cartService.repoFindOne(filterC);
-            if (cart != null) {
-                new_cart.setCart_items(cart.getCart_items());
-            }
+    /**
+     * The customer's items with the guest's added, as new lines so the items read from the cart stay untouched.
+     */
+    static List<Item> mergeItems(List<Item> items, List<Item> guestItems) {
+        Map<String, Item> merged = new LinkedHashMap<>();
+        for (Item item : items) {
+            merged.merge(CartMutationService.keyOf(item), CartMutationService.withQuantity(item, item.getQuantity()),
+                    SignUpService::addQuantities);
         }
+        for (Item item : guestItems) {
+            merged.merge(CartMutationService.keyOf(item), CartMutationService.withQuantity(item, item.getQuantity()),
+                    SignUpService::addQuantities);
+        }
+        return new ArrayList<>(merged.values());
+    }
 
-        cartService.create(new_cart, Defaults.SIGN_UP);
+    private static Item addQuantities(Item existing, Item added) {
+        return CartMutationService.withQuantity(existing,
+                CartMutationService.quantityOf(existing) + CartMutationService.quantityOf(added));
     }
 }
@@ -0,0 +1,159 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.constants.Defaults;
+import com.sorted.commons.entity.mongo.Third_Party_Api;
+import com.sorted.commons.entity.service.Third_Party_Api_Service;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Writes third party API audit records off the request thread.
+ * <p>
+ * Records go into a bounded queue and a single background thread inserts them in batches of up to
+ * {@code se.audit.batch-size}: whatever has queued up while the previous batch was being written goes out in the
+ * next one, so batches grow with load. When the queue is full the record is either dropped straight away
+ * ({@code DROP}) or the caller waits up to {@code se.audit.block-timeout-ms} for room ({@code BLOCK}) and drops it
+ * after that, so an unavailable database never stalls payments. The queue is drained on shutdown.
+ */
+@Slf4j
+@Component
+public class ThirdPartyAuditWriter {
+
+    public enum OverflowPolicy {
+        DROP, BLOCK
+    }
+
+    private final Third_Party_Api_Service thirdPartyApiService;
+    private final BlockingQueue<Supplier<Third_Party_Api>> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final int batchSize;
+    private final long shutdownTimeoutMs;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final Timer writeTimer;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+
+    public ThirdPartyAuditWriter(Third_Party_Api_Service thirdPartyApiService, MeterRegistry meterRegistry,
+                                 @Value("${se.audit.queue.capacity:10000}") int capacity,
+                                 @Value("${se.audit.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                                 @Value("${se.audit.block-timeout-ms:200}") long blockTimeoutMs,
+                                 @Value("${se.audit.batch-size:200}") int batchSize,
+                                 @Value("${se.audit.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.thirdPartyApiService = thirdPartyApiService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.batchSize = batchSize;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        this.writeTimer = Timer.builder("portal.audit.write.latency").register(meterRegistry);
+        this.writtenCounter = Counter.builder("portal.audit.records").tag("outcome", "written").register(meterRegistry);
+        this.droppedCounter = Counter.builder("portal.audit.records").tag("outcome", "dropped").register(meterRegistry);
+        this.failedCounter = Counter.builder("portal.audit.records").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("portal.audit.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.writerThread = new CustomizableThreadFactory("audit-writer-").newThread(this::run);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a record. The supplier is evaluated on the writer thread, so building the document (including the
+     * {@code toString()} of SDK objects) stays off the caller's path.
+     */
+    public void submit(Supplier<Third_Party_Api> record) {
+        boolean queued;
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                queued = queue.offer(record, blockTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(record);
+        }
+        if (!queued) {
+            droppedCounter.increment();
+            log.warn("Audit queue full, dropping third party API record");
+        }
+    }
+
+    private void run() {
+        List<Supplier<Third_Party_Api>> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Supplier<Third_Party_Api> first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                this.write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Supplier<Third_Party_Api>> batch) {
+        long start = System.nanoTime();
+        try {
+            List<Third_Party_Api> documents = new ArrayList<>(batch.size());
+            for (Supplier<Third_Party_Api> record : batch) {
+                documents.add(record.get());
+            }
+            thirdPartyApiService.bulkCreate(documents, Defaults.SYSTEM_ADMIN);
+            writtenCounter.increment(documents.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to write {} third party API audit records: {}", batch.size(), e.getMessage(), e);
+        } finally {
+            writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Lets the writer drain the queue, then writes anything it did not get to within the timeout.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.warn("Audit writer did not drain within {} ms, {} records left", shutdownTimeoutMs, queue.size());
+            return;
+        }
+        List<Supplier<Third_Party_Api>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            this.write(remaining);
+        }
+        log.info("Audit writer stopped");
+    }
+}
@@ -1,39 +1,86 @@
 package com.sorted.portal.service;
 
-import com.sorted.commons.constants.Defaults;
 import com.sorted.commons.entity.mongo.Third_Party_Api;
-import com.sorted.commons.entity.service.Third_Party_Api_Service;
 import com.sorted.portal.enums.RequestType;
 import lombok.NonNull;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Audit trail of third party API calls. A call is registered before the request goes out and the record is
+ * written once the response or error is known, asynchronously through {@link ThirdPartyAuditWriter}. Only the
+ * first outcome reported for a call is written, so callers can report from both a catch block and a fallback
+ * without duplicating the record.
+ */
 @Service
 public class ThirdPartyRequestResponseService {
 
-    private final Third_Party_Api_Service thirdPartyApiService;
+    private final ThirdPartyAuditWriter auditWriter;
 
-    public ThirdPartyRequestResponseService(Third_Party_Api_Service thirdPartyApiService) {
-        this.thirdPartyApiService = thirdPartyApiService;
+    public ThirdPartyRequestResponseService(ThirdPartyAuditWriter auditWriter) {
+        this.auditWriter = auditWriter;
     }
 
-    public Third_Party_Api register(Object req, @NonNull RequestType requestType) {
-        Third_Party_Api thirdPartyApi = new Third_Party_Api();
-        thirdPartyApi.setRaw_request(req.toString());
-        thirdPartyApi.setRequest_type(requestType.name());
-        return thirdPartyApiService.create(thirdPartyApi, Defaults.SYSTEM_ADMIN);
+    /**
+     * Request half of an audit record, completed by {@link #updateResponse} or {@link #registerException}.
+     */
+    public static final class PendingCall {
+
+        private final Object request;
+        private final RequestType requestType;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private PendingCall(Object request, RequestType requestType) {
+            this.request = request;
+            this.requestType = requestType;
+        }
+
+        public Object request() {
+            return request;
+        }
+
+        public RequestType requestType() {
+            return requestType;
+        }
+
+        private boolean markRecorded() {
+            return recorded.compareAndSet(false, true);
+        }
     }
 
-    public void updateResponse(Third_Party_Api thirdPartyApi, Object res) {
-        thirdPartyApi.setRaw_response(res.toString());
-        thirdPartyApiService.update(thirdPartyApi.getId(), thirdPartyApi, Defaults.SYSTEM_ADMIN);
+    public PendingCall register(Object req, @NonNull RequestType requestType) {
+        return new PendingCall(req, requestType);
     }
 
-    public void registerException(Third_Party_Api thirdPartyApi, String errorMessage) {
-        thirdPartyApi.setRaw_response(errorMessage);
-        thirdPartyApi.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
-        thirdPartyApiService.update(thirdPartyApi.getId(), thirdPartyApi, Defaults.SYSTEM_ADMIN);
+    public void updateResponse(PendingCall call, Object res) {
+        if (!call.markRecorded()) {
+            return;
+        }
+        auditWriter.submit(() -> {
+            Third_Party_Api thirdPartyApi = toDocument(call);
+            thirdPartyApi.setRaw_response(String.valueOf(res));
+            return thirdPartyApi;
+        });
     }
 
+    public void registerException(PendingCall call, String errorMessage) {
+        if (!call.markRecorded()) {
+            return;
+        }
+        auditWriter.submit(() -> {
+            Third_Party_Api thirdPartyApi = toDocument(call);
+            thirdPartyApi.setRaw_response(errorMessage);
+            thirdPartyApi.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+            return thirdPartyApi;
+        });
+    }
 
+    private static Third_Party_Api toDocument(PendingCall call) {
+        Third_Party_Api thirdPartyApi = new Third_Party_Api();
+        thirdPartyApi.setRaw_request(String.valueOf(call.request()));
+        thirdPartyApi.setRequest_type(call.requestType().name());
+        return thirdPartyApi;
+    }
 }
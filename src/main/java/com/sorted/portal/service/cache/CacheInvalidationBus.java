@@ -0,0 +1,17 @@
+package com.sorted.portal.service.cache;
+
+/**
+ * Carries cache invalidations between instances of the service.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Announces that {@code cacheName} has to be dropped on every instance, this one included.
+     */
+    void publish(String cacheName);
+
+    /**
+     * Runs {@code listener} whenever {@code cacheName} is invalidated on any instance.
+     */
+    void subscribe(String cacheName, Runnable listener);
+}
@@ -0,0 +1,30 @@
+package com.sorted.portal.service.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single instance stand-in for {@link MongoCacheInvalidationBus}: invalidations are delivered straight away and
+ * never leave the JVM. Enabled with {@code se.cache.invalidation.mode=local}, for tests and local runs.
+ */
+@Component
+@ConditionalOnProperty(name = "se.cache.invalidation.mode", havingValue = "local")
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final Map<String, List<Runnable>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String cacheName) {
+        listeners.getOrDefault(cacheName, List.of()).forEach(Runnable::run);
+    }
+
+    @Override
+    public void subscribe(String cacheName, Runnable listener) {
+        listeners.computeIfAbsent(cacheName, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+}
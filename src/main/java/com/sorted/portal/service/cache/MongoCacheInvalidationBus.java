@@ -0,0 +1,107 @@
+package com.sorted.portal.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cluster wide invalidation through a version document per cache in {@value #COLLECTION}.
+ * <p>
+ * Publishing bumps the version; every instance polls the versions of the caches it holds every
+ * {@code se.cache.invalidation.poll-ms} and drops a cache whose version moved. A cleared cache is therefore stale on
+ * other instances for at most one poll interval. A cache that was never published has no document and counts as
+ * version 0, and each cache's baseline is taken when it subscribes, so the first publish of a cache reaches every
+ * instance. Polling was chosen over change streams so this also works against a standalone Mongo.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "se.cache.invalidation.mode", havingValue = "mongo", matchIfMissing = true)
+public class MongoCacheInvalidationBus implements CacheInvalidationBus {
+
+    static final String COLLECTION = "cache_versions";
+    private static final String VERSION = "version";
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, List<Runnable>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, Long> seenVersions = new ConcurrentHashMap<>();
+
+    public MongoCacheInvalidationBus(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void publish(String cacheName) {
+        Document updated = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(cacheName)),
+                new Update().inc(VERSION, 1), FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, COLLECTION);
+        this.fire(cacheName);
+        if (updated != null) {
+            // Already applied locally, the next poll should not do it again
+            seenVersions.put(cacheName, version(updated));
+        }
+    }
+
+    @Override
+    public void subscribe(String cacheName, Runnable listener) {
+        seenVersions.computeIfAbsent(cacheName, this::storedVersion);
+        listeners.computeIfAbsent(cacheName, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${se.cache.invalidation.poll-ms:5000}")
+    public void poll() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, Long> versions = new HashMap<>();
+            for (Document document : mongoTemplate.find(Query.query(Criteria.where("_id").in(listeners.keySet())),
+                    Document.class, COLLECTION)) {
+                versions.put(document.getString("_id"), version(document));
+            }
+            for (String cacheName : listeners.keySet()) {
+                long version = versions.getOrDefault(cacheName, 0L);
+                Long previous = seenVersions.put(cacheName, version);
+                if (previous == null || previous != version) {
+                    this.fire(cacheName);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unable to poll cache versions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Version currently stored for the cache, 0 when it was never published or cannot be read.
+     */
+    private long storedVersion(String cacheName) {
+        try {
+            Document document = mongoTemplate.findById(cacheName, Document.class, COLLECTION);
+            return document == null ? 0L : version(document);
+        } catch (Exception e) {
+            log.warn("Unable to read the version of cache {}, assuming 0: {}", cacheName, e.getMessage());
+            return 0L;
+        }
+    }
+
+    private void fire(String cacheName) {
+        listeners.getOrDefault(cacheName, List.of()).forEach(Runnable::run);
+    }
+
+    private static long version(Document document) {
+        Object version = document.get(VERSION);
+        return version instanceof Number number ? number.longValue() : 0L;
+    }
+}
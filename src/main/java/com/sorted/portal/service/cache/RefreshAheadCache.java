@@ -0,0 +1,126 @@
+package com.sorted.portal.service.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache that never lets more than one loader run per key.
+ * <p>
+ * A missing or expired key is loaded by the first caller while everyone else waits on the same load. Once an entry
+ * is older than {@code refreshAfterMs} it is reloaded in the background and callers keep getting the old value
+ * until the new one is in, so a popular key never goes cold. Only entries older than {@code expireAfterMs} make
+ * callers wait. A load that started before {@link #invalidateAll()} does not put its result back, nor does one whose
+ * value the caller marks as not cacheable: that value goes to the callers waiting on the load, and a refresh that
+ * produces one keeps the old entry.
+ * <p>
+ * Created through {@link RefreshAheadCacheRegistry}, which also wires up cluster wide invalidation.
+ */
+@Slf4j
+public final class RefreshAheadCache<K, V> {
+
+    @Getter
+    private final String name;
+    private final long refreshAfterMs;
+    private final long expireAfterMs;
+    private final Executor refreshExecutor;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private record Entry<V>(V value, long loadedAt, long generation) {
+    }
+
+    RefreshAheadCache(String name, long refreshAfterMs, long expireAfterMs, Executor refreshExecutor) {
+        if (refreshAfterMs <= 0 || expireAfterMs < refreshAfterMs) {
+            throw new IllegalArgumentException("Cache " + name + ": refresh-after must be positive and not above expire-after");
+        }
+        this.name = name;
+        this.refreshAfterMs = refreshAfterMs;
+        this.expireAfterMs = expireAfterMs;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        return this.get(key, loader, value -> true);
+    }
+
+    /**
+     * Like {@link #get(Object, Supplier)}, but only caches loaded values that pass {@code cacheable}.
+     */
+    public V get(K key, Supplier<V> loader, Predicate<V> cacheable) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.generation() == generation.get()) {
+            long age = System.currentTimeMillis() - entry.loadedAt();
+            if (age < refreshAfterMs) {
+                return entry.value();
+            }
+            if (age < expireAfterMs) {
+                this.load(key, loader, cacheable, true);
+                return entry.value();
+            }
+        }
+        try {
+            return this.load(key, loader, cacheable, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops every entry on this instance. Loads already running finish for their waiting callers but are not cached.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        log.info("Cache {} invalidated", name);
+    }
+
+    private CompletableFuture<V> load(K key, Supplier<V> loader, Predicate<V> cacheable, boolean async) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = loads.putIfAbsent(key, future);
+        if (running != null) {
+            return running;
+        }
+        Runnable task = () -> {
+            long loadGeneration = generation.get();
+            try {
+                V value = loader.get();
+                if (generation.get() == loadGeneration && cacheable.test(value)) {
+                    entries.put(key, new Entry<>(value, System.currentTimeMillis(), loadGeneration));
+                }
+                future.complete(value);
+            } catch (Throwable t) {
+                if (async) {
+                    log.warn("Cache {}: background refresh of {} failed, keeping the old value: {}", name, key, t.getMessage(), t);
+                }
+                future.completeExceptionally(t);
+            } finally {
+                loads.remove(key, future);
+            }
+        };
+        if (!async) {
+            task.run();
+            return future;
+        }
+        try {
+            refreshExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Refresh pool is saturated, the next read past refresh-after tries again
+            loads.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
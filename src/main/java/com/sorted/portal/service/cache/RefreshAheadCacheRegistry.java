@@ -0,0 +1,56 @@
+package com.sorted.portal.service.cache;
+
+import com.sorted.portal.config.logging.RequestTrace;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the {@link RefreshAheadCache}s of the service, runs their background refreshes on a small shared pool and
+ * hooks them up to the {@link CacheInvalidationBus}.
+ */
+@Component
+public class RefreshAheadCacheRegistry {
+
+    private final CacheInvalidationBus invalidationBus;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final Map<String, RefreshAheadCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public RefreshAheadCacheRegistry(CacheInvalidationBus invalidationBus,
+                                     @Value("${se.cache.refresh.threads:2}") int refreshThreads,
+                                     @Value("${se.cache.refresh.queue:32}") int refreshQueue) {
+        this.invalidationBus = invalidationBus;
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(refreshQueue), new CustomizableThreadFactory("cache-refresh-"));
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public <K, V> RefreshAheadCache<K, V> create(String name, long refreshAfterMs, long expireAfterMs) {
+        RefreshAheadCache<K, V> cache = new RefreshAheadCache<>(name, refreshAfterMs, expireAfterMs,
+                task -> refreshExecutor.execute(RequestTrace.wrap(task)));
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Cache " + name + " already exists");
+        }
+        invalidationBus.subscribe(name, cache::invalidateAll);
+        return cache;
+    }
+
+    /**
+     * Invalidates every cache on every instance.
+     */
+    public void invalidateAll() {
+        caches.keySet().forEach(invalidationBus::publish);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
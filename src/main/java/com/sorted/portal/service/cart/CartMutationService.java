@@ -0,0 +1,303 @@
+package com.sorted.portal.service.cart;
+
+import com.sorted.commons.beans.Item;
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Cart;
+import com.sorted.commons.enums.ResponseCode;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cart writes that touch only what changed.
+ * <p>
+ * {@link #mutate} reads the cart together with its {@value #VERSION} counter, lets the caller compute the new item
+ * list, and writes the difference as a single {@code $inc} / {@code $push} / {@code $pull} on the affected item,
+ * conditional on the version it read. If another request changed the cart in between the write matches nothing and
+ * the change is recomputed on the fresh cart, so concurrent taps never overwrite each other. Writes that do not
+ * depend on the current items (clearing, appending, the coupon) are applied unconditionally and only bump the
+ * version.
+ * <p>
+ * Carts are created lazily: reads of a user without one get {@link #emptyCart}, and the first {@link #mutate}
+ * inserts it.
+ * <p>
+ * Every write is reflected in the {@link PricedCartCache}.
+ */
+@Slf4j
+@Service
+public class CartMutationService {
+
+    static final String VERSION = "cart_version";
+    private static final String USER_INDEX = "uniq_live_cart_per_user";
+    private static final String PRODUCT_ID = "product_id";
+    private static final String IS_SECURE = "is_secure";
+    private static final String QUANTITY = "quantity";
+
+    private final MongoTemplate mongoTemplate;
+    private final PricedCartCache pricedCartCache;
+    private final int maxAttempts;
+
+    private final Counter appliedCounter;
+    private final Counter conflictCounter;
+    private final Counter exhaustedCounter;
+    private final Counter materializedCounter;
+
+    public CartMutationService(MongoTemplate mongoTemplate, PricedCartCache pricedCartCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${se.cart.mutation.max-attempts:10}") int maxAttempts) {
+        this.mongoTemplate = mongoTemplate;
+        this.pricedCartCache = pricedCartCache;
+        this.maxAttempts = maxAttempts;
+        this.appliedCounter = Counter.builder("portal.cart.mutation").tag("outcome", "applied").register(meterRegistry);
+        this.conflictCounter = Counter.builder("portal.cart.mutation").tag("outcome", "conflict").register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("portal.cart.mutation").tag("outcome", "exhausted")
+                .register(meterRegistry);
+        this.materializedCounter = Counter.builder("portal.cart.mutation").tag("outcome", "created")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies {@code change} to the items of the user's cart, creating the cart first if the user has none.
+     * {@code change} may run more than once when requests race, so it must not have side effects; it may throw to
+     * reject the change.
+     *
+     * @return the cart with the items as written
+     */
+    public Cart mutate(String userId, UnaryOperator<List<Item>> change) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            Document document = mongoTemplate.findOne(userCartQuery(userId), Document.class,
+                    mongoTemplate.getCollectionName(Cart.class));
+            if (document == null) {
+                this.materialize(userId);
+                continue;
+            }
+            Cart cart = mongoTemplate.getConverter().read(Cart.class, document);
+            long version = document.get(VERSION) instanceof Number number ? number.longValue() : 0L;
+
+            List<Item> current = CollectionUtils.isEmpty(cart.getCart_items())
+                    ? new ArrayList<>()
+                    : new ArrayList<>(cart.getCart_items());
+            List<Item> updated = new ArrayList<>(change.apply(new ArrayList<>(current)));
+
+            Query query = Query.query(Criteria.where("_id").is(cart.getId()));
+            query.addCriteria(version == 0
+                    ? Criteria.where(VERSION).in(Arrays.asList(0L, null))
+                    : Criteria.where(VERSION).is(version));
+            Update update = diff(current, updated, query);
+            if (update == null) {
+                cart.setCart_items(updated);
+                return cart;
+            }
+            update.inc(VERSION, 1).set(BaseMongoEntity.Fields.modification_date, LocalDateTime.now());
+
+            if (mongoTemplate.updateFirst(query, update, Cart.class).getMatchedCount() == 1) {
+                appliedCounter.increment();
+                cart.setCart_items(updated);
+                pricedCartCache.update(userId, cart);
+                return cart;
+            }
+            conflictCounter.increment();
+            log.debug("Cart of user {} changed concurrently, retrying (attempt {})", userId, attempt);
+        }
+        exhaustedCounter.increment();
+        log.warn("Giving up on cart update for user {} after {} conflicting attempts", userId, maxAttempts);
+        throw new CustomIllegalArgumentsException(ResponseCode.ERR_0001);
+    }
+
+    /**
+     * An empty cart for a user who never wrote to theirs. It is not saved: the first {@link #mutate} creates it.
+     */
+    public static Cart emptyCart(String userId) {
+        Cart cart = new Cart();
+        cart.setUser_id(userId);
+        cart.setCart_items(new ArrayList<>());
+        return cart;
+    }
+
+    /**
+     * Creates the user's cart unless it exists. Keyed by user id, so racing first writes end up on the same cart;
+     * the unique index makes the loser of a race fail instead of inserting a second one, and it then simply reads
+     * the winner's cart.
+     */
+    private void materialize(String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .setOnInsert(Cart.Fields.cart_items, new ArrayList<>())
+                .setOnInsert(VERSION, 0L)
+                .setOnInsert(BaseMongoEntity.Fields.creation_date, now)
+                .setOnInsert(BaseMongoEntity.Fields.modification_date, now);
+        try {
+            mongoTemplate.upsert(userCartQuery(userId), update, Cart.class);
+            materializedCounter.increment();
+        } catch (DuplicateKeyException e) {
+            log.debug("Cart of user {} was created concurrently", userId);
+        }
+    }
+
+    /**
+     * One live cart per user. Fails with a warning, leaving writes working without the guarantee, while older
+     * duplicate carts are still around.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            mongoTemplate.indexOps(Cart.class).ensureIndex(new Index()
+                    .on(Cart.Fields.user_id, Sort.Direction.ASC)
+                    .unique()
+                    .partial(PartialIndexFilter.of(Criteria.where(BaseMongoEntity.Fields.deleted).is(false)))
+                    .named(USER_INDEX));
+        } catch (Exception e) {
+            log.warn("Unable to create unique index {} on carts, remove duplicate carts per user: {}", USER_INDEX,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Appends items to the cart as they are, without merging them into existing lines.
+     */
+    public void append(String cartId, List<Item> items) {
+        if (CollectionUtils.isEmpty(items)) {
+            return;
+        }
+        Update update = new Update().push(Cart.Fields.cart_items).each(items.toArray());
+        this.apply(cartId, update);
+    }
+
+    public void clear(String cartId) {
+        this.apply(cartId, new Update().set(Cart.Fields.cart_items, new ArrayList<>()));
+    }
+
+    public void setCouponCode(String cartId, String couponCode) {
+        this.apply(cartId, new Update().set(Cart.Fields.couponCode, couponCode));
+    }
+
+    private void apply(String cartId, Update update) {
+        update.inc(VERSION, 1).set(BaseMongoEntity.Fields.modification_date, LocalDateTime.now());
+        Query query = Query.query(Criteria.where("_id").is(cartId));
+        query.fields().include(Cart.Fields.user_id);
+        Cart before = mongoTemplate.findAndModify(query, update, Cart.class);
+        if (before != null) {
+            appliedCounter.increment();
+            pricedCartCache.invalidate(before.getUser_id());
+        }
+    }
+
+    private static Query userCartQuery(String userId) {
+        return Query.query(Criteria.where(Cart.Fields.user_id).is(userId)
+                .and(BaseMongoEntity.Fields.deleted).is(false));
+    }
+
+    /**
+     * Turns the difference between two item lists into an update, adding conditions to {@code query} where the
+     * update needs them. Returns null when nothing changed. A change to a single line becomes an operation on that
+     * line alone; anything wider (or a cart with duplicate lines) replaces the array, still guarded by the version.
+     */
+    static Update diff(List<Item> current, List<Item> updated, Query query) {
+        Map<String, Item> before = index(current);
+        Map<String, Item> after = index(updated);
+        if (before == null || after == null) {
+            return new Update().set(Cart.Fields.cart_items, updated);
+        }
+
+        Set<String> changed = new HashSet<>();
+        before.forEach((key, item) -> {
+            if (!sameLine(item, after.get(key))) {
+                changed.add(key);
+            }
+        });
+        after.forEach((key, item) -> {
+            if (!before.containsKey(key)) {
+                changed.add(key);
+            }
+        });
+        if (changed.isEmpty()) {
+            return null;
+        }
+        if (changed.size() > 1) {
+            return new Update().set(Cart.Fields.cart_items, updated);
+        }
+
+        String key = changed.iterator().next();
+        Item was = before.get(key);
+        Item now = after.get(key);
+        if (was == null) {
+            return new Update().push(Cart.Fields.cart_items, now);
+        }
+        if (now == null) {
+            return new Update().pull(Cart.Fields.cart_items,
+                    new Document(PRODUCT_ID, was.getProduct_id()).append(IS_SECURE, was.is_secure()));
+        }
+        if (sameLine(was, withQuantity(now, was.getQuantity()))) {
+            query.addCriteria(Criteria.where(Cart.Fields.cart_items).elemMatch(
+                    Criteria.where(PRODUCT_ID).is(was.getProduct_id()).and(IS_SECURE).is(was.is_secure())));
+            return new Update().inc(Cart.Fields.cart_items + ".$." + QUANTITY,
+                    quantityOf(now) - quantityOf(was));
+        }
+        return new Update().set(Cart.Fields.cart_items, updated);
+    }
+
+    /**
+     * Items by product and secure flag, or null if the list has two lines for the same key.
+     */
+    private static Map<String, Item> index(List<Item> items) {
+        Map<String, Item> map = new LinkedHashMap<>();
+        for (Item item : items) {
+            if (map.put(keyOf(item), item) != null) {
+                return null;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Identity of a cart line: a product appears once per secure flag.
+     */
+    public static String keyOf(Item item) {
+        return item.getProduct_id() + "|" + item.is_secure();
+    }
+
+    private static boolean sameLine(Item a, Item b) {
+        return b != null
+                && Objects.equals(a.getProduct_id(), b.getProduct_id())
+                && a.is_secure() == b.is_secure()
+                && a.isCombo() == b.isCombo()
+                && Objects.equals(a.getProduct_code(), b.getProduct_code())
+                && quantityOf(a) == quantityOf(b);
+    }
+
+    /**
+     * Copy of the line with another quantity, leaving the original untouched.
+     */
+    public static Item withQuantity(Item item, Long quantity) {
+        Item copy = new Item();
+        copy.setProduct_id(item.getProduct_id());
+        copy.set_secure(item.is_secure());
+        copy.setCombo(item.isCombo());
+        copy.setProduct_code(item.getProduct_code());
+        copy.setQuantity(quantity);
+        return copy;
+    }
+
+    public static long quantityOf(Item item) {
+        return item.getQuantity() == null ? 0L : item.getQuantity();
+    }
+}
@@ -0,0 +1,183 @@
+package com.sorted.portal.service.cart;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.sorted.commons.beans.Item;
+import com.sorted.commons.entity.mongo.Cart;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Priced views of a user's cart (the badge summary, the full cart beans), kept in memory so polling the cart does
+ * not reload and reprice it every time.
+ * <p>
+ * An entry holds the cart as last read or written plus any number of priced views of it, each under a key chosen
+ * by the caller. Cart writes through {@link CartMutationService} replace the cart and drop the views, so the next
+ * read reprices from memory without going back to Mongo; writes that already priced the new cart can hand the
+ * result in with {@link #put}. Entries of carts holding a product are dropped when its price or stock changes.
+ * Invalidation is local, so a cart changed through another instance is stale here for at most
+ * {@code se.cart.pricing-cache.ttl-ms}.
+ */
+@Component
+public class PricedCartCache {
+
+    /**
+     * Prices a cart into one of its views.
+     */
+    @FunctionalInterface
+    public interface Pricer<T> {
+        T price(Cart cart) throws JsonProcessingException;
+    }
+
+    private final Cache<String, Entry> cache;
+    private final Map<String, Set<String>> usersByProduct = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter productInvalidations;
+
+    public PricedCartCache(MeterRegistry meterRegistry,
+                           @Value("${se.cart.pricing-cache.ttl-ms:15000}") long ttlMs,
+                           @Value("${se.cart.pricing-cache.max-size:20000}") long maxSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .removalListener(this::onRemoval)
+                .build();
+        this.hits = Counter.builder("portal.cart.pricing.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("portal.cart.pricing.cache").tag("result", "miss").register(meterRegistry);
+        this.productInvalidations = Counter.builder("portal.cart.pricing.cache.invalidations")
+                .tag("reason", "product").register(meterRegistry);
+        Gauge.builder("portal.cart.pricing.cache.size", cache, Cache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached view, or prices the cart into it. The cart is taken from the entry when a write left one
+     * there and only loaded through {@code cartLoader} otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String userId, String view, Supplier<Cart> cartLoader, Pricer<T> pricer)
+            throws JsonProcessingException {
+        Entry entry = cache.asMap().computeIfAbsent(userId, id -> new Entry(null));
+        Object cached = entry.views.get(view);
+        if (cached != null) {
+            hits.increment();
+            return (T) cached;
+        }
+        misses.increment();
+        Cart cart = entry.cart;
+        if (cart == null) {
+            cart = cartLoader.get();
+        }
+        T priced = pricer.price(cart);
+        synchronized (entry) {
+            // Dropped while pricing: the result may already be out of date, so it is served but not kept
+            if (!entry.dropped && (entry.cart == null || entry.cart == cart)) {
+                entry.cart = cart;
+                entry.views.put(view, priced);
+                this.index(userId, cart);
+            }
+        }
+        return priced;
+    }
+
+    /**
+     * Stores a view the caller priced from {@code cart}, provided that is still the user's latest known cart.
+     */
+    public void put(String userId, String view, Cart cart, Object priced) {
+        Entry entry = cache.getIfPresent(userId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (!entry.dropped && entry.cart == cart) {
+                entry.views.put(view, priced);
+            }
+        }
+    }
+
+    /**
+     * Replaces the user's cart after a write, dropping everything priced from the previous one.
+     */
+    public void update(String userId, Cart cart) {
+        this.invalidate(userId);
+        cache.put(userId, new Entry(cart));
+        this.index(userId, cart);
+    }
+
+    public void invalidate(String userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    /**
+     * Drops the carts holding any of the products, after their price, stock or availability changed.
+     */
+    public void invalidateProducts(Collection<String> productIds) {
+        if (CollectionUtils.isEmpty(productIds)) {
+            return;
+        }
+        for (String productId : productIds) {
+            Set<String> userIds = usersByProduct.remove(productId);
+            if (userIds == null) {
+                continue;
+            }
+            userIds.forEach(this::invalidate);
+            productInvalidations.increment(userIds.size());
+        }
+    }
+
+    private void index(String userId, Cart cart) {
+        if (cart == null || CollectionUtils.isEmpty(cart.getCart_items())) {
+            return;
+        }
+        for (Item item : cart.getCart_items()) {
+            usersByProduct.computeIfAbsent(item.getProduct_id(), id -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    private void onRemoval(RemovalNotification<String, Entry> notification) {
+        Entry entry = notification.getValue();
+        if (entry == null) {
+            return;
+        }
+        Cart cart;
+        synchronized (entry) {
+            entry.dropped = true;
+            cart = entry.cart;
+        }
+        // A newer entry may share products with this one; a stale index entry only costs a spurious invalidation
+        if (cart == null || CollectionUtils.isEmpty(cart.getCart_items())
+                || cache.getIfPresent(notification.getKey()) != null) {
+            return;
+        }
+        for (Item item : cart.getCart_items()) {
+            usersByProduct.computeIfPresent(item.getProduct_id(), (id, users) -> {
+                users.remove(notification.getKey());
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+
+    private static final class Entry {
+        private final Map<String, Object> views = new ConcurrentHashMap<>();
+        private volatile Cart cart;
+        private boolean dropped;
+
+        private Entry(Cart cart) {
+            this.cart = cart;
+        }
+    }
+}
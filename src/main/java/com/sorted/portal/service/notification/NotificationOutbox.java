@@ -0,0 +1,117 @@
+package com.sorted.portal.service.notification;
+
+import com.sorted.commons.enums.MailTemplate;
+import com.sorted.commons.enums.SmsTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Queues customer and seller notifications instead of sending them on the request path.
+ * <p>
+ * Each notification is stored as an {@link OutboxNotification} under a dedup key built by the caller with
+ * {@link #key}: queueing the same key again, e.g. when a status check runs twice, is a no-op. Delivery, retries and
+ * rate limits are handled by the {@link NotificationOutboxWorker}. Queued notifications are counted per channel
+ * under {@code portal.notification.outbox}.
+ */
+@Slf4j
+@Service
+public class NotificationOutbox {
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public NotificationOutbox(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Dedup key of a notification, e.g. {@code key("new_order", "email", orderId)}.
+     */
+    public static String key(Object... parts) {
+        return Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining(":"));
+    }
+
+    /**
+     * Queues a templated email.
+     *
+     * @return false when the key was already queued or there is no recipient
+     */
+    public boolean email(String key, String to, MailTemplate template, String content) {
+        OutboxNotification notification = this.create(key, OutboxNotification.Channel.EMAIL, template.name());
+        notification.setRecipient(to);
+        notification.setContent(content);
+        return this.enqueue(notification);
+    }
+
+    /**
+     * Queues a templated SMS.
+     *
+     * @return false when the key was already queued or there is no recipient
+     */
+    public boolean sms(String key, String phoneNo, SmsTemplate template, String content) {
+        OutboxNotification notification = this.create(key, OutboxNotification.Channel.SMS, template.name());
+        notification.setRecipient(phoneNo);
+        notification.setContent(content);
+        return this.enqueue(notification);
+    }
+
+    /**
+     * Queues an order email, rendered and addressed from the order when it is delivered.
+     *
+     * @return false when the key was already queued
+     */
+    public boolean orderMail(String key, String orderId, MailTemplate template) {
+        OutboxNotification notification = this.create(key, OutboxNotification.Channel.ORDER_MAIL, template.name());
+        notification.setOrder_id(orderId);
+        notification.setRecipient(orderId);
+        return this.enqueue(notification);
+    }
+
+    private OutboxNotification create(String key, OutboxNotification.Channel channel, String template) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxNotification notification = new OutboxNotification();
+        notification.setId(key);
+        notification.setChannel(channel);
+        notification.setTemplate(template);
+        notification.setStatus(OutboxNotification.Status.PENDING);
+        notification.setNext_attempt_at(now);
+        notification.setCreation_date(now);
+        notification.setModification_date(now);
+        return notification;
+    }
+
+    private boolean enqueue(OutboxNotification notification) {
+        if (!StringUtils.hasText(notification.getRecipient())) {
+            log.warn("Not queueing {} {}: no recipient", notification.getChannel(), notification.getId());
+            this.count(notification.getChannel(), "skipped");
+            return false;
+        }
+        try {
+            mongoTemplate.insert(notification);
+            this.count(notification.getChannel(), "queued");
+            return true;
+        } catch (DuplicateKeyException e) {
+            log.debug("Notification {} already queued", notification.getId());
+            this.count(notification.getChannel(), "deduplicated");
+            return false;
+        }
+    }
+
+    private void count(OutboxNotification.Channel channel, String outcome) {
+        Counter.builder("portal.notification.outbox")
+                .tag("channel", channel.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
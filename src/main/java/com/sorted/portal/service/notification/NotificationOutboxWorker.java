@@ -0,0 +1,285 @@
+package com.sorted.portal.service.notification;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.sorted.commons.constants.Defaults;
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.entity.service.Order_Details_Service;
+import com.sorted.commons.enums.MailTemplate;
+import com.sorted.commons.enums.SmsTemplate;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.helper.AggregationFilter.SEFilterType;
+import com.sorted.commons.helper.AggregationFilter.WhereClause;
+import com.sorted.commons.helper.MailBuilder;
+import com.sorted.commons.notifications.EmailSenderImpl;
+import com.sorted.commons.notifications.SMSService;
+import com.sorted.commons.notifications.helper.SmsTraceHelper;
+import com.sorted.commons.utils.PorterUtility;
+import com.sorted.portal.config.logging.RequestTrace;
+import com.sorted.portal.service.notification.OutboxNotification.Channel;
+import com.sorted.portal.service.notification.OutboxNotification.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the notifications queued in the {@link NotificationOutbox}.
+ * <p>
+ * Every tick claims due notifications, up to the free capacity of a pool of {@code se.notification.outbox.workers}
+ * threads, and sends them there. A claim is an atomic update that marks the notification as sending for
+ * {@code se.notification.outbox.lease-ms}, so several instances can share the outbox and a notification whose
+ * instance died is picked up again once the lease lapses. Sends are paced per channel by
+ * {@code se.notification.outbox.*.per-second}. Failures are retried with exponential backoff up to
+ * {@code se.notification.outbox.max-attempts} times; delivered and abandoned notifications are removed after
+ * {@code se.notification.outbox.retention-hours}.
+ */
+@Slf4j
+@Component
+public class NotificationOutboxWorker {
+
+    private static final String DUE_INDEX = "status_next_attempt";
+    private static final String EXPIRY_INDEX = "expire_at_ttl";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final EmailSenderImpl emailSenderImpl;
+    private final SMSService smsService;
+    private final SmsTraceHelper smsTraceHelper;
+    private final PorterUtility porterUtility;
+    private final Order_Details_Service order_Details_Service;
+    private final MeterRegistry meterRegistry;
+
+    private final int workers;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final long retentionHours;
+    private final RateLimiter emailLimiter;
+    private final RateLimiter smsLimiter;
+    private final ThreadPoolExecutor executor;
+
+    public NotificationOutboxWorker(MongoTemplate mongoTemplate, EmailSenderImpl emailSenderImpl,
+                                    SMSService smsService, SmsTraceHelper smsTraceHelper, PorterUtility porterUtility,
+                                    Order_Details_Service order_Details_Service, MeterRegistry meterRegistry,
+                                    @Value("${se.notification.outbox.workers:4}") int workers,
+                                    @Value("${se.notification.outbox.lease-ms:120000}") long leaseMs,
+                                    @Value("${se.notification.outbox.max-attempts:6}") int maxAttempts,
+                                    @Value("${se.notification.outbox.backoff-ms:10000}") long backoffMs,
+                                    @Value("${se.notification.outbox.max-backoff-ms:1800000}") long maxBackoffMs,
+                                    @Value("${se.notification.outbox.retention-hours:72}") long retentionHours,
+                                    @Value("${se.notification.outbox.email.per-second:10}") double emailPerSecond,
+                                    @Value("${se.notification.outbox.sms.per-second:5}") double smsPerSecond) {
+        this.mongoTemplate = mongoTemplate;
+        this.emailSenderImpl = emailSenderImpl;
+        this.smsService = smsService;
+        this.smsTraceHelper = smsTraceHelper;
+        this.porterUtility = porterUtility;
+        this.order_Details_Service = order_Details_Service;
+        this.meterRegistry = meterRegistry;
+        this.workers = workers;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.retentionHours = retentionHours;
+        this.emailLimiter = RateLimiter.create(emailPerSecond);
+        this.smsLimiter = RateLimiter.create(smsPerSecond);
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("notification-outbox-"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(OutboxNotification.class).ensureIndex(new Index()
+                    .on(OutboxNotification.Fields.status, Sort.Direction.ASC)
+                    .on(OutboxNotification.Fields.next_attempt_at, Sort.Direction.ASC)
+                    .named(DUE_INDEX));
+            mongoTemplate.indexOps(OutboxNotification.class).ensureIndex(new Index()
+                    .on(OutboxNotification.Fields.expire_at, Sort.Direction.ASC)
+                    .expire(Duration.ZERO)
+                    .named(EXPIRY_INDEX));
+        } catch (Exception e) {
+            log.warn("Unable to create notification outbox indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claims due notifications and hands them to the pool. Returns without waiting for them to be sent.
+     */
+    @Scheduled(fixedDelayString = "${se.notification.outbox.poll-ms:1000}")
+    public void dispatchDue() {
+        int capacity = workers - executor.getActiveCount() - executor.getQueue().size();
+        for (int i = 0; i < capacity; i++) {
+            OutboxNotification notification;
+            try {
+                notification = this.claim();
+            } catch (Exception e) {
+                log.error("dispatchDue:: unable to claim notifications: {}", e.getMessage());
+                return;
+            }
+            if (notification == null) {
+                return;
+            }
+            executor.execute(RequestTrace.wrap(() -> this.deliver(notification)));
+        }
+    }
+
+    /**
+     * Marks the next due notification, or one whose claim lapsed, as sending.
+     */
+    OutboxNotification claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where(OutboxNotification.Fields.status)
+                        .in(Status.PENDING, Status.SENDING)
+                        .and(OutboxNotification.Fields.next_attempt_at).lte(now))
+                .with(Sort.by(Sort.Direction.ASC, OutboxNotification.Fields.next_attempt_at));
+        Update update = new Update()
+                .set(OutboxNotification.Fields.status, Status.SENDING)
+                .set(OutboxNotification.Fields.next_attempt_at, now.plus(Duration.ofMillis(leaseMs)))
+                .set(OutboxNotification.Fields.modification_date, now)
+                .inc(OutboxNotification.Fields.attempts, 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                OutboxNotification.class);
+    }
+
+    private void deliver(OutboxNotification notification) {
+        long start = System.nanoTime();
+        try {
+            this.send(notification);
+            this.complete(notification, new Update()
+                    .set(OutboxNotification.Fields.status, Status.SENT)
+                    .set(OutboxNotification.Fields.expire_at, LocalDateTime.now().plusHours(retentionHours))
+                    .unset(OutboxNotification.Fields.last_error));
+            this.count(notification, "sent");
+        } catch (Exception e) {
+            this.fail(notification, e);
+        } finally {
+            Timer.builder("portal.notification.delivery.latency")
+                    .tag("channel", notification.getChannel().name())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void send(OutboxNotification notification) {
+        switch (notification.getChannel()) {
+            case EMAIL -> {
+                emailLimiter.acquire();
+                MailBuilder builder = new MailBuilder();
+                builder.setTo(notification.getRecipient());
+                builder.setContent(notification.getContent());
+                builder.setTemplate(MailTemplate.valueOf(notification.getTemplate()));
+                emailSenderImpl.sendEmailHtmlTemplate(builder);
+            }
+            case SMS -> {
+                smsLimiter.acquire();
+                List<String> phoneNos = List.of(notification.getRecipient());
+                SmsTemplate template = SmsTemplate.valueOf(notification.getTemplate());
+                smsTraceHelper.runWithTrace(phoneNos, notification.getContent(), template, Defaults.AUTO,
+                        () -> smsService.sendSMS(phoneNos, notification.getContent(), template));
+            }
+            case ORDER_MAIL -> {
+                SEFilter filterOD = new SEFilter(SEFilterType.AND);
+                filterOD.addClause(WhereClause.eq(BaseMongoEntity.Fields.id, notification.getOrder_id()));
+                filterOD.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+                Order_Details orderDetails = order_Details_Service.repoFindOne(filterOD);
+                if (orderDetails == null) {
+                    throw new IllegalStateException("Order not found: " + notification.getOrder_id());
+                }
+                emailLimiter.acquire();
+                porterUtility.sendMailWithOrderDetails(orderDetails,
+                        MailTemplate.valueOf(notification.getTemplate()), null);
+            }
+        }
+    }
+
+    void fail(OutboxNotification notification, Exception e) {
+        String error = String.valueOf(e.getMessage());
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        Update update = new Update().set(OutboxNotification.Fields.last_error, error);
+        if (notification.getAttempts() >= maxAttempts) {
+            log.error("Giving up on {} {} after {} attempts: {}", notification.getChannel(), notification.getId(),
+                    notification.getAttempts(), error, e);
+            update.set(OutboxNotification.Fields.status, Status.FAILED)
+                    .set(OutboxNotification.Fields.expire_at, LocalDateTime.now().plusHours(retentionHours));
+            this.count(notification, "failed");
+        } else {
+            long delayMs = Math.min(maxBackoffMs, backoffMs << Math.min(notification.getAttempts() - 1, 20));
+            log.warn("Sending {} {} failed (attempt {}), retrying in {} ms: {}", notification.getChannel(),
+                    notification.getId(), notification.getAttempts(), delayMs, error);
+            update.set(OutboxNotification.Fields.status, Status.PENDING)
+                    .set(OutboxNotification.Fields.next_attempt_at, LocalDateTime.now().plus(Duration.ofMillis(delayMs)));
+            this.count(notification, "retried");
+        }
+        try {
+            this.complete(notification, update);
+        } catch (Exception writeError) {
+            // The lease lapses and the notification is retried
+            log.error("Unable to record failure of notification {}: {}", notification.getId(),
+                    writeError.getMessage());
+        }
+    }
+
+    /**
+     * Applies the outcome, unless the lease lapsed and another worker claimed the notification meanwhile.
+     */
+    void complete(OutboxNotification notification, Update update) {
+        Query query = Query.query(Criteria.where("_id").is(notification.getId())
+                .and(OutboxNotification.Fields.status).is(Status.SENDING)
+                .and(OutboxNotification.Fields.attempts).is(notification.getAttempts()));
+        update.set(OutboxNotification.Fields.modification_date, LocalDateTime.now());
+        mongoTemplate.updateFirst(query, update, OutboxNotification.class);
+    }
+
+    private void count(OutboxNotification notification, String outcome) {
+        Counter.builder("portal.notification.outbox")
+                .tag("channel", notification.getChannel().name())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Stops claiming and lets running sends finish. Notifications claimed but not sent are retried by the next
+     * instance once their lease lapses.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
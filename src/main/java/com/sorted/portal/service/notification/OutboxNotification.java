@@ -0,0 +1,60 @@
+package com.sorted.portal.service.notification;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldNameConstants;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email or SMS waiting in the {@link NotificationOutbox} to be delivered by the {@link NotificationOutboxWorker}.
+ * The id is the dedup key, so the same notification is only ever queued once.
+ */
+@Data
+@NoArgsConstructor
+@FieldNameConstants
+@Document(collection = "notification_outbox")
+public class OutboxNotification {
+
+    public enum Channel {
+        /**
+         * Templated email, content rendered when queued
+         */
+        EMAIL,
+        /**
+         * Templated SMS, content rendered when queued
+         */
+        SMS,
+        /**
+         * Order email rendered by {@code PorterUtility} from the order as it is when delivered
+         */
+        ORDER_MAIL
+    }
+
+    public enum Status {
+        PENDING, SENDING, SENT, FAILED
+    }
+
+    @Id
+    private String id;
+    private Channel channel;
+    private String template;
+    private String recipient;
+    private String content;
+    private String order_id;
+    private Status status;
+    private int attempts;
+    /**
+     * When a pending notification is due, or when the claim of a sending one lapses
+     */
+    private LocalDateTime next_attempt_at;
+    private String last_error;
+    /**
+     * Set once delivered or given up on; a TTL index removes the document then
+     */
+    private LocalDateTime expire_at;
+    private LocalDateTime creation_date;
+    private LocalDateTime modification_date;
+}
@@ -12,6 +12,7 @@ import com.sorted.commons.helper.Pagination;
 import com.sorted.portal.request.beans.FindOrderReqBean;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -61,19 +62,7 @@ public class OrderFilterBuilder {
      * @return SEFilter object for order queries
      */
     public SEFilter buildOrderFilter(FindOrderReqBean req, UsersBean usersBean) {
-        log.debug("Building order filter with search criteria for user: {}", req.getReq_user_id());
-
-        SEFilter filterOD = new SEFilter(SEFilterType.AND);
-
-        // Apply user-specific filters based on role
-        applyUserRoleFilters(filterOD, usersBean, req);
-
-        // Apply optional filters based on request parameters
-        applyCodeFilter(filterOD, req);
-        applyDateRangeFilter(filterOD, req);
-
-        // Always filter out deleted records
-        filterOD.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+        SEFilter filterOD = buildOrderSearchFilter(req, usersBean);
 
         // Configure sorting and pagination
         configureOrderingAndPagination(filterOD, req);
@@ -81,21 +70,59 @@ public class OrderFilterBuilder {
         return filterOD;
     }
 
-    public SEFilter buildOrderFindOneFilter(FindOrderReqBean req, UsersBean usersBean) {
-        log.debug("Building order fineOne filter with search criteria for user: {}", req.getReq_user_id());
-
-        SEFilter filterOD = new SEFilter(SEFilterType.AND);
+    /**
+     * Build the search conditions of {@link #buildOrderFilter} without sorting and pagination
+     *
+     * @param req       The request bean containing search criteria
+     * @param usersBean The current user details
+     * @return SEFilter object for order queries
+     */
+    public SEFilter buildOrderSearchFilter(FindOrderReqBean req, UsersBean usersBean) {
+        log.debug("Building order filter with search criteria for user: {}", req.getReq_user_id());
+        return toFilter(resolveScope(req, usersBean, true));
+    }
 
-        // Apply user-specific filters based on role
-        applyUserRoleFilters(filterOD, usersBean, req);
+    /**
+     * The conditions of {@link #buildOrderSearchFilter} as a Mongo criteria, for the keyset pages of
+     * {@link OrderKeysetQuery}
+     *
+     * @param req       The request bean containing search criteria
+     * @param usersBean The current user details
+     * @return Criteria for order queries
+     */
+    public Criteria buildOrderSearchCriteria(FindOrderReqBean req, UsersBean usersBean) {
+        log.debug("Building order criteria with search criteria for user: {}", req.getReq_user_id());
+        SearchScope scope = resolveScope(req, usersBean, true);
 
-        // Apply optional filters based on request parameters
-        applyCodeFilter(filterOD, req);
+        Criteria criteria = Criteria.where(BaseMongoEntity.Fields.deleted).is(false);
+        if (scope.sellerId() != null) {
+            criteria.and(Order_Details.Fields.seller_id).is(scope.sellerId());
+        }
+        if (scope.userId() != null) {
+            criteria.and(Order_Details.Fields.user_id).is(scope.userId());
+        }
+        if (scope.statusIds() != null) {
+            criteria.and(Order_Details.Fields.status_id).in(scope.statusIds());
+        }
+        if (scope.code() != null) {
+            criteria.and(Order_Details.Fields.code).is(scope.code());
+        }
+        if (scope.from() != null) {
+            criteria.and(BaseMongoEntity.Fields.creation_date).gte(scope.from()).lte(scope.to());
+        }
+        return criteria;
+    }
 
-        // Always filter out deleted records
-        filterOD.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+    /**
+     * Page size of the request, or the default when none is given
+     */
+    public int pageSize(FindOrderReqBean req) {
+        return req.getSize() < 1 ? defaultSize : req.getSize();
+    }
 
-        return filterOD;
+    public SEFilter buildOrderFindOneFilter(FindOrderReqBean req, UsersBean usersBean) {
+        log.debug("Building order fineOne filter with search criteria for user: {}", req.getReq_user_id());
+        return toFilter(resolveScope(req, usersBean, false));
     }
 
 
@@ -143,105 +170,132 @@ public class OrderFilterBuilder {
     }
 
     /**
-     * Apply filters based on user role
+     * Conditions of an order search. Null fields are not filtered on; {@code from} and {@code to} are set together.
+     */
+    private record SearchScope(String sellerId, String userId, List<Integer> statusIds, String code,
+                               LocalDateTime from, LocalDateTime to) {
+    }
+
+    /**
+     * Resolve the search conditions of the request for the user's role
      */
-    private void applyUserRoleFilters(SEFilter filterOD, UsersBean usersBean, FindOrderReqBean req) {
+    private SearchScope resolveScope(FindOrderReqBean req, UsersBean usersBean, boolean withDateRange) {
+        String sellerId = null;
+        String userId = null;
+        List<Integer> statusIds = null;
         switch (usersBean.getRole().getUser_type()) {
             case SELLER:
                 log.debug("Applying seller-specific filter for seller ID: {}", usersBean.getSeller().getId());
-                filterOD.addClause(WhereClause.eq(Order_Details.Fields.seller_id, usersBean.getSeller().getId()));
-                applySellerStatusFilter(filterOD, req);
+                sellerId = usersBean.getSeller().getId();
+                statusIds = sellerStatusIds(req);
                 break;
 
             case CUSTOMER, GUEST:
                 log.debug("Applying customer-specific filter for customer ID: {}", usersBean.getId());
-                filterOD.addClause(WhereClause.eq(Order_Details.Fields.user_id, usersBean.getId()));
-                applyCustomerStatusFilter(filterOD, req);
+                userId = usersBean.getId();
+                statusIds = customerStatusIds(req);
                 break;
 
             case SUPER_ADMIN:
                 log.debug("User is SUPER_ADMIN, no specific role filter applied");
-                applyStatusFilter(filterOD, req);
+                statusIds = statusIds(req);
                 break;
 
             default:
                 log.warn("Role filtering not applied for user type: {}", usersBean.getRole().getUser_type());
         }
-    }
 
-    /**
-     * Apply seller-specific status filter
-     */
-    private void applySellerStatusFilter(SEFilter filterOD, FindOrderReqBean req) {
-        if (StringUtils.hasText(req.getOrder_status())) {
-            OrderStatus orderStatus = OrderStatus.getByInternalStatus(req.getOrder_status());
-            if (orderStatus == null || !SELLER_ALLOWED_STATUS.contains(orderStatus)) {
-                log.warn("Invalid status for seller: {}", req.getOrder_status());
-                throw new CustomIllegalArgumentsException(ResponseCode.INVALID_ORDER_STATUS);
-            }
-            log.debug("Applying status filter for seller: {}", orderStatus);
-            filterOD.addClause(WhereClause.eq(Order_Details.Fields.status_id, orderStatus.getId()));
-        } else {
-            List<Integer> statusIds = SELLER_ALLOWED_STATUS.stream()
-                    .map(OrderStatus::getId)
-                    .collect(Collectors.toList());
-            filterOD.addClause(WhereClause.in(Order_Details.Fields.status_id, statusIds));
+        String code = null;
+        if (StringUtils.hasText(req.getCode())) {
+            log.debug("Applying code filter: {}", req.getCode());
+            code = req.getCode();
         }
+
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        if (withDateRange && StringUtils.hasText(req.getFrom_date()) && StringUtils.hasText(req.getTo_date())) {
+            from = LocalDate.parse(req.getFrom_date()).atTime(LocalTime.MIN);
+            to = LocalDate.parse(req.getTo_date()).atTime(LocalTime.MAX);
+            log.debug("Applying date range filter from {} to {}", from, to);
+        }
+        return new SearchScope(sellerId, userId, statusIds, code, from, to);
     }
 
-    /**
-     * Apply customer-specific status filter
-     */
-    private void applyCustomerStatusFilter(SEFilter filterOD, FindOrderReqBean req) {
-        if (StringUtils.hasText(req.getOrder_status())) {
-            List<OrderStatus> orderStatuses = getByCustomerStatus(req.getOrder_status());
-            if (orderStatuses.isEmpty()) {
-                throw new CustomIllegalArgumentsException(ResponseCode.INVALID_ORDER_STATUS);
-            }
-            log.debug("Applying customer status filter: {}", orderStatuses);
-            List<Integer> statusIds = orderStatuses.stream()
-                    .map(OrderStatus::getId)
-                    .collect(Collectors.toList());
-            filterOD.addClause(WhereClause.in(Order_Details.Fields.status_id, statusIds));
+    private static SEFilter toFilter(SearchScope scope) {
+        SEFilter filterOD = new SEFilter(SEFilterType.AND);
+        if (scope.sellerId() != null) {
+            filterOD.addClause(WhereClause.eq(Order_Details.Fields.seller_id, scope.sellerId()));
+        }
+        if (scope.userId() != null) {
+            filterOD.addClause(WhereClause.eq(Order_Details.Fields.user_id, scope.userId()));
         }
+        if (scope.statusIds() != null) {
+            filterOD.addClause(scope.statusIds().size() == 1
+                    ? WhereClause.eq(Order_Details.Fields.status_id, scope.statusIds().get(0))
+                    : WhereClause.in(Order_Details.Fields.status_id, scope.statusIds()));
+        }
+        if (scope.code() != null) {
+            filterOD.addClause(WhereClause.eq(Order_Details.Fields.code, scope.code()));
+        }
+        if (scope.from() != null) {
+            filterOD.addClause(WhereClause.gte(BaseMongoEntity.Fields.creation_date, scope.from()));
+            filterOD.addClause(WhereClause.lte(BaseMongoEntity.Fields.creation_date, scope.to()));
+        }
+
+        // Always filter out deleted records
+        filterOD.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+        return filterOD;
     }
 
     /**
-     * Apply general status filter (for admin)
+     * Statuses a seller may search: the requested one, or all they can see
      */
-    private void applyStatusFilter(SEFilter filterOD, FindOrderReqBean req) {
+    private List<Integer> sellerStatusIds(FindOrderReqBean req) {
         if (StringUtils.hasText(req.getOrder_status())) {
             OrderStatus orderStatus = OrderStatus.getByInternalStatus(req.getOrder_status());
-            if (orderStatus == null) {
-                log.warn("Invalid status: {}", req.getOrder_status());
+            if (orderStatus == null || !SELLER_ALLOWED_STATUS.contains(orderStatus)) {
+                log.warn("Invalid status for seller: {}", req.getOrder_status());
                 throw new CustomIllegalArgumentsException(ResponseCode.INVALID_ORDER_STATUS);
             }
-            log.debug("Applying status filter: {}", orderStatus);
-            filterOD.addClause(WhereClause.eq(Order_Details.Fields.status_id, orderStatus.getId()));
+            log.debug("Applying status filter for seller: {}", orderStatus);
+            return List.of(orderStatus.getId());
         }
+        return SELLER_ALLOWED_STATUS.stream()
+                .map(OrderStatus::getId)
+                .collect(Collectors.toList());
     }
 
     /**
-     * Apply code filter if provided
+     * Statuses behind the customer facing status, if one is requested
      */
-    private void applyCodeFilter(SEFilter filterOD, FindOrderReqBean req) {
-        if (StringUtils.hasText(req.getCode())) {
-            log.debug("Applying code filter: {}", req.getCode());
-            filterOD.addClause(WhereClause.eq(Order_Details.Fields.code, req.getCode()));
+    private List<Integer> customerStatusIds(FindOrderReqBean req) {
+        if (!StringUtils.hasText(req.getOrder_status())) {
+            return null;
+        }
+        List<OrderStatus> orderStatuses = getByCustomerStatus(req.getOrder_status());
+        if (orderStatuses.isEmpty()) {
+            throw new CustomIllegalArgumentsException(ResponseCode.INVALID_ORDER_STATUS);
         }
+        log.debug("Applying customer status filter: {}", orderStatuses);
+        return orderStatuses.stream()
+                .map(OrderStatus::getId)
+                .collect(Collectors.toList());
     }
 
     /**
-     * Apply date range filter if provided
+     * Requested status (for admin), if any
      */
-    private void applyDateRangeFilter(SEFilter filterOD, FindOrderReqBean req) {
-        if (StringUtils.hasText(req.getFrom_date()) && StringUtils.hasText(req.getTo_date())) {
-            LocalDateTime from = LocalDate.parse(req.getFrom_date()).atTime(LocalTime.MIN);
-            LocalDateTime to = LocalDate.parse(req.getTo_date()).atTime(LocalTime.MAX);
-            log.debug("Applying date range filter from {} to {}", from, to);
-            filterOD.addClause(WhereClause.gte(BaseMongoEntity.Fields.creation_date, from));
-            filterOD.addClause(WhereClause.lte(BaseMongoEntity.Fields.creation_date, to));
+    private List<Integer> statusIds(FindOrderReqBean req) {
+        if (!StringUtils.hasText(req.getOrder_status())) {
+            return null;
+        }
+        OrderStatus orderStatus = OrderStatus.getByInternalStatus(req.getOrder_status());
+        if (orderStatus == null) {
+            log.warn("Invalid status: {}", req.getOrder_status());
+            throw new CustomIllegalArgumentsException(ResponseCode.INVALID_ORDER_STATUS);
         }
+        log.debug("Applying status filter: {}", orderStatus);
+        return List.of(orderStatus.getId());
     }
 
     /**
@@ -252,7 +306,7 @@ public class OrderFilterBuilder {
         filterOD.setOrderBy(orderBy);
 
         int page = req.getPage() < 0 ? defaultPage : req.getPage();
-        int size = req.getSize() < 1 ? defaultSize : req.getSize();
+        int size = pageSize(req);
         log.debug("Setting pagination - page: {}, size: {}", page, size);
 
         Pagination pagination = new Pagination(page, size);
@@ -0,0 +1,149 @@
+package com.sorted.portal.service.order;
+
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import com.sorted.portal.service.KeysetPagination;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset pages of orders, newest first.
+ * <p>
+ * Orders are sorted on {@code creation_date DESC, _id DESC} and a page continues after the last order of the
+ * previous one with {@code creation_date < last} or {@code creation_date = last and _id < last id}, so orders
+ * placed in the same millisecond are neither skipped nor repeated. Each page is a single indexed range read given
+ * an index on the search's scope field followed by {@link #SORT_KEYS} (see
+ * {@link OrderSearchService#checkOrderSearchIndexes}). Every order gets its creation date when it is created;
+ * orders without one sort last and end the walk.
+ */
+@Slf4j
+@Service
+public class OrderKeysetQuery {
+
+    /**
+     * Sort of the pages, in order. Both keys are descending.
+     */
+    public static final List<String> SORT_KEYS = List.of(BaseMongoEntity.Fields.creation_date, "_id");
+
+    private static final String SEPARATOR = "|";
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, SORT_KEYS.toArray(new String[0]));
+
+    private final MongoTemplate mongoTemplate;
+
+    public OrderKeysetQuery(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Fetches one page. The total count is computed on the first page only and carried in the token.
+     */
+    public KeysetPagination.Page<Order_Details> findPage(Criteria criteria, String token, int size) {
+        Cursor cursor = StringUtils.hasText(token) ? Cursor.decode(token) : null;
+        long totalCount = cursor == null
+                ? mongoTemplate.count(Query.query(criteria), Order_Details.class)
+                : cursor.totalCount();
+
+        List<Order_Details> orders = this.read(criteria, cursor, size + 1);
+        List<Order_Details> items = orders.size() > size ? new ArrayList<>(orders.subList(0, size)) : orders;
+        Cursor next = orders.size() > size ? Cursor.after(items.get(items.size() - 1), totalCount) : null;
+        return new KeysetPagination.Page<>(items, next == null ? null : next.encode(), next != null, totalCount);
+    }
+
+    /**
+     * Lazily walks every matching order in batches of {@code batchSize}, mapping each batch as it is read.
+     */
+    public <T> Iterator<T> iterate(Criteria criteria, int batchSize, Function<List<Order_Details>, List<T>> mapper) {
+        return new Iterator<>() {
+            private Iterator<T> current = Collections.emptyIterator();
+            private Cursor cursor;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && !exhausted) {
+                    List<Order_Details> batch = read(criteria, cursor, batchSize);
+                    if (!batch.isEmpty()) {
+                        cursor = Cursor.after(batch.get(batch.size() - 1), 0);
+                        current = mapper.apply(batch).iterator();
+                    }
+                    exhausted = batch.size() < batchSize || cursor == null;
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    private List<Order_Details> read(Criteria criteria, Cursor cursor, int limit) {
+        Query query = Query.query(cursor == null ? criteria : new Criteria().andOperator(criteria, after(cursor)));
+        return mongoTemplate.find(query.with(SORT).limit(limit), Order_Details.class);
+    }
+
+    /**
+     * Orders that sort after the cursor
+     */
+    static Criteria after(Cursor cursor) {
+        Object lastId = toId(cursor.lastId());
+        return new Criteria().orOperator(
+                Criteria.where(BaseMongoEntity.Fields.creation_date).lt(cursor.creationDate()),
+                Criteria.where(BaseMongoEntity.Fields.creation_date).is(cursor.creationDate()).and("_id").lt(lastId));
+    }
+
+    private static Object toId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    record Cursor(LocalDateTime creationDate, String lastId, long totalCount) {
+
+        /**
+         * Cursor positioned after the order, or null if it has no creation date and nothing can follow it
+         */
+        static Cursor after(Order_Details order, long totalCount) {
+            if (order.getCreation_date() == null) {
+                log.warn("Order {} has no creation date, stopping its keyset walk there", order.getId());
+                return null;
+            }
+            return new Cursor(order.getCreation_date(), order.getId(), totalCount);
+        }
+
+        String encode() {
+            String raw = creationDate + SEPARATOR + totalCount + SEPARATOR + lastId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split(Pattern.quote(SEPARATOR), 3);
+                if (parts.length != 3 || !StringUtils.hasText(parts[2])) {
+                    throw new IllegalArgumentException("Unexpected cursor format");
+                }
+                return new Cursor(LocalDateTime.parse(parts[0]), parts[2], Long.parseLong(parts[1]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                log.warn("Rejecting malformed order cursor: {}", e.getMessage());
+                throw new CustomIllegalArgumentsException("Invalid cursor.");
+            }
+        }
+    }
+}
@@ -7,7 +7,6 @@ import com.sorted.commons.beans.UsersBean;
 import com.sorted.commons.entity.mongo.*;
 import com.sorted.commons.entity.service.Order_Details_Service;
 import com.sorted.commons.entity.service.Order_Item_Service;
-import com.sorted.commons.entity.service.ProductService;
 import com.sorted.commons.enums.MailTemplate;
 import com.sorted.commons.enums.OrderStatus;
 import com.sorted.commons.enums.ResponseCode;
@@ -20,10 +19,11 @@ import com.sorted.commons.porter.res.beans.CreateOrderResBean;
 import com.sorted.commons.porter.res.beans.FetchOrderRes.FareDetails;
 import com.sorted.commons.utils.CommonUtils;
 import com.sorted.commons.utils.InternalMailService;
-import com.sorted.commons.utils.PorterUtility;
 import com.sorted.portal.PhonePe.PhonePeUtility;
 import com.sorted.portal.request.beans.CreateDeliveryBean;
 import com.sorted.portal.request.beans.OrderAcceptRejectRequest;
+import com.sorted.portal.service.notification.NotificationOutbox;
+import com.sorted.portal.service.settlement.SettlementRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -48,8 +48,9 @@ public class OrderProcessingService {
     private final OrderDeliveryService deliveryService;
     private final PhonePeUtility phonePeUtility;
     private final InternalMailService internalMailService;
-    private final ProductService productService;
-    private final PorterUtility porterUtility;
+    private final NotificationOutbox notificationOutbox;
+    private final SettlementRollupService settlementRollupService;
+    private final OrderTransitionWriter orderTransitionWriter;
 
     /**
      * Process ready for pickup operation
@@ -133,8 +134,10 @@ public class OrderProcessingService {
     private SEResponse processOrderAccept(Order_Details orderDetails, String userId) {
         log.info("Processing order acceptance for order ID: {}", orderDetails.getId());
 
+        SettlementRollupService.Contribution before = settlementRollupService.contributionOf(orderDetails);
         orderDetails.setStatus(OrderStatus.ORDER_ACCEPTED, userId);
         orderDetailsService.update(orderDetails.getId(), orderDetails, userId);
+        settlementRollupService.applyChange(orderDetails, before);
 
         log.info("Order accepted successfully: {}", orderDetails.getId());
         return SEResponse.getEmptySuccessResponse(ResponseCode.SUCCESSFUL);
@@ -163,16 +166,7 @@ public class OrderProcessingService {
         List<Order_Item> orderItems = orderItemService.repoFind(filterOI);
         if (!CollectionUtils.isEmpty(orderItems)) {
             List<String> productIds = orderItems.stream().map(Order_Item::getProduct_id).distinct().toList();
-            SEFilter filterP = new SEFilter(SEFilterType.AND);
-            filterP.addClause(WhereClause.in(BaseMongoEntity.Fields.id, productIds));
-            filterP.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-            List<Products> products = productService.repoFind(filterP);
-            if (!CollectionUtils.isEmpty(products)) {
-                products.forEach(product -> product.setQuantity(0L));
-                for (Products product : products) {
-                    productService.update(product.getId(), product, "On Reject");
-                }
-            }
+            orderTransitionWriter.markOutOfStock(productIds);
         }
 
         long nanoseconds = CommonUtils.getNanoseconds();
@@ -205,7 +199,9 @@ public class OrderProcessingService {
             internalMailService.sendMailOnError("Refund failed for order ID: " + orderDetails.getId(), "Refund failed for order ID: " + orderDetails.getId(), null);
         }
 
-        porterUtility.sendMailWithOrderDetails(orderDetails, MailTemplate.ORDER_REJECTED, null);
+        // Rendered from the order as it is when the mail goes out
+        notificationOutbox.orderMail(NotificationOutbox.key(MailTemplate.ORDER_REJECTED, orderDetails.getId()),
+                orderDetails.getId(), MailTemplate.ORDER_REJECTED);
 
         return SEResponse.getEmptySuccessResponse(ResponseCode.SUCCESSFUL);
     }
@@ -244,10 +240,7 @@ public class OrderProcessingService {
         orderDetails.setEstimated_pickup_time(deliveryResponse.getEstimated_pickup_time());
 
         // Update order items
-        for (Order_Item item : orderItems) {
-            item.setStatus(OrderStatus.READY_FOR_PICK_UP, userId);
-            orderItemService.update(item.getId(), item, userId);
-        }
+        orderTransitionWriter.transitionItems(orderItems, OrderStatus.READY_FOR_PICK_UP, userId);
 
         // Save order details
         orderDetailsService.update(orderDetails.getId(), orderDetails, userId);
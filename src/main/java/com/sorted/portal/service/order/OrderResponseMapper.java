@@ -14,6 +14,7 @@ import com.sorted.portal.response.beans.FindOrderResBean;
 import com.sorted.portal.response.beans.OrderItemDTO;
 import com.sorted.portal.response.beans.OrderItemReportsDTO;
 import com.sorted.portal.response.beans.OrderReportDTO;
+import com.sorted.portal.service.ExcelGenerationUtility;
 import com.sorted.portal.service.FileGeneratorUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +22,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -219,28 +221,43 @@ public class OrderResponseMapper {
     }
 
     /**
-     * Create report DTOs from order entities
+     * Create the streaming sheets of the order report
      *
-     * @param ordersList List of order details
-     * @param orderItems List of order items
-     * @return Map containing order and order item report DTOs
+     * @param orders     Order report rows, consumed while the workbook is written
+     * @param orderItems Order item report rows, consumed after the orders
+     * @return The sheets in workbook order
      */
-    public Map<String, Object> createReportDTOs(List<Order_Details> ordersList, List<Order_Item> orderItems) {
-        log.debug("Creating report DTOs for {} orders and {} order items",
-                ordersList.size(), orderItems.size());
+    public List<ExcelGenerationUtility.StreamingSheet<?>> createReportSheets(
+            Iterator<OrderReportDTO> orders,
+            Iterator<OrderItemReportsDTO> orderItems) {
+        return List.of(
+                ExcelGenerationUtility.StreamingSheet.of("Orders", OrderProperties.class, orders),
+                ExcelGenerationUtility.StreamingSheet.of("Order Items", OrderItemsProperties.class, orderItems)
+        );
+    }
 
-        List<OrderReportDTO> orders = ordersList.stream()
+    /**
+     * Create report rows for a batch of orders
+     *
+     * @param ordersList List of order details
+     * @return Order report DTOs, in the same order
+     */
+    public List<OrderReportDTO> createOrderReportRows(List<Order_Details> ordersList) {
+        return ordersList.stream()
                 .map(OrderReportDTO::new)
                 .toList();
+    }
 
-        List<OrderItemReportsDTO> orderItemList = orderItems.stream()
+    /**
+     * Create report rows for a batch of order items
+     *
+     * @param orderItems List of order items
+     * @return Order item report DTOs, in the same order
+     */
+    public List<OrderItemReportsDTO> createOrderItemReportRows(List<Order_Item> orderItems) {
+        return orderItems.stream()
                 .map(OrderItemReportsDTO::new)
                 .toList();
-
-        return Map.of(
-                "orders", orders,
-                "orderItems", orderItemList
-        );
     }
 
     /**
@@ -13,10 +13,17 @@ import com.sorted.commons.utils.CommonUtils;
 import com.sorted.portal.request.beans.FindOrderReqBean;
 import com.sorted.portal.response.beans.*;
 import com.sorted.portal.service.ExcelGenerationUtility;
-import com.sorted.portal.service.FileGeneratorUtil;
+import com.sorted.portal.service.KeysetPagination;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -24,9 +31,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -44,6 +53,56 @@ public class OrderSearchService {
     private final OrderResponseMapper responseMapper;
     private final Seller_Service sellerService;
     private final InvoiceService invoiceService;
+    private final MongoTemplate mongoTemplate;
+    private final OrderKeysetQuery orderKeysetQuery;
+
+    private static final String ORDER_REPORT_FILE_NAME = "orders_report.xlsx";
+    private static final int REPORT_BATCH_SIZE = 500;
+
+    // Scope field of the keyset order search per role: sellers, customers, and admins without a scope
+    private static final List<List<String>> ORDER_SEARCH_SCOPES = List.of(
+            List.of(Order_Details.Fields.seller_id),
+            List.of(Order_Details.Fields.user_id),
+            List.of());
+
+    /**
+     * Warns at startup when an order search scope has no index serving {@link OrderKeysetQuery}: the scope field
+     * followed by {@link OrderKeysetQuery#SORT_KEYS}, the sort keys in the same direction so the index can be walked
+     * in the query's {@code DESC, DESC} order. Without one those pages scan and sort in memory. Advisory only,
+     * nothing is created here.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkOrderSearchIndexes() {
+        try {
+            List<List<IndexField>> indexes = mongoTemplate.indexOps(Order_Details.class).getIndexInfo().stream()
+                    .map(IndexInfo::getIndexFields)
+                    .toList();
+            for (List<String> scope : ORDER_SEARCH_SCOPES) {
+                List<String> expected = new ArrayList<>(scope);
+                expected.addAll(OrderKeysetQuery.SORT_KEYS);
+                boolean covered = indexes.stream().anyMatch(fields -> servesKeyset(fields, expected));
+                if (!covered) {
+                    log.warn("No index on orders starting with {} (sort keys in one direction), keyset order search "
+                            + "will be slow", expected);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unable to check order search indexes: {}", e.getMessage());
+        }
+    }
+
+    private static boolean servesKeyset(List<IndexField> fields, List<String> expected) {
+        if (fields.size() < expected.size()) {
+            return false;
+        }
+        List<IndexField> prefix = fields.subList(0, expected.size());
+        if (!prefix.stream().map(IndexField::getKey).toList().equals(expected)) {
+            return false;
+        }
+        int scopeSize = expected.size() - OrderKeysetQuery.SORT_KEYS.size();
+        List<IndexField> sortFields = prefix.subList(scopeSize, prefix.size());
+        return sortFields.stream().map(IndexField::getDirection).distinct().count() == 1;
+    }
 
     /**
      * Search for orders for internal users
@@ -63,6 +122,11 @@ public class OrderSearchService {
             UsersBean usersBean = usersService.validateUserForActivity(
                     req.getReq_user_id(), Permission.VIEW, Activity.ORDER_MANAGEMENT);
 
+            if (req.isCursorMode()) {
+                return SEResponse.getBasicSuccessResponseObject(
+                        findOrderPage(req, usersBean, this::toInternalResponses), ResponseCode.SUCCESSFUL);
+            }
+
             // Build filter
             SEFilter orderFilter = filterBuilder.buildOrderFilter(req, usersBean);
 
@@ -75,13 +139,7 @@ public class OrderSearchService {
 
             log.debug("Found {} orders matching criteria", ordersList.size());
 
-            // Fetch related data
-            Map<String, List<Order_Item>> mapOI = fetchRelatedData(ordersList);
-
-            // Map to response beans
-            List<FindOrderResBean> resList = ordersList.stream()
-                    .map(order -> responseMapper.mapToInternalResponse(order, mapOI))
-                    .toList();
+            List<FindOrderResBean> resList = toInternalResponses(ordersList);
 
             log.info("Returning {} orders to internal user", resList.size());
             return SEResponse.getBasicSuccessResponseList(resList, ResponseCode.SUCCESSFUL);
@@ -113,6 +171,11 @@ public class OrderSearchService {
             UsersBean usersBean = usersService.validateUserForActivity(
                     req.getReq_user_id(), Permission.VIEW, Activity.ORDER_MANAGEMENT);
 
+            if (req.isCursorMode()) {
+                return SEResponse.getBasicSuccessResponseObject(
+                        findOrderPage(req, usersBean, this::toCustomerResponses), ResponseCode.SUCCESSFUL);
+            }
+
             // Build filter
             SEFilter orderFilter = filterBuilder.buildOrderFilter(req, usersBean);
 
@@ -125,21 +188,7 @@ public class OrderSearchService {
 
             log.debug("Found {} orders for customer", ordersList.size());
 
-            // Fetch related data
-            Map<String, List<Order_Item>> mapOI = fetchRelatedData(ordersList);
-
-            List<String> sellerIds = ordersList.stream().map(Order_Details::getSeller_id).toList();
-            AggregationFilter.SEFilter filter = new AggregationFilter.SEFilter(AggregationFilter.SEFilterType.AND);
-            filter.addClause(AggregationFilter.WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-            filter.addClause(AggregationFilter.WhereClause.eq(BaseMongoEntity.Fields.id, sellerIds));
-            List<Seller> sellers = sellerService.repoFind(filter);
-
-            Map<String, Seller> mapS = sellers.stream().collect(Collectors.toMap(Seller::getId, seller -> seller));
-
-            // Map to response beans
-            List<FindOrderResBean> resList = ordersList.stream()
-                    .map(order -> responseMapper.mapToCustomerResponse(order, mapOI, mapS))
-                    .toList();
+            List<FindOrderResBean> resList = toCustomerResponses(ordersList);
 
             log.info("Returning {} orders to customer", resList.size());
             return SEResponse.getBasicSuccessResponseList(resList, ResponseCode.SUCCESSFUL);
@@ -154,13 +203,14 @@ public class OrderSearchService {
     }
 
     /**
-     * Generate order report as Excel
+     * Generate order report as Excel and stream it to the response
      *
-     * @param req                The request object
-     * @param httpServletRequest HTTP servlet request
-     * @return SEResponse containing Excel file bytes
+     * @param req                 The request object
+     * @param httpServletRequest  HTTP servlet request
+     * @param httpServletResponse HTTP servlet response the workbook is written to
      */
-    public SEResponse generateOrderReport(FindOrderReqBean req, HttpServletRequest httpServletRequest) {
+    public void generateOrderReport(FindOrderReqBean req, HttpServletRequest httpServletRequest,
+                                    HttpServletResponse httpServletResponse) {
         log.info("Generating order report for user: {}", req.getReq_user_id());
 
         try {
@@ -171,45 +221,29 @@ public class OrderSearchService {
             UsersBean usersBean = usersService.validateUserForActivity(
                     req.getReq_user_id(), Permission.VIEW, Activity.ORDER_MANAGEMENT);
 
-            // Build filter
-            SEFilter orderFilter = filterBuilder.buildOrderFilter(req, usersBean);
+            // Orders placed while the report is written are left out of both sheets
+            LocalDateTime cutoff = LocalDateTime.now();
+            Criteria reportCriteria = new Criteria().andOperator(
+                    filterBuilder.buildOrderSearchCriteria(req, usersBean),
+                    Criteria.where(BaseMongoEntity.Fields.creation_date).lte(cutoff));
 
-            // Fetch orders
-            List<Order_Details> ordersList = orderDetailsService.repoFind(orderFilter);
-            if (CollectionUtils.isEmpty(ordersList)) {
+            // Both sheets walk the orders in batches while the workbook is written
+            Iterator<OrderReportDTO> orders = orderKeysetQuery.iterate(reportCriteria, REPORT_BATCH_SIZE,
+                    responseMapper::createOrderReportRows);
+            if (!orders.hasNext()) {
                 log.info("No orders found for report");
-                return SEResponse.getEmptySuccessResponse(ResponseCode.NO_RECORD);
+                httpServletResponse.setStatus(HttpServletResponse.SC_NO_CONTENT);
+                return;
             }
+            Iterator<OrderItemReportsDTO> orderItems = orderKeysetQuery.iterate(reportCriteria, REPORT_BATCH_SIZE,
+                    this::createOrderItemReportRows);
 
-            log.debug("Found {} orders for report", ordersList.size());
-
-            // Fetch order items
-            List<String> orderIds = ordersList.stream()
-                    .map(BaseMongoEntity::getId)
-                    .toList();
-
-            SEFilter orderItemsFilter = filterBuilder.buildOrderItemsFilter(orderIds);
-            List<Order_Item> orderItems = orderItemService.repoFind(orderItemsFilter);
-
-            log.debug("Found {} order items for report", orderItems.size());
-
-            // Create report DTOs
-            @SuppressWarnings("unchecked")
-            List<OrderReportDTO> orders = (List<OrderReportDTO>)
-                    responseMapper.createReportDTOs(ordersList, orderItems).get("orders");
-
-            @SuppressWarnings("unchecked")
-            List<OrderItemReportsDTO> orderItemDTOs = (List<OrderItemReportsDTO>)
-                    responseMapper.createReportDTOs(ordersList, orderItems).get("orderItems");
-
-            // Generate Excel
-            Map<String, FileGeneratorUtil.SheetConfig<?, ?>> sheetConfig =
-                    responseMapper.createReportSheetConfig(orders, orderItemDTOs);
+            // Stream the workbook to the response
+            ExcelGenerationUtility.writeExcelResponse(
+                    responseMapper.createReportSheets(orders, orderItems),
+                    ORDER_REPORT_FILE_NAME, httpServletResponse);
 
-            byte[] excelBytes = ExcelGenerationUtility.createExcelFileInMemory(sheetConfig);
-
-            log.info("Successfully generated order report with {} bytes", excelBytes.length);
-            return SEResponse.getBasicSuccessResponseObject(excelBytes, ResponseCode.SUCCESSFUL);
+            log.info("Successfully generated order report for user: {}", req.getReq_user_id());
 
         } catch (CustomIllegalArgumentsException ex) {
             log.error("Validation error generating report: {}", ex.getMessage());
@@ -220,6 +254,64 @@ public class OrderSearchService {
         }
     }
 
+    /**
+     * Keyset paginated order search: returns one page, newest first, and a continuation token for the next one.
+     * Unlike page/size, pages stay stable while new orders come in. The total count is computed on the first page
+     * only and carried in the token.
+     */
+    private CursorResBean<FindOrderResBean> findOrderPage(FindOrderReqBean req, UsersBean usersBean,
+                                                          Function<List<Order_Details>, List<FindOrderResBean>> mapper) {
+        KeysetPagination.Page<Order_Details> page = orderKeysetQuery.findPage(
+                filterBuilder.buildOrderSearchCriteria(req, usersBean), req.getCursor(), filterBuilder.pageSize(req));
+        log.debug("Found {} orders in page, has more: {}", page.items().size(), page.hasMore());
+
+        return CursorResBean.<FindOrderResBean>builder()
+                .list(page.items().isEmpty() ? new ArrayList<>() : mapper.apply(page.items()))
+                .next_cursor(page.nextCursor())
+                .has_more(page.hasMore())
+                .total_count(page.totalCount())
+                .build();
+    }
+
+    private List<FindOrderResBean> toInternalResponses(List<Order_Details> ordersList) {
+        // Fetch related data
+        Map<String, List<Order_Item>> mapOI = fetchRelatedData(ordersList);
+
+        // Map to response beans
+        return ordersList.stream()
+                .map(order -> responseMapper.mapToInternalResponse(order, mapOI))
+                .toList();
+    }
+
+    private List<FindOrderResBean> toCustomerResponses(List<Order_Details> ordersList) {
+        // Fetch related data
+        Map<String, List<Order_Item>> mapOI = fetchRelatedData(ordersList);
+
+        List<String> sellerIds = ordersList.stream().map(Order_Details::getSeller_id).toList();
+        AggregationFilter.SEFilter filter = new AggregationFilter.SEFilter(AggregationFilter.SEFilterType.AND);
+        filter.addClause(AggregationFilter.WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+        filter.addClause(AggregationFilter.WhereClause.eq(BaseMongoEntity.Fields.id, sellerIds));
+        List<Seller> sellers = sellerService.repoFind(filter);
+
+        Map<String, Seller> mapS = sellers.stream().collect(Collectors.toMap(Seller::getId, seller -> seller));
+
+        // Map to response beans
+        return ordersList.stream()
+                .map(order -> responseMapper.mapToCustomerResponse(order, mapOI, mapS))
+                .toList();
+    }
+
+    /**
+     * Report rows of the items of a batch of orders, loaded with one query per batch
+     */
+    private List<OrderItemReportsDTO> createOrderItemReportRows(List<Order_Details> ordersList) {
+        List<String> orderIds = ordersList.stream()
+                .map(BaseMongoEntity::getId)
+                .toList();
+        SEFilter orderItemsFilter = filterBuilder.buildOrderItemsFilter(orderIds);
+        return responseMapper.createOrderItemReportRows(orderItemService.repoFind(orderItemsFilter));
+    }
+
     /**
      * Fetch related data for orders
      *
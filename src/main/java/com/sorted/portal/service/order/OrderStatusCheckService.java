@@ -1,5 +1,7 @@
 package com.sorted.portal.service.order;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.phonepe.sdk.pg.common.models.PgV2InstrumentType;
 import com.phonepe.sdk.pg.common.models.response.OrderStatusResponse;
 import com.phonepe.sdk.pg.common.models.response.PaymentDetail;
@@ -11,15 +13,15 @@ import com.sorted.commons.entity.service.*;
 import com.sorted.commons.enums.*;
 import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
 import com.sorted.commons.helper.AggregationFilter.*;
-import com.sorted.commons.helper.MailBuilder;
-import com.sorted.commons.notifications.EmailSenderImpl;
-import com.sorted.commons.notifications.SMSService;
-import com.sorted.commons.notifications.helper.SmsTraceHelper;
 import com.sorted.commons.utils.ComboUtility;
 import com.sorted.commons.utils.CouponUtility;
-import com.sorted.commons.utils.OrderService;
 import com.sorted.portal.PhonePe.PhonePeUtility;
 import com.sorted.portal.response.beans.OrderItemResponse;
+import com.sorted.portal.service.cart.CartMutationService;
+import com.sorted.portal.service.notification.NotificationOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +32,7 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,42 +41,109 @@ import java.util.stream.Collectors;
 public class OrderStatusCheckService {
 
     private final Cart_Service cart_Service;
+    private final CartMutationService cartMutationService;
+    private final OrderTransitionWriter orderTransitionWriter;
     private final ProductService productService;
     private final Order_Details_Service order_Details_Service;
     private final Order_Item_Service order_Item_Service;
     private final PhonePeUtility phonePeUtility;
-    private final EmailSenderImpl emailSenderImpl;
     private final OrderTemplateService orderTemplateService;
     private final Users_Service usersService;
     private final Seller_Service seller_Service;
     private final StoreActivityService storeActivityService;
-    private final OrderService orderService;
-    private final SmsTraceHelper smsTraceHelper;
-    private final SMSService smsService;
+    private final NotificationOutbox notificationOutbox;
     private final CouponUtility couponUtility;
     private final ComboUtility comboUtility;
+    private final MeterRegistry meterRegistry;
     @Value("${se.enable.sms:false}")
     private boolean enableSms;
+    @Value("${se.phonepe.status.cache-ttl-ms:5000}")
+    private long statusCacheTtlMs;
+    @Value("${se.phonepe.status.shared-wait-ms:15000}")
+    private long statusSharedWaitMs;
+
+    // Status checks currently running, by order id
+    private SingleFlight<String, StatusCheckResult> inFlight;
+    private Cache<String, StatusCheckResult> recentResults;
+    private Counter gatewayChecks;
+    private Counter sharedChecks;
+    private Counter cachedChecks;
+
+    /**
+     * Outcome of a status check: the order as persisted by the check and its item responses.
+     */
+    public record StatusCheckResult(Order_Details order, List<OrderItemResponse> orderItems) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.inFlight = new SingleFlight<>(statusSharedWaitMs);
+        this.recentResults = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(statusCacheTtlMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.gatewayChecks = Counter.builder("portal.phonepe.status.check").tag("source", "gateway").register(meterRegistry);
+        this.sharedChecks = Counter.builder("portal.phonepe.status.check").tag("source", "in_flight").register(meterRegistry);
+        this.cachedChecks = Counter.builder("portal.phonepe.status.check").tag("source", "cache").register(meterRegistry);
+    }
 
     public List<OrderItemResponse> checkOrderStatus(@NonNull Order_Details order_Details) {
+        return this.checkStatus(order_Details).orderItems();
+    }
+
+    /**
+     * Checks the payment status of an order with PhonePe and persists the outcome.
+     * <p>
+     * Concurrent checks for the same order (the pending transactions cron, client polls and the payment
+     * webhook) share a single gateway call and persistence pass, and the result is reused for
+     * {@code se.phonepe.status.cache-ttl-ms} so a burst of polls after payment costs one call. Callers waiting on a
+     * shared check give up after {@code se.phonepe.status.shared-wait-ms}. Callers must read
+     * the order from the result: the instance they passed in is not updated when the check was shared.
+     */
+    public StatusCheckResult checkStatus(@NonNull Order_Details order_Details) {
+        String orderId = order_Details.getId();
+        StatusCheckResult cached = recentResults.getIfPresent(orderId);
+        if (cached != null) {
+            cachedChecks.increment();
+            return cached;
+        }
+
+        return inFlight.execute(orderId, () -> {
+            gatewayChecks.increment();
+            StatusCheckResult result = new StatusCheckResult(order_Details, this.doCheckOrderStatus(order_Details));
+            recentResults.put(orderId, result);
+            return result;
+        }, sharedChecks::increment);
+    }
+
+    private List<OrderItemResponse> doCheckOrderStatus(Order_Details order_Details) {
 //        boolean cartAndProductUpdated = status.equals(OrderStatus.TRANSACTION_PENDING) || status.equals(OrderStatus.TRANSACTION_PROCESSED);
         // Process payment status if needed
         boolean isPaid = processPaymentStatus(order_Details);
 
-        List<OrderItemResponse> orderItemResponseList = getOrderItemResponses(order_Details);
+        SEFilter filterOI = new SEFilter(SEFilterType.AND);
+        filterOI.addClause(WhereClause.eq(Order_Item.Fields.order_id, order_Details.getId()));
+        filterOI.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+
+        List<Order_Item> orderItems = order_Item_Service.repoFind(filterOI);
+        List<OrderItemResponse> orderItemResponseList = getOrderItemResponses(orderItems);
 
         log.info("status:: Successfully retrieved status for order ID: {}, with {} items",
                 order_Details.getId(), orderItemResponseList.size());
         if (isPaid) {
             // TODO: send mail and sms to seller to accept or reject the order
 
-            newOrderNotificationToSeller(order_Details);
+            newOrderNotificationToSeller(order_Details, orderItems);
         }
 
         return orderItemResponseList;
     }
 
-    private void newOrderNotificationToSeller(@NotNull Order_Details order_Details) {
+    /**
+     * Queues the order confirmation for the customer and the new order notice for the seller. Sent by the
+     * {@link NotificationOutbox} worker, so the status check does not wait on mail and SMS providers.
+     */
+    private void newOrderNotificationToSeller(@NotNull Order_Details order_Details, List<Order_Item> orderItems) {
 
         SEFilter filterU = new SEFilter(SEFilterType.AND);
         filterU.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
@@ -83,16 +153,25 @@ public class OrderStatusCheckService {
         if (user == null) {
             throw new CustomIllegalArgumentsException(ResponseCode.ERR_0001);
         }
+
+        SEFilter filterS = new SEFilter(SEFilterType.AND);
+        filterS.addClause(WhereClause.eq(BaseMongoEntity.Fields.id, order_Details.getSeller_id()));
+        filterS.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+
+        Seller seller = seller_Service.repoFindOne(filterS);
+        Optional<Spoc_Details> spoc = seller == null ? Optional.empty()
+                : seller.getSpoc_details().stream().filter(Spoc_Details::isPrimary).findFirst();
+
+        // Rendered once for both emails
+        String orderTemplateTable = StringUtils.hasText(user.getEmail_id()) || spoc.isPresent()
+                ? orderTemplateService.getOrderTemplateTable(order_Details, orderItems) : null;
+        String orderId = order_Details.getId();
+
         if (StringUtils.hasText(user.getEmail_id())) {
             String userName = user.getFirst_name() + " " + user.getLast_name();
-            String orderTemplateTable = orderTemplateService.getOrderTemplateTable(order_Details);
             String mailContent = userName + "|" + orderTemplateTable;
-
-            MailBuilder builder = new MailBuilder();
-            builder.setTo(user.getEmail_id());
-            builder.setContent(mailContent);
-            builder.setTemplate(MailTemplate.DIRECT_ORDER_CONFIRMATION);
-            emailSenderImpl.sendEmailHtmlTemplate(builder);
+            notificationOutbox.email(NotificationOutbox.key(MailTemplate.DIRECT_ORDER_CONFIRMATION, orderId),
+                    user.getEmail_id(), MailTemplate.DIRECT_ORDER_CONFIRMATION, mailContent);
         }
 
         if (enableSms) {
@@ -101,44 +180,21 @@ public class OrderStatusCheckService {
                     user.getFirst_name() : "Student";
             String phoneNo = StringUtils.hasText(order_Details.getDelivery_address().getPhone_no()) ? order_Details.getDelivery_address().getPhone_no() : user.getMobile_no();
             String content = firstName + "|" + order_Details.getCode();
-            smsTraceHelper.runWithTrace(List.of(phoneNo),
-                    content,
-                    SmsTemplate.ORDER_CONFIRMED,
-                    Defaults.AUTO,
-                    () -> smsService.sendSMS(List.of(phoneNo), content, SmsTemplate.ORDER_CONFIRMED)
-            );
+            notificationOutbox.sms(NotificationOutbox.key(SmsTemplate.ORDER_CONFIRMED, orderId),
+                    phoneNo, SmsTemplate.ORDER_CONFIRMED, content);
         }
 
-        SEFilter filterS = new SEFilter(SEFilterType.AND);
-        filterS.addClause(WhereClause.eq(BaseMongoEntity.Fields.id, order_Details.getSeller_id()));
-        filterS.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-
-        Seller seller = seller_Service.repoFindOne(filterS);
-        if (seller != null) {
-            Optional<Spoc_Details> first = seller.getSpoc_details().stream().filter(Spoc_Details::isPrimary).findFirst();
-            if (first.isPresent()) {
-                Spoc_Details spocDetails = first.get();
-                String mailId = spocDetails.getEmail_id();
-                String firstName = spocDetails.getFirst_name();
-                String mailContent = firstName + "|" + orderTemplateService.getOrderTemplateTable(order_Details);
-                MailBuilder mailBuilder = new MailBuilder();
-                mailBuilder.setTo(mailId);
-                mailBuilder.setContent(mailContent);
-                mailBuilder.setTemplate(MailTemplate.NEW_ORDER_ARRIVED);
-                emailSenderImpl.sendEmailHtmlTemplate(mailBuilder);
-
-                String mobileNo = spocDetails.getMobile_no();
+        if (spoc.isPresent()) {
+            Spoc_Details spocDetails = spoc.get();
+            String firstName = spocDetails.getFirst_name();
+            String mailContent = firstName + "|" + orderTemplateTable;
+            notificationOutbox.email(NotificationOutbox.key(MailTemplate.NEW_ORDER_ARRIVED, orderId),
+                    spocDetails.getEmail_id(), MailTemplate.NEW_ORDER_ARRIVED, mailContent);
 
+            if (enableSms) {
                 String content = firstName + "|" + order_Details.getCode() + "|" + "seller.studeaze.in/orders";
-
-                if (enableSms) {
-                    smsTraceHelper.runWithTrace(List.of(mobileNo),
-                            content,
-                            SmsTemplate.NEW_ORDER,
-                            Defaults.AUTO,
-                            () -> smsService.sendSMS(List.of(mobileNo), content, SmsTemplate.NEW_ORDER)
-                    );
-                }
+                notificationOutbox.sms(NotificationOutbox.key(SmsTemplate.NEW_ORDER, orderId),
+                        spocDetails.getMobile_no(), SmsTemplate.NEW_ORDER, content);
             }
         }
     }
@@ -219,12 +275,7 @@ public class OrderStatusCheckService {
         filterOI.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
 
         List<Order_Item> orderItems = order_Item_Service.repoFind(filterOI);
-        if (!CollectionUtils.isEmpty(orderItems)) {
-            for (Order_Item orderItem : orderItems) {
-                orderItem.setStatus(status, Defaults.SYSTEM_ADMIN);
-                order_Item_Service.update(orderItem.getId(), orderItem, Defaults.SYSTEM_ADMIN);
-            }
-        }
+        orderTransitionWriter.transitionItems(orderItems, status, Defaults.SYSTEM_ADMIN);
 
         if (status.equals(OrderStatus.TRANSACTION_FAILED)) {
             SEFilter filterC = new SEFilter(SEFilterType.AND);
@@ -233,7 +284,7 @@ public class OrderStatusCheckService {
 
             Cart cart = cart_Service.repoFindOne(filterC);
             if (cart != null) {
-                List<Item> cartItems = cart.getCart_items();
+                List<Item> cartItems = new ArrayList<>();
                 Map<String, List<Order_Item>> comboMap = orderItems.stream().filter(Order_Item::isCombo).collect(Collectors.groupingBy(Order_Item::getCombo_id));
                 if (!CollectionUtils.isEmpty(comboMap)) {
                     for (Map.Entry<String, List<Order_Item>> entry : comboMap.entrySet()) {
@@ -257,8 +308,7 @@ public class OrderStatusCheckService {
                     item.setCombo(orderItem.isCombo());
                     cartItems.add(item);
                 }
-                cart.setCart_items(cartItems);
-                cart_Service.update(cart.getId(), cart, Defaults.SYSTEM_ADMIN);
+                cartMutationService.append(cart.getId(), cartItems);
 
                 List<String> products = orderItems.stream().map(Order_Item::getProduct_id).toList();
                 Map<String, Long> mapPQ = new HashMap<>();
@@ -272,23 +322,16 @@ public class OrderStatusCheckService {
                 filterP.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
                 List<Products> productsList = productService.repoFind(filterP);
                 if (!CollectionUtils.isEmpty(productsList)) {
-                    for (Products product : productsList) {
-                        Long updatedQuantity = mapPQ.put(product.getId(), product.getQuantity());
-                        orderService.increaseProductQuantity(product, updatedQuantity);
-                    }
+                    mapPQ.keySet().retainAll(productsList.stream().map(Products::getId).toList());
+                    orderTransitionWriter.restoreStock(mapPQ);
                 }
             }
         }
     }
 
-    private List<OrderItemResponse> getOrderItemResponses(Order_Details order_Details) {
+    private List<OrderItemResponse> getOrderItemResponses(List<Order_Item> orderItems) {
         List<OrderItemResponse> orderItemResponseList = new ArrayList<>();
 
-        SEFilter filterOI = new SEFilter(SEFilterType.AND);
-        filterOI.addClause(WhereClause.eq(Order_Item.Fields.order_id, order_Details.getId()));
-        filterOI.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-
-        List<Order_Item> orderItems = order_Item_Service.repoFind(filterOI);
         if (!CollectionUtils.isEmpty(orderItems)) {
             List<Order_Item> comboItems = orderItems.stream().filter(Order_Item::isCombo).toList();
             if (!CollectionUtils.isEmpty(comboItems)) {
@@ -351,26 +394,9 @@ public class OrderStatusCheckService {
      * @param productIds List of product IDs to remove from cart
      */
     private void updateCartAfterTransaction(String userId, List<String> productIds) {
-        SEFilter filterC = new SEFilter(SEFilterType.AND);
-        filterC.addClause(WhereClause.eq(Cart.Fields.user_id, userId));
-        filterC.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
-        Cart cart = cart_Service.repoFindOne(filterC);
-
-        if (cart == null) {
-            throw new CustomIllegalArgumentsException(ResponseCode.NO_RECORD);
-        }
-
-        List<Item> filteredItems = cart.getCart_items().stream()
+        cartMutationService.mutate(userId, items -> items.stream()
                 .filter(e -> !productIds.contains(e.getProduct_id()))
-                .toList();
-
-        if (!filteredItems.isEmpty()) {
-            cart.setCart_items(filteredItems);
-        } else {
-            cart.setCart_items(null);
-        }
-
-        cart_Service.update(cart.getId(), cart, Defaults.SYSTEM_ADMIN);
+                .collect(Collectors.toCollection(ArrayList::new)));
     }
 
     /**
@@ -397,23 +423,13 @@ public class OrderStatusCheckService {
      * @param productsMap Map of product IDs to Products
      */
     private void updateProductQuantities(List<Order_Item> orderItems, Map<String, Products> productsMap) {
+        Map<String, Long> ordered = new HashMap<>();
         for (Order_Item orderItem : orderItems) {
-            Products product = productsMap.getOrDefault(orderItem.getProduct_id(), null);
-            if (product == null) {
-                continue;
+            if (productsMap.containsKey(orderItem.getProduct_id())) {
+                ordered.merge(orderItem.getProduct_id(), orderItem.getQuantity(), Long::sum);
             }
-
-            Long currentQuantity = product.getQuantity();
-            Long orderedQuantity = orderItem.getQuantity();
-            long updatedQuantity = currentQuantity - orderedQuantity;
-
-            if (updatedQuantity < 0) {
-                updatedQuantity = 0L;
-            }
-
-            product.setQuantity(updatedQuantity);
-            productService.update(product.getId(), product, Defaults.SYSTEM_ADMIN);
         }
+        orderTransitionWriter.consumeStock(ordered);
     }
 
 
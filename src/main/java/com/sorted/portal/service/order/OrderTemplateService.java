@@ -1,5 +1,7 @@
 package com.sorted.portal.service.order;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.sorted.commons.beans.TableConfig;
 import com.sorted.commons.entity.mongo.BaseMongoEntity;
 import com.sorted.commons.entity.mongo.Order_Details;
@@ -10,57 +12,94 @@ import com.sorted.commons.enums.ResponseCode;
 import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
 import com.sorted.commons.helper.AggregationFilter;
 import com.sorted.commons.utils.TemplateProcessorUtil;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Renders the order table used by the order emails.
+ * <p>
+ * The same table goes into the customer confirmation, the seller notice and the daily seller reminders, so rendered
+ * tables are cached by order id and modification date for {@code se.order.template-cache.ttl-ms}: an order that
+ * changes gets a new key. Callers that already hold the order items pass them in; they are only loaded on a miss
+ * otherwise.
+ */
 @Service
-@RequiredArgsConstructor
 public class OrderTemplateService {
 
+    private static final String TEMPLATE = "<div>{{orderDetails}}</div>";
+
+    private static final Map<String, TableConfig> TABLE_CONFIGS = Map.of("orderDetails",
+            TemplateProcessorUtil.createTableConfig(2)
+                    .withTableCssClass("order-table")
+                    .withNoDataMessage("No order data available")
+                    .addInfoSection("Order Number", 0, "order-info")
+                    .addInfoSection("Order Date", 1, "order-info")
+                    .addColumn("Sr. No.", ColumnType.SERIAL_NUMBER)
+                    .addColumn("Product Name", ColumnType.DATA)
+                    .addColumn("Quantity", ColumnType.DATA)
+                    .build());
+
     private final Order_Item_Service order_Item_Service;
+    private final Cache<String, String> rendered;
+    private final Counter hits;
+    private final Counter misses;
+
+    public OrderTemplateService(Order_Item_Service order_Item_Service, MeterRegistry meterRegistry,
+                                @Value("${se.order.template-cache.ttl-ms:3600000}") long ttlMs,
+                                @Value("${se.order.template-cache.max-size:5000}") long maxSize) {
+        this.order_Item_Service = order_Item_Service;
+        this.rendered = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.hits = Counter.builder("portal.order.template.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("portal.order.template.cache").tag("result", "miss").register(meterRegistry);
+    }
 
     public String getOrderTemplateTable(Order_Details details) {
-        String orderCode = details.getCode();
-        String orderDate = details.getCreation_date_str();
+        return this.getOrderTemplateTable(details, null);
+    }
 
-        StringBuilder productDetails = new StringBuilder();
-        AggregationFilter.SEFilter filterOI = new AggregationFilter.SEFilter(AggregationFilter.SEFilterType.AND);
-        filterOI.addClause(AggregationFilter.WhereClause.eq(Order_Item.Fields.order_id, details.getId()));
-        filterOI.addClause(AggregationFilter.WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+    /**
+     * Renders the order table from {@code orderItems}, or from the order's items loaded here when null.
+     */
+    public String getOrderTemplateTable(Order_Details details, List<Order_Item> orderItems) {
+        String key = details.getId() + "|" + details.getModification_date();
+        String cached = rendered.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
 
-        List<Order_Item> listOI = order_Item_Service.repoFind(filterOI);
+        List<Order_Item> listOI = orderItems == null ? this.findOrderItems(details) : orderItems;
         if (CollectionUtils.isEmpty(listOI)) {
             throw new CustomIllegalArgumentsException(ResponseCode.NO_RECORD);
         }
 
+        StringBuilder content = new StringBuilder(64 + listOI.size() * 32)
+                .append(details.getCode()).append("|")
+                .append(details.getCreation_date_str()).append("|");
         for (Order_Item orderItem : listOI) {
-            productDetails.append(orderItem.getProduct_name()).append("|").append(orderItem.getQuantity()).append("|");
+            content.append(orderItem.getProduct_name()).append("|").append(orderItem.getQuantity()).append("|");
         }
 
-        String productDetailsString = productDetails.toString();
-
-        TableConfig orderConfig = TemplateProcessorUtil.createTableConfig(2)
-                .withTableCssClass("order-table")
-                .withNoDataMessage("No order data available")
-                .addInfoSection("Order Number", 0, "order-info")
-                .addInfoSection("Order Date", 1, "order-info")
-                .addColumn("Sr. No.", ColumnType.SERIAL_NUMBER)
-                .addColumn("Product Name", ColumnType.DATA)
-                .addColumn("Quantity", ColumnType.DATA)
-                .build();
-
-        // Create config map
-        Map<String, TableConfig> tableConfigs = new HashMap<>();
-        tableConfigs.put("orderDetails", orderConfig);
+        String table = TemplateProcessorUtil.replacePlaceholders(TEMPLATE, content.toString(), TABLE_CONFIGS);
+        rendered.put(key, table);
+        return table;
+    }
 
-        // Usage
-        String template = "<div>{{orderDetails}}</div>";
-        String content = orderCode + "|" + orderDate + "|" + productDetailsString;
-        return TemplateProcessorUtil.replacePlaceholders(template, content, tableConfigs);
+    private List<Order_Item> findOrderItems(Order_Details details) {
+        AggregationFilter.SEFilter filterOI = new AggregationFilter.SEFilter(AggregationFilter.SEFilterType.AND);
+        filterOI.addClause(AggregationFilter.WhereClause.eq(Order_Item.Fields.order_id, details.getId()));
+        filterOI.addClause(AggregationFilter.WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+        return order_Item_Service.repoFind(filterOI);
     }
 }
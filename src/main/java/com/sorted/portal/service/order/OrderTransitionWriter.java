@@ -0,0 +1,167 @@
+package com.sorted.portal.service.order;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Order_Item;
+import com.sorted.commons.entity.mongo.Products;
+import com.sorted.commons.enums.OrderStatus;
+import com.sorted.portal.service.cart.PricedCartCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Batched writes for order status transitions: the status change of all items of an order, and the stock moves
+ * that go with it, each as a single unordered bulk write instead of one round trip per item or product.
+ * <p>
+ * Item transitions keep going through {@link Order_Item#setStatus}, so the status and history entry are built
+ * exactly as before; only the fields it writes are sent, not the whole item. Writes are counted and timed per
+ * transition under {@code portal.order.transition.*}.
+ */
+@Slf4j
+@Service
+public class OrderTransitionWriter {
+
+    private static final String STOCK_RESTORE = "stock_restore";
+    private static final String STOCK_CONSUME = "stock_consume";
+    private static final String STOCK_OUT = "stock_out";
+
+    // Fields Order_Item#setStatus writes, copied when present in the mapped item
+    private static final List<String> STATUS_FIELDS = List.of(Order_Item.Fields.status_id, Order_Item.Fields.status,
+            Order_Item.Fields.order_status_history, BaseMongoEntity.Fields.modified_by);
+
+    private final MongoTemplate mongoTemplate;
+    private final PricedCartCache pricedCartCache;
+    private final MeterRegistry meterRegistry;
+
+    public OrderTransitionWriter(MongoTemplate mongoTemplate, PricedCartCache pricedCartCache,
+                                 MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.pricedCartCache = pricedCartCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Moves the items to {@code status} and records it in their history, in memory and in one bulk write.
+     *
+     * @return the number of items written
+     */
+    public int transitionItems(Collection<Order_Item> items, OrderStatus status, String userId) {
+        if (CollectionUtils.isEmpty(items)) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Order_Item.class);
+        for (Order_Item item : items) {
+            item.setStatus(status, userId);
+            Document mapped = new Document();
+            mongoTemplate.getConverter().write(item, mapped);
+
+            Update update = new Update().set(BaseMongoEntity.Fields.modification_date, now);
+            for (String field : STATUS_FIELDS) {
+                if (mapped.containsKey(field)) {
+                    update.set(field, mapped.get(field));
+                }
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(item.getId())), update);
+        }
+        return this.execute(status.name(), items.size(), bulk::execute);
+    }
+
+    /**
+     * Adds {@code quantity} to each product's stock, e.g. when an order that reserved it fails. An {@code $inc}
+     * rather than a read, add and save per product, so a concurrent purchase of the same product is not lost.
+     */
+    public void restoreStock(Map<String, Long> quantities) {
+        if (CollectionUtils.isEmpty(quantities)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Products.class);
+        quantities.forEach((productId, quantity) -> bulk.updateOne(liveProduct(productId),
+                new Update().inc(Products.Fields.quantity, quantity)
+                        .set(BaseMongoEntity.Fields.modification_date, now)));
+        this.execute(STOCK_RESTORE, quantities.size(), bulk::execute);
+        pricedCartCache.invalidateProducts(quantities.keySet());
+    }
+
+    /**
+     * Takes {@code quantity} off each product's stock, never going below zero. Computed by the database, so
+     * concurrent purchases of the same product do not overwrite each other.
+     */
+    public void consumeStock(Map<String, Long> quantities) {
+        if (CollectionUtils.isEmpty(quantities)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Products.class);
+        quantities.forEach((productId, quantity) -> {
+            AggregationExpression remaining = context -> new Document("$max", List.of(0L,
+                    new Document("$subtract", List.of(
+                            new Document("$ifNull", List.of("$" + Products.Fields.quantity, 0L)), quantity))));
+            bulk.updateOne(liveProduct(productId), AggregationUpdate.update()
+                    .set(Products.Fields.quantity).toValue(remaining)
+                    .set(BaseMongoEntity.Fields.modification_date).toValue(now));
+        });
+        this.execute(STOCK_CONSUME, quantities.size(), bulk::execute);
+        pricedCartCache.invalidateProducts(quantities.keySet());
+    }
+
+    /**
+     * Sets the stock of the products to zero in one update. Deleted products are skipped, as in the other stock
+     * moves.
+     */
+    public void markOutOfStock(Collection<String> productIds) {
+        if (CollectionUtils.isEmpty(productIds)) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").in(productIds).and(BaseMongoEntity.Fields.deleted).is(false));
+        Update update = new Update().set(Products.Fields.quantity, 0L)
+                .set(BaseMongoEntity.Fields.modification_date, LocalDateTime.now());
+        this.execute(STOCK_OUT, productIds.size(),
+                () -> mongoTemplate.updateMulti(query, update, Products.class).getModifiedCount());
+        pricedCartCache.invalidateProducts(productIds);
+    }
+
+    private static Query liveProduct(String productId) {
+        return Query.query(Criteria.where("_id").is(productId).and(BaseMongoEntity.Fields.deleted).is(false));
+    }
+
+    private int execute(String transition, int operations, Supplier<?> write) {
+        long start = System.nanoTime();
+        try {
+            Object result = write.get();
+            long modified = result instanceof BulkWriteResult bulkResult
+                    ? bulkResult.getModifiedCount()
+                    : ((Number) result).longValue();
+            Counter.builder("portal.order.transition.writes").tag("transition", transition)
+                    .register(meterRegistry).increment(modified);
+            if (modified < operations) {
+                log.debug("{} transition modified {} of {} documents", transition, modified, operations);
+            }
+            return (int) modified;
+        } finally {
+            Timer.builder("portal.order.transition.latency").tag("transition", transition)
+                    .register(meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.sorted.portal.service.order;
+
+import com.sorted.commons.enums.ResponseCode;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one call per key at a time. Callers that arrive while a call for their key is running wait for its
+ * outcome, for up to {@code maxWaitMs}, instead of starting their own. The running call is always settled, whatever
+ * it throws, so waiters never hang on a call that died.
+ */
+@Slf4j
+final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitMs;
+
+    SingleFlight(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Runs {@code call} for the key, or waits for the one already running.
+     *
+     * @param onShared invoked when this caller waits for a running call instead of making its own
+     */
+    V execute(K key, Supplier<V> call, Runnable onShared) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            onShared.run();
+            return await(key, running);
+        }
+
+        try {
+            V result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private V await(K key, CompletableFuture<V> running) {
+        try {
+            return running.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            log.error("Shared call failed for key: {}", key, e);
+            throw new CustomIllegalArgumentsException(ResponseCode.ERR_0001);
+        } catch (TimeoutException e) {
+            log.warn("Gave up waiting {} ms for the shared call for key: {}", maxWaitMs, key);
+            throw new CustomIllegalArgumentsException(ResponseCode.ERR_0001);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomIllegalArgumentsException(ResponseCode.ERR_0001);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import com.sorted.commons.utils.PorterUtility;
 import com.sorted.commons.utils.Preconditions;
 import com.sorted.portal.request.beans.AppraiseSecureReturn;
 import com.sorted.portal.request.beans.InitiateSecureBean;
+import com.sorted.portal.service.order.OrderTransitionWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -47,6 +48,7 @@ public class SecureReturnService {
     private final Seller_Service sellerService;
     private final Address_Service addressService;
     private final PorterUtility porterUtility;
+    private final OrderTransitionWriter orderTransitionWriter;
 
     @Value("${se.secure.max-return-days:150}")
     private Integer maxReturnDays;
@@ -205,11 +207,10 @@ public class SecureReturnService {
         filterOI.addClause(AggregationFilter.WhereClause.in(BaseMongoEntity.Fields.id, secureBean.getOrderItemIds()));
 
         List<Order_Item> orderItems = orderItemService.repoFind(filterOI);
-        orderItems.forEach(item -> item.setStatus(OrderStatus.SECURE_RETURN_SCHEDULED, userId));
 
         // Save updates
         orderDetailsService.update(order.getId(), order, userId);
-        orderItems.forEach(item -> orderItemService.update(item.getId(), item, userId));
+        orderTransitionWriter.transitionItems(orderItems, OrderStatus.SECURE_RETURN_SCHEDULED, userId);
     }
 
     private AddressDTO createAddressDTOFromAddress(Address address) {
@@ -270,10 +271,8 @@ public class SecureReturnService {
         orderDetailsService.update(order.getId(), order, Defaults.INITIATE_SECURE_RETURN_CRON);
 
         if (items != null) {
-            for (Order_Item item : items) {
-                item.setStatus(OrderStatus.SECURE_RETURN_FAILED, Defaults.INITIATE_SECURE_RETURN_CRON);
-                orderItemService.update(item.getId(), item, Defaults.INITIATE_SECURE_RETURN_CRON);
-            }
+            orderTransitionWriter.transitionItems(items, OrderStatus.SECURE_RETURN_FAILED,
+                    Defaults.INITIATE_SECURE_RETURN_CRON);
         }
     }
 
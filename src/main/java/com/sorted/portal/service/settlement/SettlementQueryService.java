@@ -0,0 +1,205 @@
+package com.sorted.portal.service.settlement;
+
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.enums.OrderStatus;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import com.sorted.portal.service.KeysetPagination;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Settlement listing straight from Mongo.
+ * <p>
+ * Orders are read through an aggregation that projects only the settlement fields and works out the date the order
+ * was accepted and the expected payout date (accepted + {@link #PAYOUT_DELAY}) in the database, so the status
+ * history never leaves Mongo. Pages are keyset on {@code _id} (newest first) with an opaque continuation token.
+ */
+@Slf4j
+@Service
+public class SettlementQueryService {
+
+    public static final Duration PAYOUT_DELAY = Duration.ofDays(7);
+
+    private static final String SEPARATOR = "|";
+    private static final String ACCEPTED = "accepted";
+    private static final String ACCEPTED_AT = "accepted_at";
+    private static final String EXPECTED_PAYOUT_AT = "expected_payout_at";
+    private static final String TXN_DATE = "txn_date";
+    // Fields of the entries in order_status_history
+    private static final String HISTORY_STATUS_ID = "status_id";
+    private static final String HISTORY_DATE = "modification_date";
+
+    private final MongoTemplate mongoTemplate;
+
+    public SettlementQueryService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Search conditions. {@code sellerId} null means every seller, {@code paid} null means both states.
+     */
+    public record SettlementSearch(String sellerId, String orderCode, Boolean paid) {
+    }
+
+    /**
+     * One settlement line. {@code expectedPayoutDate} is null if the order has no accepted entry in its history.
+     */
+    public record SettlementRow(String orderId, String orderCode, long totalAmount, LocalDate expectedPayoutDate,
+                                boolean paid, String actualPayoutDate) {
+    }
+
+    /**
+     * Fetches one page. The total count is computed on the first page only and carried in the token.
+     */
+    public KeysetPagination.Page<SettlementRow> findPage(SettlementSearch search, String token, int size) {
+        Cursor cursor = StringUtils.hasText(token) ? Cursor.decode(token) : null;
+        Criteria criteria = criteria(search);
+        long totalCount = cursor == null
+                ? mongoTemplate.count(Query.query(criteria), Order_Details.class)
+                : cursor.totalCount();
+        if (cursor != null) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("_id").lt(toId(cursor.lastId())));
+        }
+
+        List<SettlementRow> rows = this.run(criteria, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<SettlementRow> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasMore
+                ? new Cursor(items.get(items.size() - 1).orderId(), totalCount).encode()
+                : null;
+        return new KeysetPagination.Page<>(items, nextCursor, hasMore, totalCount);
+    }
+
+    /**
+     * Lazily walks every matching row in batches of {@code batchSize}, for exports.
+     */
+    public Iterator<SettlementRow> stream(SettlementSearch search, int batchSize) {
+        return new Iterator<>() {
+            private Iterator<SettlementRow> current = Collections.emptyIterator();
+            private String token;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && !exhausted) {
+                    KeysetPagination.Page<SettlementRow> page = findPage(search, token, batchSize);
+                    current = page.items().iterator();
+                    token = page.nextCursor();
+                    exhausted = !page.hasMore();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public SettlementRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    private List<SettlementRow> run(Criteria criteria, int limit) {
+        AggregationExpression acceptedEntry = ArrayOperators.ArrayElemAt.arrayOf(
+                        ArrayOperators.Filter.filter(Order_Details.Fields.order_status_history).as("h")
+                                .by(ComparisonOperators.Eq.valueOf("h." + HISTORY_STATUS_ID)
+                                        .equalToValue(OrderStatus.ORDER_ACCEPTED.getId())))
+                .elementAt(0);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.sort(Sort.Direction.DESC, "_id"),
+                Aggregation.limit(limit),
+                Aggregation.project(Order_Details.Fields.code, Order_Details.Fields.total_amount,
+                                Order_Details.Fields.is_payout_done)
+                        .and(Order_Details.Fields.settlement_details + ".txnDate").as(TXN_DATE)
+                        .and(acceptedEntry).as(ACCEPTED),
+                Aggregation.project(Order_Details.Fields.code, Order_Details.Fields.total_amount,
+                                Order_Details.Fields.is_payout_done, TXN_DATE)
+                        .and(ACCEPTED + "." + HISTORY_DATE).as(ACCEPTED_AT)
+                        .and(ArithmeticOperators.Add.valueOf(ACCEPTED + "." + HISTORY_DATE)
+                                .add(PAYOUT_DELAY.toMillis())).as(EXPECTED_PAYOUT_AT));
+
+        List<Document> documents = mongoTemplate.aggregate(aggregation, Order_Details.class, Document.class)
+                .getMappedResults();
+        List<SettlementRow> rows = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            boolean paid = Boolean.TRUE.equals(document.getBoolean(Order_Details.Fields.is_payout_done));
+            Object totalAmount = document.get(Order_Details.Fields.total_amount);
+            rows.add(new SettlementRow(
+                    String.valueOf(document.get("_id")),
+                    document.getString(Order_Details.Fields.code),
+                    totalAmount instanceof Number number ? number.longValue() : 0L,
+                    toLocalDate(document.getDate(EXPECTED_PAYOUT_AT)),
+                    paid,
+                    paid ? document.getString(TXN_DATE) : null));
+        }
+        return rows;
+    }
+
+    private static Criteria criteria(SettlementSearch search) {
+        Criteria criteria = Criteria.where(BaseMongoEntity.Fields.deleted).is(false)
+                .and(Order_Details.Fields.status_id).in(SettlementRollupService.ELIGIBLE_STATUSES.stream()
+                        .map(OrderStatus::getId).toList());
+        if (StringUtils.hasText(search.sellerId())) {
+            criteria.and(Order_Details.Fields.seller_id).is(search.sellerId());
+        }
+        if (StringUtils.hasText(search.orderCode())) {
+            criteria.and(Order_Details.Fields.code).regex(Pattern.quote(search.orderCode()), "i");
+        }
+        if (search.paid() != null) {
+            criteria.and(Order_Details.Fields.is_payout_done).is(search.paid());
+        }
+        return criteria;
+    }
+
+    private static Object toId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private record Cursor(String lastId, long totalCount) {
+
+        String encode() {
+            String raw = lastId + SEPARATOR + totalCount;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split(Pattern.quote(SEPARATOR), -1);
+                if (parts.length != 2 || !StringUtils.hasText(parts[0])) {
+                    throw new IllegalArgumentException("Unexpected cursor format");
+                }
+                return new Cursor(parts[0], Long.parseLong(parts[1]));
+            } catch (IllegalArgumentException e) {
+                log.warn("Rejecting malformed settlement cursor: {}", e.getMessage());
+                throw new CustomIllegalArgumentsException("Invalid cursor.");
+            }
+        }
+    }
+}
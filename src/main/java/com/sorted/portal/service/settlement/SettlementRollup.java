@@ -0,0 +1,38 @@
+package com.sorted.portal.service.settlement;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldNameConstants;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Settlement totals of one seller for the orders placed on one day, all amounts in paise.
+ * Maintained by {@link SettlementRollupService}.
+ */
+@Data
+@NoArgsConstructor
+@FieldNameConstants
+@Document(collection = "settlement_rollups")
+public class SettlementRollup {
+
+    /**
+     * {@code seller_id:yyyy-MM-dd}
+     */
+    @Id
+    private String id;
+    private String seller_id;
+    private String day;
+    private long paid_paise;
+    private long unpaid_paise;
+    private long fee_paise;
+    private long order_count;
+    private long paid_count;
+    private LocalDateTime modification_date;
+
+    static String idOf(String sellerId, String day) {
+        return sellerId + ":" + day;
+    }
+}
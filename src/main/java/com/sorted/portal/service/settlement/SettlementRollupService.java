@@ -0,0 +1,269 @@
+package com.sorted.portal.service.settlement;
+
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.entity.service.Order_Details_Service;
+import com.sorted.commons.enums.OrderStatus;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.helper.AggregationFilter.SEFilterType;
+import com.sorted.commons.helper.AggregationFilter.SortOrder;
+import com.sorted.commons.helper.AggregationFilter.WhereClause;
+import com.sorted.commons.utils.CommonUtils;
+import com.sorted.portal.service.KeysetPagination;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Per seller, per day settlement totals, so settlement analytics read a few rollup rows instead of every order.
+ * <p>
+ * An order counts towards the rollup of its seller and the day it was placed while it is in one of the
+ * {@link #ELIGIBLE_STATUSES}: its payout amount goes to {@code paid_paise} once it is settled, and the amount
+ * still owed to the seller to {@code unpaid_paise} until then. The write paths of this service report changes through
+ * {@link #applyChange}, which increments the affected row by the difference. Transitions made elsewhere
+ * (Porter webhook cancellations handled in commons, manual database edits) are picked up by the nightly {@link #rebuild()}.
+ */
+@Slf4j
+@Service
+public class SettlementRollupService {
+
+    public static final int FEE_PERCENTAGE = 10;
+
+    public static final List<OrderStatus> ELIGIBLE_STATUSES = List.of(OrderStatus.DELIVERED,
+            OrderStatus.OUT_FOR_DELIVERY, OrderStatus.READY_FOR_PICK_UP, OrderStatus.RIDER_ASSIGNED,
+            OrderStatus.ORDER_ACCEPTED);
+
+    private final MongoTemplate mongoTemplate;
+    private final Order_Details_Service orderDetailsService;
+    private final int rebuildBatchSize;
+
+    private final Timer rebuildTimer;
+    private final Counter updatedCounter;
+    private final Counter failedCounter;
+
+    public SettlementRollupService(MongoTemplate mongoTemplate, Order_Details_Service orderDetailsService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${se.settlement.rollup.rebuild.batch-size:500}") int rebuildBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderDetailsService = orderDetailsService;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.rebuildTimer = Timer.builder("portal.settlement.rollup.rebuild").register(meterRegistry);
+        this.updatedCounter = Counter.builder("portal.settlement.rollup.update").tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("portal.settlement.rollup.update").tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * What one order adds to its rollup row.
+     */
+    public record Contribution(long paidPaise, long unpaidPaise, long feePaise, long orders, long paidOrders) {
+
+        public static final Contribution NONE = new Contribution(0, 0, 0, 0, 0);
+
+        Contribution minus(Contribution other) {
+            return new Contribution(paidPaise - other.paidPaise, unpaidPaise - other.unpaidPaise,
+                    feePaise - other.feePaise, orders - other.orders, paidOrders - other.paidOrders);
+        }
+
+        Contribution plus(Contribution other) {
+            return new Contribution(paidPaise + other.paidPaise, unpaidPaise + other.unpaidPaise,
+                    feePaise + other.feePaise, orders + other.orders, paidOrders + other.paidOrders);
+        }
+
+        boolean isZero() {
+            return this.equals(NONE);
+        }
+    }
+
+    /**
+     * Totals over all rollup rows of a seller, or of the whole platform when {@code sellerId} is null.
+     */
+    public record Totals(long paidPaise, long unpaidPaise, long feePaise, long orders) {
+    }
+
+    /**
+     * Contribution of the order in its current state. Capture it before changing the order and hand it to
+     * {@link #applyChange} afterwards.
+     */
+    public Contribution contributionOf(Order_Details order) {
+        if (order == null || order.isDeleted() || !ELIGIBLE_STATUSES.contains(order.getStatus())) {
+            return Contribution.NONE;
+        }
+        return contribution(order);
+    }
+
+    /**
+     * Moves the order's rollup row by the difference between {@code before} and the order's current state.
+     * A failed update is logged and left to the next rebuild rather than failing the caller.
+     */
+    public void applyChange(Order_Details order, Contribution before) {
+        Contribution delta = contributionOf(order).minus(before);
+        if (delta.isZero()) {
+            return;
+        }
+        String sellerId = order.getSeller_id();
+        String day = dayOf(order);
+        try {
+            Update update = new Update()
+                    .setOnInsert(SettlementRollup.Fields.seller_id, sellerId)
+                    .setOnInsert(SettlementRollup.Fields.day, day)
+                    .inc(SettlementRollup.Fields.paid_paise, delta.paidPaise())
+                    .inc(SettlementRollup.Fields.unpaid_paise, delta.unpaidPaise())
+                    .inc(SettlementRollup.Fields.fee_paise, delta.feePaise())
+                    .inc(SettlementRollup.Fields.order_count, delta.orders())
+                    .inc(SettlementRollup.Fields.paid_count, delta.paidOrders())
+                    .set(SettlementRollup.Fields.modification_date, LocalDateTime.now());
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(SettlementRollup.idOf(sellerId, day))),
+                    update, SettlementRollup.class);
+            updatedCounter.increment();
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.error("Unable to update settlement rollup for order {}: {}", order.getId(), e.getMessage(), e);
+        }
+    }
+
+    public Totals totals(String sellerId) {
+        Criteria criteria = StringUtils.hasText(sellerId)
+                ? Criteria.where(SettlementRollup.Fields.seller_id).is(sellerId)
+                : new Criteria();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group()
+                        .sum(SettlementRollup.Fields.paid_paise).as(SettlementRollup.Fields.paid_paise)
+                        .sum(SettlementRollup.Fields.unpaid_paise).as(SettlementRollup.Fields.unpaid_paise)
+                        .sum(SettlementRollup.Fields.fee_paise).as(SettlementRollup.Fields.fee_paise)
+                        .sum(SettlementRollup.Fields.order_count).as(SettlementRollup.Fields.order_count));
+        Document result = mongoTemplate.aggregate(aggregation, SettlementRollup.class, Document.class)
+                .getUniqueMappedResult();
+        if (result == null) {
+            return new Totals(0, 0, 0, 0);
+        }
+        return new Totals(longOf(result, SettlementRollup.Fields.paid_paise),
+                longOf(result, SettlementRollup.Fields.unpaid_paise),
+                longOf(result, SettlementRollup.Fields.fee_paise),
+                longOf(result, SettlementRollup.Fields.order_count));
+    }
+
+    /**
+     * Backfills the rollups on the first start against an empty collection.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        mongoTemplate.indexOps(SettlementRollup.class)
+                .ensureIndex(new Index().on(SettlementRollup.Fields.seller_id, Sort.Direction.ASC));
+        if (mongoTemplate.estimatedCount(SettlementRollup.class) == 0) {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Recomputes every rollup row from the orders, walking them in id order in batches so memory stays bounded by
+     * the number of seller-days. Rows are overwritten with the recomputed values and rows without eligible orders
+     * are removed. Increments that land while the rebuild runs can be overwritten, so it is scheduled off-peak;
+     * the next run corrects any such drift.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        LocalDateTime rebuildStartedAt = LocalDateTime.now();
+        Map<String, SettlementRollup> rows = new HashMap<>();
+        Iterator<Order_Details> orders = KeysetPagination.iterate(this::eligibleOrdersFilter,
+                orderDetailsService::repoFind,
+                new KeysetPagination.Sort<>(BaseMongoEntity.Fields.id, SortOrder.ASC, Order_Details::getId),
+                rebuildBatchSize, Function.identity());
+        long orderCount = 0;
+        while (orders.hasNext()) {
+            Order_Details order = orders.next();
+            String day = dayOf(order);
+            SettlementRollup row = rows.computeIfAbsent(SettlementRollup.idOf(order.getSeller_id(), day), id -> {
+                SettlementRollup rollup = new SettlementRollup();
+                rollup.setId(id);
+                rollup.setSeller_id(order.getSeller_id());
+                rollup.setDay(day);
+                return rollup;
+            });
+            Contribution total = new Contribution(row.getPaid_paise(), row.getUnpaid_paise(), row.getFee_paise(),
+                    row.getOrder_count(), row.getPaid_count()).plus(contribution(order));
+            row.setPaid_paise(total.paidPaise());
+            row.setUnpaid_paise(total.unpaidPaise());
+            row.setFee_paise(total.feePaise());
+            row.setOrder_count(total.orders());
+            row.setPaid_count(total.paidOrders());
+            orderCount++;
+        }
+
+        if (!rows.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SettlementRollup.class);
+            for (SettlementRollup row : rows.values()) {
+                row.setModification_date(LocalDateTime.now());
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(row.getId())), row,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").nin(rows.keySet())
+                .and(SettlementRollup.Fields.modification_date).lt(rebuildStartedAt)), SettlementRollup.class);
+
+        long elapsed = System.nanoTime() - start;
+        rebuildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Settlement rollups rebuilt from {} orders into {} rows in {} ms", orderCount, rows.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private SEFilter eligibleOrdersFilter() {
+        SEFilter filter = new SEFilter(SEFilterType.AND);
+        filter.addClause(WhereClause.eq(BaseMongoEntity.Fields.deleted, false));
+        filter.addClause(WhereClause.in(Order_Details.Fields.status_id,
+                ELIGIBLE_STATUSES.stream().map(OrderStatus::getId).toList()));
+        filter.addProjection(Order_Details.Fields.seller_id, Order_Details.Fields.status_id,
+                Order_Details.Fields.is_payout_done, Order_Details.Fields.settlement_details,
+                Order_Details.Fields.total_items_cost, BaseMongoEntity.Fields.creation_date);
+        return filter;
+    }
+
+    private static Contribution contribution(Order_Details order) {
+        long itemsCost = order.getTotal_items_cost() == null ? 0L : order.getTotal_items_cost();
+        long costInPaise = CommonUtils.calculateFees(itemsCost, FEE_PERCENTAGE).costInPaise();
+        long feePaise = itemsCost - costInPaise;
+        if (Boolean.TRUE.equals(order.getIs_payout_done()) && order.getSettlement_details() != null
+                && order.getSettlement_details().getAmount() != null) {
+            long paidPaise = CommonUtils.rupeeToPaise(order.getSettlement_details().getAmount());
+            return new Contribution(paidPaise, 0, feePaise, 1, 1);
+        }
+        return new Contribution(0, costInPaise, feePaise, 1, 0);
+    }
+
+    private static String dayOf(Order_Details order) {
+        LocalDateTime created = order.getCreation_date();
+        return (created == null ? LocalDate.now() : created.toLocalDate()).toString();
+    }
+
+    private static long longOf(Document document, String field) {
+        Object value = document.get(field);
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+}
@@ -22,6 +22,7 @@ public class PorterWebhookController {
 
     private final WebhookTraceHelper webhookTraceHelper;
     private final PorterUtility porterUtility;
+    private final PorterWebhookTracker porterWebhookTracker;
 
     @Value("${se.porter.config.auth.token:cd659135-c032-4f1e-80fa-ff78db812511}")
     private String porterToken;
@@ -32,11 +33,14 @@ public class PorterWebhookController {
         if (!StringUtils.hasText(api_key) || !api_key.equals(porterToken)) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized access");
         }
-        return webhookTraceHelper.runWithTrace(
+        SEResponse seResponse = webhookTraceHelper.runWithTrace(
                 WebhookType.PORTED_ORDER_UPDATE,
                 response,
                 Defaults.PORTER_ORDER_UPDATE_WEBHOOK,
                 () -> porterUtility.handleWebhookResponse(response)
         );
+        // Lets the status poller skip this order while webhooks keep it up to date
+        porterWebhookTracker.recordUpdate(response.getOrder_id());
+        return seResponse;
     }
 }
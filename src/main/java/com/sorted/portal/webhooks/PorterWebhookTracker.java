@@ -0,0 +1,43 @@
+package com.sorted.portal.webhooks;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers when Porter last pushed an update for a delivery order, so the status poller can leave orders alone
+ * while their webhooks are flowing. Entries expire after the grace period, after which polling resumes.
+ */
+@Component
+public class PorterWebhookTracker {
+
+    private final Cache<String, Long> lastUpdates;
+    private final long graceMs;
+
+    public PorterWebhookTracker(@Value("${se.porter.poll.webhook-grace-ms:120000}") long graceMs,
+                                @Value("${se.porter.poll.webhook-capacity:20000}") long capacity) {
+        this.graceMs = graceMs;
+        this.lastUpdates = CacheBuilder.newBuilder()
+                .maximumSize(capacity)
+                .expireAfterWrite(graceMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public void recordUpdate(String dpOrderId) {
+        if (StringUtils.hasText(dpOrderId)) {
+            lastUpdates.put(dpOrderId, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Returns the time until which polling of the order is unnecessary, or 0 when no webhook arrived recently.
+     */
+    public long quietUntil(String dpOrderId) {
+        Long lastUpdate = StringUtils.hasText(dpOrderId) ? lastUpdates.getIfPresent(dpOrderId) : null;
+        return lastUpdate == null ? 0 : lastUpdate + graceMs;
+    }
+}
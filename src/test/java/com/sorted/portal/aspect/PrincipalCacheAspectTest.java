@@ -0,0 +1,160 @@
+package com.sorted.portal.aspect;
+
+import com.sorted.commons.beans.UsersBean;
+import com.sorted.commons.entity.mongo.Seller;
+import com.sorted.commons.enums.Activity;
+import com.sorted.commons.enums.Permission;
+import com.sorted.portal.security.PrincipalCache;
+import com.sorted.portal.service.cache.CacheInvalidationBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCacheAspect aspect;
+    private final Map<String, UsersBean> principals = new HashMap<>();
+    private final Map<String, Integer> loads = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new PrincipalCacheAspect(new PrincipalCache(mock(CacheInvalidationBus.class), meterRegistry,
+                60_000, 100));
+        principals.put("u1", principal("s1"));
+        principals.put("u2", principal("s2"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void repeatedCheckInARequestIsServedFromTheRequest() throws Throwable {
+        startRequest();
+
+        UsersBean first = check("u1", Activity.INVENTORY_MANAGEMENT);
+        UsersBean second = check("u1", Activity.INVENTORY_MANAGEMENT);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get("u1"));
+        assertEquals(1, lookups("request"));
+    }
+
+    @Test
+    void laterRequestIsServedFromTheSharedCache() throws Throwable {
+        startRequest();
+        check("u1", Activity.INVENTORY_MANAGEMENT);
+
+        startRequest();
+        check("u1", Activity.INVENTORY_MANAGEMENT);
+
+        assertEquals(1, loads.get("u1"));
+        assertEquals(1, lookups("cache"));
+        assertEquals(0, lookups("request"));
+    }
+
+    @Test
+    void checksWithOtherActivitiesAreKeptApart() throws Throwable {
+        check("u1", Activity.INVENTORY_MANAGEMENT);
+        check("u1", Activity.SETTLEMENT);
+        check("u1", Activity.INVENTORY_MANAGEMENT, Activity.SETTLEMENT);
+        check("u1", Activity.SETTLEMENT);
+
+        assertEquals(3, loads.get("u1"));
+    }
+
+    @Test
+    void refusedCheckIsNotCached() throws Throwable {
+        ProceedingJoinPoint refused = validation("u1", Activity.SETTLEMENT);
+        when(refused.proceed()).thenThrow(new IllegalStateException("not allowed"));
+
+        assertThrows(IllegalStateException.class, () -> aspect.resolvePrincipal(refused));
+        assertThrows(IllegalStateException.class, () -> aspect.resolvePrincipal(refused));
+
+        verify(refused, times(2)).proceed();
+    }
+
+    @Test
+    void userUpdateDropsOnlyThatUser() throws Throwable {
+        startRequest();
+        check("u1", Activity.INVENTORY_MANAGEMENT);
+        check("u2", Activity.INVENTORY_MANAGEMENT);
+
+        aspect.userChanged(write("u1"));
+        check("u1", Activity.INVENTORY_MANAGEMENT);
+        check("u2", Activity.INVENTORY_MANAGEMENT);
+
+        assertEquals(2, loads.get("u1"));
+        assertEquals(1, loads.get("u2"));
+    }
+
+    @Test
+    void sellerUpdateDropsTheUsersOfThatSeller() throws Throwable {
+        check("u1", Activity.INVENTORY_MANAGEMENT);
+        check("u2", Activity.INVENTORY_MANAGEMENT);
+
+        aspect.sellerChanged(write("s1"));
+        check("u1", Activity.INVENTORY_MANAGEMENT);
+        check("u2", Activity.INVENTORY_MANAGEMENT);
+
+        assertEquals(2, loads.get("u1"));
+        assertEquals(1, loads.get("u2"));
+    }
+
+    private UsersBean check(String userId, Activity... activities) throws Throwable {
+        ProceedingJoinPoint joinPoint = validation(userId, activities);
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            loads.merge(userId, 1, Integer::sum);
+            return principals.get(userId);
+        });
+        return (UsersBean) aspect.resolvePrincipal(joinPoint);
+    }
+
+    /**
+     * A call as the commons service receives it, with the activities in a new varargs array each time.
+     */
+    private static ProceedingJoinPoint validation(String userId, Activity... activities) {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{userId, Permission.EDIT, activities.clone()});
+        return joinPoint;
+    }
+
+    private static JoinPoint write(String id) {
+        JoinPoint joinPoint = mock(JoinPoint.class);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{id});
+        return joinPoint;
+    }
+
+    private static void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private double lookups(String source) {
+        return meterRegistry.find("portal.principal.lookup").tag("source", source).counters().stream()
+                .mapToDouble(Counter::count).sum();
+    }
+
+    private static UsersBean principal(String sellerId) {
+        Seller seller = new Seller();
+        seller.setId(sellerId);
+        UsersBean principal = new UsersBean();
+        principal.setSeller(seller);
+        return principal;
+    }
+}
@@ -0,0 +1,67 @@
+package com.sorted.portal.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterRateLimiterTest {
+
+    private static final long WINDOW = 1000;
+
+    private SlidingWindowCounterRateLimiter limiter;
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new SlidingWindowCounterRateLimiter(10, WINDOW);
+        // Window aligned and not before the limiter's creation time
+        start = (System.currentTimeMillis() / WINDOW + 1) * WINDOW;
+    }
+
+    @Test
+    void allowsUpToTheLimitWithinAWindow() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("a", start + i));
+        }
+        assertFalse(limiter.tryAcquire("a", start + 10));
+    }
+
+    @Test
+    void keysHaveIndependentBudgets() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("a", start);
+        }
+        assertFalse(limiter.tryAcquire("a", start));
+        assertTrue(limiter.tryAcquire("b", start));
+    }
+
+    @Test
+    void weightsThePreviousWindowByItsRemainingOverlap() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("a", start);
+        }
+        // Halfway through the next window half of the previous window still counts
+        long halfway = start + WINDOW + WINDOW / 2;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("a", halfway));
+        }
+        assertFalse(limiter.tryAcquire("a", halfway));
+    }
+
+    @Test
+    void resetsAndEvictsKeysIdleForTwoWindows() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("a", start);
+        }
+        limiter.tryAcquire("b", start);
+        assertEquals(2, limiter.trackedKeys());
+
+        long later = start + 3 * WINDOW;
+        assertTrue(limiter.tryAcquire("c", later));
+        assertEquals(1, limiter.trackedKeys());
+        assertTrue(limiter.tryAcquire("a", later));
+    }
+}
@@ -0,0 +1,216 @@
+package com.sorted.portal.crons;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.entity.service.Order_Details_Service;
+import com.sorted.commons.enums.OrderStatus;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import com.sorted.commons.porter.res.beans.FetchOrderRes;
+import com.sorted.commons.utils.InternalMailService;
+import com.sorted.commons.utils.PorterUtility;
+import com.sorted.portal.service.settlement.SettlementRollupService;
+import com.sorted.portal.webhooks.PorterWebhookTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PorterStatusPollerTest {
+
+    private static final long RIDER_MS = 1_000;
+    private static final long PICKUP_MS = 3_000;
+    private static final long MAX_MS = 4_000;
+
+    private Order_Details_Service orderDetailsService;
+    private PorterUtility porterUtility;
+    private InternalMailService internalMailService;
+    private PorterWebhookTracker webhookTracker;
+    private SettlementRollupService settlementRollupService;
+    private SimpleMeterRegistry meterRegistry;
+    private final AtomicLong clock = new AtomicLong(10_000);
+    private PorterStatusPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        orderDetailsService = mock(Order_Details_Service.class);
+        porterUtility = mock(PorterUtility.class);
+        internalMailService = mock(InternalMailService.class);
+        webhookTracker = mock(PorterWebhookTracker.class);
+        settlementRollupService = mock(SettlementRollupService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(porterUtility.getOrderStatus(anyString())).thenAnswer(invocation -> fetched(invocation.getArgument(0)));
+        // Polls run inline on the tick thread
+        poller = new PorterStatusPoller(orderDetailsService, porterUtility, internalMailService, webhookTracker,
+                settlementRollupService, meterRegistry, MoreExecutors.newDirectExecutorService(), clock::get, RIDER_MS, PICKUP_MS, MAX_MS, 2);
+    }
+
+    @Test
+    void newOrdersArePolledAtOnceAndThenAfterTheirStatusInterval() {
+        Order_Details rider = order("o1", OrderStatus.RIDER_ASSIGNED);
+        Order_Details pickup = order("o2", OrderStatus.READY_FOR_PICK_UP);
+        tracking(rider, pickup);
+
+        poller.pollDueOrders();
+
+        verify(porterUtility).updateOrderStatus(eq(rider), any());
+        verify(porterUtility).updateOrderStatus(eq(pickup), any());
+        assertEquals(10_000 + RIDER_MS, poller.nextPollAt("o1"));
+        assertEquals(10_000 + PICKUP_MS, poller.nextPollAt("o2"));
+    }
+
+    @Test
+    void ordersAreNotPolledBeforeTheyAreDue() {
+        tracking(order("o1", OrderStatus.OUT_FOR_DELIVERY));
+        poller.pollDueOrders();
+
+        clock.addAndGet(RIDER_MS - 1);
+        poller.pollDueOrders();
+        verify(porterUtility, times(1)).getOrderStatus("dp-o1");
+
+        clock.addAndGet(1);
+        poller.pollDueOrders();
+        verify(porterUtility, times(2)).getOrderStatus("dp-o1");
+    }
+
+    @Test
+    void unchangedStatusBacksOffUpToTheMaximumInterval() {
+        tracking(order("o1", OrderStatus.RIDER_ASSIGNED));
+
+        long[] expectedGaps = {RIDER_MS, 2 * RIDER_MS, MAX_MS, MAX_MS};
+        for (long gap : expectedGaps) {
+            poller.pollDueOrders();
+            assertEquals(clock.get() + gap, poller.nextPollAt("o1"));
+            clock.set(poller.nextPollAt("o1"));
+        }
+        verify(porterUtility, times(expectedGaps.length)).getOrderStatus("dp-o1");
+    }
+
+    @Test
+    void statusChangeResetsTheBackoff() {
+        Order_Details order = order("o1", OrderStatus.RIDER_ASSIGNED);
+        tracking(order);
+        poller.pollDueOrders();
+        clock.set(poller.nextPollAt("o1"));
+        poller.pollDueOrders();
+        assertEquals(clock.get() + 2 * RIDER_MS, poller.nextPollAt("o1"));
+
+        order.setStatus(OrderStatus.OUT_FOR_DELIVERY, "porter");
+        poller.pollDueOrders();
+
+        verify(porterUtility, times(3)).getOrderStatus("dp-o1");
+        assertEquals(clock.get() + RIDER_MS, poller.nextPollAt("o1"));
+    }
+
+    @Test
+    void recentlyWebhookedOrdersWaitForTheQuietPeriod() {
+        tracking(order("o1", OrderStatus.RIDER_ASSIGNED));
+        long quietUntil = clock.get() + 5_000;
+        when(webhookTracker.quietUntil("dp-o1")).thenReturn(quietUntil);
+
+        poller.pollDueOrders();
+
+        verify(porterUtility, never()).getOrderStatus(anyString());
+        assertEquals(quietUntil, poller.nextPollAt("o1"));
+        assertEquals(1, meterRegistry.counter("portal.porter.poll", "outcome", "skipped_webhook").count());
+
+        clock.set(quietUntil);
+        poller.pollDueOrders();
+        verify(porterUtility).getOrderStatus("dp-o1");
+    }
+
+    @Test
+    void porterErrorsBackOffLikeUnchangedStatuses() {
+        tracking(order("o1", OrderStatus.RIDER_ASSIGNED));
+        when(porterUtility.getOrderStatus("dp-o1")).thenThrow(new IllegalStateException("porter down"));
+
+        poller.pollDueOrders();
+        assertEquals(clock.get() + RIDER_MS, poller.nextPollAt("o1"));
+
+        clock.set(poller.nextPollAt("o1"));
+        poller.pollDueOrders();
+        assertEquals(clock.get() + 2 * RIDER_MS, poller.nextPollAt("o1"));
+
+        verify(porterUtility, never()).updateOrderStatus(any(), any());
+        assertEquals(2, meterRegistry.counter("portal.porter.poll", "outcome", "failure").count());
+    }
+
+    @Test
+    void mismatchedPorterOrderIsReportedAndBacksOff() {
+        Order_Details order = order("o1", OrderStatus.RIDER_ASSIGNED);
+        tracking(order);
+        FetchOrderRes other = fetched("dp-other");
+        when(porterUtility.getOrderStatus("dp-o1")).thenReturn(other);
+
+        poller.pollDueOrders();
+
+        verify(internalMailService).sendMailOnError(anyString(), eq("dp-o1"), any());
+        verify(porterUtility, never()).updateOrderStatus(any(), any());
+        assertEquals(clock.get() + RIDER_MS, poller.nextPollAt("o1"));
+    }
+
+    @Test
+    void statusWriteMovesTheSettlementRollupByTheStoredOrder() {
+        Order_Details order = order("o1", OrderStatus.OUT_FOR_DELIVERY);
+        Order_Details stored = order("o1", OrderStatus.DELIVERED);
+        SettlementRollupService.Contribution before = new SettlementRollupService.Contribution(0, 900, 100, 1, 0);
+        when(settlementRollupService.contributionOf(order)).thenReturn(before);
+        when(orderDetailsService.findById("o1")).thenReturn(Optional.of(stored));
+
+        poller.updateOrderStatus(order);
+
+        InOrder inOrder = inOrder(settlementRollupService, porterUtility, orderDetailsService);
+        inOrder.verify(settlementRollupService).contributionOf(order);
+        inOrder.verify(porterUtility).updateOrderStatus(eq(order), any());
+        inOrder.verify(orderDetailsService).findById("o1");
+        inOrder.verify(settlementRollupService).applyChange(stored, before);
+    }
+
+    @Test
+    void mismatchedPorterOrderLeavesTheSettlementRollupAlone() {
+        FetchOrderRes other = fetched("dp-other");
+        when(porterUtility.getOrderStatus("dp-o1")).thenReturn(other);
+
+        assertThrows(CustomIllegalArgumentsException.class,
+                () -> poller.updateOrderStatus(order("o1", OrderStatus.RIDER_ASSIGNED)));
+
+        verify(settlementRollupService, never()).applyChange(any(), any());
+    }
+
+    @Test
+    void ordersThatLeftThePolledStatusesAreForgotten() {
+        tracking(order("o1", OrderStatus.RIDER_ASSIGNED), order("o2", OrderStatus.RIDER_ASSIGNED));
+        poller.pollDueOrders();
+
+        tracking(order("o2", OrderStatus.RIDER_ASSIGNED));
+        poller.pollDueOrders();
+
+        assertEquals(0, poller.nextPollAt("o1"));
+        assertEquals(10_000 + RIDER_MS, poller.nextPollAt("o2"));
+    }
+
+    private void tracking(Order_Details... orders) {
+        when(orderDetailsService.repoFind(any())).thenReturn(List.of(orders));
+    }
+
+    private static Order_Details order(String id, OrderStatus status) {
+        Order_Details order = new Order_Details();
+        order.setId(id);
+        order.setDp_order_id("dp-" + id);
+        order.setStatus(status, "test");
+        return order;
+    }
+
+    private static FetchOrderRes fetched(String dpOrderId) {
+        FetchOrderRes res = mock(FetchOrderRes.class);
+        when(res.getOrder_id()).thenReturn(dpOrderId);
+        return res;
+    }
+}
@@ -0,0 +1,120 @@
+package com.sorted.portal.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of reading export columns: the per-cell reflective lookup the exporters used before
+ * {@link ExportAccessorPlan}, against the compiled plan. The row has 12 columns, three of them inherited and two
+ * read through getters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportAccessorBenchmark {
+
+    private Row row;
+    private List<String> fields;
+
+    @Setup
+    public void setUp() {
+        row = new Row();
+        fields = ExportFieldMapping.getFields(RowMapping.class);
+    }
+
+    @Benchmark
+    public void reflectivePerCell(Blackhole blackhole) throws Exception {
+        for (String field : fields) {
+            blackhole.consume(reflectiveValue(row, field));
+        }
+    }
+
+    @Benchmark
+    public List<Object> accessorPlan() {
+        return ExportAccessorPlan.forRow(null, row, RowMapping.class).values(row, "", "Error");
+    }
+
+    /**
+     * The lookup FileGeneratorUtil did for every cell before accessor plans.
+     */
+    private static Object reflectiveValue(Object obj, String fieldName) throws Exception {
+        for (Class<?> current = obj.getClass(); current != null; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return field.get(obj);
+            } catch (NoSuchFieldException e) {
+                // Keep walking up
+            }
+        }
+        String capitalized = fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+        Method getter;
+        try {
+            getter = obj.getClass().getMethod("get" + capitalized);
+        } catch (NoSuchMethodException e) {
+            getter = obj.getClass().getMethod("is" + capitalized);
+        }
+        return getter.invoke(obj);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExportAccessorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    enum RowMapping implements ExportFieldMapping<Row> {
+        ID("Id", "id"),
+        CREATED("Created", "created"),
+        CREATED_BY("Created By", "createdBy"),
+        CODE("Code", "code"),
+        NAME("Name", "name"),
+        QUANTITY("Quantity", "quantity"),
+        PRICE("Price", "price"),
+        SELLER("Seller", "seller"),
+        STATUS("Status", "status"),
+        CITY("City", "city"),
+        TOTAL("Total", "total"),
+        ACTIVE("Active", "active");
+
+        private final String headerName;
+        private final String propertyName;
+    }
+
+    static class Base {
+        private final String id = "665f1c2ab1e4d2a7c3f0a9b1";
+        private final String created = "2024-06-04 10:15";
+        private final String createdBy = "665f1c2ab1e4d2a7c3f0a9b2";
+    }
+
+    static class Row extends Base {
+        private final String code = "ORD-10293";
+        private final String name = "Engineering Mathematics";
+        private final int quantity = 2;
+        private final long price = 45_000;
+        private final String seller = "Campus Books";
+        private final String status = "DELIVERED";
+        private final String city = "Pune";
+
+        public long getTotal() {
+            return quantity * price;
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.sorted.portal.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportAccessorPlanTest {
+
+    @Test
+    void readsFieldsGettersAndInheritedFieldsInMappingOrder() {
+        ExportAccessorPlan plan = ExportAccessorPlan.of(Row.class, RowMapping.class);
+
+        assertEquals(List.of("code", "quantity", "id", "label", "active", "missing", "broken"), plan.getFields());
+        assertEquals(Arrays.asList("A-1", 3, "r1", "A-1 x3", true, "", "Error"),
+                plan.values(new Row("r1", "A-1", 3), "", "Error"));
+    }
+
+    @Test
+    void substitutesMissingValueForNulls() {
+        ExportAccessorPlan plan = ExportAccessorPlan.of(Row.class, RowMapping.class);
+
+        assertEquals("-", plan.values(new Row("r1", null, 0), "-", "Error").get(0));
+    }
+
+    @Test
+    void cachesPlansPerClassAndMapping() {
+        ExportAccessorPlan plan = ExportAccessorPlan.of(Row.class, RowMapping.class);
+
+        assertSame(plan, ExportAccessorPlan.of(Row.class, RowMapping.class));
+        assertSame(plan, ExportAccessorPlan.forRow(plan, new Row("r1", "A", 1), RowMapping.class));
+        ExportAccessorPlan other = ExportAccessorPlan.forRow(plan, new Base("r2"), RowMapping.class);
+        assertNotSame(plan, other);
+        assertEquals("r2", other.values(new Base("r2"), "", "Error").get(2));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    enum RowMapping implements ExportFieldMapping<Row> {
+        CODE("Code", "code"),
+        QUANTITY("Quantity", "quantity"),
+        ID("Id", "id"),
+        LABEL("Label", "label"),
+        ACTIVE("Active", "active"),
+        MISSING("Missing", "missing"),
+        BROKEN("Broken", "broken");
+
+        private final String headerName;
+        private final String propertyName;
+    }
+
+    static class Base {
+        private final String id;
+
+        Base(String id) {
+            this.id = id;
+        }
+    }
+
+    static class Row extends Base {
+        private final String code;
+        private final int quantity;
+
+        Row(String id, String code, int quantity) {
+            super(id);
+            this.code = code;
+            this.quantity = quantity;
+        }
+
+        public String getLabel() {
+            return code + " x" + quantity;
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("not readable");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.entity.mongo.Products;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.helper.AggregationFilter.SEFilterType;
+import com.sorted.commons.repository.mongo.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cold build latency of the home page sections against section count, run one after another as before and through
+ * {@link HomeSectionQueryExecutor}. Mongo is stood in for by a repository that answers each random sample after
+ * {@code queryMs}, about what a $sample over a category takes on the production data set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HomeSectionBenchmark {
+
+    @Param({"1", "4", "16", "32"})
+    public int sections;
+
+    @Param({"20"})
+    public long queryMs;
+
+    private ProductRepository productRepository;
+    private HomeSectionQueryExecutor executor;
+
+    @Setup
+    public void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.getRandomProducts(any(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(queryMs);
+            return List.of(new Products());
+        });
+        executor = new HomeSectionQueryExecutor(productRepository, new SimpleMeterRegistry(), 8, 256, 3000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int sequential() {
+        int products = 0;
+        for (int i = 0; i < sections; i++) {
+            products += productRepository.getRandomProducts(new SEFilter(SEFilterType.AND), 7).size();
+        }
+        return products;
+    }
+
+    @Benchmark
+    public int parallel() {
+        List<CompletableFuture<HomeSectionQueryExecutor.Section>> queries = new ArrayList<>(sections);
+        for (int i = 0; i < sections; i++) {
+            queries.add(executor.randomProducts(new SEFilter(SEFilterType.AND), 7));
+        }
+        int products = 0;
+        for (CompletableFuture<HomeSectionQueryExecutor.Section> query : queries) {
+            products += query.join().products().size();
+        }
+        return products;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HomeSectionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.entity.mongo.Products;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.helper.AggregationFilter.SEFilterType;
+import com.sorted.commons.repository.mongo.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class HomeSectionQueryExecutorTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private HomeSectionQueryExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void runsTheFilterThroughTheProductRepository() {
+        executor = executor(2, 10, 3000);
+        SEFilter filter = new SEFilter(SEFilterType.AND);
+        Products product = new Products();
+        when(productRepository.getRandomProducts(filter, 7)).thenReturn(List.of(product));
+
+        HomeSectionQueryExecutor.Section section = executor.randomProducts(filter, 7).join();
+
+        assertFalse(section.degraded());
+        assertEquals(List.of(product), section.products());
+        verify(productRepository).getRandomProducts(filter, 7);
+    }
+
+    @Test
+    void slowQueryGivesADegradedSectionAtItsBudget() {
+        executor = executor(2, 10, 200);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productRepository.getRandomProducts(any(), anyInt())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(new Products());
+        });
+
+        long start = System.nanoTime();
+        HomeSectionQueryExecutor.Section section = executor.randomProducts(filter(), 7).join();
+        release.countDown();
+
+        assertTrue(section.degraded());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    }
+
+    @Test
+    void failedQueryGivesADegradedSection() {
+        executor = executor(2, 10, 3000);
+        when(productRepository.getRandomProducts(any(), anyInt())).thenThrow(new IllegalStateException("connection reset"));
+
+        HomeSectionQueryExecutor.Section section = executor.randomProducts(filter(), 7).join();
+
+        assertTrue(section.degraded());
+        assertTrue(section.products().isEmpty());
+    }
+
+    @Test
+    void queryQueuedPastItsBudgetIsNotRun() throws Exception {
+        executor = executor(1, 10, 300);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productRepository.getRandomProducts(any(), anyInt())).thenAnswer(invocation -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+
+        var first = executor.randomProducts(filter(), 7);
+        var queued = executor.randomProducts(filter(), 7);
+        // Both budgets pass while the first query holds the only pool thread
+        Thread.sleep(450);
+        release.countDown();
+
+        assertTrue(first.get(5, TimeUnit.SECONDS).degraded());
+        assertTrue(queued.get(5, TimeUnit.SECONDS).degraded());
+        // Runs after the queued one on the single pool thread
+        assertFalse(executor.randomProducts(filter(), 7).get(5, TimeUnit.SECONDS).degraded());
+        verify(productRepository, times(2)).getRandomProducts(any(), anyInt());
+    }
+
+    private HomeSectionQueryExecutor executor(int threads, int queue, long timeoutMs) {
+        return new HomeSectionQueryExecutor(productRepository, new SimpleMeterRegistry(), threads, queue, timeoutMs);
+    }
+
+    private static SEFilter filter() {
+        return new SEFilter(SEFilterType.AND);
+    }
+}
@@ -0,0 +1,141 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.entity.mongo.BaseMongoEntity;
+import com.sorted.commons.entity.mongo.Products;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import com.sorted.commons.helper.AggregationFilter.SEFilterType;
+import com.sorted.commons.helper.AggregationFilter.SortOrder;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPaginationTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2024, 1, 1, 10, 0);
+    private static final LocalDateTime T2 = LocalDateTime.of(2024, 1, 2, 10, 0);
+
+    private static final KeysetPagination.Sort<Products> NEWEST_FIRST = new KeysetPagination.Sort<>(
+            BaseMongoEntity.Fields.creation_date, SortOrder.DESC, Products::getCreation_date);
+
+    @Test
+    void cursorRoundTripsEachValueType() {
+        for (Object value : new Object[]{42L, T1, "abc|def", null}) {
+            KeysetPagination.Cursor cursor = new KeysetPagination.Cursor("field", value, "id-9", 7);
+            assertEquals(cursor, KeysetPagination.Cursor.decode(cursor.encode()));
+        }
+    }
+
+    @Test
+    void nullValueIsNotDecodedAsString() {
+        String token = new KeysetPagination.Cursor("field", null, "id-1", 0).encode();
+        assertNull(KeysetPagination.Cursor.decode(token).value());
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(CustomIllegalArgumentsException.class, () -> KeysetPagination.Cursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    void firstPageEndingInTiesIsCutAtLowestIds() {
+        // Ordered by value the query returns ties in arbitrary id order; the re-read by id decides the cut
+        Scripted finder = new Scripted(
+                List.of(product("c", T2), product("b", T1), product("d", T1)),
+                List.of(product("d", T1), product("b", T1)));
+
+        KeysetPagination.Page<Products> page = KeysetPagination.fetch(this::filter, finder, f -> 5L, NEWEST_FIRST,
+                null, 2);
+
+        assertEquals(List.of("c", "d"), ids(page.items()));
+        assertTrue(page.hasMore());
+        assertEquals(5L, page.totalCount());
+        KeysetPagination.Cursor next = KeysetPagination.Cursor.decode(page.nextCursor());
+        assertEquals(T1, next.value());
+        assertEquals("d", next.lastId());
+        assertTrue(finder.exhausted());
+    }
+
+    @Test
+    void nextPageContinuesTiesThenOlderValues() {
+        String token = new KeysetPagination.Cursor(BaseMongoEntity.Fields.creation_date, T2, "c", 5).encode();
+        Scripted finder = new Scripted(
+                List.of(product("b", T2)),
+                List.of(product("a", T1)),
+                List.of());
+
+        KeysetPagination.Page<Products> page = KeysetPagination.fetch(this::filter, finder, f -> {
+            throw new AssertionError("count is only taken for the first page");
+        }, NEWEST_FIRST, token, 3);
+
+        assertEquals(List.of("b", "a"), ids(page.items()));
+        assertFalse(page.hasMore());
+        assertNull(page.nextCursor());
+        assertEquals(5L, page.totalCount());
+        assertTrue(finder.exhausted());
+    }
+
+    @Test
+    void descendingCursorOnNullOnlyReadsRemainingNulls() {
+        String token = new KeysetPagination.Cursor(BaseMongoEntity.Fields.creation_date, null, "c", 3).encode();
+        Scripted finder = new Scripted(List.of(product("b", null)));
+
+        KeysetPagination.Page<Products> page = KeysetPagination.fetch(this::filter, finder, f -> 0L, NEWEST_FIRST,
+                token, 2);
+
+        assertEquals(List.of("b"), ids(page.items()));
+        assertFalse(page.hasMore());
+        assertTrue(finder.exhausted());
+    }
+
+    @Test
+    void rejectsCursorIssuedForAnotherSort() {
+        String token = new KeysetPagination.Cursor("selling_price", 10L, "a", 1).encode();
+        assertThrows(CustomIllegalArgumentsException.class, () -> KeysetPagination.fetch(this::filter,
+                new Scripted(), f -> 0L, NEWEST_FIRST, token, 2));
+    }
+
+    private SEFilter filter() {
+        return new SEFilter(SEFilterType.AND);
+    }
+
+    private static Products product(String id, LocalDateTime creationDate) {
+        Products product = new Products();
+        product.setId(id);
+        product.setCreation_date(creationDate);
+        return product;
+    }
+
+    private static List<String> ids(List<Products> products) {
+        return products.stream().map(Products::getId).toList();
+    }
+
+    /**
+     * Answers the finder calls in order with the given results.
+     */
+    private static final class Scripted implements Function<SEFilter, List<Products>> {
+
+        private final Deque<List<Products>> results = new ArrayDeque<>();
+
+        @SafeVarargs
+        Scripted(List<Products>... results) {
+            this.results.addAll(List.of(results));
+        }
+
+        @Override
+        public List<Products> apply(SEFilter filter) {
+            assertFalse(results.isEmpty(), "unexpected query");
+            return results.poll();
+        }
+
+        boolean exhausted() {
+            return results.isEmpty();
+        }
+    }
+}
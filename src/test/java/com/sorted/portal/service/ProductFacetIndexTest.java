@@ -0,0 +1,94 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.beans.SelectedSubCategories;
+import com.sorted.commons.entity.mongo.Products;
+import com.sorted.commons.entity.service.ProductService;
+import com.sorted.commons.helper.AggregationFilter.SEFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+    private ProductService productService;
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(ProductService.class);
+        index = new ProductFacetIndex(productService);
+    }
+
+    @Test
+    void countsProductsPerAttribute() {
+        when(productService.repoFind(any(SEFilter.class))).thenReturn(List.of(
+                product("p1", "books", "Author", "A", "B"),
+                product("p2", "books", "Author", "A"),
+                product("p3", "pens", "Colour", "Blue")));
+        index.rebuild();
+
+        assertEquals(Map.of("Author", Map.of("A", 2L, "B", 1L)), index.getCounts("books", 1));
+        assertEquals(Map.of("Colour", Map.of("Blue", 1L)), index.getCounts("pens", 1));
+        assertTrue(index.getCounts("books", 2).isEmpty());
+    }
+
+    @Test
+    void upsertReplacesAndRemoveDropsFacets() {
+        when(productService.repoFind(any(SEFilter.class))).thenReturn(List.of(
+                product("p1", "books", "Author", "A"),
+                product("p2", "books", "Author", "A")));
+        index.rebuild();
+
+        index.upsert(product("p1", "books", "Author", "B"));
+        assertEquals(Map.of("Author", Map.of("A", 1L, "B", 1L)), index.getCounts("books", 1));
+
+        index.remove("p2");
+        assertEquals(Map.of("Author", Map.of("B", 1L)), index.getCounts("books", 1));
+
+        Products deleted = product("p1", "books", "Author", "B");
+        deleted.setDeleted(true);
+        index.upsert(deleted);
+        assertTrue(index.getCounts("books", 1).isEmpty());
+    }
+
+    @Test
+    void keepsWritesMadeWhileRebuilding() {
+        when(productService.repoFind(any(SEFilter.class))).thenReturn(List.of(
+                product("p1", "books", "Author", "A")));
+        index.rebuild();
+
+        // The products are read before these writes land, so the read result does not include them
+        when(productService.repoFind(any(SEFilter.class))).thenAnswer(invocation -> {
+            List<Products> snapshot = List.of(product("p1", "books", "Author", "A"),
+                    product("p2", "books", "Author", "A"));
+            index.upsert(product("p3", "books", "Author", "C"));
+            index.remove("p2");
+            index.upsert(product("p1", "books", "Author", "B"));
+            return snapshot;
+        });
+        index.rebuild();
+
+        assertEquals(Map.of("Author", Map.of("B", 1L, "C", 1L)), index.getCounts("books", 1));
+    }
+
+    private static Products product(String id, String categoryId, String subCategory, String... attributes) {
+        SelectedSubCategories selected = new SelectedSubCategories();
+        selected.setSub_category(subCategory);
+        selected.setSelected_attributes(List.of(attributes));
+
+        Products product = new Products();
+        product.setId(id);
+        product.setCategory_id(categoryId);
+        product.setGroup_id(1);
+        product.setSelected_sub_catagories(List.of(selected));
+        return product;
+    }
+}
@@ -0,0 +1,65 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.beans.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignUpServiceTest {
+
+    @Test
+    void guestLinesAreAddedToTheCustomersCart() {
+        List<Item> merged = SignUpService.mergeItems(
+                List.of(item("p1", false, 2), item("p2", false, 1)),
+                List.of(item("p1", false, 3), item("p3", false, 1)));
+
+        assertEquals(3, merged.size());
+        assertLine(merged.get(0), "p1", false, 5);
+        assertLine(merged.get(1), "p2", false, 1);
+        assertLine(merged.get(2), "p3", false, 1);
+    }
+
+    @Test
+    void secureAndRegularLinesAreMergedSeparately() {
+        List<Item> merged = SignUpService.mergeItems(
+                List.of(item("p1", false, 2)),
+                List.of(item("p1", true, 1), item("p1", false, 1)));
+
+        assertEquals(2, merged.size());
+        assertLine(merged.get(0), "p1", false, 3);
+        assertLine(merged.get(1), "p1", true, 1);
+    }
+
+    @Test
+    void emptyCustomerCartTakesTheGuestItems() {
+        List<Item> merged = SignUpService.mergeItems(List.of(), List.of(item("p1", false, 2)));
+
+        assertEquals(1, merged.size());
+        assertLine(merged.get(0), "p1", false, 2);
+    }
+
+    @Test
+    void itemsReadFromTheCartAreNotModified() {
+        Item existing = item("p1", false, 2);
+
+        SignUpService.mergeItems(List.of(existing), List.of(item("p1", false, 3)));
+
+        assertEquals(2L, existing.getQuantity());
+    }
+
+    private static void assertLine(Item item, String productId, boolean secure, long quantity) {
+        assertEquals(productId, item.getProduct_id());
+        assertEquals(secure, item.is_secure());
+        assertEquals(quantity, item.getQuantity());
+    }
+
+    private static Item item(String productId, boolean secure, long quantity) {
+        Item item = new Item();
+        item.setProduct_id(productId);
+        item.set_secure(secure);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,40 @@
+package com.sorted.portal.service;
+
+import com.sorted.commons.entity.mongo.Third_Party_Api;
+import com.sorted.portal.enums.RequestType;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ThirdPartyRequestResponseServiceTest {
+
+    private final ThirdPartyAuditWriter auditWriter = mock(ThirdPartyAuditWriter.class);
+    private final ThirdPartyRequestResponseService service = new ThirdPartyRequestResponseService(auditWriter);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesTheFirstOutcomeOnly() {
+        ThirdPartyRequestResponseService.PendingCall call = service.register("order-1", RequestType.PP_CHECK_STATUS);
+
+        service.registerException(call, "timed out");
+        service.updateResponse(call, "late response");
+        service.registerException(call, "wrapped timeout");
+
+        ArgumentCaptor<Supplier<Third_Party_Api>> record = ArgumentCaptor.forClass(Supplier.class);
+        verify(auditWriter, times(1)).submit(record.capture());
+        assertEquals("timed out", record.getValue().get().getRaw_response());
+    }
+
+    @Test
+    void writesOneRecordPerCall() {
+        service.updateResponse(service.register("order-1", RequestType.PP_CHECK_STATUS), "ok");
+        service.updateResponse(service.register("order-2", RequestType.PP_CHECK_STATUS), "ok");
+
+        verify(auditWriter, times(2)).submit(any());
+    }
+}
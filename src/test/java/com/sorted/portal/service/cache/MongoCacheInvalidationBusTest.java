@@ -0,0 +1,59 @@
+package com.sorted.portal.service.cache;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MongoCacheInvalidationBusTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoCacheInvalidationBus bus = new MongoCacheInvalidationBus(mongoTemplate);
+    private final AtomicInteger invalidations = new AtomicInteger();
+
+    @Test
+    void firstPublishOfANeverSeenCacheReachesOtherInstances() {
+        bus.subscribe("home", invalidations::incrementAndGet);
+
+        storedVersions();
+        bus.poll();
+        assertEquals(0, invalidations.get());
+
+        // Another instance publishes for the first time
+        storedVersions(new Document("_id", "home").append("version", 1));
+        bus.poll();
+        assertEquals(1, invalidations.get());
+
+        bus.poll();
+        assertEquals(1, invalidations.get());
+    }
+
+    @Test
+    void startsFromTheStoredVersion() {
+        when(mongoTemplate.findById("home", Document.class, MongoCacheInvalidationBus.COLLECTION))
+                .thenReturn(new Document("_id", "home").append("version", 7));
+        bus.subscribe("home", invalidations::incrementAndGet);
+
+        storedVersions(new Document("_id", "home").append("version", 7));
+        bus.poll();
+        assertEquals(0, invalidations.get());
+
+        storedVersions(new Document("_id", "home").append("version", 8));
+        bus.poll();
+        assertEquals(1, invalidations.get());
+    }
+
+    private void storedVersions(Document... documents) {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(MongoCacheInvalidationBus.COLLECTION)))
+                .thenReturn(List.of(documents));
+    }
+}
@@ -0,0 +1,114 @@
+package com.sorted.portal.service.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshAheadCacheTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>("test", 60_000, 60_000, Runnable::run);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> cache.get("k", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "v";
+            })));
+        }
+        Thread.sleep(50);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("v", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void servesTheOldValueWhileRefreshing() throws Exception {
+        List<Runnable> refreshes = new ArrayList<>();
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>("test", 1, 60_000, refreshes::add);
+        cache.get("k", () -> "v1");
+        Thread.sleep(5);
+
+        assertEquals("v1", cache.get("k", () -> "v2"));
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        Thread.sleep(5);
+        assertEquals("v2", cache.get("k", () -> "v3"));
+    }
+
+    @Test
+    void keepsTheOldValueWhenTheRefreshPoolIsFull() throws Exception {
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>("test", 1, 60_000, task -> {
+            throw new RejectedExecutionException("full");
+        });
+        cache.get("k", () -> "v1");
+        Thread.sleep(5);
+
+        assertEquals("v1", cache.get("k", () -> "v2"));
+        assertEquals("v1", cache.get("k", () -> "v2"));
+    }
+
+    @Test
+    void loadRunningDuringInvalidationIsNotCached() {
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>("test", 60_000, 60_000, Runnable::run);
+
+        assertEquals("stale", cache.get("k", () -> {
+            cache.invalidateAll();
+            return "stale";
+        }));
+        assertEquals("fresh", cache.get("k", () -> "fresh"));
+    }
+
+    @Test
+    void valuesThatAreNotCacheableAreServedButNotKept() throws Exception {
+        List<Runnable> refreshes = new ArrayList<>();
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>("test", 1, 60_000, refreshes::add);
+
+        assertEquals("partial", cache.get("k", () -> "partial", "complete"::equals));
+        assertEquals("complete", cache.get("k", () -> "complete", "complete"::equals));
+        Thread.sleep(5);
+
+        // A refresh that comes back partial keeps the complete value
+        assertEquals("complete", cache.get("k", () -> "partial", "complete"::equals));
+        refreshes.get(0).run();
+        assertEquals("complete", cache.get("k", () -> "complete again", v -> true));
+    }
+
+    @Test
+    void failedLoadIsRethrownAndNotCached() {
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>("test", 60_000, 60_000, Runnable::run);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("v", cache.get("k", () -> "v"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.sorted.portal.service.cart;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.sorted.commons.beans.Item;
+import com.sorted.commons.entity.mongo.Cart;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Races cart writes against a real Mongo. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CartMutationServiceConcurrencyTest {
+
+    private static final int REQUESTS = 50;
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(REQUESTS);
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private CartMutationService cartMutationService;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(MONGO.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(client, "portal_test");
+        mongoTemplate.dropCollection(Cart.class);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PricedCartCache pricedCartCache = new PricedCartCache(meterRegistry, 60_000, 1_000);
+        // Enough attempts for every request to lose the race to all the others
+        cartMutationService = new CartMutationService(mongoTemplate, pricedCartCache, meterRegistry, REQUESTS + 1);
+        cartMutationService.ensureIndex();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        client.close();
+    }
+
+    @Test
+    void parallelAddOneRequestsLoseNoIncrements() throws Exception {
+        cartMutationService.mutate("u1", items -> addOne(items, "p0"));
+
+        this.race(() -> cartMutationService.mutate("u1", items -> addOne(items, "p1")));
+
+        List<Item> items = this.storedItems("u1");
+        assertEquals(2, items.size());
+        assertEquals(REQUESTS, quantityOf(items, "p1"));
+        assertEquals(1, quantityOf(items, "p0"));
+    }
+
+    @Test
+    void racingFirstWritesShareOneCart() throws Exception {
+        this.race(() -> cartMutationService.mutate("u2", items -> addOne(items, "p1")));
+
+        assertEquals(1, mongoTemplate.count(Query.query(Criteria.where(Cart.Fields.user_id).is("u2")), Cart.class));
+        assertEquals(REQUESTS, quantityOf(this.storedItems("u2"), "p1"));
+    }
+
+    private void race(Runnable request) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                request.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private List<Item> storedItems(String userId) {
+        Cart cart = mongoTemplate.findOne(Query.query(Criteria.where(Cart.Fields.user_id).is(userId)), Cart.class);
+        assertNotNull(cart);
+        return cart.getCart_items();
+    }
+
+    /**
+     * Adds one of the product the way the cart endpoints do, building new lines rather than editing the read ones.
+     */
+    private static List<Item> addOne(List<Item> items, String productId) {
+        List<Item> updated = new ArrayList<>();
+        boolean found = false;
+        for (Item item : items) {
+            if (productId.equals(item.getProduct_id()) && !item.is_secure()) {
+                updated.add(CartMutationServiceTest.item(productId, false, item.getQuantity() + 1));
+                found = true;
+            } else {
+                updated.add(item);
+            }
+        }
+        if (!found) {
+            updated.add(CartMutationServiceTest.item(productId, false, 1));
+        }
+        return updated;
+    }
+
+    private static long quantityOf(List<Item> items, String productId) {
+        return items.stream()
+                .filter(item -> productId.equals(item.getProduct_id()))
+                .mapToLong(Item::getQuantity)
+                .sum();
+    }
+}
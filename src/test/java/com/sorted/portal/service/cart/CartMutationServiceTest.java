@@ -0,0 +1,110 @@
+package com.sorted.portal.service.cart;
+
+import com.sorted.commons.beans.Item;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartMutationServiceTest {
+
+    @Test
+    void unchangedItemsNeedNoWrite() {
+        Query query = versionQuery();
+
+        assertNull(CartMutationService.diff(List.of(item("p1", false, 2)), List.of(item("p1", false, 2)), query));
+        assertEquals(versionQuery().getQueryObject(), query.getQueryObject());
+    }
+
+    @Test
+    void quantityChangeIncrementsThatLineOnly() {
+        Query query = versionQuery();
+        List<Item> current = List.of(item("p1", false, 2), item("p2", true, 1));
+
+        Update update = CartMutationService.diff(current, List.of(item("p1", false, 5), item("p2", true, 1)), query);
+
+        assertEquals(new Document("cart_items.$.quantity", 3L), update.getUpdateObject().get("$inc"));
+        Document elemMatch = (Document) ((Document) query.getQueryObject().get("cart_items")).get("$elemMatch");
+        assertEquals("p1", elemMatch.get("product_id"));
+        assertEquals(false, elemMatch.get("is_secure"));
+    }
+
+    @Test
+    void secureAndRegularLinesOfAProductAreSeparate() {
+        Query query = versionQuery();
+        List<Item> current = List.of(item("p1", false, 2), item("p1", true, 1));
+
+        Update update = CartMutationService.diff(current, List.of(item("p1", false, 2), item("p1", true, 4)), query);
+
+        assertEquals(new Document("cart_items.$.quantity", 3L), update.getUpdateObject().get("$inc"));
+        Document elemMatch = (Document) ((Document) query.getQueryObject().get("cart_items")).get("$elemMatch");
+        assertEquals(true, elemMatch.get("is_secure"));
+    }
+
+    @Test
+    void newLineIsPushed() {
+        Item added = item("p2", false, 1);
+
+        Update update = CartMutationService.diff(List.of(item("p1", false, 2)),
+                List.of(item("p1", false, 2), added), versionQuery());
+
+        assertEquals(new Document("cart_items", added), update.getUpdateObject().get("$push"));
+    }
+
+    @Test
+    void removedLineIsPulledByProductAndSecureFlag() {
+        Update update = CartMutationService.diff(List.of(item("p1", false, 2), item("p2", true, 1)),
+                List.of(item("p1", false, 2)), versionQuery());
+
+        Document pull = (Document) update.getUpdateObject().get("$pull");
+        assertEquals(new Document("product_id", "p2").append("is_secure", true), pull.get("cart_items"));
+    }
+
+    @Test
+    void widerChangesReplaceTheItems() {
+        List<Item> updated = List.of(item("p1", false, 3), item("p2", false, 1));
+
+        Update update = CartMutationService.diff(List.of(item("p1", false, 2)), updated, versionQuery());
+
+        assertEquals(new Document("cart_items", updated), update.getUpdateObject().get("$set"));
+    }
+
+    @Test
+    void changeToAnythingButTheQuantityReplacesTheItems() {
+        Item combo = item("p1", false, 2);
+        combo.setCombo(true);
+        List<Item> updated = List.of(combo);
+
+        Update update = CartMutationService.diff(List.of(item("p1", false, 2)), updated, versionQuery());
+
+        assertEquals(new Document("cart_items", updated), update.getUpdateObject().get("$set"));
+    }
+
+    @Test
+    void duplicateLinesReplaceTheItems() {
+        List<Item> current = List.of(item("p1", false, 1), item("p1", false, 1));
+        List<Item> updated = new ArrayList<>(List.of(item("p1", false, 2)));
+
+        Update update = CartMutationService.diff(current, updated, versionQuery());
+
+        assertEquals(new Document("cart_items", updated), update.getUpdateObject().get("$set"));
+    }
+
+    private static Query versionQuery() {
+        return Query.query(Criteria.where("_id").is("cart").and(CartMutationService.VERSION).is(3L));
+    }
+
+    static Item item(String productId, boolean secure, long quantity) {
+        Item item = new Item();
+        item.setProduct_id(productId);
+        item.set_secure(secure);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
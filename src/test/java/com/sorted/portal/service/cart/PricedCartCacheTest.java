@@ -0,0 +1,119 @@
+package com.sorted.portal.service.cart;
+
+import com.sorted.commons.beans.Item;
+import com.sorted.commons.entity.mongo.Cart;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricedCartCacheTest {
+
+    private PricedCartCache cache;
+    private AtomicInteger loads;
+    private AtomicInteger pricings;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PricedCartCache(new SimpleMeterRegistry(), 60_000, 1_000);
+        loads = new AtomicInteger();
+        pricings = new AtomicInteger();
+    }
+
+    @Test
+    void pricesOnceAndServesTheViewFromMemory() throws Exception {
+        Cart cart = cart("u1", "p1");
+
+        assertEquals("priced:u1", cache.get("u1", "badge", loader(cart), this::price));
+        assertEquals("priced:u1", cache.get("u1", "badge", loader(cart), this::price));
+        assertEquals(1, loads.get());
+        assertEquals(1, pricings.get());
+    }
+
+    @Test
+    void viewsOfOneCartShareASingleLoad() throws Exception {
+        Cart cart = cart("u1", "p1");
+
+        cache.get("u1", "badge", loader(cart), this::price);
+        assertEquals(1, cache.<Integer>get("u1", "lines", loader(cart), c -> c.getCart_items().size()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void updateDropsTheViewsAndRepricesTheWrittenCartWithoutLoading() throws Exception {
+        cache.get("u1", "badge", loader(cart("u1", "p1")), this::price);
+        Cart written = cart("u1", "p1", "p2");
+
+        cache.update("u1", written);
+
+        assertEquals(2, cache.<Integer>get("u1", "badge", loader(cart("u1")), c -> c.getCart_items().size()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void putKeepsAViewOnlyForTheLatestCart() throws Exception {
+        Cart first = cart("u1", "p1");
+        Cart second = cart("u1", "p1", "p2");
+        cache.update("u1", first);
+        cache.update("u1", second);
+
+        cache.put("u1", "badge", first, "stale");
+        assertEquals("priced:u1", cache.get("u1", "badge", loader(second), this::price));
+
+        cache.update("u1", first);
+        cache.put("u1", "badge", first, "fresh");
+        assertEquals("fresh", cache.get("u1", "badge", loader(first), this::price));
+    }
+
+    @Test
+    void productChangeDropsOnlyTheCartsHoldingIt() throws Exception {
+        cache.get("u1", "badge", loader(cart("u1", "p1")), this::price);
+        cache.get("u2", "badge", loader(cart("u2", "p2")), this::price);
+
+        cache.invalidateProducts(List.of("p1"));
+
+        cache.get("u1", "badge", loader(cart("u1", "p1")), this::price);
+        cache.get("u2", "badge", loader(cart("u2", "p2")), this::price);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void viewPricedWhileTheCartChangedIsServedButNotKept() throws Exception {
+        Cart cart = cart("u1", "p1");
+
+        assertEquals("priced:u1", cache.get("u1", "badge", loader(cart), c -> {
+            cache.invalidate("u1");
+            return this.price(c);
+        }));
+        cache.get("u1", "badge", loader(cart), this::price);
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<Cart> loader(Cart cart) {
+        return () -> {
+            loads.incrementAndGet();
+            return cart;
+        };
+    }
+
+    private String price(Cart cart) {
+        pricings.incrementAndGet();
+        return "priced:" + cart.getUser_id();
+    }
+
+    private static Cart cart(String userId, String... productIds) {
+        Cart cart = CartMutationService.emptyCart(userId);
+        List<Item> items = new ArrayList<>();
+        for (String productId : productIds) {
+            items.add(CartMutationServiceTest.item(productId, false, 1));
+        }
+        cart.setCart_items(items);
+        return cart;
+    }
+}
@@ -0,0 +1,65 @@
+package com.sorted.portal.service.notification;
+
+import com.sorted.commons.enums.MailTemplate;
+import com.sorted.portal.service.notification.OutboxNotification.Channel;
+import com.sorted.portal.service.notification.OutboxNotification.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NotificationOutboxTest {
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        outbox = new NotificationOutbox(mongoTemplate, meterRegistry);
+    }
+
+    @Test
+    void notificationIsQueuedUnderItsKey() {
+        assertTrue(outbox.orderMail(NotificationOutbox.key("new_order", "email", "o1"), "o1",
+                MailTemplate.NEW_ORDER_ARRIVED));
+
+        ArgumentCaptor<OutboxNotification> inserted = ArgumentCaptor.forClass(OutboxNotification.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertEquals("new_order:email:o1", inserted.getValue().getId());
+        assertEquals(Status.PENDING, inserted.getValue().getStatus());
+        assertNotNull(inserted.getValue().getNext_attempt_at());
+        assertEquals(1, outcomes(Channel.ORDER_MAIL, "queued"));
+    }
+
+    @Test
+    void alreadyQueuedKeyIsNotQueuedAgain() {
+        when(mongoTemplate.insert(any(OutboxNotification.class))).thenThrow(new DuplicateKeyException("E11000"));
+
+        assertFalse(outbox.orderMail("new_order:email:o1", "o1", MailTemplate.NEW_ORDER_ARRIVED));
+
+        assertEquals(1, outcomes(Channel.ORDER_MAIL, "deduplicated"));
+        assertEquals(0, outcomes(Channel.ORDER_MAIL, "queued"));
+    }
+
+    @Test
+    void notificationWithoutRecipientIsSkipped() {
+        assertFalse(outbox.email("welcome:email:u1", " ", MailTemplate.SELLER_WELCOME_MAIL, "{}"));
+
+        verifyNoInteractions(mongoTemplate);
+        assertEquals(1, outcomes(Channel.EMAIL, "skipped"));
+    }
+
+    private double outcomes(Channel channel, String outcome) {
+        return meterRegistry.counter("portal.notification.outbox", "channel", channel.name(), "outcome", outcome)
+                .count();
+    }
+}
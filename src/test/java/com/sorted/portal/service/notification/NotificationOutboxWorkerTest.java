@@ -0,0 +1,169 @@
+package com.sorted.portal.service.notification;
+
+import com.sorted.commons.entity.service.Order_Details_Service;
+import com.sorted.commons.notifications.EmailSenderImpl;
+import com.sorted.commons.notifications.SMSService;
+import com.sorted.commons.notifications.helper.SmsTraceHelper;
+import com.sorted.commons.utils.PorterUtility;
+import com.sorted.portal.service.notification.OutboxNotification.Channel;
+import com.sorted.portal.service.notification.OutboxNotification.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationOutboxWorkerTest {
+
+    private static final long LEASE_MS = 120_000;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BACKOFF_MS = 10_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        worker = new NotificationOutboxWorker(mongoTemplate, mock(EmailSenderImpl.class), mock(SMSService.class),
+                mock(SmsTraceHelper.class), mock(PorterUtility.class), mock(Order_Details_Service.class),
+                meterRegistry, 2, LEASE_MS, MAX_ATTEMPTS, BACKOFF_MS, MAX_BACKOFF_MS, 72, 10, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void claimLeasesTheEarliestDueNotificationOrALapsedLease() {
+        OutboxNotification claimed = notification(1);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(OutboxNotification.class))).thenReturn(claimed);
+        LocalDateTime before = LocalDateTime.now();
+
+        assertSame(claimed, worker.claim());
+
+        LocalDateTime after = LocalDateTime.now();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(),
+                eq(OutboxNotification.class));
+        Document filter = query.getValue().getQueryObject();
+        // A SENDING notification is due once its lease, held in next_attempt_at, has passed
+        assertEquals(List.of(Status.PENDING, Status.SENDING), filter.get("status", Document.class).get("$in"));
+        LocalDateTime dueBy = (LocalDateTime) filter.get("next_attempt_at", Document.class).get("$lte");
+        assertBetween(before, after, dueBy);
+        assertEquals(new Document("next_attempt_at", 1), query.getValue().getSortObject());
+
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(Status.SENDING, set.get("status"));
+        assertEquals(dueBy.plusNanos(LEASE_MS * 1_000_000), set.get("next_attempt_at"));
+        assertEquals(new Document("attempts", 1), update.getValue().getUpdateObject().get("$inc"));
+        assertTrue(options.getValue().isReturnNew());
+    }
+
+    @Test
+    void failedSendIsRetriedWithExponentialBackoff() {
+        OutboxNotification notification = notification(2);
+        LocalDateTime before = LocalDateTime.now();
+
+        worker.fail(notification, new IllegalStateException("smtp down"));
+
+        Document set = completed(notification).get("$set", Document.class);
+        assertEquals(Status.PENDING, set.get("status"));
+        assertEquals("smtp down", set.get("last_error"));
+        assertBetween(before.plusSeconds(20), LocalDateTime.now().plusSeconds(20),
+                (LocalDateTime) set.get("next_attempt_at"));
+        assertFalse(set.containsKey("expire_at"));
+        assertEquals(1, meterRegistry.counter("portal.notification.outbox", "channel", "EMAIL", "outcome",
+                "retried").count());
+    }
+
+    @Test
+    void backoffIsCappedAtTheMaximum() {
+        OutboxNotification notification = notification(3);
+        LocalDateTime before = LocalDateTime.now();
+
+        worker.fail(notification, new IllegalStateException("smtp down"));
+
+        Document set = completed(notification).get("$set", Document.class);
+        assertBetween(before.plusSeconds(30), LocalDateTime.now().plusSeconds(30),
+                (LocalDateTime) set.get("next_attempt_at"));
+    }
+
+    @Test
+    void lastAttemptMarksTheNotificationFailed() {
+        OutboxNotification notification = notification(MAX_ATTEMPTS);
+
+        worker.fail(notification, new IllegalStateException("x".repeat(600)));
+
+        Document set = completed(notification).get("$set", Document.class);
+        assertEquals(Status.FAILED, set.get("status"));
+        assertEquals(500, set.getString("last_error").length());
+        assertTrue(set.get("expire_at", LocalDateTime.class).isAfter(LocalDateTime.now().plusHours(71)));
+        assertFalse(set.containsKey("next_attempt_at"));
+        assertEquals(1, meterRegistry.counter("portal.notification.outbox", "channel", "EMAIL", "outcome",
+                "failed").count());
+    }
+
+    @Test
+    void completeOnlyMatchesTheClaimItWasGiven() {
+        OutboxNotification notification = notification(2);
+
+        worker.complete(notification, new Update().set("status", Status.SENT));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(OutboxNotification.class));
+        // Once the lease lapses and another worker claims it, attempts is 3 and this update matches nothing
+        assertEquals(new Document("_id", "n1").append("status", Status.SENDING).append("attempts", 2),
+                query.getValue().getQueryObject());
+    }
+
+    @Test
+    void failureThatCannotBeRecordedIsLeftToTheLease() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OutboxNotification.class)))
+                .thenThrow(new IllegalStateException("write concern"));
+
+        assertDoesNotThrow(() -> worker.fail(notification(1), new IllegalStateException("smtp down")));
+    }
+
+    private Document completed(OutboxNotification notification) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(OutboxNotification.class));
+        assertEquals(notification.getAttempts(), query.getValue().getQueryObject().get("attempts"));
+        return update.getValue().getUpdateObject();
+    }
+
+    private static void assertBetween(LocalDateTime from, LocalDateTime to, LocalDateTime actual) {
+        assertFalse(actual.isBefore(from), actual + " is before " + from);
+        assertFalse(actual.isAfter(to), actual + " is after " + to);
+    }
+
+    private static OutboxNotification notification(int attempts) {
+        OutboxNotification notification = new OutboxNotification();
+        notification.setId("n1");
+        notification.setChannel(Channel.EMAIL);
+        notification.setStatus(Status.SENDING);
+        notification.setAttempts(attempts);
+        return notification;
+    }
+}
@@ -0,0 +1,138 @@
+package com.sorted.portal.service.order;
+
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import com.sorted.portal.service.KeysetPagination;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderKeysetQueryTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    private MongoTemplate mongoTemplate;
+    private OrderKeysetQuery query;
+    private final Criteria scope = Criteria.where("seller_id").is("s1");
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        query = new OrderKeysetQuery(mongoTemplate);
+    }
+
+    @Test
+    void firstPageSortsByCreationDateThenIdAndCounts() {
+        when(mongoTemplate.count(any(Query.class), eq(Order_Details.class))).thenReturn(7L);
+        when(mongoTemplate.find(any(Query.class), eq(Order_Details.class)))
+                .thenReturn(List.of(order(id(3), T), order(id(2), T), order(id(1), T)));
+
+        KeysetPagination.Page<Order_Details> page = query.findPage(scope, null, 2);
+
+        Query sent = capturedFind().get(0);
+        assertEquals(new Document("creation_date", -1).append("_id", -1), sent.getSortObject());
+        assertEquals(3, sent.getLimit());
+        assertEquals(scope.getCriteriaObject(), sent.getQueryObject());
+        assertEquals(2, page.items().size());
+        assertTrue(page.hasMore());
+        assertEquals(7L, page.totalCount());
+        assertNotNull(page.nextCursor());
+    }
+
+    @Test
+    void nextPageContinuesAfterTheLastDateAndIdWithoutCounting() {
+        ObjectId last = id(2);
+        when(mongoTemplate.count(any(Query.class), eq(Order_Details.class))).thenReturn(7L);
+        when(mongoTemplate.find(any(Query.class), eq(Order_Details.class)))
+                .thenReturn(List.of(order(id(3), T), order(last, T), order(id(1), T)))
+                .thenReturn(List.of(order(id(1), T)));
+
+        String token = query.findPage(scope, null, 2).nextCursor();
+        KeysetPagination.Page<Order_Details> page = query.findPage(scope, token, 2);
+
+        verify(mongoTemplate, times(1)).count(any(Query.class), eq(Order_Details.class));
+        Document filter = capturedFind().get(1).getQueryObject();
+        @SuppressWarnings("unchecked")
+        List<Document> and = (List<Document>) filter.get("$and");
+        assertEquals(scope.getCriteriaObject(), and.get(0));
+        assertEquals(List.of(
+                new Document("creation_date", new Document("$lt", T)),
+                new Document("creation_date", T).append("_id", new Document("$lt", last))), and.get(1).get("$or"));
+        assertFalse(page.hasMore());
+        assertNull(page.nextCursor());
+        assertEquals(7L, page.totalCount());
+    }
+
+    @Test
+    void iterateWalksBatchesUntilAShortOne() {
+        when(mongoTemplate.find(any(Query.class), eq(Order_Details.class)))
+                .thenReturn(List.of(order(id(4), T), order(id(3), T)))
+                .thenReturn(List.of(order(id(2), T.minusSeconds(1))));
+
+        Iterator<String> ids = query.iterate(scope, 2, batch -> batch.stream().map(Order_Details::getId).toList());
+        List<String> walked = new ArrayList<>();
+        ids.forEachRemaining(walked::add);
+
+        assertEquals(List.of(id(4).toHexString(), id(3).toHexString(), id(2).toHexString()), walked);
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Order_Details.class));
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Order_Details.class));
+    }
+
+    @Test
+    void orderWithoutCreationDateEndsTheWalk() {
+        when(mongoTemplate.count(any(Query.class), eq(Order_Details.class))).thenReturn(3L);
+        when(mongoTemplate.find(any(Query.class), eq(Order_Details.class)))
+                .thenReturn(List.of(order(id(2), null), order(id(1), null)));
+
+        KeysetPagination.Page<Order_Details> page = query.findPage(scope, null, 1);
+
+        assertEquals(1, page.items().size());
+        assertFalse(page.hasMore());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(CustomIllegalArgumentsException.class, () -> query.findPage(scope, "bm90LWEtY3Vyc29y", 2));
+        assertThrows(CustomIllegalArgumentsException.class, () -> query.findPage(scope, "%%%", 2));
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        OrderKeysetQuery.Cursor cursor = new OrderKeysetQuery.Cursor(T.plusNanos(123_000_000), id(9).toHexString(), 42);
+
+        assertEquals(cursor, OrderKeysetQuery.Cursor.decode(cursor.encode()));
+    }
+
+    private List<Query> capturedFind() {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeastOnce()).find(captor.capture(), eq(Order_Details.class));
+        return captor.getAllValues();
+    }
+
+    private static ObjectId id(int n) {
+        return new ObjectId(String.format("%024x", n));
+    }
+
+    private static Order_Details order(ObjectId id, LocalDateTime creationDate) {
+        Order_Details order = new Order_Details();
+        order.setId(id.toHexString());
+        order.setCreation_date(creationDate);
+        return order;
+    }
+}
@@ -0,0 +1,97 @@
+package com.sorted.portal.service.order;
+
+import com.sorted.commons.beans.TableConfig;
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.entity.mongo.Order_Item;
+import com.sorted.commons.enums.ColumnType;
+import com.sorted.commons.utils.TemplateProcessorUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order table rendering against order size: rebuilding the table config on every call as before, rendering with the
+ * static config of {@link OrderTemplateService} (its cache disabled), and serving the table from its cache. Items
+ * are passed in, so no Mongo is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTemplateBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private Order_Details order;
+    private List<Order_Item> orderItems;
+    private OrderTemplateService uncached;
+    private OrderTemplateService cached;
+
+    @Setup
+    public void setUp() {
+        order = new Order_Details();
+        order.setId("order-1");
+        order.setCode("ORD-000001");
+        order.setCreation_date(LocalDateTime.of(2026, 3, 1, 10, 0));
+        order.setModification_date(LocalDateTime.of(2026, 3, 1, 10, 5));
+        orderItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Order_Item orderItem = new Order_Item();
+            orderItem.setOrder_id(order.getId());
+            orderItem.setProduct_name("Product " + i);
+            orderItem.setQuantity((long) (i % 5 + 1));
+            orderItems.add(orderItem);
+        }
+        // A cache of size zero keeps nothing, so every call renders
+        uncached = new OrderTemplateService(null, new SimpleMeterRegistry(), 3_600_000, 0);
+        cached = new OrderTemplateService(null, new SimpleMeterRegistry(), 3_600_000, 5_000);
+        cached.getOrderTemplateTable(order, orderItems);
+    }
+
+    @Benchmark
+    public String rebuildConfig() {
+        StringBuilder productDetails = new StringBuilder();
+        for (Order_Item orderItem : orderItems) {
+            productDetails.append(orderItem.getProduct_name()).append("|").append(orderItem.getQuantity()).append("|");
+        }
+        TableConfig orderConfig = TemplateProcessorUtil.createTableConfig(2)
+                .withTableCssClass("order-table")
+                .withNoDataMessage("No order data available")
+                .addInfoSection("Order Number", 0, "order-info")
+                .addInfoSection("Order Date", 1, "order-info")
+                .addColumn("Sr. No.", ColumnType.SERIAL_NUMBER)
+                .addColumn("Product Name", ColumnType.DATA)
+                .addColumn("Quantity", ColumnType.DATA)
+                .build();
+        Map<String, TableConfig> tableConfigs = new HashMap<>();
+        tableConfigs.put("orderDetails", orderConfig);
+        String content = order.getCode() + "|" + order.getCreation_date_str() + "|" + productDetails;
+        return TemplateProcessorUtil.replacePlaceholders("<div>{{orderDetails}}</div>", content, tableConfigs);
+    }
+
+    @Benchmark
+    public String render() {
+        return uncached.getOrderTemplateTable(order, orderItems);
+    }
+
+    @Benchmark
+    public String cacheHit() {
+        return cached.getOrderTemplateTable(order, orderItems);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrderTemplateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
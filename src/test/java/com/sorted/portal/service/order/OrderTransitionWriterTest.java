@@ -0,0 +1,179 @@
+package com.sorted.portal.service.order;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.sorted.commons.entity.mongo.Order_Item;
+import com.sorted.commons.entity.mongo.Products;
+import com.sorted.commons.enums.OrderStatus;
+import com.sorted.portal.service.cart.PricedCartCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderTransitionWriterTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private PricedCartCache pricedCartCache;
+    private OrderTransitionWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        pricedCartCache = mock(PricedCartCache.class);
+        when(mongoTemplate.bulkOps(eq(BulkMode.UNORDERED), any(Class.class))).thenReturn(bulk);
+        when(mongoTemplate.getConverter()).thenReturn(converter());
+        writer = new OrderTransitionWriter(mongoTemplate, pricedCartCache, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void transitionItemsSendsOnlyTheStatusFieldsOfEachItem() {
+        modified(2);
+        Order_Item first = item("i1");
+        Order_Item second = item("i2");
+
+        int written = writer.transitionItems(List.of(first, second), OrderStatus.ORDER_ACCEPTED, "seller-1");
+
+        assertEquals(2, written);
+        verify(mongoTemplate).bulkOps(BulkMode.UNORDERED, Order_Item.class);
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).updateOne(queries.capture(), updates.capture());
+        assertEquals(new Document("_id", "i1"), queries.getAllValues().get(0).getQueryObject());
+        assertEquals(new Document("_id", "i2"), queries.getAllValues().get(1).getQueryObject());
+
+        Document set = updates.getAllValues().get(0).getUpdateObject().get("$set", Document.class);
+        assertEquals(OrderStatus.ORDER_ACCEPTED.getId(), set.get(Order_Item.Fields.status_id));
+        assertEquals(OrderStatus.ORDER_ACCEPTED.name(), set.get(Order_Item.Fields.status));
+        assertEquals(List.of(OrderStatus.ORDER_ACCEPTED.name()), set.get(Order_Item.Fields.order_status_history));
+        assertEquals("seller-1", set.get("modified_by"));
+        assertInstanceOf(LocalDateTime.class, set.get("modification_date"));
+        assertFalse(set.containsKey(Order_Item.Fields.quantity));
+        assertFalse(set.containsKey(Order_Item.Fields.order_id));
+        assertEquals(1, updates.getAllValues().get(0).getUpdateObject().size());
+        // The items in memory move as well
+        assertEquals(OrderStatus.ORDER_ACCEPTED.getId(), second.getStatus_id());
+    }
+
+    @Test
+    void restoreStockIncrementsLiveProducts() {
+        modified(2);
+        Map<String, Long> quantities = new LinkedHashMap<>();
+        quantities.put("p1", 2L);
+        quantities.put("p2", 5L);
+
+        writer.restoreStock(quantities);
+
+        verify(mongoTemplate).bulkOps(BulkMode.UNORDERED, Products.class);
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).updateOne(queries.capture(), updates.capture());
+        assertEquals(liveProduct("p1"), queries.getAllValues().get(0).getQueryObject());
+        assertEquals(liveProduct("p2"), queries.getAllValues().get(1).getQueryObject());
+        Document update = updates.getAllValues().get(1).getUpdateObject();
+        assertEquals(new Document(Products.Fields.quantity, 5L), update.get("$inc"));
+        assertTrue(update.get("$set", Document.class).containsKey("modification_date"));
+        verify(bulk).execute();
+        verify(pricedCartCache).invalidateProducts(quantities.keySet());
+    }
+
+    @Test
+    void consumeStockSubtractsInTheDatabaseWithoutGoingBelowZero() {
+        modified(1);
+
+        writer.consumeStock(Map.of("p1", 3L));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(bulk).updateOne(query.capture(), update.capture());
+        assertEquals(liveProduct("p1"), query.getValue().getQueryObject());
+        List<Document> pipeline = ((AggregationUpdate) update.getValue()).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        Document remaining = new Document("$max", List.of(0L, new Document("$subtract", List.of(
+                new Document("$ifNull", List.of("$" + Products.Fields.quantity, 0L)), 3L))));
+        assertEquals(new Document("$set", new Document(Products.Fields.quantity, remaining)), pipeline.get(0));
+        assertTrue(pipeline.get(1).get("$set", Document.class).containsKey("modification_date"));
+        verify(pricedCartCache).invalidateProducts(Map.of("p1", 3L).keySet());
+    }
+
+    @Test
+    void markOutOfStockZeroesLiveProductsInOneUpdate() {
+        UpdateResult result = mock(UpdateResult.class);
+        when(result.getModifiedCount()).thenReturn(2L);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Products.class))).thenReturn(result);
+
+        writer.markOutOfStock(List.of("p1", "p2"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(Products.class));
+        assertEquals(new Document("_id", new Document("$in", List.of("p1", "p2"))).append("deleted", false),
+                query.getValue().getQueryObject());
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(0L, set.get(Products.Fields.quantity));
+        assertTrue(set.containsKey("modification_date"));
+        verify(pricedCartCache).invalidateProducts(List.of("p1", "p2"));
+    }
+
+    @Test
+    void nothingToWriteSkipsTheDatabase() {
+        assertEquals(0, writer.transitionItems(List.of(), OrderStatus.ORDER_ACCEPTED, "seller-1"));
+        writer.restoreStock(Map.of());
+        writer.consumeStock(Map.of());
+        writer.markOutOfStock(List.of());
+
+        verifyNoInteractions(mongoTemplate, pricedCartCache);
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private void modified(int count) {
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getModifiedCount()).thenReturn(count);
+        when(bulk.execute()).thenReturn(result);
+    }
+
+    private static Document liveProduct(String productId) {
+        return new Document("_id", productId).append("deleted", false);
+    }
+
+    private static Order_Item item(String id) {
+        Order_Item item = new Order_Item();
+        item.setId(id);
+        item.setOrder_id("o1");
+        item.setQuantity(2L);
+        return item;
+    }
+}
@@ -0,0 +1,125 @@
+package com.sorted.portal.service.order;
+
+import com.sorted.commons.exceptions.CustomIllegalArgumentsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(5000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch waiting = new CountDownLatch(5);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("order", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "paid";
+        }, () -> fail("the first caller makes the call")));
+        awaitInFlight(singleFlight);
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute("order", () -> {
+                calls.incrementAndGet();
+                return "own call";
+            }, waiting::countDown)));
+        }
+        assertTrue(waiting.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertEquals("paid", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("paid", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void errorsThatAreNotExceptionsStillReleaseWaiters() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(5000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch waiting = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("order", () -> {
+            await(release);
+            throw new OutOfMemoryError("gateway response too large");
+        }, () -> {
+        }));
+        awaitInFlight(singleFlight);
+        Future<String> follower = executor.submit(() -> singleFlight.execute("order", () -> "own call",
+                waiting::countDown));
+        assertTrue(waiting.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertInstanceOf(OutOfMemoryError.class, assertThrows(ExecutionException.class,
+                () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(OutOfMemoryError.class, assertThrows(ExecutionException.class,
+                () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(0, singleFlight.inFlight());
+        assertEquals("retried", singleFlight.execute("order", () -> "retried", () -> {
+        }));
+    }
+
+    @Test
+    void waitersGiveUpAfterTheMaxWait() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(50);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("order", () -> {
+            await(release);
+            return "paid";
+        }, () -> {
+        }));
+        awaitInFlight(singleFlight);
+
+        assertThrows(CustomIllegalArgumentsException.class, () -> singleFlight.execute("order", () -> "own call",
+                () -> {
+                }));
+        release.countDown();
+        assertEquals("paid", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void differentKeysDoNotWaitForEachOther() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(5000);
+
+        String outer = singleFlight.execute("a", () -> singleFlight.execute("b", () -> "b", () -> fail("not shared")),
+                () -> fail("not shared"));
+
+        assertEquals("b", outer);
+    }
+
+    private static void awaitInFlight(SingleFlight<?, ?> singleFlight) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.inFlight() == 0) {
+            assertTrue(System.nanoTime() < deadline, "call did not start");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
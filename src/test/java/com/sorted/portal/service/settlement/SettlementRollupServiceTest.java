@@ -0,0 +1,226 @@
+package com.sorted.portal.service.settlement;
+
+import com.sorted.commons.beans.SettlementDetails;
+import com.sorted.commons.entity.mongo.Order_Details;
+import com.sorted.commons.entity.service.Order_Details_Service;
+import com.sorted.commons.enums.OrderStatus;
+import com.sorted.portal.service.settlement.SettlementRollupService.Contribution;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SettlementRollupServiceTest {
+
+    private static final LocalDateTime MARCH_1 = LocalDateTime.of(2026, 3, 1, 10, 0);
+    private static final LocalDateTime MARCH_2 = LocalDateTime.of(2026, 3, 2, 18, 30);
+
+    private MongoTemplate mongoTemplate;
+    private Order_Details_Service orderDetailsService;
+    private SettlementRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        orderDetailsService = mock(Order_Details_Service.class);
+        service = new SettlementRollupService(mongoTemplate, orderDetailsService, new SimpleMeterRegistry(), 2);
+    }
+
+    @Test
+    void ineligibleOrdersContributeNothing() {
+        assertEquals(Contribution.NONE, service.contributionOf(null));
+        assertEquals(Contribution.NONE, service.contributionOf(order("o1", OrderStatus.TRANSACTION_PROCESSED)));
+        assertEquals(Contribution.NONE, service.contributionOf(order("o1", OrderStatus.ORDER_CANCELLED)));
+        Order_Details deleted = order("o1", OrderStatus.DELIVERED);
+        deleted.setDeleted(true);
+        assertEquals(Contribution.NONE, service.contributionOf(deleted));
+    }
+
+    @Test
+    void acceptedOrderIsAddedAsUnpaid() {
+        Order_Details order = order("o1", OrderStatus.TRANSACTION_PROCESSED);
+        Contribution before = service.contributionOf(order);
+
+        order.setStatus(OrderStatus.ORDER_ACCEPTED, "seller");
+        service.applyChange(order, before);
+
+        Document inc = increments("s1:2026-03-01");
+        assertEquals(0L, inc.get("paid_paise"));
+        assertEquals(10_000L, (long) inc.get("unpaid_paise") + (long) inc.get("fee_paise"));
+        assertTrue((long) inc.get("fee_paise") > 0);
+        assertEquals(1L, inc.get("order_count"));
+        assertEquals(0L, inc.get("paid_count"));
+    }
+
+    @Test
+    void cancelledOrderTakesBackWhatItAdded() {
+        Order_Details order = order("o1", OrderStatus.RIDER_ASSIGNED);
+        Contribution before = service.contributionOf(order);
+
+        order.setStatus(OrderStatus.ORDER_CANCELLED, "porter");
+        service.applyChange(order, before);
+
+        assertEquals(negated(before), increments("s1:2026-03-01"));
+    }
+
+    @Test
+    void refundRequestTakesBackWhatThePaidOrderAdded() {
+        Order_Details order = paid(order("o1", OrderStatus.DELIVERED), "90.00");
+        Contribution before = service.contributionOf(order);
+        assertEquals(9_000L, before.paidPaise());
+        assertEquals(0L, before.unpaidPaise());
+
+        order.setStatus(OrderStatus.REFUND_REQUESTED, "customer");
+        service.applyChange(order, before);
+
+        assertEquals(negated(before), increments("s1:2026-03-01"));
+    }
+
+    @Test
+    void payoutMovesTheAmountFromUnpaidToPaid() {
+        Order_Details order = order("o1", OrderStatus.DELIVERED);
+        Contribution before = service.contributionOf(order);
+
+        service.applyChange(paid(order, "90.00"), before);
+
+        Document inc = increments("s1:2026-03-01");
+        assertEquals(9_000L, inc.get("paid_paise"));
+        assertEquals(-before.unpaidPaise(), inc.get("unpaid_paise"));
+        assertEquals(0L, inc.get("fee_paise"));
+        assertEquals(0L, inc.get("order_count"));
+        assertEquals(1L, inc.get("paid_count"));
+    }
+
+    @Test
+    void unchangedContributionWritesNothing() {
+        Order_Details order = order("o1", OrderStatus.RIDER_ASSIGNED);
+        Contribution before = service.contributionOf(order);
+
+        order.setStatus(OrderStatus.OUT_FOR_DELIVERY, "porter");
+        service.applyChange(order, before);
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void failedUpdateIsLeftToTheRebuild() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(SettlementRollup.class)))
+                .thenThrow(new IllegalStateException("write concern"));
+
+        assertDoesNotThrow(() -> service.applyChange(order("o1", OrderStatus.ORDER_ACCEPTED), Contribution.NONE));
+    }
+
+    @Test
+    void rebuildMatchesTheSumOfIncrementalChanges() {
+        Order_Details o1 = order("o1", "s1", MARCH_1, 10_000L, OrderStatus.TRANSACTION_PROCESSED);
+        Order_Details o2 = order("o2", "s1", MARCH_1, 4_550L, OrderStatus.TRANSACTION_PROCESSED);
+        Order_Details o3 = order("o3", "s1", MARCH_2, 2_000L, OrderStatus.TRANSACTION_PROCESSED);
+        Order_Details o4 = order("o4", "s2", MARCH_1, 7_300L, OrderStatus.TRANSACTION_PROCESSED);
+
+        transition(o1, OrderStatus.ORDER_ACCEPTED);
+        transition(o2, OrderStatus.ORDER_ACCEPTED);
+        transition(o3, OrderStatus.ORDER_ACCEPTED);
+        transition(o4, OrderStatus.ORDER_ACCEPTED);
+        transition(o1, OrderStatus.DELIVERED);
+        Contribution before = service.contributionOf(o1);
+        service.applyChange(paid(o1, "90.00"), before);
+        transition(o2, OrderStatus.ORDER_CANCELLED);
+        transition(o4, OrderStatus.DELIVERED);
+        transition(o4, OrderStatus.REFUND_REQUESTED);
+        Map<String, Contribution> incremental = sumOfIncrements();
+
+        // The rebuild reads the eligible orders in their final state
+        when(orderDetailsService.repoFind(any())).thenReturn(List.of(o1, o3)).thenReturn(List.of());
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SettlementRollup.class)).thenReturn(bulk);
+        service.rebuild();
+
+        ArgumentCaptor<SettlementRollup> rows = ArgumentCaptor.forClass(SettlementRollup.class);
+        verify(bulk, atLeastOnce()).replaceOne(any(Query.class), rows.capture(), any(FindAndReplaceOptions.class));
+        Map<String, Contribution> rebuilt = new HashMap<>();
+        for (SettlementRollup row : rows.getAllValues()) {
+            rebuilt.put(row.getId(), new Contribution(row.getPaid_paise(), row.getUnpaid_paise(),
+                    row.getFee_paise(), row.getOrder_count(), row.getPaid_count()));
+        }
+        incremental.values().removeIf(Contribution::isZero);
+        assertEquals(Set.of("s1:2026-03-01", "s1:2026-03-02"), rebuilt.keySet());
+        assertEquals(incremental, rebuilt);
+    }
+
+    private void transition(Order_Details order, OrderStatus status) {
+        Contribution before = service.contributionOf(order);
+        order.setStatus(status, "test");
+        service.applyChange(order, before);
+    }
+
+    private Document increments(String rowId) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(SettlementRollup.class));
+        assertEquals(new Document("_id", rowId), query.getValue().getQueryObject());
+        return update.getValue().getUpdateObject().get("$inc", Document.class);
+    }
+
+    private Map<String, Contribution> sumOfIncrements() {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).upsert(queries.capture(), updates.capture(), eq(SettlementRollup.class));
+        Map<String, Contribution> sums = new HashMap<>();
+        for (int i = 0; i < updates.getAllValues().size(); i++) {
+            Document inc = updates.getAllValues().get(i).getUpdateObject().get("$inc", Document.class);
+            Contribution delta = new Contribution((long) inc.get("paid_paise"), (long) inc.get("unpaid_paise"),
+                    (long) inc.get("fee_paise"), (long) inc.get("order_count"), (long) inc.get("paid_count"));
+            sums.merge(queries.getAllValues().get(i).getQueryObject().getString("_id"), delta, Contribution::plus);
+        }
+        return sums;
+    }
+
+    private static Document negated(Contribution contribution) {
+        return new Document("paid_paise", -contribution.paidPaise())
+                .append("unpaid_paise", -contribution.unpaidPaise())
+                .append("fee_paise", -contribution.feePaise())
+                .append("order_count", -contribution.orders())
+                .append("paid_count", -contribution.paidOrders());
+    }
+
+    private static Order_Details order(String id, OrderStatus status) {
+        return order(id, "s1", MARCH_1, 10_000L, status);
+    }
+
+    private static Order_Details order(String id, String sellerId, LocalDateTime created, long itemsCost,
+                                       OrderStatus status) {
+        Order_Details order = new Order_Details();
+        order.setId(id);
+        order.setSeller_id(sellerId);
+        order.setCreation_date(created);
+        order.setTotal_items_cost(itemsCost);
+        order.setStatus(status, "test");
+        return order;
+    }
+
+    private static Order_Details paid(Order_Details order, String amount) {
+        SettlementDetails settlementDetails = mock(SettlementDetails.class);
+        when(settlementDetails.getAmount()).thenReturn(new BigDecimal(amount));
+        order.setIs_payout_done(true);
+        order.setSettlement_details(settlementDetails);
+        return order;
+    }
+}